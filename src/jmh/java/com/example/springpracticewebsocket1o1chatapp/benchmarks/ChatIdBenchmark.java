@@ -0,0 +1,83 @@
+package com.example.springpracticewebsocket1o1chatapp.benchmarks;
+
+import com.example.springpracticewebsocket1o1chatapp.caches.ChatRoomIdCache;
+import com.example.springpracticewebsocket1o1chatapp.configs.ChatRoomCacheProperties;
+import com.example.springpracticewebsocket1o1chatapp.configs.ChatRoomProperties;
+import com.example.springpracticewebsocket1o1chatapp.model.ChatIdStrategy;
+import com.example.springpracticewebsocket1o1chatapp.services.impl.ChatRoomServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures deriving a chat ID, and creating a chat room with it against in-memory repositories.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ChatIdBenchmark {
+
+    @Param({"SENDER_FIRST", "CANONICAL"})
+    private ChatIdStrategy strategy;
+
+    private String senderId;
+    private String recipientId;
+    private ChatRoomServiceImpl chatRoomService;
+
+    /**
+     * Creates the chat room service with its cache and an in-memory repository.
+     */
+    @Setup
+    public void setUp() {
+        // Read from fields so the JIT cannot fold the formatting of constant arguments
+        senderId = "bob";
+        recipientId = "alice";
+
+        var cache = new ChatRoomIdCache(
+                new ChatRoomCacheProperties(100_000, Duration.ofHours(1), Duration.ofSeconds(30)),
+                new SimpleMeterRegistry()
+        );
+        chatRoomService = new ChatRoomServiceImpl(
+                InMemoryRepositories.chatRoomRepo(),
+                cache,
+                new ChatRoomProperties(strategy, false)
+        );
+    }
+
+    /**
+     * Derives the chat ID for a pair of users.
+     *
+     * @return the chat ID
+     */
+    @Benchmark
+    public String chatId() {
+        return strategy.chatId(senderId, recipientId);
+    }
+
+    /**
+     * Creates the chat room entries of a pair and caches the chat ID.
+     * With the canonical strategy the entries already exist after the first call, so this measures
+     * the duplicate inserts being ignored.
+     *
+     * @return the chat ID
+     */
+    @Benchmark
+    public String createChatId() {
+        return chatRoomService.createChatId(senderId, recipientId);
+    }
+}
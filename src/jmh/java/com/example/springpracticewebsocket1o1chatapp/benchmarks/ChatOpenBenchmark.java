@@ -0,0 +1,158 @@
+package com.example.springpracticewebsocket1o1chatapp.benchmarks;
+
+import com.example.springpracticewebsocket1o1chatapp.caches.ChatRoomIdCache;
+import com.example.springpracticewebsocket1o1chatapp.caches.RecentMessageCache;
+import com.example.springpracticewebsocket1o1chatapp.caches.RecentMessageIdCache;
+import com.example.springpracticewebsocket1o1chatapp.configs.BrokerProperties;
+import com.example.springpracticewebsocket1o1chatapp.configs.ChatRoomCacheProperties;
+import com.example.springpracticewebsocket1o1chatapp.configs.ChatRoomProperties;
+import com.example.springpracticewebsocket1o1chatapp.configs.MessageDedupProperties;
+import com.example.springpracticewebsocket1o1chatapp.configs.RecentMessageCacheProperties;
+import com.example.springpracticewebsocket1o1chatapp.documents.ChatMessage;
+import com.example.springpracticewebsocket1o1chatapp.model.BrokerMode;
+import com.example.springpracticewebsocket1o1chatapp.model.ChatIdStrategy;
+import com.example.springpracticewebsocket1o1chatapp.repos.ChatMessageRepo;
+import com.example.springpracticewebsocket1o1chatapp.services.ChatArchiveService;
+import com.example.springpracticewebsocket1o1chatapp.services.impl.ChatMessageBatchWriter;
+import com.example.springpracticewebsocket1o1chatapp.services.impl.ChatMessageServiceImpl;
+import com.example.springpracticewebsocket1o1chatapp.services.impl.ChatRoomServiceImpl;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.types.ObjectId;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+import org.springframework.util.unit.DataSize;
+import org.testcontainers.containers.MongoDBContainer;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures opening a chat: reading the latest page of its history through
+ * {@link ChatMessageServiceImpl#findMessagesInChat}, with and without the in-memory window of
+ * recent messages, against a MongoDB container holding the indexed history.
+ * Reads rotate over a fixed set of chats that all fit in the window cache, as a user flipping
+ * between their active chats does. Requires Docker.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ChatOpenBenchmark {
+
+    @Param({"false", "true"})
+    private boolean cached;
+
+    @Param({"100"})
+    private int chats;
+
+    @Param({"500"})
+    private int messagesPerChat;
+
+    private MongoDBContainer mongo;
+    private MongoClient client;
+    private ChatMessageServiceImpl chatMessageService;
+    private int next;
+
+    /**
+     * Starts MongoDB, stores the chat histories with the message indexes and wires the message
+     * service to the repository.
+     */
+    @Setup
+    public void setUp() {
+        mongo = new MongoDBContainer("mongo:7");
+        mongo.start();
+        client = MongoClients.create(mongo.getConnectionString());
+        var mongoTemplate = new MongoTemplate(client, "benchmark");
+
+        var indexOps = mongoTemplate.indexOps(ChatMessage.class);
+        IndexResolver.create(mongoTemplate.getConverter().getMappingContext())
+                .resolveIndexFor(ChatMessage.class)
+                .forEach(indexOps::ensureIndex);
+
+        var start = LocalDateTime.now().minusDays(1);
+        for (var chat = 0; chat < chats; chat++) {
+            var history = new ArrayList<ChatMessage>(messagesPerChat);
+            for (var n = 0; n < messagesPerChat; n++) {
+                var chatMessage = new ChatMessage(
+                        new ObjectId().toHexString(),
+                        "user" + chat,
+                        chatId(chat),
+                        "user" + (chat + 1),
+                        "message " + n + " of a chat that has been going on for a while",
+                        start.plusSeconds(n)
+                );
+                chatMessage.setSeq(n + 1L);
+                history.add(chatMessage);
+            }
+            mongoTemplate.insertAll(history);
+        }
+
+        var meterRegistry = new SimpleMeterRegistry();
+        var chatRoomService = new ChatRoomServiceImpl(
+                InMemoryRepositories.chatRoomRepo(),
+                new ChatRoomIdCache(
+                        new ChatRoomCacheProperties(100_000, Duration.ofHours(1), Duration.ofSeconds(30)),
+                        meterRegistry
+                ),
+                new ChatRoomProperties(ChatIdStrategy.CANONICAL, false)
+        );
+        chatMessageService = new ChatMessageServiceImpl(
+                new MongoRepositoryFactory(mongoTemplate).getRepository(ChatMessageRepo.class),
+                chatRoomService,
+                InMemoryRepositories.chatSequences(),
+                new RecentMessageIdCache(new MessageDedupProperties(100_000, Duration.ofMinutes(10)), meterRegistry),
+                new RecentMessageCache(
+                        new RecentMessageCacheProperties(cached, 50, DataSize.ofMegabytes(64)),
+                        new BrokerProperties(BrokerMode.SIMPLE, "localhost", 61613, "guest", "guest", "guest", "guest"),
+                        meterRegistry
+                ),
+                new DefaultListableBeanFactory().getBeanProvider(ChatMessageBatchWriter.class),
+                new DefaultListableBeanFactory().getBeanProvider(ChatArchiveService.class),
+                meterRegistry
+        );
+    }
+
+    /**
+     * Stops MongoDB.
+     */
+    @TearDown
+    public void tearDown() {
+        client.close();
+        mongo.stop();
+    }
+
+    /**
+     * Reads the latest page of the next chat, as the client does when a contact is clicked.
+     *
+     * @return the latest page
+     */
+    @Benchmark
+    public List<ChatMessage> openChat() {
+        return chatMessageService.findMessagesInChat(chatId(next++ % chats), null, null, 50);
+    }
+
+    private static String chatId(int chat) {
+        return "user" + chat + "_user" + (chat + 1);
+    }
+}
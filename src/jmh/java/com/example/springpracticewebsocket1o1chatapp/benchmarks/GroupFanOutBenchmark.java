@@ -0,0 +1,170 @@
+package com.example.springpracticewebsocket1o1chatapp.benchmarks;
+
+import com.example.springpracticewebsocket1o1chatapp.caches.ChatRoomIdCache;
+import com.example.springpracticewebsocket1o1chatapp.caches.GroupMemberCache;
+import com.example.springpracticewebsocket1o1chatapp.caches.PayloadFormatRegistry;
+import com.example.springpracticewebsocket1o1chatapp.caches.PresenceRegistry;
+import com.example.springpracticewebsocket1o1chatapp.caches.RecentMessageCache;
+import com.example.springpracticewebsocket1o1chatapp.caches.RecentMessageIdCache;
+import com.example.springpracticewebsocket1o1chatapp.configs.BrokerProperties;
+import com.example.springpracticewebsocket1o1chatapp.configs.ChatRoomCacheProperties;
+import com.example.springpracticewebsocket1o1chatapp.configs.ChatRoomProperties;
+import com.example.springpracticewebsocket1o1chatapp.configs.MessageDedupProperties;
+import com.example.springpracticewebsocket1o1chatapp.configs.RecentMessageCacheProperties;
+import com.example.springpracticewebsocket1o1chatapp.configs.GroupProperties;
+import com.example.springpracticewebsocket1o1chatapp.configs.WebSocketConfig;
+import com.example.springpracticewebsocket1o1chatapp.documents.ChatMessage;
+import com.example.springpracticewebsocket1o1chatapp.documents.GroupRoom;
+import com.example.springpracticewebsocket1o1chatapp.model.BrokerMode;
+import com.example.springpracticewebsocket1o1chatapp.model.ChatIdStrategy;
+import com.example.springpracticewebsocket1o1chatapp.model.ChatNotification;
+import com.example.springpracticewebsocket1o1chatapp.services.ChatArchiveService;
+import com.example.springpracticewebsocket1o1chatapp.services.impl.ChatMessageBatchWriter;
+import com.example.springpracticewebsocket1o1chatapp.services.impl.ChatMessageServiceImpl;
+import com.example.springpracticewebsocket1o1chatapp.services.impl.ChatRoomServiceImpl;
+import com.example.springpracticewebsocket1o1chatapp.services.impl.GroupServiceImpl;
+import com.example.springpracticewebsocket1o1chatapp.services.impl.NotificationServiceImpl;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.socket.messaging.DefaultSimpUserRegistry;
+
+import java.time.Duration;
+import java.util.LinkedHashSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Measures delivering one message to a group whose members are all online, against a baseline that
+ * converts and sends the notification to each member separately.
+ * Both send to a channel that discards the messages, so the difference is the per-member encoding
+ * and lookup work the group path avoids.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class GroupFanOutBenchmark {
+
+    private static final String GROUP_ID = "group";
+
+    @Param({"1000"})
+    private int members;
+
+    private GroupServiceImpl groupService;
+    private SimpMessagingTemplate template;
+    private String[] memberIds;
+
+    /**
+     * Wires the group service to the real services on top of in-memory repositories and puts every
+     * member online.
+     *
+     * @param blackhole the sink receiving every sent notification
+     */
+    @Setup
+    public void setUp(Blackhole blackhole) {
+        var meterRegistry = new SimpleMeterRegistry();
+        var chatRoomService = new ChatRoomServiceImpl(
+                InMemoryRepositories.chatRoomRepo(),
+                new ChatRoomIdCache(
+                        new ChatRoomCacheProperties(100_000, Duration.ofHours(1), Duration.ofSeconds(30)),
+                        meterRegistry
+                ),
+                new ChatRoomProperties(ChatIdStrategy.CANONICAL, false)
+        );
+        var chatMessageService = new ChatMessageServiceImpl(
+                InMemoryRepositories.chatMessageRepo(new LongAdder()),
+                chatRoomService,
+                InMemoryRepositories.chatSequences(),
+                new RecentMessageIdCache(new MessageDedupProperties(100_000, Duration.ofMinutes(10)), meterRegistry),
+                new RecentMessageCache(
+                        new RecentMessageCacheProperties(true, 50, DataSize.ofMegabytes(64)),
+                        new BrokerProperties(BrokerMode.SIMPLE, "localhost", 61613, "guest", "guest", "guest", "guest"),
+                        meterRegistry
+                ),
+                new DefaultListableBeanFactory().getBeanProvider(ChatMessageBatchWriter.class),
+                new DefaultListableBeanFactory().getBeanProvider(ChatArchiveService.class),
+                meterRegistry
+        );
+
+        template = new SimpMessagingTemplate((message, timeout) -> {
+            blackhole.consume(message);
+            return true;
+        });
+        template.setMessageConverter(WebSocketConfig.jsonMessageConverter(JsonMapper.builder().findAndAddModules().build()));
+        var simpUserRegistry = new DefaultSimpUserRegistry();
+        var notificationService = new NotificationServiceImpl(template, simpUserRegistry, new PayloadFormatRegistry());
+
+        var presenceRegistry = new PresenceRegistry(
+                simpUserRegistry,
+                new BrokerProperties(BrokerMode.SIMPLE, "localhost", 61613, "guest", "guest", "guest", "guest"),
+                meterRegistry
+        );
+        memberIds = new String[members];
+        var memberSet = new LinkedHashSet<String>();
+        for (var i = 0; i < members; i++) {
+            memberIds[i] = "user" + i;
+            memberSet.add(memberIds[i]);
+            presenceRegistry.addSession(memberIds[i], null, "session" + i);
+        }
+
+        var groupProperties = new GroupProperties(members, 10_000, Duration.ofMinutes(1));
+        // Membership does not change during the run, so no template for membership updates is needed.
+        groupService = new GroupServiceImpl(
+                InMemoryRepositories.groupRoomRepo(new GroupRoom(GROUP_ID, "benchmark", memberIds[0], memberSet)),
+                null,
+                new GroupMemberCache(groupProperties, meterRegistry),
+                presenceRegistry,
+                chatMessageService,
+                notificationService,
+                groupProperties
+        );
+    }
+
+    /**
+     * Sends one message to the group, stored once and encoded once for all members.
+     *
+     * @return the saved message
+     */
+    @Benchmark
+    public ChatMessage groupMessage() {
+        var chatMessage = new ChatMessage();
+        chatMessage.setSenderId(memberIds[0]);
+        chatMessage.setContent("Hey everyone, are we still on for lunch tomorrow?");
+
+        return groupService.sendMessage(GROUP_ID, chatMessage);
+    }
+
+    /**
+     * Sends the same notification to every member one by one, converting it for each.
+     */
+    @Benchmark
+    public void perMemberBaseline() {
+        var notification = new ChatNotification(
+                "id",
+                memberIds[0],
+                GROUP_ID,
+                "Hey everyone, are we still on for lunch tomorrow?",
+                1L
+        );
+        for (var i = 1; i < memberIds.length; i++) {
+            template.convertAndSendToUser(memberIds[i], "/queue/messages", notification);
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.example.springpracticewebsocket1o1chatapp.benchmarks;
+
+import com.example.springpracticewebsocket1o1chatapp.documents.ChatMessage;
+import com.example.springpracticewebsocket1o1chatapp.documents.ChatRoom;
+import com.example.springpracticewebsocket1o1chatapp.documents.GroupRoom;
+import com.example.springpracticewebsocket1o1chatapp.model.MessageSummary;
+import com.example.springpracticewebsocket1o1chatapp.repos.ChatMessageRepo;
+import com.example.springpracticewebsocket1o1chatapp.repos.ChatRoomRepo;
+import com.example.springpracticewebsocket1o1chatapp.repos.GroupRoomRepo;
+import com.example.springpracticewebsocket1o1chatapp.services.ChatSequenceService;
+import org.bson.types.ObjectId;
+import org.springframework.dao.DuplicateKeyException;
+
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+
+/**
+ * In-memory stand-ins for the repositories on the message hot path, so benchmarks measure the
+ * application's own per-message cost rather than a database round trip.
+ * Only the methods the services call are implemented; any other call fails.
+ */
+final class InMemoryRepositories {
+
+    private InMemoryRepositories() {
+    }
+
+    /**
+     * Creates a chat room repository keeping rooms in a map keyed by sender and recipient.
+     * Inserting a room whose pair is already stored fails the way a duplicate key does in MongoDB.
+     *
+     * @return the chat room repository
+     */
+    static ChatRoomRepo chatRoomRepo() {
+        Map<String, ChatRoom> rooms = new ConcurrentHashMap<>();
+
+        return repository(ChatRoomRepo.class, (method, args) -> switch (method) {
+            case "findBySenderIdAndRecipientId" -> Optional.ofNullable(rooms.get(key((String) args[0], (String) args[1])));
+            case "findAndIncrementUnreadCountBySenderIdAndRecipientId" -> {
+                var updated = new boolean[1];
+                rooms.computeIfPresent(key((String) args[0], (String) args[1]), (id, stored) -> {
+                    if (stored.getReadSeq() == null || stored.getReadSeq() < (long) args[2]) {
+                        stored.setUnreadCount(stored.getUnreadCount() + 1);
+                        updated[0] = true;
+                    }
+                    return stored;
+                });
+                yield updated[0] ? 1L : 0L;
+            }
+            case "updateLastMessageBySenderIdAndRecipientId",
+                 "updateLastMessageAndIncrementUnreadCountBySenderIdAndRecipientId" -> {
+                var increment = method.equals("updateLastMessageAndIncrementUnreadCountBySenderIdAndRecipientId");
+                var updated = new boolean[1];
+                rooms.computeIfPresent(key((String) args[0], (String) args[1]), (id, stored) -> {
+                    var last = stored.getLastMessage();
+                    var read = stored.getReadSeq() != null && stored.getReadSeq() >= (long) args[2];
+                    if ((last == null || last.seq() == null || last.seq() < (long) args[2]) && !(increment && read)) {
+                        stored.setLastMessage((MessageSummary) args[3]);
+                        if (increment) {
+                            stored.setUnreadCount(stored.getUnreadCount() + 1);
+                        }
+                        updated[0] = true;
+                    }
+                    return stored;
+                });
+                yield updated[0] ? 1L : 0L;
+            }
+            case "insert" -> {
+                var room = (ChatRoom) args[0];
+                if (rooms.putIfAbsent(key(room.getSenderId(), room.getRecipientId()), room) != null) {
+                    throw new DuplicateKeyException("Duplicate chat room " + room.getId());
+                }
+                yield room;
+            }
+            case "saveAll" -> {
+                var saved = (Iterable<?>) args[0];
+                saved.forEach(room -> rooms.put(
+                        key(((ChatRoom) room).getSenderId(), ((ChatRoom) room).getRecipientId()),
+                        (ChatRoom) room
+                ));
+                yield saved;
+            }
+            default -> throw new UnsupportedOperationException(method);
+        });
+    }
+
+    /**
+     * Creates a chat message repository that assigns IDs the way the driver does and only counts
+     * the saved messages, so a long benchmark run does not fill the heap.
+     *
+     * @param saved the counter of saved messages
+     * @return the chat message repository
+     */
+    static ChatMessageRepo chatMessageRepo(LongAdder saved) {
+        return repository(ChatMessageRepo.class, (method, args) -> switch (method) {
+            case "save", "insert" -> {
+                var message = (ChatMessage) args[0];
+                if (message.getId() == null) {
+                    message.setId(new ObjectId().toHexString());
+                }
+                saved.increment();
+                yield message;
+            }
+            default -> throw new UnsupportedOperationException(method);
+        });
+    }
+
+    /**
+     * Creates a sequence service counting per chat in memory, in place of the increments on the
+     * sequence collection.
+     *
+     * @return the sequence service
+     */
+    static ChatSequenceService chatSequences() {
+        Map<String, AtomicLong> sequences = new ConcurrentHashMap<>();
+
+        return chatId -> sequences.computeIfAbsent(chatId, id -> new AtomicLong()).incrementAndGet();
+    }
+
+    /**
+     * Creates a group repository holding the given groups.
+     *
+     * @param groups the stored groups
+     * @return the group repository
+     */
+    static GroupRoomRepo groupRoomRepo(GroupRoom... groups) {
+        Map<String, GroupRoom> stored = new ConcurrentHashMap<>();
+        for (var group : groups) {
+            stored.put(group.getId(), group);
+        }
+
+        return repository(GroupRoomRepo.class, (method, args) -> switch (method) {
+            case "findById" -> Optional.ofNullable(stored.get((String) args[0]));
+            default -> throw new UnsupportedOperationException(method);
+        });
+    }
+
+    /**
+     * Creates a proxy implementing a repository interface by dispatching on method names.
+     *
+     * @param type    the repository interface
+     * @param handler the handler receiving the method name and arguments
+     * @param <T>     the repository type
+     * @return the repository
+     */
+    private static <T> T repository(Class<T> type, BiFunction<String, Object[], Object> handler) {
+        return type.cast(Proxy.newProxyInstance(
+                type.getClassLoader(),
+                new Class<?>[]{type},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "toString" -> "InMemory" + type.getSimpleName();
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    default -> handler.apply(method.getName(), args);
+                }
+        ));
+    }
+
+    /**
+     * Builds the map key of a chat room.
+     *
+     * @param senderId    the sender's ID
+     * @param recipientId the recipient's ID
+     * @return the key
+     */
+    private static String key(String senderId, String recipientId) {
+        return senderId + '\u0000' + recipientId;
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.springpracticewebsocket1o1chatapp.benchmarks;
+
+import com.example.springpracticewebsocket1o1chatapp.configs.WebSocketConfig;
+import com.example.springpracticewebsocket1o1chatapp.documents.ChatMessage;
+import com.example.springpracticewebsocket1o1chatapp.model.ChatNotification;
+import com.example.springpracticewebsocket1o1chatapp.model.PayloadFormat;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.converter.MessageConverter;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the payload work done for every chat message with the STOMP converters from
+ * {@link WebSocketConfig}, in each payload format: decoding the inbound {@link ChatMessage} frame,
+ * and building and encoding the outbound {@link ChatNotification}.
+ * The encoded sizes of both payloads are printed once per fork.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class MessageCodecBenchmark {
+
+    private static final String CONTENT = "Hey, are we still on for lunch tomorrow? I can book a table for noon.";
+
+    @Param({"JSON", "CBOR"})
+    private PayloadFormat format;
+
+    private MessageConverter converter;
+    private Message<?> inboundFrame;
+    private MessageHeaders outboundHeaders;
+    private ChatNotification notification;
+
+    /**
+     * Creates the converter and the frames shared by all invocations.
+     */
+    @Setup
+    public void setUp() {
+        converter = switch (format) {
+            case JSON -> WebSocketConfig.jsonMessageConverter(JsonMapper.builder().findAndAddModules().build());
+            case CBOR -> WebSocketConfig.cborMessageConverter();
+        };
+        outboundHeaders = new MessageHeaders(Map.of(MessageHeaders.CONTENT_TYPE, format.mimeType()));
+
+        var chatMessage = new ChatMessage();
+        chatMessage.setSenderId("alice");
+        chatMessage.setRecipientId("bob");
+        chatMessage.setContent(CONTENT);
+        inboundFrame = converter.toMessage(chatMessage, outboundHeaders);
+
+        notification = newNotification();
+
+        System.out.printf("%n%s sizes: ChatMessage %d bytes, ChatNotification %d bytes%n",
+                format,
+                ((byte[]) inboundFrame.getPayload()).length,
+                ((byte[]) encodeChatNotification().getPayload()).length
+        );
+    }
+
+    /**
+     * Decodes an inbound chat message frame, as done before "/app/chat" is handled.
+     *
+     * @return the decoded message
+     */
+    @Benchmark
+    public Object decodeChatMessage() {
+        return converter.fromMessage(inboundFrame, ChatMessage.class);
+    }
+
+    /**
+     * Builds the notification sent to the recipient.
+     *
+     * @return the notification
+     */
+    @Benchmark
+    public ChatNotification newChatNotification() {
+        return newNotification();
+    }
+
+    /**
+     * Encodes the notification sent to the recipient.
+     *
+     * @return the encoded frame
+     */
+    @Benchmark
+    public Message<?> encodeChatNotification() {
+        return converter.toMessage(notification, outboundHeaders);
+    }
+
+    private static ChatNotification newNotification() {
+        return new ChatNotification("6650b7e2f1a4c52d9c3e8a17", "alice", "bob", CONTENT, 42L);
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.springpracticewebsocket1o1chatapp.benchmarks;
+
+import com.example.springpracticewebsocket1o1chatapp.caches.ChatRoomIdCache;
+import com.example.springpracticewebsocket1o1chatapp.caches.PayloadFormatRegistry;
+import com.example.springpracticewebsocket1o1chatapp.caches.RecentMessageCache;
+import com.example.springpracticewebsocket1o1chatapp.caches.RecentMessageIdCache;
+import com.example.springpracticewebsocket1o1chatapp.configs.BrokerProperties;
+import com.example.springpracticewebsocket1o1chatapp.configs.ChatRoomCacheProperties;
+import com.example.springpracticewebsocket1o1chatapp.configs.ChatRoomProperties;
+import com.example.springpracticewebsocket1o1chatapp.configs.MessageDedupProperties;
+import com.example.springpracticewebsocket1o1chatapp.configs.RecentMessageCacheProperties;
+import com.example.springpracticewebsocket1o1chatapp.configs.WebSocketConfig;
+import com.example.springpracticewebsocket1o1chatapp.controllers.ChatController;
+import com.example.springpracticewebsocket1o1chatapp.documents.ChatMessage;
+import com.example.springpracticewebsocket1o1chatapp.model.BrokerMode;
+import com.example.springpracticewebsocket1o1chatapp.model.ChatIdStrategy;
+import com.example.springpracticewebsocket1o1chatapp.services.ChatArchiveService;
+import com.example.springpracticewebsocket1o1chatapp.services.impl.ChatMessageBatchWriter;
+import com.example.springpracticewebsocket1o1chatapp.services.impl.ChatMessageServiceImpl;
+import com.example.springpracticewebsocket1o1chatapp.services.impl.ChatRoomServiceImpl;
+import com.example.springpracticewebsocket1o1chatapp.services.impl.NotificationServiceImpl;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.socket.messaging.DefaultSimpUserRegistry;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Measures {@link ChatController#processMessage} end to end: resolving the chat room, saving the
+ * message to an in-memory repository, counting it as unread, and encoding and sending the
+ * notification to a channel that discards it.
+ * Messages rotate over a fixed set of user pairs whose rooms exist after the first round, as in a
+ * running chat.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ProcessMessageBenchmark {
+
+    @Param({"SENDER_FIRST", "CANONICAL"})
+    private ChatIdStrategy strategy;
+
+    @Param({"1000"})
+    private int users;
+
+    private ChatController chatController;
+    private LongAdder savedMessages;
+    private String[] nickNames;
+    private int next;
+
+    /**
+     * Wires the controller to the real services on top of in-memory repositories.
+     *
+     * @param blackhole the sink receiving every sent notification
+     */
+    @Setup
+    public void setUp(Blackhole blackhole) {
+        var meterRegistry = new SimpleMeterRegistry();
+        var cache = new ChatRoomIdCache(
+                new ChatRoomCacheProperties(100_000, Duration.ofHours(1), Duration.ofSeconds(30)),
+                meterRegistry
+        );
+        var chatRoomService = new ChatRoomServiceImpl(
+                InMemoryRepositories.chatRoomRepo(),
+                cache,
+                new ChatRoomProperties(strategy, false)
+        );
+
+        savedMessages = new LongAdder();
+        var chatMessageService = new ChatMessageServiceImpl(
+                InMemoryRepositories.chatMessageRepo(savedMessages),
+                chatRoomService,
+                InMemoryRepositories.chatSequences(),
+                new RecentMessageIdCache(new MessageDedupProperties(100_000, Duration.ofMinutes(10)), meterRegistry),
+                new RecentMessageCache(
+                        new RecentMessageCacheProperties(true, 50, DataSize.ofMegabytes(64)),
+                        new BrokerProperties(BrokerMode.SIMPLE, "localhost", 61613, "guest", "guest", "guest", "guest"),
+                        meterRegistry
+                ),
+                new DefaultListableBeanFactory().getBeanProvider(ChatMessageBatchWriter.class),
+                new DefaultListableBeanFactory().getBeanProvider(ChatArchiveService.class),
+                meterRegistry
+        );
+
+        var template = new SimpMessagingTemplate((message, timeout) -> {
+            blackhole.consume(message);
+            return true;
+        });
+        template.setMessageConverter(WebSocketConfig.jsonMessageConverter(JsonMapper.builder().findAndAddModules().build()));
+        var notificationService = new NotificationServiceImpl(
+                template,
+                new DefaultSimpUserRegistry(),
+                new PayloadFormatRegistry()
+        );
+
+        chatController = new ChatController(notificationService, chatMessageService, chatRoomService, meterRegistry);
+
+        nickNames = new String[users];
+        for (var i = 0; i < users; i++) {
+            nickNames[i] = "user" + i;
+        }
+    }
+
+    /**
+     * Checks that every invocation reached the repository.
+     */
+    @TearDown
+    public void checkSaved() {
+        if (savedMessages.sum() == 0) {
+            throw new IllegalStateException("No message was saved");
+        }
+    }
+
+    /**
+     * Processes one chat message from one user to the next.
+     */
+    @Benchmark
+    public void processMessage() {
+        var sender = next;
+        next = (next + 1) % users;
+
+        var chatMessage = new ChatMessage();
+        chatMessage.setSenderId(nickNames[sender]);
+        chatMessage.setRecipientId(nickNames[(sender + 1) % users]);
+        chatMessage.setContent("Hey, are we still on for lunch tomorrow?");
+
+        chatController.processMessage(chatMessage);
+    }
+}
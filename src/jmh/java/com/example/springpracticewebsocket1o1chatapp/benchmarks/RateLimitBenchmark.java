@@ -0,0 +1,106 @@
+package com.example.springpracticewebsocket1o1chatapp.benchmarks;
+
+import com.example.springpracticewebsocket1o1chatapp.configs.RateLimitProperties;
+import com.example.springpracticewebsocket1o1chatapp.interceptors.RateLimitInterceptor;
+import com.example.springpracticewebsocket1o1chatapp.model.ChatPrincipal;
+import com.example.springpracticewebsocket1o1chatapp.model.RateLimitOverflow;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Measures what {@link RateLimitInterceptor} adds to every inbound SEND frame that is within its
+ * limits, with several threads sending at once as on the inbound channel.
+ * With {@code sharedUser} all threads send as the same user, so they contend for one user bucket;
+ * otherwise every thread is its own user. The limits are set high enough that no frame is rejected.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(2)
+public class RateLimitBenchmark {
+
+    @Param({"false", "true"})
+    private boolean sharedUser;
+
+    private RateLimitInterceptor interceptor;
+    private final AtomicInteger sessions = new AtomicInteger();
+
+    /**
+     * Creates the interceptor shared by all threads.
+     */
+    @Setup
+    public void setUp() {
+        interceptor = new RateLimitInterceptor(
+                new RateLimitProperties(true, 1e9, 1_000_000, 1e9, 1_000_000, 100_000, RateLimitOverflow.DROP),
+                null,
+                new SimpleMeterRegistry()
+        );
+    }
+
+    /**
+     * The SEND frame of one sending thread, from its own session.
+     */
+    @State(Scope.Thread)
+    public static class Frame {
+
+        private Message<byte[]> message;
+
+        /**
+         * Builds the frame of this thread.
+         *
+         * @param benchmark the benchmark state, handing out session IDs
+         */
+        @Setup
+        public void setUp(RateLimitBenchmark benchmark) {
+            var session = benchmark.sessions.incrementAndGet();
+            var accessor = StompHeaderAccessor.create(StompCommand.SEND);
+            accessor.setSessionId("session" + session);
+            accessor.setDestination("/app/chat");
+            accessor.setUser(new ChatPrincipal(benchmark.sharedUser ? "alice" : "user" + session));
+            message = MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+        }
+    }
+
+    /**
+     * Passes a frame through the interceptor.
+     *
+     * @param frame the sending thread's frame
+     * @return the frame, as let through
+     */
+    @Benchmark
+    public Message<?> rateLimited(Frame frame) {
+        return interceptor.preSend(frame.message, null);
+    }
+
+    /**
+     * The baseline: a frame passed on without any check.
+     *
+     * @param frame the sending thread's frame
+     * @return the frame
+     */
+    @Benchmark
+    public Message<?> unlimited(Frame frame) {
+        return frame.message;
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.springpracticewebsocket1o1chatapp.benchmarks;
+
+import com.example.springpracticewebsocket1o1chatapp.configs.SearchIndexRunner;
+import com.example.springpracticewebsocket1o1chatapp.documents.ChatMessage;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.testcontainers.containers.MongoDBContainer;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures what keeping the search index up to date costs each stored message: inserting a
+ * {@link ChatMessage} into a MongoDB container with all of its indexes, with and without the chat
+ * scoped text index on its content.
+ * The difference between the two is the index update cost per message; the size of each index
+ * per message is printed once per fork. Requires Docker.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class SearchIndexBenchmark {
+
+    private static final String[] CONTENTS = {
+            "Hey, are we still on for lunch tomorrow? I can book a table for noon.",
+            "Running a bit late, the train is stuck outside the station again",
+            "Did you get a chance to look at the quarterly report before the meeting?",
+            "ok",
+            "Happy birthday!! Hope you have a wonderful day and a great year ahead",
+            "Can you send me the address of the venue and the parking instructions please",
+            "I pushed the fix for the login bug, let me know if it still happens on your phone",
+            "See you at 7"
+    };
+
+    @Param({"false", "true"})
+    private boolean textIndex;
+
+    @Param({"1000"})
+    private int chats;
+
+    private MongoDBContainer mongo;
+    private MongoClient client;
+    private MongoTemplate mongoTemplate;
+    private long next;
+
+    /**
+     * Starts MongoDB and creates the message collection with the indexes under test.
+     */
+    @Setup
+    public void setUp() {
+        mongo = new MongoDBContainer("mongo:7");
+        mongo.start();
+        client = MongoClients.create(mongo.getConnectionString());
+        mongoTemplate = new MongoTemplate(client, "benchmark");
+
+        var indexOps = mongoTemplate.indexOps(ChatMessage.class);
+        IndexResolver.create(mongoTemplate.getConverter().getMappingContext())
+                .resolveIndexFor(ChatMessage.class)
+                .forEach(indexOps::ensureIndex);
+        if (textIndex) {
+            indexOps.ensureIndex(SearchIndexRunner.textIndex());
+        }
+    }
+
+    /**
+     * Prints the size of each index per stored message, then stops MongoDB.
+     */
+    @TearDown
+    public void tearDown() {
+        var stats = mongoTemplate.getDb().runCommand(
+                new Document("collStats", mongoTemplate.getCollectionName(ChatMessage.class))
+        );
+        var count = Math.max(1, stats.get("count", Number.class).longValue());
+
+        System.out.printf("%ntextIndex=%s, %d messages, index bytes per message:%n", textIndex, count);
+        stats.get("indexSizes", Document.class).forEach((name, size) ->
+                System.out.printf("  %s: %.1f%n", name, ((Number) size).doubleValue() / count));
+
+        client.close();
+        mongo.stop();
+    }
+
+    /**
+     * Stores one message in one of the chats, as a direct insert does.
+     *
+     * @return the stored message
+     */
+    @Benchmark
+    public ChatMessage insert() {
+        var n = next++;
+        var chat = (int) (n % chats);
+
+        var chatMessage = new ChatMessage(
+                new ObjectId().toHexString(),
+                "user" + chat,
+                "user" + chat + "_user" + (chat + 1),
+                "user" + (chat + 1),
+                CONTENTS[(int) (n % CONTENTS.length)],
+                LocalDateTime.now()
+        );
+        chatMessage.setSeq(n / chats + 1);
+
+        return mongoTemplate.insert(chatMessage);
+    }
+}
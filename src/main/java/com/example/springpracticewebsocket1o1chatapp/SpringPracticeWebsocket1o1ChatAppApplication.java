@@ -2,8 +2,12 @@ package com.example.springpracticewebsocket1o1chatapp;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@ConfigurationPropertiesScan
+@EnableScheduling
 public class SpringPracticeWebsocket1o1ChatAppApplication {
 
     public static void main(String[] args) {
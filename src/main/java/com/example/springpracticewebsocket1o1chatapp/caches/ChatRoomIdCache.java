@@ -0,0 +1,123 @@
+package com.example.springpracticewebsocket1o1chatapp.caches;
+
+import com.example.springpracticewebsocket1o1chatapp.configs.ChatRoomCacheProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Bounded in-memory cache of sender/recipient pairs to chat IDs.
+ * Lookups that found no chat room are cached as well, with a shorter lifetime, so that opening
+ * an empty conversation does not hit the database on every request.
+ * Hits, misses and evictions are published as {@code cache.*} metrics under the name "chatRoomIds".
+ */
+@Component
+public class ChatRoomIdCache {
+
+    private final Cache<Key, Optional<String>> cache;
+
+    /**
+     * Constructs a new ChatRoomIdCache sized and timed from the given properties.
+     *
+     * @param properties    the cache configuration
+     * @param meterRegistry the registry to publish cache statistics to
+     */
+    public ChatRoomIdCache(ChatRoomCacheProperties properties, MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.maximumSize())
+                .expireAfter(new ChatIdExpiry(properties.ttl().toNanos(), properties.negativeTtl().toNanos()))
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "chatRoomIds");
+    }
+
+    /**
+     * Gets the cached chat ID for a sender and recipient, loading it on a miss.
+     *
+     * @param senderId    the sender's ID
+     * @param recipientId the recipient's ID
+     * @param loader      the lookup to run when nothing is cached
+     * @return the chat ID, or empty if no chat room exists
+     */
+    public Optional<String> get(String senderId, String recipientId, Supplier<Optional<String>> loader) {
+        return cache.get(new Key(senderId, recipientId), key -> loader.get());
+    }
+
+    /**
+     * Gets the cached chat ID for a sender and recipient without loading it.
+     * Negative entries are reported the same way as absent ones.
+     *
+     * @param senderId    the sender's ID
+     * @param recipientId the recipient's ID
+     * @return the cached chat ID, or empty if none is cached
+     */
+    public Optional<String> getIfPresent(String senderId, String recipientId) {
+        var cached = cache.getIfPresent(new Key(senderId, recipientId));
+        return cached != null ? cached : Optional.empty();
+    }
+
+    /**
+     * Caches the chat ID for a sender and recipient, replacing any negative entry.
+     *
+     * @param senderId    the sender's ID
+     * @param recipientId the recipient's ID
+     * @param chatId      the chat ID
+     */
+    public void put(String senderId, String recipientId, String chatId) {
+        cache.put(new Key(senderId, recipientId), Optional.of(chatId));
+    }
+
+    /**
+     * Caches that no chat room exists yet for a sender and recipient.
+     *
+     * @param senderId    the sender's ID
+     * @param recipientId the recipient's ID
+     */
+    public void putMissing(String senderId, String recipientId) {
+        cache.put(new Key(senderId, recipientId), Optional.empty());
+    }
+
+    /**
+     * Removes all entries from the cache.
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * Cache key for one direction of a conversation.
+     *
+     * @param senderId    the sender's ID
+     * @param recipientId the recipient's ID
+     */
+    private record Key(String senderId, String recipientId) {
+    }
+
+    /**
+     * Expires found chat IDs after the regular TTL and negative results after the shorter negative TTL.
+     */
+    private record ChatIdExpiry(long ttlNanos, long negativeTtlNanos) implements Expiry<Key, Optional<String>> {
+
+        @Override
+        public long expireAfterCreate(Key key, Optional<String> value, long currentTime) {
+            return value.isPresent() ? ttlNanos : negativeTtlNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(Key key, Optional<String> value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(Key key, Optional<String> value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.springpracticewebsocket1o1chatapp.caches;
+
+import com.example.springpracticewebsocket1o1chatapp.configs.GroupProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Bounded in-memory cache of group IDs to their member lists, so fanning out a group message does
+ * not read the group from the database.
+ * Groups that do not exist are cached as empty, like missing chat rooms in {@link ChatRoomIdCache}.
+ * Hits, misses and evictions are published as {@code cache.*} metrics under the name "groupMembers".
+ */
+@Component
+public class GroupMemberCache {
+
+    private final Cache<String, Optional<List<String>>> cache;
+
+    /**
+     * Constructs a new GroupMemberCache sized and timed from the given properties.
+     *
+     * @param properties    the group configuration
+     * @param meterRegistry the registry to publish cache statistics to
+     */
+    public GroupMemberCache(GroupProperties properties, MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.memberCacheSize())
+                .expireAfterWrite(properties.memberCacheTtl())
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "groupMembers");
+    }
+
+    /**
+     * Gets the cached members of a group, loading them on a miss.
+     *
+     * @param groupId the group ID
+     * @param loader  the lookup to run when nothing is cached
+     * @return the member IDs, or empty if the group does not exist
+     */
+    public Optional<List<String>> get(String groupId, Supplier<Optional<List<String>>> loader) {
+        return cache.get(groupId, key -> loader.get());
+    }
+
+    /**
+     * Drops the cached members of a group after its membership changed.
+     *
+     * @param groupId the group ID
+     */
+    public void invalidate(String groupId) {
+        cache.invalidate(groupId);
+    }
+}
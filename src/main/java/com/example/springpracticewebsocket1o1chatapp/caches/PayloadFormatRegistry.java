@@ -0,0 +1,62 @@
+package com.example.springpracticewebsocket1o1chatapp.caches;
+
+import com.example.springpracticewebsocket1o1chatapp.model.PayloadFormat;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * In-memory registry of the sessions on this node that negotiated a payload format other than JSON.
+ * Sessions not registered here, including all sessions on other nodes, receive JSON.
+ */
+@Component
+public class PayloadFormatRegistry {
+
+    private final ConcurrentMap<String, PayloadFormat> formats = new ConcurrentHashMap<>();
+
+    /**
+     * Records the format a session negotiated.
+     *
+     * @param sessionId the session ID
+     * @param format    the negotiated format
+     */
+    public void register(String sessionId, PayloadFormat format) {
+        if (format == PayloadFormat.JSON) {
+            formats.remove(sessionId);
+        } else {
+            formats.put(sessionId, format);
+        }
+    }
+
+    /**
+     * Gets the format a session receives payloads in.
+     *
+     * @param sessionId the session ID
+     * @return the negotiated format, or JSON if none was negotiated
+     */
+    public PayloadFormat formatOf(String sessionId) {
+        return formats.getOrDefault(sessionId, PayloadFormat.JSON);
+    }
+
+    /**
+     * Checks whether every session receives JSON, in which case no per-session handling is needed.
+     *
+     * @return true if no session negotiated another format
+     */
+    public boolean allJson() {
+        return formats.isEmpty();
+    }
+
+    /**
+     * Forgets the format of a closed session.
+     *
+     * @param event the event for a closed session
+     */
+    @EventListener
+    public void onSessionDisconnect(SessionDisconnectEvent event) {
+        formats.remove(event.getSessionId());
+    }
+}
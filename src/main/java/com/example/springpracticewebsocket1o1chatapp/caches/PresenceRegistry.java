@@ -0,0 +1,213 @@
+package com.example.springpracticewebsocket1o1chatapp.caches;
+
+import com.example.springpracticewebsocket1o1chatapp.configs.BrokerProperties;
+import com.example.springpracticewebsocket1o1chatapp.documents.User;
+import com.example.springpracticewebsocket1o1chatapp.model.BrokerMode;
+import com.example.springpracticewebsocket1o1chatapp.model.Status;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.messaging.simp.user.SimpUser;
+import org.springframework.messaging.simp.user.SimpUserRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory registry of the users connected to this node and their open sessions.
+ * A user stays online as long as at least one of their sessions (for example one per browser tab)
+ * is open. In relay mode, users connected to other nodes are taken from the cluster-wide
+ * {@link SimpUserRegistry}, which only knows their nicknames.
+ */
+@Component
+public class PresenceRegistry {
+
+    private final ConcurrentMap<String, UserPresence> users = new ConcurrentHashMap<>();
+    private final SimpUserRegistry simpUserRegistry;
+    private final boolean clustered;
+
+    /**
+     * Constructs a new PresenceRegistry backed by the given user registry.
+     *
+     * @param simpUserRegistry the registry of STOMP users, spanning all nodes in relay mode
+     * @param brokerProperties the message broker configuration
+     * @param meterRegistry    the registry to publish the session and user counts to
+     */
+    public PresenceRegistry(
+            SimpUserRegistry simpUserRegistry,
+            BrokerProperties brokerProperties,
+            MeterRegistry meterRegistry
+    ) {
+        this.simpUserRegistry = simpUserRegistry;
+        this.clustered = brokerProperties.mode() == BrokerMode.RELAY;
+
+        Gauge.builder("chat.sessions.active", this, PresenceRegistry::localSessionCount)
+                .description("Open STOMP sessions on this node")
+                .register(meterRegistry);
+        Gauge.builder("chat.users.online", this, PresenceRegistry::localUserCount)
+                .description("Users with at least one open session on this node")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Registers an open session of a user.
+     *
+     * @param nickName  the user's nickname
+     * @param fullName  the user's full name, or null to keep the known one
+     * @param sessionId the session ID
+     * @return true if this was the user's first session, so that they just came online
+     */
+    public boolean addSession(String nickName, String fullName, String sessionId) {
+        var cameOnline = new AtomicBoolean();
+
+        users.compute(nickName, (key, presence) -> {
+            if (presence == null) {
+                cameOnline.set(true);
+                return new UserPresence(fullName, Set.of(sessionId));
+            }
+            var sessionIds = new HashSet<>(presence.sessionIds());
+            sessionIds.add(sessionId);
+            return new UserPresence(fullName != null ? fullName : presence.fullName(), Set.copyOf(sessionIds));
+        });
+
+        return cameOnline.get();
+    }
+
+    /**
+     * Removes a closed session of a user.
+     *
+     * @param nickName  the user's nickname
+     * @param sessionId the session ID
+     * @return true if this was the user's last session, so that they just went offline
+     */
+    public boolean removeSession(String nickName, String sessionId) {
+        var wentOffline = new AtomicBoolean();
+
+        users.computeIfPresent(nickName, (key, presence) -> {
+            if (!presence.sessionIds().contains(sessionId)) {
+                return presence;
+            }
+            if (presence.sessionIds().size() == 1) {
+                wentOffline.set(true);
+                return null;
+            }
+            var sessionIds = new HashSet<>(presence.sessionIds());
+            sessionIds.remove(sessionId);
+            return new UserPresence(presence.fullName(), Set.copyOf(sessionIds));
+        });
+
+        return wentOffline.get();
+    }
+
+    /**
+     * Removes a user regardless of how many sessions they have open.
+     *
+     * @param nickName the user's nickname
+     * @return true if the user was online
+     */
+    public boolean remove(String nickName) {
+        return users.remove(nickName) != null;
+    }
+
+    /**
+     * Updates the full name of an online user.
+     *
+     * @param nickName the user's nickname
+     * @param fullName the user's full name
+     */
+    public void updateFullName(String nickName, String fullName) {
+        users.computeIfPresent(nickName, (key, presence) -> new UserPresence(fullName, presence.sessionIds()));
+    }
+
+    /**
+     * Checks whether a user has an open session on any node.
+     *
+     * @param nickName the user's nickname
+     * @return true if the user is online
+     */
+    public boolean isOnline(String nickName) {
+        return users.containsKey(nickName) || (clustered && simpUserRegistry.getUser(nickName) != null);
+    }
+
+    /**
+     * Checks whether a user whose last session on this node is closing still has a session on
+     * another node.
+     * The closing session is left out explicitly, since the local part of the cluster-wide registry
+     * may not have removed it yet when the disconnect is handled.
+     *
+     * @param nickName  the user's nickname
+     * @param sessionId the ID of the closing session
+     * @return true if the user stays online elsewhere, always false unless running in relay mode
+     */
+    public boolean isOnlineElsewhere(String nickName, String sessionId) {
+        if (!clustered) {
+            return false;
+        }
+        var user = simpUserRegistry.getUser(nickName);
+        return user != null && user.getSessions().stream().anyMatch(session -> !session.getId().equals(sessionId));
+    }
+
+    /**
+     * Gets the users connected to this node.
+     *
+     * @return the locally connected users, all with status ONLINE
+     */
+    public List<User> localUsers() {
+        return users.entrySet().stream()
+                .map(entry -> {
+                    var user = new User();
+                    user.setNickName(entry.getKey());
+                    user.setFullName(entry.getValue().fullName());
+                    user.setStatus(Status.ONLINE);
+                    return user;
+                })
+                .toList();
+    }
+
+    /**
+     * Gets the nicknames of users connected only to other nodes.
+     *
+     * @return the remote nicknames, always empty unless running in relay mode
+     */
+    public Set<String> remoteNickNames() {
+        if (!clustered) {
+            return Set.of();
+        }
+        return simpUserRegistry.getUsers().stream()
+                .map(SimpUser::getName)
+                .filter(nickName -> !users.containsKey(nickName))
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * Gets the number of users connected to this node.
+     *
+     * @return the number of locally online users
+     */
+    public int localUserCount() {
+        return users.size();
+    }
+
+    /**
+     * Gets the number of sessions open on this node.
+     *
+     * @return the number of local sessions
+     */
+    public int localSessionCount() {
+        return users.values().stream().mapToInt(presence -> presence.sessionIds().size()).sum();
+    }
+
+    /**
+     * The presence of one user on this node.
+     *
+     * @param fullName   the user's full name
+     * @param sessionIds the IDs of the user's open sessions
+     */
+    private record UserPresence(String fullName, Set<String> sessionIds) {
+    }
+}
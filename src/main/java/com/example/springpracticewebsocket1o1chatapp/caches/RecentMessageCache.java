@@ -0,0 +1,174 @@
+package com.example.springpracticewebsocket1o1chatapp.caches;
+
+import com.example.springpracticewebsocket1o1chatapp.configs.BrokerProperties;
+import com.example.springpracticewebsocket1o1chatapp.configs.RecentMessageCacheProperties;
+import com.example.springpracticewebsocket1o1chatapp.documents.ChatMessage;
+import com.example.springpracticewebsocket1o1chatapp.model.BrokerMode;
+import com.example.springpracticewebsocket1o1chatapp.model.MessagePosition;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.ConcurrentStatsCounter;
+import com.github.benmanes.caffeine.cache.stats.StatsCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Bounded in-memory window of the most recent messages of each chat, so opening a chat does not
+ * read the database.
+ * A window is filled from the first latest-page read of its chat and then kept current by every
+ * stored message; messages stored before it was filled are merged in by ID, so a read racing a
+ * save cannot lose a message. Windows are weighed by the estimated size of their messages, and
+ * cold chats are evicted first once the configured weight is reached.
+ * Windows only see the messages stored on their own node, so with the broker relay, where several
+ * nodes store messages of the same chat, they would go stale; the cache is then disabled.
+ * Hits, misses and evictions are published as {@code cache.*} metrics under the name "recentMessages".
+ */
+@Component
+public class RecentMessageCache {
+
+    /**
+     * Estimated size of a message apart from its content, and of an empty window, in bytes.
+     */
+    private static final int MESSAGE_OVERHEAD = 256;
+
+    private final boolean enabled;
+    private final int capacity;
+    private final StatsCounter stats = new ConcurrentStatsCounter();
+    private final Cache<String, Window> cache;
+
+    /**
+     * Constructs a new RecentMessageCache sized from the given properties.
+     *
+     * @param properties       the recent message cache configuration
+     * @param brokerProperties the broker configuration; the cache is disabled in relay mode
+     * @param meterRegistry    the registry to publish cache statistics to
+     */
+    public RecentMessageCache(
+            RecentMessageCacheProperties properties,
+            BrokerProperties brokerProperties,
+            MeterRegistry meterRegistry
+    ) {
+        this.enabled = properties.enabled() && brokerProperties.mode() != BrokerMode.RELAY;
+        this.capacity = properties.messagesPerChat();
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(properties.maximumWeight().toBytes())
+                .weigher((String chatId, Window window) -> window.weight())
+                .recordStats(() -> stats)
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "recentMessages");
+    }
+
+    /**
+     * Gets the latest page of a chat if its window holds all of it.
+     *
+     * @param chatId the chat ID
+     * @param limit  the page size
+     * @return the newest messages in ascending timestamp order, or empty if the page has to be read
+     * from the database
+     */
+    public Optional<List<ChatMessage>> latest(String chatId, int limit) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        var window = cache.asMap().get(chatId);
+        if (window == null || !window.filled() || (!window.complete() && window.messages().size() < limit)) {
+            stats.recordMisses(1);
+            return Optional.empty();
+        }
+        stats.recordHits(1);
+        var messages = window.messages();
+        return Optional.of(messages.subList(Math.max(0, messages.size() - limit), messages.size()));
+    }
+
+    /**
+     * Fills the window of a chat with a latest page read from the database.
+     *
+     * @param chatId   the chat ID
+     * @param messages the newest messages of the chat in ascending timestamp order
+     * @param limit    the page size the messages were read with; a shorter page holds the whole chat
+     */
+    public void fill(String chatId, List<ChatMessage> messages, int limit) {
+        if (!enabled) {
+            return;
+        }
+        cache.asMap().compute(chatId, (id, window) ->
+                (window != null ? window : Window.EMPTY).merge(messages, true, messages.size() < limit, capacity));
+    }
+
+    /**
+     * Adds a stored message to the window of its chat.
+     * A chat without a window gets one that serves no reads until it is filled, since it does not
+     * know which older messages the database holds.
+     *
+     * @param chatMessage the stored message, carrying its chat ID
+     */
+    public void add(ChatMessage chatMessage) {
+        if (!enabled) {
+            return;
+        }
+        cache.asMap().compute(chatMessage.getChatId(), (id, window) ->
+                (window != null ? window : Window.EMPTY).merge(List.of(chatMessage), false, false, capacity));
+    }
+
+    /**
+     * Estimates the memory a message takes, in bytes.
+     *
+     * @param chatMessage the message
+     * @return the estimated size
+     */
+    private static int weigh(ChatMessage chatMessage) {
+        var content = chatMessage.getContent();
+        return MESSAGE_OVERHEAD + (content != null ? 2 * content.length() : 0);
+    }
+
+    /**
+     * Immutable window of the newest messages of one chat, replaced on every change so readers
+     * never see it half updated.
+     *
+     * @param messages the newest messages in ascending timestamp order
+     * @param filled   whether the window was filled from the database, so it holds every message
+     *                 newer than its oldest one
+     * @param complete whether the window holds the whole chat
+     * @param weight   the estimated size of the window and its messages, in bytes
+     */
+    record Window(List<ChatMessage> messages, boolean filled, boolean complete, int weight) {
+
+        static final Window EMPTY = new Window(List.of(), false, false, 0);
+
+        /**
+         * Merges messages into this window, keeping only the newest ones up to the capacity.
+         *
+         * @param added    the messages to merge in; messages already held are skipped
+         * @param fill     whether the added messages are a latest page read from the database
+         * @param whole    whether the added messages hold the whole chat
+         * @param capacity the maximum number of messages to keep
+         * @return the merged window
+         */
+        Window merge(List<ChatMessage> added, boolean fill, boolean whole, int capacity) {
+            var ids = new HashSet<String>();
+            var merged = new ArrayList<ChatMessage>(messages.size() + added.size());
+            for (var message : messages) {
+                ids.add(message.getId());
+                merged.add(message);
+            }
+            for (var message : added) {
+                if (ids.add(message.getId())) {
+                    merged.add(message);
+                }
+            }
+            merged.sort(MessagePosition.ORDER);
+
+            var dropped = Math.max(0, merged.size() - capacity);
+            var kept = merged.subList(dropped, merged.size());
+            var weight = MESSAGE_OVERHEAD + kept.stream().mapToInt(RecentMessageCache::weigh).sum();
+            return new Window(List.copyOf(kept), filled || fill, (complete || whole) && dropped == 0, weight);
+        }
+    }
+}
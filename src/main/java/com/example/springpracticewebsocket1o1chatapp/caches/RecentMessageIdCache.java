@@ -0,0 +1,69 @@
+package com.example.springpracticewebsocket1o1chatapp.caches;
+
+import com.example.springpracticewebsocket1o1chatapp.configs.MessageDedupProperties;
+import com.example.springpracticewebsocket1o1chatapp.model.MessageAck;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+/**
+ * Bounded in-memory window of recently stored client message IDs and their acknowledgements.
+ * A resent message is recognised here without a database read; the unique index on
+ * (senderId, clientMessageId) catches retries that land on another node or after the window.
+ * Hits, misses and evictions are published as {@code cache.*} metrics under the name "recentMessageIds".
+ */
+@Component
+public class RecentMessageIdCache {
+
+    private final Cache<Key, MessageAck> cache;
+
+    /**
+     * Constructs a new RecentMessageIdCache sized and timed from the given properties.
+     *
+     * @param properties    the deduplication configuration
+     * @param meterRegistry the registry to publish cache statistics to
+     */
+    public RecentMessageIdCache(MessageDedupProperties properties, MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.maximumSize())
+                .expireAfterWrite(properties.window())
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "recentMessageIds");
+    }
+
+    /**
+     * Gets the acknowledgement of a message recently stored under a client message ID.
+     *
+     * @param senderId        the sender's ID
+     * @param clientMessageId the client message ID
+     * @return the acknowledgement, or empty if no such message was stored recently
+     */
+    public Optional<MessageAck> getIfPresent(String senderId, String clientMessageId) {
+        return Optional.ofNullable(cache.getIfPresent(new Key(senderId, clientMessageId)));
+    }
+
+    /**
+     * Remembers the acknowledgement of a message stored under a client message ID.
+     *
+     * @param senderId the sender's ID
+     * @param ack      the acknowledgement
+     */
+    public void put(String senderId, MessageAck ack) {
+        cache.put(new Key(senderId, ack.clientMessageId()), ack);
+    }
+
+    /**
+     * Cache key for one message of one sender.
+     *
+     * @param senderId        the sender's ID
+     * @param clientMessageId the client message ID
+     */
+    private record Key(String senderId, String clientMessageId) {
+    }
+}
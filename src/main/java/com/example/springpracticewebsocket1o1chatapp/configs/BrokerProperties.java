@@ -0,0 +1,28 @@
+package com.example.springpracticewebsocket1o1chatapp.configs;
+
+import com.example.springpracticewebsocket1o1chatapp.model.BrokerMode;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Configuration properties for the STOMP message broker.
+ *
+ * @param mode           whether to use the in-memory broker or relay to an external one
+ * @param relayHost      the host of the external STOMP broker
+ * @param relayPort      the STOMP port of the external broker
+ * @param clientLogin    the login used for client sessions relayed to the broker
+ * @param clientPasscode the passcode used for client sessions relayed to the broker
+ * @param systemLogin    the login of the shared session this node uses to publish to the broker
+ * @param systemPasscode the passcode of the shared session this node uses to publish to the broker
+ */
+@ConfigurationProperties(prefix = "chat.broker")
+public record BrokerProperties(
+        @DefaultValue("SIMPLE") BrokerMode mode,
+        @DefaultValue("localhost") String relayHost,
+        @DefaultValue("61613") int relayPort,
+        @DefaultValue("guest") String clientLogin,
+        @DefaultValue("guest") String clientPasscode,
+        @DefaultValue("guest") String systemLogin,
+        @DefaultValue("guest") String systemPasscode
+) {
+}
@@ -0,0 +1,37 @@
+package com.example.springpracticewebsocket1o1chatapp.configs;
+
+import com.example.springpracticewebsocket1o1chatapp.services.ChatIdMigrationService;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Runs the one-off chat ID migration on startup when {@code chat.room.migrate-chat-ids} is enabled.
+ * It is meant to be switched on for a single deployment together with the canonical chat ID strategy.
+ */
+@Component
+@ConditionalOnProperty(prefix = "chat.room", name = "migrate-chat-ids", havingValue = "true")
+public class ChatIdMigrationRunner implements ApplicationRunner {
+
+    private final ChatIdMigrationService chatIdMigrationService;
+
+    /**
+     * Constructs a new ChatIdMigrationRunner with the given migration service.
+     *
+     * @param chatIdMigrationService the service performing the migration
+     */
+    public ChatIdMigrationRunner(ChatIdMigrationService chatIdMigrationService) {
+        this.chatIdMigrationService = chatIdMigrationService;
+    }
+
+    /**
+     * Migrates stored chat IDs to the canonical form.
+     *
+     * @param args the application arguments
+     */
+    @Override
+    public void run(ApplicationArguments args) {
+        chatIdMigrationService.migrateToCanonicalChatIds();
+    }
+}
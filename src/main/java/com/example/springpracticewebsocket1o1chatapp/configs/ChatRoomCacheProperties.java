@@ -0,0 +1,21 @@
+package com.example.springpracticewebsocket1o1chatapp.configs;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Configuration properties for the chat room ID cache.
+ *
+ * @param maximumSize the maximum number of sender/recipient pairs kept in memory
+ * @param ttl         how long a resolved chat ID stays cached after it was written
+ * @param negativeTtl how long a "no chat room yet" result stays cached
+ */
+@ConfigurationProperties(prefix = "chat.room-cache")
+public record ChatRoomCacheProperties(
+        @DefaultValue("100000") long maximumSize,
+        @DefaultValue("1h") Duration ttl,
+        @DefaultValue("30s") Duration negativeTtl
+) {
+}
@@ -0,0 +1,18 @@
+package com.example.springpracticewebsocket1o1chatapp.configs;
+
+import com.example.springpracticewebsocket1o1chatapp.model.ChatIdStrategy;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Configuration properties for chat rooms.
+ *
+ * @param chatIdStrategy how chat IDs are derived from the two participants
+ * @param migrateChatIds whether to rewrite existing chat IDs to the canonical form on startup
+ */
+@ConfigurationProperties(prefix = "chat.room")
+public record ChatRoomProperties(
+        @DefaultValue("SENDER_FIRST") ChatIdStrategy chatIdStrategy,
+        @DefaultValue("false") boolean migrateChatIds
+) {
+}
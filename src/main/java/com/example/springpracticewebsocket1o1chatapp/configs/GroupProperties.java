@@ -0,0 +1,22 @@
+package com.example.springpracticewebsocket1o1chatapp.configs;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Configuration properties for group chats.
+ *
+ * @param maxMembers      the largest number of members a group may have
+ * @param memberCacheSize the maximum number of groups whose member lists are kept in memory
+ * @param memberCacheTtl  how long a cached member list is used before it is read again; membership
+ *                        changes made on other nodes become visible after at most this long
+ */
+@ConfigurationProperties(prefix = "chat.group")
+public record GroupProperties(
+        @DefaultValue("5000") int maxMembers,
+        @DefaultValue("10000") long memberCacheSize,
+        @DefaultValue("1m") Duration memberCacheTtl
+) {
+}
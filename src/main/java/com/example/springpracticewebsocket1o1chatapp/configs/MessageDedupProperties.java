@@ -0,0 +1,20 @@
+package com.example.springpracticewebsocket1o1chatapp.configs;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Configuration properties for recognising resent chat messages by their client message ID.
+ *
+ * @param maximumSize the maximum number of recently saved client message IDs kept in memory
+ * @param window      how long a saved client message ID is remembered; retries after this are
+ *                    caught by the database index instead
+ */
+@ConfigurationProperties(prefix = "chat.message.dedup")
+public record MessageDedupProperties(
+        @DefaultValue("100000") long maximumSize,
+        @DefaultValue("10m") Duration window
+) {
+}
@@ -0,0 +1,52 @@
+package com.example.springpracticewebsocket1o1chatapp.configs;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.env.EnvironmentPostProcessor;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.MapPropertySource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Leaves the reactive MongoDB client out unless {@code chat.persistence.mode} is {@code reactive}.
+ * Both MongoDB starters are on the classpath so either mode can be chosen at deployment, but in
+ * blocking mode nothing uses the reactive client, so its auto-configuration is excluded and the
+ * application opens a single connection pool.
+ * Reactive mode keeps the blocking client, which the services it shares with blocking mode use.
+ */
+public class PersistenceModeEnvironmentPostProcessor implements EnvironmentPostProcessor {
+
+    private static final String EXCLUDE_PROPERTY = "spring.autoconfigure.exclude";
+
+    private static final List<String> REACTIVE_AUTO_CONFIGURATIONS = List.of(
+            "org.springframework.boot.autoconfigure.mongo.MongoReactiveAutoConfiguration",
+            "org.springframework.boot.autoconfigure.data.mongo.MongoReactiveDataAutoConfiguration",
+            "org.springframework.boot.autoconfigure.data.mongo.MongoReactiveRepositoriesAutoConfiguration"
+    );
+
+    /**
+     * Adds the reactive MongoDB auto-configurations to the excluded ones in blocking mode.
+     *
+     * @param environment the environment to post-process
+     * @param application the application the environment belongs to
+     */
+    @Override
+    public void postProcessEnvironment(ConfigurableEnvironment environment, SpringApplication application) {
+        if ("reactive".equals(environment.getProperty("chat.persistence.mode"))) {
+            return;
+        }
+
+        var excluded = new ArrayList<>(Binder.get(environment)
+                .bind(EXCLUDE_PROPERTY, Bindable.listOf(String.class))
+                .orElse(List.of()));
+        excluded.addAll(REACTIVE_AUTO_CONFIGURATIONS);
+        environment.getPropertySources().addFirst(new MapPropertySource(
+                "chatPersistenceMode",
+                Map.of(EXCLUDE_PROPERTY, String.join(",", excluded))
+        ));
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.springpracticewebsocket1o1chatapp.configs;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Configuration properties for the sweeping of stale presence records.
+ *
+ * @param sweepInterval how often this node refreshes its users and looks for stale ONLINE records
+ * @param staleAfter    how long an ONLINE record may go unrefreshed before it is considered stale;
+ *                      must be comfortably longer than the sweep interval
+ */
+@ConfigurationProperties(prefix = "chat.presence")
+public record PresenceProperties(
+        @DefaultValue("1m") Duration sweepInterval,
+        @DefaultValue("3m") Duration staleAfter
+) {
+}
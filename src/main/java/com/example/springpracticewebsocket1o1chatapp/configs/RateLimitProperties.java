@@ -0,0 +1,30 @@
+package com.example.springpracticewebsocket1o1chatapp.configs;
+
+import com.example.springpracticewebsocket1o1chatapp.model.RateLimitOverflow;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Configuration properties for limiting how fast clients may send STOMP messages.
+ * Each session and each user has a token bucket; a message is accepted only if both have a token.
+ *
+ * @param enabled       whether client messages are rate limited
+ * @param sessionRate   the number of messages per second a session may send, sustained
+ * @param sessionBurst  the number of messages a session may send at once after being idle
+ * @param userRate      the number of messages per second a user may send across all their sessions
+ * @param userBurst     the number of messages a user may send at once after being idle
+ * @param maxUsers      the maximum number of users whose buckets are kept; buckets of idle users
+ *                      are dropped once they have refilled, so this only matters under churn
+ * @param overflow      what to do with a message exceeding a limit
+ */
+@ConfigurationProperties(prefix = "chat.rate-limit")
+public record RateLimitProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("20") double sessionRate,
+        @DefaultValue("40") int sessionBurst,
+        @DefaultValue("40") double userRate,
+        @DefaultValue("80") int userBurst,
+        @DefaultValue("100000") long maxUsers,
+        @DefaultValue("ERROR") RateLimitOverflow overflow
+) {
+}
@@ -0,0 +1,23 @@
+package com.example.springpracticewebsocket1o1chatapp.configs;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Configuration properties for the in-memory window of each chat's most recent messages.
+ *
+ * @param enabled         whether the latest page of a chat is served from memory; ignored with the
+ *                        broker relay, where other nodes store messages the windows never see
+ * @param messagesPerChat the number of most recent messages kept per chat; a larger page is read
+ *                        from the database
+ * @param maximumWeight   the estimated memory all windows may take together before the least
+ *                        recently used chats are evicted
+ */
+@ConfigurationProperties(prefix = "chat.message.recent-cache")
+public record RecentMessageCacheProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("50") int messagesPerChat,
+        @DefaultValue("64MB") DataSize maximumWeight
+) {
+}
@@ -0,0 +1,93 @@
+package com.example.springpracticewebsocket1o1chatapp.configs;
+
+import com.example.springpracticewebsocket1o1chatapp.documents.ChatMessage;
+import com.example.springpracticewebsocket1o1chatapp.model.RetentionMode;
+import org.bson.Document;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+/**
+ * Brings the timestamp index of the message collection in line with the retention mode on startup.
+ * TTL mode needs a TTL index expiring messages at the retention age, archive mode a plain index the
+ * sweep reads the oldest messages through, and with retention off neither is kept. MongoDB allows
+ * only one index on the same key, so the index of another mode is dropped first, and a changed
+ * retention age is applied to an existing TTL index in place.
+ */
+@Component
+public class RetentionIndexRunner implements ApplicationRunner {
+
+    private static final String TTL_INDEX = "timestamp_ttl_idx";
+    private static final String TIMESTAMP_INDEX = "timestamp_idx";
+
+    private final MongoTemplate mongoTemplate;
+    private final RetentionProperties retentionProperties;
+
+    /**
+     * Constructs a new RetentionIndexRunner with the given template and properties.
+     *
+     * @param mongoTemplate       the template used to manage indexes
+     * @param retentionProperties the retention configuration
+     */
+    public RetentionIndexRunner(MongoTemplate mongoTemplate, RetentionProperties retentionProperties) {
+        this.mongoTemplate = mongoTemplate;
+        this.retentionProperties = retentionProperties;
+    }
+
+    /**
+     * Creates, updates or drops the timestamp index for the configured retention mode.
+     *
+     * @param args the application arguments
+     */
+    @Override
+    public void run(ApplicationArguments args) {
+        var mode = retentionProperties.mode();
+        var indexOps = mongoTemplate.indexOps(ChatMessage.class);
+
+        if (mode != RetentionMode.TTL) {
+            dropIfPresent(TTL_INDEX);
+        }
+        if (mode != RetentionMode.ARCHIVE) {
+            dropIfPresent(TIMESTAMP_INDEX);
+        }
+
+        switch (mode) {
+            case TTL -> {
+                var ttl = find(TTL_INDEX);
+                if (ttl.isPresent() && !ttl.get().getExpireAfter().equals(Optional.of(retentionProperties.maxAge()))) {
+                    mongoTemplate.getDb().runCommand(new Document("collMod", mongoTemplate.getCollectionName(ChatMessage.class))
+                            .append("index", new Document("name", TTL_INDEX)
+                                    .append("expireAfterSeconds", retentionProperties.maxAge().toSeconds())));
+                } else if (ttl.isEmpty()) {
+                    indexOps.ensureIndex(new Index()
+                            .on("timestamp", Sort.Direction.ASC)
+                            .named(TTL_INDEX)
+                            .expire(retentionProperties.maxAge()));
+                }
+            }
+            case ARCHIVE -> indexOps.ensureIndex(new Index()
+                    .on("timestamp", Sort.Direction.ASC)
+                    .named(TIMESTAMP_INDEX));
+            case NONE -> {
+            }
+        }
+    }
+
+    private Optional<IndexInfo> find(String name) {
+        return mongoTemplate.indexOps(ChatMessage.class).getIndexInfo().stream()
+                .filter(index -> index.getName().equals(name))
+                .findFirst();
+    }
+
+    private void dropIfPresent(String name) {
+        if (find(name).isPresent()) {
+            mongoTemplate.indexOps(ChatMessage.class).dropIndex(name);
+        }
+    }
+}
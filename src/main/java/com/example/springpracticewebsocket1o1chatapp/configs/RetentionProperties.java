@@ -0,0 +1,26 @@
+package com.example.springpracticewebsocket1o1chatapp.configs;
+
+import com.example.springpracticewebsocket1o1chatapp.model.RetentionMode;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Configuration properties for how long chat messages stay in the message collection.
+ *
+ * @param mode          whether old messages are kept, expired or archived
+ * @param maxAge        the age after which a message is expired or archived
+ * @param sweepInterval how often messages past the maximum age are moved to the archive
+ * @param batchSize     the maximum number of messages moved to the archive at once
+ * @param bucketSize    the maximum number of messages of one chat stored in one archive document
+ */
+@ConfigurationProperties(prefix = "chat.message.retention")
+public record RetentionProperties(
+        @DefaultValue("NONE") RetentionMode mode,
+        @DefaultValue("90d") Duration maxAge,
+        @DefaultValue("1h") Duration sweepInterval,
+        @DefaultValue("1000") int batchSize,
+        @DefaultValue("500") int bucketSize
+) {
+}
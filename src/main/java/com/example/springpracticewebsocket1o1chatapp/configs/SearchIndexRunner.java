@@ -0,0 +1,62 @@
+package com.example.springpracticewebsocket1o1chatapp.configs;
+
+import com.example.springpracticewebsocket1o1chatapp.documents.ChatMessage;
+import org.bson.Document;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.CompoundIndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexField;
+import org.springframework.stereotype.Component;
+
+/**
+ * Ensures the text index search runs on when the application starts.
+ * The index is prefixed with the chat ID, so a search of one chat only reads that chat's entries.
+ * MongoDB allows one text index per collection, so a text index of another shape, such as the
+ * unscoped content index of earlier versions, is dropped first.
+ */
+@Component
+public class SearchIndexRunner implements ApplicationRunner {
+
+    /**
+     * The name of the chat scoped text index.
+     */
+    public static final String TEXT_INDEX = "chat_content_text_idx";
+
+    private final MongoTemplate mongoTemplate;
+
+    /**
+     * Constructs a new SearchIndexRunner with the given template.
+     *
+     * @param mongoTemplate the template used to manage indexes
+     */
+    public SearchIndexRunner(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    /**
+     * Builds the definition of the chat scoped text index.
+     *
+     * @return the index definition
+     */
+    public static IndexDefinition textIndex() {
+        return new CompoundIndexDefinition(new Document("chatId", 1).append("content", "text"))
+                .named(TEXT_INDEX);
+    }
+
+    /**
+     * Drops any other text index and creates the chat scoped one if it is missing.
+     *
+     * @param args the application arguments
+     */
+    @Override
+    public void run(ApplicationArguments args) {
+        var indexOps = mongoTemplate.indexOps(ChatMessage.class);
+        indexOps.getIndexInfo().stream()
+                .filter(index -> !index.getName().equals(TEXT_INDEX))
+                .filter(index -> index.getIndexFields().stream().anyMatch(IndexField::isText))
+                .forEach(index -> indexOps.dropIndex(index.getName()));
+        indexOps.ensureIndex(textIndex());
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.springpracticewebsocket1o1chatapp.configs;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Configuration properties for message search.
+ *
+ * @param maxTime              how long the database may spend on one search page before it is
+ *                             aborted, so a very common term cannot hold up other queries
+ * @param maxResults           how deep into the ranked hits clients may page
+ * @param snippetLength        the approximate number of characters of content returned around a match
+ * @param maxConcurrentQueries how many per-chat queries all searches together run against the
+ *                             database at once; the chats of a search beyond it wait their turn
+ */
+@ConfigurationProperties(prefix = "chat.search")
+public record SearchProperties(
+        @DefaultValue("2s") Duration maxTime,
+        @DefaultValue("1000") int maxResults,
+        @DefaultValue("120") int snippetLength,
+        @DefaultValue("32") int maxConcurrentQueries
+) {
+}
@@ -1,17 +1,40 @@
 package com.example.springpracticewebsocket1o1chatapp.configs;
 
+import com.example.springpracticewebsocket1o1chatapp.caches.PayloadFormatRegistry;
+import com.example.springpracticewebsocket1o1chatapp.converters.CborMessageConverter;
+import com.example.springpracticewebsocket1o1chatapp.converters.TimedMessageConverter;
+import com.example.springpracticewebsocket1o1chatapp.interceptors.BinaryFrameHandlerDecorator;
+import com.example.springpracticewebsocket1o1chatapp.interceptors.PayloadFormatInterceptor;
+import com.example.springpracticewebsocket1o1chatapp.interceptors.RateLimitInterceptor;
+import com.example.springpracticewebsocket1o1chatapp.interceptors.UserPrincipalInterceptor;
+import com.example.springpracticewebsocket1o1chatapp.model.BrokerMode;
+import com.example.springpracticewebsocket1o1chatapp.model.PayloadFormat;
+import com.example.springpracticewebsocket1o1chatapp.services.NotificationService;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.thread.Threading;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.messaging.converter.DefaultContentTypeResolver;
 import org.springframework.messaging.converter.MappingJackson2MessageConverter;
 import org.springframework.messaging.converter.MessageConverter;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.util.MimeTypeUtils;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
 
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Configures WebSocket for the application.
@@ -21,48 +44,244 @@ import java.util.List;
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    private final WebSocketProperties webSocketProperties;
+    private final BrokerProperties brokerProperties;
+    private final RateLimitProperties rateLimitProperties;
+    private final TaskScheduler messageBrokerTaskScheduler;
+    private final MeterRegistry meterRegistry;
+    private final ObjectMapper objectMapper;
+    private final PayloadFormatRegistry payloadFormatRegistry;
+    private final NotificationService notificationService;
+    private final boolean virtualThreads;
+
+    /**
+     * Constructs a new WebSocketConfig with the given properties and environment.
+     * Virtual threads are used for the message channels when {@code spring.threads.virtual.enabled}
+     * is set, the same switch that moves Tomcat and the REST controllers onto virtual threads.
+     *
+     * @param webSocketProperties        the WebSocket channel configuration
+     * @param brokerProperties           the message broker configuration
+     * @param rateLimitProperties        the limits on how fast clients may send
+     * @param messageBrokerTaskScheduler the broker's own scheduler, used for heartbeats
+     * @param meterRegistry              the registry to publish conversion timings and queue depths to
+     * @param objectMapper               the application's JSON mapper
+     * @param payloadFormatRegistry      the registry of the payload formats sessions negotiated
+     * @param notificationService        the service to send rate limit notices, resolved on first use
+     * @param environment                the environment to read the threading mode from
+     */
+    public WebSocketConfig(
+            WebSocketProperties webSocketProperties,
+            BrokerProperties brokerProperties,
+            RateLimitProperties rateLimitProperties,
+            @Lazy @Qualifier("messageBrokerTaskScheduler") TaskScheduler messageBrokerTaskScheduler,
+            MeterRegistry meterRegistry,
+            ObjectMapper objectMapper,
+            PayloadFormatRegistry payloadFormatRegistry,
+            @Lazy NotificationService notificationService,
+            Environment environment
+    ) {
+        this.webSocketProperties = webSocketProperties;
+        this.brokerProperties = brokerProperties;
+        this.rateLimitProperties = rateLimitProperties;
+        this.messageBrokerTaskScheduler = messageBrokerTaskScheduler;
+        this.meterRegistry = meterRegistry;
+        this.objectMapper = objectMapper;
+        this.payloadFormatRegistry = payloadFormatRegistry;
+        this.notificationService = notificationService;
+        this.virtualThreads = Threading.VIRTUAL.isActive(environment);
+    }
+
     /**
      * Registers STOMP endpoints, allowing clients to connect to the WebSocket server.
-     * The endpoint "/ws" is registered, and SockJS is enabled as a fallback option.
+     * The endpoint "/ws-native" speaks plain WebSocket, without SockJS framing or its escaping of
+     * frames into JSON strings; the servlet container negotiates permessage-deflate on it with
+     * clients that offer it. The endpoint "/ws" is kept with SockJS as a fallback for clients that
+     * cannot open a WebSocket.
      *
      * @param registry the registry to register the STOMP endpoints with
      */
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
+        registry.addEndpoint("/ws-native");
         registry.addEndpoint("/ws").withSockJS();
     }
 
+    /**
+     * Configures the limits of WebSocket sessions.
+     * Chat messages are small, so the inbound size limit and the outbound buffer are kept well below
+     * the defaults, which bounds the memory a slow or misbehaving client can hold on the server.
+     * Plain WebSocket sessions are decorated so that they can receive binary payload formats.
+     *
+     * @param registration the registration to configure the transport with
+     */
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        registration.setMessageSizeLimit((int) webSocketProperties.messageSizeLimit().toBytes())
+                .setSendBufferSizeLimit((int) webSocketProperties.sendBufferSizeLimit().toBytes())
+                .setSendTimeLimit((int) webSocketProperties.sendTimeLimit().toMillis())
+                .addDecoratorFactory(BinaryFrameHandlerDecorator::new);
+    }
+
     /**
      * Configures the message broker to route messages from one client to another.
-     * A simple in-memory message broker is enabled with the prefix "/user".
+     * The broker handles the "/topic" and "/queue" prefixes, either in memory or, in relay mode,
+     * through an external STOMP broker shared by all nodes. In relay mode, user destinations that
+     * cannot be resolved locally and the user registry itself are broadcast to the other nodes,
+     * so a message can reach a user connected anywhere in the cluster.
+     * Heartbeats are exchanged with every client so that dead connections are detected and closed,
+     * which in turn marks their users offline; in relay mode the external broker does this for
+     * client sessions and the node only keeps its own system session alive.
      * Application destination prefixes are set to "/app", and the user destination prefix is set to "/user".
      * @param registry the registry to configure the message broker with
      */
     @Override
     public void configureMessageBroker(MessageBrokerRegistry registry) {
-        registry.enableSimpleBroker("/user");
+        var heartbeatMillis = webSocketProperties.heartbeatInterval().toMillis();
+
+        if (brokerProperties.mode() == BrokerMode.RELAY) {
+            registry.enableStompBrokerRelay("/topic", "/queue")
+                    .setRelayHost(brokerProperties.relayHost())
+                    .setRelayPort(brokerProperties.relayPort())
+                    .setClientLogin(brokerProperties.clientLogin())
+                    .setClientPasscode(brokerProperties.clientPasscode())
+                    .setSystemLogin(brokerProperties.systemLogin())
+                    .setSystemPasscode(brokerProperties.systemPasscode())
+                    .setSystemHeartbeatSendInterval(heartbeatMillis)
+                    .setSystemHeartbeatReceiveInterval(heartbeatMillis)
+                    .setUserDestinationBroadcast("/topic/unresolved-user-destination")
+                    .setUserRegistryBroadcast("/topic/simp-user-registry");
+        } else {
+            registry.enableSimpleBroker("/topic", "/queue")
+                    .setHeartbeatValue(new long[]{heartbeatMillis, heartbeatMillis})
+                    .setTaskScheduler(messageBrokerTaskScheduler);
+        }
         registry.setApplicationDestinationPrefixes("/app");
         registry.setUserDestinationPrefix("/user");
     }
 
+    /**
+     * Configures the channel carrying messages from clients to the application and broker.
+     * Connecting sessions are identified by their nickname. Unless disabled, messages are rate
+     * limited per session and per user before they reach the channel's executor, so a flooding
+     * client is turned away on its own transport thread instead of queueing work for everybody.
+     * On virtual threads, every inbound message gets its own thread, bounded by the configured
+     * concurrency so that a burst cannot pile up unlimited blocked Mongo calls.
+     * @param registration the registration to configure the inbound channel with
+     */
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.interceptors(
+                new UserPrincipalInterceptor(),
+                new PayloadFormatInterceptor(payloadFormatRegistry)
+        );
+        if (rateLimitProperties.enabled()) {
+            registration.interceptors(new RateLimitInterceptor(rateLimitProperties, notificationService, meterRegistry));
+        }
+        if (virtualThreads) {
+            registration.executor(virtualThreadExecutor(
+                    "ws-inbound-", "clientInboundChannelExecutor", webSocketProperties.inboundConcurrency()
+            ));
+        }
+    }
+
+    /**
+     * Configures the channel carrying messages from the broker to clients.
+     * On virtual threads, deliveries are not throttled: a throttle would block the broker thread
+     * submitting them once it is reached. A client that stops reading only holds up its own
+     * session, whose buffered data and send time are bounded by the transport's send limits, after
+     * which the session is closed.
+     * @param registration the registration to configure the outbound channel with
+     */
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        if (virtualThreads) {
+            registration.executor(virtualThreadExecutor(
+                    "ws-outbound-", "clientOutboundChannelExecutor", SimpleAsyncTaskExecutor.UNBOUNDED_CONCURRENCY
+            ));
+        }
+    }
+
     /**
      * Configures message converters for serializing and deserializing messages.
-     * A Jackson message converter is configured with JSON as the default content type.
+     * A Jackson message converter is configured with JSON as the default content type, using the
+     * application's mapper so that dates and other types map the same as in REST responses.
+     * A CBOR converter handles payloads explicitly typed "application/cbor": inbound frames sent
+     * in CBOR, and outbound payloads for sessions that negotiated it. Decoding and encoding are timed
+     * per format, counting only the converter that performed each conversion.
      * @param messageConverters the list of message converters to configure
      * @return false to indicate that the default converters should be used as well
      */
     @Override
     public boolean configureMessageConverters(List<MessageConverter> messageConverters) {
+        messageConverters.add(new TimedMessageConverter(jsonMessageConverter(objectMapper), PayloadFormat.JSON, meterRegistry));
+        messageConverters.add(new TimedMessageConverter(cborMessageConverter(), PayloadFormat.CBOR, meterRegistry));
+
+        return false;
+    }
+
+    /**
+     * Creates the Jackson message converter used for STOMP payloads, with JSON as the default content type.
+     * @param objectMapper the JSON mapper to use
+     * @return the message converter
+     */
+    public static MappingJackson2MessageConverter jsonMessageConverter(ObjectMapper objectMapper) {
         var resolver = new DefaultContentTypeResolver();
         var converter = new MappingJackson2MessageConverter();
 
         resolver.setDefaultMimeType(MimeTypeUtils.APPLICATION_JSON);
 
-        converter.setObjectMapper(new ObjectMapper());
+        converter.setObjectMapper(objectMapper);
         converter.setContentTypeResolver(resolver);
 
-        messageConverters.add(converter);
+        return converter;
+    }
+
+    /**
+     * Creates the message converter used for STOMP payloads typed "application/cbor".
+     * Dates are written as ISO-8601 strings, as in JSON.
+     * @return the message converter
+     */
+    public static CborMessageConverter cborMessageConverter() {
+        var cborMapper = CBORMapper.builder()
+                .findAndAddModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
 
-        return false;
+        return new CborMessageConverter(cborMapper);
+    }
+
+    /**
+     * Creates an executor starting one virtual thread per task, optionally throttled to a concurrency limit.
+     * The number of tasks waiting for the throttle is published as {@code executor.queued}, the
+     * metric the pooled executors of the platform thread mode are published under.
+     * @param threadNamePrefix the prefix for the names of the created threads
+     * @param executorName the name to tag the queue depth with
+     * @param concurrencyLimit the maximum number of tasks running at once, or
+     *                         {@link SimpleAsyncTaskExecutor#UNBOUNDED_CONCURRENCY} for no throttle
+     * @return the executor
+     */
+    private SimpleAsyncTaskExecutor virtualThreadExecutor(
+            String threadNamePrefix,
+            String executorName,
+            int concurrencyLimit
+    ) {
+        var queued = new AtomicInteger();
+        var executor = new SimpleAsyncTaskExecutor(threadNamePrefix);
+        executor.setVirtualThreads(true);
+        executor.setConcurrencyLimit(concurrencyLimit);
+        executor.setTaskDecorator(task -> {
+            queued.incrementAndGet();
+            return () -> {
+                queued.decrementAndGet();
+                task.run();
+            };
+        });
+
+        Gauge.builder("executor.queued", queued, AtomicInteger::get)
+                .description("The approximate number of tasks that are queued for execution")
+                .tag("name", executorName)
+                .register(meterRegistry);
+
+        return executor;
     }
 }
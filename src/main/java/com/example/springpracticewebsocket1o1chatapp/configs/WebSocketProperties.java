@@ -0,0 +1,28 @@
+package com.example.springpracticewebsocket1o1chatapp.configs;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * Configuration properties for the WebSocket message channels.
+ *
+ * @param inboundConcurrency  the maximum number of inbound messages handled at once on virtual threads
+ * @param heartbeatInterval   how often server and client exchange STOMP heartbeats; a session that
+ *                            stays silent for several intervals is closed
+ * @param messageSizeLimit    the largest inbound STOMP message accepted, across WebSocket frames
+ * @param sendBufferSizeLimit how much outbound data may be buffered for a slow client before its
+ *                            session is closed
+ * @param sendTimeLimit       how long a single send to a client may take before its session is closed
+ */
+@ConfigurationProperties(prefix = "chat.websocket")
+public record WebSocketProperties(
+        @DefaultValue("512") int inboundConcurrency,
+        @DefaultValue("10s") Duration heartbeatInterval,
+        @DefaultValue("32KB") DataSize messageSizeLimit,
+        @DefaultValue("128KB") DataSize sendBufferSizeLimit,
+        @DefaultValue("10s") Duration sendTimeLimit
+) {
+}
@@ -0,0 +1,29 @@
+package com.example.springpracticewebsocket1o1chatapp.configs;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Configuration properties for write-behind persistence of chat messages.
+ *
+ * @param enabled       whether messages are delivered first and persisted in batches afterwards
+ * @param batchSize     the maximum number of messages written in one insert
+ * @param flushInterval the longest time a message may wait for its batch to fill up
+ * @param queueCapacity the maximum number of messages waiting to be written
+ * @param offerTimeout  how long a sender waits for queue space before writing its message directly
+ * @param maxRetries    how often a failed batch is retried before it is given up
+ * @param retryBackoff  the wait before the first retry of a failed batch, doubled for each further retry
+ */
+@ConfigurationProperties(prefix = "chat.message.write-behind")
+public record WriteBehindProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("500") int batchSize,
+        @DefaultValue("50ms") Duration flushInterval,
+        @DefaultValue("10000") int queueCapacity,
+        @DefaultValue("100ms") Duration offerTimeout,
+        @DefaultValue("3") int maxRetries,
+        @DefaultValue("100ms") Duration retryBackoff
+) {
+}
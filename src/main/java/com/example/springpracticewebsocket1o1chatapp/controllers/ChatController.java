@@ -1,73 +1,241 @@
 package com.example.springpracticewebsocket1o1chatapp.controllers;
 
 import com.example.springpracticewebsocket1o1chatapp.documents.ChatMessage;
+import com.example.springpracticewebsocket1o1chatapp.exceptions.DuplicateMessageException;
 import com.example.springpracticewebsocket1o1chatapp.model.ChatNotification;
+import com.example.springpracticewebsocket1o1chatapp.model.Conversation;
+import com.example.springpracticewebsocket1o1chatapp.model.MessageAck;
+import com.example.springpracticewebsocket1o1chatapp.model.MessagePosition;
+import com.example.springpracticewebsocket1o1chatapp.model.MessageReceipt;
+import com.example.springpracticewebsocket1o1chatapp.model.ReceiptType;
 import com.example.springpracticewebsocket1o1chatapp.services.ChatMessageService;
+import com.example.springpracticewebsocket1o1chatapp.services.ChatRoomService;
+import com.example.springpracticewebsocket1o1chatapp.services.NotificationService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.Payload;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
 
+import java.security.Principal;
+import java.time.LocalDateTime;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
 /**
  * Controller for handling chat-related operations.
  */
 @Controller
+@ConditionalOnProperty(prefix = "chat.persistence", name = "mode", havingValue = "blocking", matchIfMissing = true)
 public class ChatController {
 
-    private final SimpMessagingTemplate simpMessagingTemplate;
+    private final NotificationService notificationService;
     private final ChatMessageService chatMessageService;
+    private final ChatRoomService chatRoomService;
+    private final MeterRegistry meterRegistry;
+    private final Timer processed;
+    private final Timer failed;
+    private final Timer duplicate;
+    private final Timer send;
 
     /**
-     * Constructs a new ChatController with the given messaging template and chat message service.
+     * Constructs a new ChatController with the given notification service, chat services and meter registry.
      *
-     * @param simpMessagingTemplate the messaging template to send messages
+     * @param notificationService   the service to send notifications to users
      * @param chatMessageService    the service to manage chat messages
+     * @param chatRoomService       the service to manage chat rooms and their unread counts
+     * @param meterRegistry         the registry to publish message processing timings to
      */
-    public ChatController(SimpMessagingTemplate simpMessagingTemplate, ChatMessageService chatMessageService) {
-        this.simpMessagingTemplate = simpMessagingTemplate;
+    public ChatController(
+            NotificationService notificationService,
+            ChatMessageService chatMessageService,
+            ChatRoomService chatRoomService,
+            MeterRegistry meterRegistry
+    ) {
+        this.notificationService = notificationService;
         this.chatMessageService = chatMessageService;
+        this.chatRoomService = chatRoomService;
+        this.meterRegistry = meterRegistry;
+        this.processed = processTimer("success", meterRegistry);
+        this.failed = processTimer("error", meterRegistry);
+        this.duplicate = processTimer("duplicate", meterRegistry);
+        this.send = Timer.builder("chat.message.send")
+                .description("Time to hand a notification to the recipient's sessions")
+                .register(meterRegistry);
     }
 
     /**
      * Processes a chat message sent by a user.
-     * The message is saved and then sent to the recipient's message queue.
+     * The message is saved and then sent to the recipient's message queue. A message carrying a
+     * client message ID is acknowledged on the sender's ack queue; a resent one is acknowledged
+     * again with the stored message's ID, without being stored or delivered twice.
      * @param chatMessage the chat message to process
      */
     @MessageMapping("/chat")
     public void processMessage(
             @Payload ChatMessage chatMessage
     ) {
-        var savedMessage = chatMessageService.save(chatMessage);
+        var sample = Timer.start(meterRegistry);
+        var timer = failed;
+        try {
+            var savedMessage = chatMessageService.save(chatMessage);
+
+            send.record(() -> notificationService.sendToUser(
+                    chatMessage.getRecipientId(),
+                    "/queue/messages",
+                    new ChatNotification(
+                            savedMessage.getId(),
+                            savedMessage.getSenderId(),
+                            savedMessage.getRecipientId(),
+                            savedMessage.getContent(),
+                            savedMessage.getSeq()
+                    )
+            ));
+            acknowledge(savedMessage);
+            timer = processed;
+        } catch (DuplicateMessageException e) {
+            notificationService.sendToUser(chatMessage.getSenderId(), "/queue/acks", e.getAck());
+            timer = duplicate;
+        } finally {
+            sample.stop(timer);
+        }
+    }
+
+    /**
+     * Acknowledges a stored message to its sender, if the sender gave it a client message ID.
+     * @param savedMessage the stored message
+     */
+    private void acknowledge(ChatMessage savedMessage) {
+        if (savedMessage.getClientMessageId() != null) {
+            notificationService.sendToUser(savedMessage.getSenderId(), "/queue/acks", MessageAck.of(savedMessage));
+        }
+    }
+
+    /**
+     * Processes a delivery or read receipt sent by the recipient of a message.
+     * A read receipt clears the recipient's unread count for the chat up to the message it names;
+     * either kind is forwarded to the sender's receipt queue.
+     * The reader is the session's user; a receipt naming anyone else as its recipient is dropped,
+     * so a client cannot mark another user's messages as read.
+     * @param receipt the receipt to process
+     * @param principal the user of the session that sent the receipt
+     */
+    @MessageMapping("/receipt")
+    public void processReceipt(
+            @Payload MessageReceipt receipt,
+            Principal principal
+    ) {
+        if (principal == null || !principal.getName().equals(receipt.recipientId())) {
+            return;
+        }
+        if (receipt.type() == ReceiptType.READ) {
+            chatRoomService.markRead(principal.getName(), receipt.senderId(), receipt.seq());
+        }
+        notificationService.sendToUser(receipt.senderId(), "/queue/receipts", receipt);
+    }
+
+    /**
+     * Retrieves the unread counts of all chats of a user.
+     * @param userId the user's ID
+     * @return the number of unread messages per sender, leaving out chats without unread messages
+     */
+    @GetMapping("/unread/{userId}")
+    public ResponseEntity<Map<String, Long>> findUnreadCounts(
+            @PathVariable String userId
+    ) {
+        return ResponseEntity.ok(chatRoomService.findUnreadCounts(userId));
+    }
 
-        simpMessagingTemplate.convertAndSendToUser(
-                chatMessage.getRecipientId(),
-                "/queue/messages",
-                new ChatNotification(
-                        savedMessage.getId(),
-                        savedMessage.getSenderId(),
-                        savedMessage.getRecipientId(),
-                        savedMessage.getContent()
-                )
-        );
+    /**
+     * Retrieves the direct chats of a user for their conversation list.
+     * @param userId the user's ID
+     * @param limit the maximum number of chats to return
+     * @return the user's chats with their last message and unread count, most recently active first
+     */
+    @GetMapping("/conversations/{userId}")
+    public ResponseEntity<List<Conversation>> findConversations(
+            @PathVariable String userId,
+            @RequestParam(defaultValue = "50") int limit
+    ) {
+        return ResponseEntity.ok(chatRoomService.findConversations(userId, limit));
     }
 
     /**
-     * Retrieves the chat messages between two users.
+     * Retrieves one page of chat messages between two users.
+     * Without a cursor the newest page is returned; clients pass the timestamp or sequence number
+     * of the oldest message they hold as {@code before} or {@code beforeSeq} to load older history,
+     * or of the newest as {@code after} or {@code afterSeq} to catch up. A timestamp cursor should
+     * carry the message's ID as well, since several messages can share a timestamp.
+     * Sequence cursors page in the order the server stored the messages and skip messages stored
+     * before sequence numbers were assigned.
      * @param senderId the ID of the sender
      * @param recipientId the ID of the recipient
-     * @return a list of chat messages between the two users
+     * @param before only return messages sent before this timestamp
+     * @param beforeId the ID of the message at {@code before}, to also return older messages sharing its timestamp
+     * @param after only return messages sent after this timestamp
+     * @param afterId the ID of the message at {@code after}, to also return newer messages sharing its timestamp
+     * @param beforeSeq only return messages with a lower sequence number
+     * @param afterSeq only return messages with a higher sequence number
+     * @param limit the maximum number of messages to return
+     * @return a page of chat messages between the two users in ascending order,
+     * or 400 if more than one cursor is given or a cursor is malformed
      */
     @GetMapping("/messages/{senderId}/{recipientId}")
     public ResponseEntity<List<ChatMessage>> findChatMessages(
             @PathVariable String senderId,
-            @PathVariable String recipientId
+            @PathVariable String recipientId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime before,
+            @RequestParam(required = false) String beforeId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime after,
+            @RequestParam(required = false) String afterId,
+            @RequestParam(required = false) Long beforeSeq,
+            @RequestParam(required = false) Long afterSeq,
+            @RequestParam(defaultValue = "50") int limit
     ) {
-        return ResponseEntity.ok(chatMessageService.findChatMessages(senderId, recipientId));
+        if (hasMultipleCursors(before, after, beforeSeq, afterSeq)
+                || !MessagePosition.isValid(before, beforeId) || !MessagePosition.isValid(after, afterId)) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (beforeSeq != null || afterSeq != null) {
+            return ResponseEntity.ok(chatMessageService.findChatMessagesBySeq(senderId, recipientId, beforeSeq, afterSeq, limit));
+        }
+        return ResponseEntity.ok(chatMessageService.findChatMessages(
+                senderId,
+                recipientId,
+                MessagePosition.before(before, beforeId),
+                MessagePosition.after(after, afterId),
+                limit
+        ));
+    }
+
+    /**
+     * Checks whether a history request combines several cursors.
+     * @param cursors the cursors of the request, null when absent
+     * @return true if more than one cursor is given
+     */
+    static boolean hasMultipleCursors(Object... cursors) {
+        return Arrays.stream(cursors).filter(Objects::nonNull).count() > 1;
+    }
+
+    /**
+     * Builds the timer of whole chat messages, from the decoded payload to the sent notification.
+     * @param outcome whether the message was processed or failed
+     * @param meterRegistry the registry to publish the timer to
+     * @return the timer
+     */
+    static Timer processTimer(String outcome, MeterRegistry meterRegistry) {
+        return Timer.builder("chat.message.process")
+                .description("Time to store and deliver a chat message")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
     }
 
 }
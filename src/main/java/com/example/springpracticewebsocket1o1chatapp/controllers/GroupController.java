@@ -0,0 +1,174 @@
+package com.example.springpracticewebsocket1o1chatapp.controllers;
+
+import com.example.springpracticewebsocket1o1chatapp.documents.ChatMessage;
+import com.example.springpracticewebsocket1o1chatapp.documents.GroupRoom;
+import com.example.springpracticewebsocket1o1chatapp.exceptions.DuplicateMessageException;
+import com.example.springpracticewebsocket1o1chatapp.model.GroupRequest;
+import com.example.springpracticewebsocket1o1chatapp.model.MessageAck;
+import com.example.springpracticewebsocket1o1chatapp.model.MessagePosition;
+import com.example.springpracticewebsocket1o1chatapp.services.ChatMessageService;
+import com.example.springpracticewebsocket1o1chatapp.services.GroupService;
+import com.example.springpracticewebsocket1o1chatapp.services.NotificationService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.messaging.handler.annotation.DestinationVariable;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Controller for handling group chat operations.
+ */
+@Controller
+@ConditionalOnProperty(prefix = "chat.persistence", name = "mode", havingValue = "blocking", matchIfMissing = true)
+public class GroupController {
+
+    private final GroupService groupService;
+    private final ChatMessageService chatMessageService;
+    private final NotificationService notificationService;
+
+    /**
+     * Constructs a new GroupController with the given group, chat message and notification services.
+     *
+     * @param groupService        the service to manage groups
+     * @param chatMessageService  the service to manage chat messages
+     * @param notificationService the service to send acknowledgements to senders
+     */
+    public GroupController(
+            GroupService groupService,
+            ChatMessageService chatMessageService,
+            NotificationService notificationService
+    ) {
+        this.groupService = groupService;
+        this.chatMessageService = chatMessageService;
+        this.notificationService = notificationService;
+    }
+
+    /**
+     * Processes a chat message sent to a group.
+     * The message is saved once and sent to the message queue of every other online member.
+     * Client message IDs are acknowledged as for direct messages.
+     * @param groupId the group ID
+     * @param chatMessage the chat message to process
+     * @see ChatController#processMessage(ChatMessage)
+     */
+    @MessageMapping("/group/{groupId}")
+    public void processGroupMessage(
+            @DestinationVariable String groupId,
+            @Payload ChatMessage chatMessage
+    ) {
+        try {
+            var savedMessage = groupService.sendMessage(groupId, chatMessage);
+            if (savedMessage.getClientMessageId() != null) {
+                notificationService.sendToUser(savedMessage.getSenderId(), "/queue/acks", MessageAck.of(savedMessage));
+            }
+        } catch (DuplicateMessageException e) {
+            notificationService.sendToUser(chatMessage.getSenderId(), "/queue/acks", e.getAck());
+        }
+    }
+
+    /**
+     * Creates a group.
+     * @param request the group's name, owner and initial members
+     * @return the created group
+     */
+    @PostMapping("/groups")
+    public ResponseEntity<GroupRoom> createGroup(
+            @RequestBody GroupRequest request
+    ) {
+        var memberIds = request.memberIds() == null ? List.<String>of() : request.memberIds();
+        return ResponseEntity.ok(groupService.createGroup(request.name(), request.ownerId(), memberIds));
+    }
+
+    /**
+     * Adds a member to a group.
+     * @param groupId the group ID
+     * @param memberId the ID of the user to add
+     * @return 204 once the user is a member
+     */
+    @PostMapping("/groups/{groupId}/members/{memberId}")
+    public ResponseEntity<Void> addMember(
+            @PathVariable String groupId,
+            @PathVariable String memberId
+    ) {
+        groupService.addMember(groupId, memberId);
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Removes a member from a group.
+     * @param groupId the group ID
+     * @param memberId the ID of the user to remove
+     * @return 204 once the user is no longer a member
+     */
+    @DeleteMapping("/groups/{groupId}/members/{memberId}")
+    public ResponseEntity<Void> removeMember(
+            @PathVariable String groupId,
+            @PathVariable String memberId
+    ) {
+        groupService.removeMember(groupId, memberId);
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Retrieves the groups a user is a member of.
+     * @param memberId the user's ID
+     * @return a list of the user's groups
+     */
+    @GetMapping("/groups/user/{memberId}")
+    public ResponseEntity<List<GroupRoom>> findGroups(
+            @PathVariable String memberId
+    ) {
+        return ResponseEntity.ok(groupService.findGroups(memberId));
+    }
+
+    /**
+     * Retrieves one page of a group's messages, with the same cursors as the one-to-one history.
+     * @param groupId the group ID
+     * @param before only return messages sent before this timestamp
+     * @param beforeId the ID of the message at {@code before}, to also return older messages sharing its timestamp
+     * @param after only return messages sent after this timestamp
+     * @param afterId the ID of the message at {@code after}, to also return newer messages sharing its timestamp
+     * @param beforeSeq only return messages with a lower sequence number
+     * @param afterSeq only return messages with a higher sequence number
+     * @param limit the maximum number of messages to return
+     * @return a page of the group's messages in ascending order, or 400 if more than one cursor is
+     * given or a cursor is malformed
+     */
+    @GetMapping("/groups/{groupId}/messages")
+    public ResponseEntity<List<ChatMessage>> findGroupMessages(
+            @PathVariable String groupId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime before,
+            @RequestParam(required = false) String beforeId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime after,
+            @RequestParam(required = false) String afterId,
+            @RequestParam(required = false) Long beforeSeq,
+            @RequestParam(required = false) Long afterSeq,
+            @RequestParam(defaultValue = "50") int limit
+    ) {
+        if (ChatController.hasMultipleCursors(before, after, beforeSeq, afterSeq)
+                || !MessagePosition.isValid(before, beforeId) || !MessagePosition.isValid(after, afterId)) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (beforeSeq != null || afterSeq != null) {
+            return ResponseEntity.ok(chatMessageService.findMessagesInChatBySeq(groupId, beforeSeq, afterSeq, limit));
+        }
+        return ResponseEntity.ok(chatMessageService.findMessagesInChat(
+                groupId,
+                MessagePosition.before(before, beforeId),
+                MessagePosition.after(after, afterId),
+                limit
+        ));
+    }
+
+}
@@ -0,0 +1,210 @@
+package com.example.springpracticewebsocket1o1chatapp.controllers;
+
+import com.example.springpracticewebsocket1o1chatapp.documents.ChatMessage;
+import com.example.springpracticewebsocket1o1chatapp.exceptions.DuplicateMessageException;
+import com.example.springpracticewebsocket1o1chatapp.model.ChatNotification;
+import com.example.springpracticewebsocket1o1chatapp.model.Conversation;
+import com.example.springpracticewebsocket1o1chatapp.model.MessageAck;
+import com.example.springpracticewebsocket1o1chatapp.model.MessagePosition;
+import com.example.springpracticewebsocket1o1chatapp.model.MessageReceipt;
+import com.example.springpracticewebsocket1o1chatapp.model.ReceiptType;
+import com.example.springpracticewebsocket1o1chatapp.services.NotificationService;
+import com.example.springpracticewebsocket1o1chatapp.services.ReactiveChatMessageService;
+import com.example.springpracticewebsocket1o1chatapp.services.ReactiveChatRoomService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import reactor.core.publisher.Mono;
+
+import java.security.Principal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Controller for handling chat-related operations on the reactive persistence path.
+ * Handlers return as soon as the database call is issued, so the inbound channel thread is
+ * released while Mongo is working and the notification is sent from the driver's callback.
+ */
+@Controller
+@ConditionalOnProperty(prefix = "chat.persistence", name = "mode", havingValue = "reactive")
+public class ReactiveChatController {
+
+    private final NotificationService notificationService;
+    private final ReactiveChatMessageService chatMessageService;
+    private final ReactiveChatRoomService chatRoomService;
+    private final MeterRegistry meterRegistry;
+    private final Timer processed;
+    private final Timer failed;
+    private final Timer duplicate;
+    private final Timer send;
+
+    /**
+     * Constructs a new ReactiveChatController with the given notification service, chat services and meter registry.
+     *
+     * @param notificationService   the service to send notifications to users
+     * @param chatMessageService    the reactive service to manage chat messages
+     * @param chatRoomService       the reactive service to manage chat rooms and their unread counts
+     * @param meterRegistry         the registry to publish message processing timings to
+     */
+    public ReactiveChatController(
+            NotificationService notificationService,
+            ReactiveChatMessageService chatMessageService,
+            ReactiveChatRoomService chatRoomService,
+            MeterRegistry meterRegistry
+    ) {
+        this.notificationService = notificationService;
+        this.chatMessageService = chatMessageService;
+        this.chatRoomService = chatRoomService;
+        this.meterRegistry = meterRegistry;
+        this.processed = ChatController.processTimer("success", meterRegistry);
+        this.failed = ChatController.processTimer("error", meterRegistry);
+        this.duplicate = ChatController.processTimer("duplicate", meterRegistry);
+        this.send = Timer.builder("chat.message.send")
+                .description("Time to hand a notification to the recipient's sessions")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Processes a chat message sent by a user.
+     * The message is saved and then sent to the recipient's message queue.
+     * @param chatMessage the chat message to process
+     * @return completes once the notification has been sent
+     * @see ChatController#processMessage(ChatMessage)
+     */
+    @MessageMapping("/chat")
+    public Mono<Void> processMessage(
+            @Payload ChatMessage chatMessage
+    ) {
+        var sample = Timer.start(meterRegistry);
+
+        return chatMessageService.save(chatMessage)
+                .doOnNext(savedMessage -> send.record(() -> notificationService.sendToUser(
+                        savedMessage.getRecipientId(),
+                        "/queue/messages",
+                        new ChatNotification(
+                                savedMessage.getId(),
+                                savedMessage.getSenderId(),
+                                savedMessage.getRecipientId(),
+                                savedMessage.getContent(),
+                                savedMessage.getSeq()
+                        )
+                )))
+                .doOnNext(savedMessage -> {
+                    if (savedMessage.getClientMessageId() != null) {
+                        notificationService.sendToUser(
+                                savedMessage.getSenderId(), "/queue/acks", MessageAck.of(savedMessage));
+                    }
+                })
+                .then()
+                .doOnSuccess(done -> sample.stop(processed))
+                .onErrorResume(DuplicateMessageException.class, e -> Mono.fromRunnable(() -> {
+                    notificationService.sendToUser(chatMessage.getSenderId(), "/queue/acks", e.getAck());
+                    sample.stop(duplicate);
+                }))
+                .doOnError(error -> sample.stop(failed));
+    }
+
+    /**
+     * Processes a delivery or read receipt sent by the recipient of a message.
+     * @param receipt the receipt to process
+     * @param principal the user of the session that sent the receipt
+     * @return completes once the receipt has been forwarded, or at once if it was dropped
+     * @see ChatController#processReceipt(MessageReceipt, Principal)
+     */
+    @MessageMapping("/receipt")
+    public Mono<Void> processReceipt(
+            @Payload MessageReceipt receipt,
+            Principal principal
+    ) {
+        if (principal == null || !principal.getName().equals(receipt.recipientId())) {
+            return Mono.empty();
+        }
+
+        var markedRead = receipt.type() == ReceiptType.READ
+                ? chatRoomService.markRead(principal.getName(), receipt.senderId(), receipt.seq())
+                : Mono.<Void>empty();
+
+        return markedRead.then(Mono.fromRunnable(
+                () -> notificationService.sendToUser(receipt.senderId(), "/queue/receipts", receipt)
+        ));
+    }
+
+    /**
+     * Retrieves the unread counts of all chats of a user.
+     * @param userId the user's ID
+     * @return the number of unread messages per sender, leaving out chats without unread messages
+     */
+    @GetMapping("/unread/{userId}")
+    public Mono<ResponseEntity<Map<String, Long>>> findUnreadCounts(
+            @PathVariable String userId
+    ) {
+        return chatRoomService.findUnreadCounts(userId).map(ResponseEntity::ok);
+    }
+
+    /**
+     * Retrieves the direct chats of a user for their conversation list.
+     * @param userId the user's ID
+     * @param limit the maximum number of chats to return
+     * @return the user's chats with their last message and unread count, most recently active first
+     */
+    @GetMapping("/conversations/{userId}")
+    public Mono<ResponseEntity<List<Conversation>>> findConversations(
+            @PathVariable String userId,
+            @RequestParam(defaultValue = "50") int limit
+    ) {
+        return chatRoomService.findConversations(userId, limit).collectList().map(ResponseEntity::ok);
+    }
+
+    /**
+     * Retrieves one page of chat messages between two users.
+     * @param senderId the ID of the sender
+     * @param recipientId the ID of the recipient
+     * @param before only return messages sent before this timestamp
+     * @param beforeId the ID of the message at {@code before}, to also return older messages sharing its timestamp
+     * @param after only return messages sent after this timestamp
+     * @param afterId the ID of the message at {@code after}, to also return newer messages sharing its timestamp
+     * @param beforeSeq only return messages with a lower sequence number
+     * @param afterSeq only return messages with a higher sequence number
+     * @param limit the maximum number of messages to return
+     * @return a page of chat messages between the two users in ascending order,
+     * or 400 if more than one cursor is given or a cursor is malformed
+     * @see ChatController#findChatMessages(String, String, LocalDateTime, String, LocalDateTime, String, Long, Long, int)
+     */
+    @GetMapping("/messages/{senderId}/{recipientId}")
+    public Mono<ResponseEntity<List<ChatMessage>>> findChatMessages(
+            @PathVariable String senderId,
+            @PathVariable String recipientId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime before,
+            @RequestParam(required = false) String beforeId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime after,
+            @RequestParam(required = false) String afterId,
+            @RequestParam(required = false) Long beforeSeq,
+            @RequestParam(required = false) Long afterSeq,
+            @RequestParam(defaultValue = "50") int limit
+    ) {
+        if (ChatController.hasMultipleCursors(before, after, beforeSeq, afterSeq)
+                || !MessagePosition.isValid(before, beforeId) || !MessagePosition.isValid(after, afterId)) {
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+        var page = beforeSeq != null || afterSeq != null
+                ? chatMessageService.findChatMessagesBySeq(senderId, recipientId, beforeSeq, afterSeq, limit)
+                : chatMessageService.findChatMessages(
+                        senderId,
+                        recipientId,
+                        MessagePosition.before(before, beforeId),
+                        MessagePosition.after(after, afterId),
+                        limit
+                );
+        return page.map(ResponseEntity::ok);
+    }
+
+}
@@ -0,0 +1,72 @@
+package com.example.springpracticewebsocket1o1chatapp.controllers;
+
+import com.example.springpracticewebsocket1o1chatapp.documents.User;
+import com.example.springpracticewebsocket1o1chatapp.model.PresenceDelta;
+import com.example.springpracticewebsocket1o1chatapp.services.ReactiveUserService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.messaging.handler.annotation.SendTo;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Controller for handling user-related operations on the reactive persistence path.
+ */
+@Controller
+@ConditionalOnProperty(prefix = "chat.persistence", name = "mode", havingValue = "reactive")
+public class ReactiveUserController {
+
+    private final ReactiveUserService userService;
+
+    /**
+     * Constructs a new ReactiveUserController with the given user service.
+     *
+     * @param userService the reactive service to manage users
+     */
+    public ReactiveUserController(ReactiveUserService userService) {
+        this.userService = userService;
+    }
+
+    /**
+     * Adds a new user to the system.
+     * The user is saved and a presence change is sent to the public user topic.
+     * @param user the user to add
+     * @return the presence change of the added user
+     */
+    @MessageMapping("/user/add")
+    @SendTo("/topic/public")
+    public Mono<PresenceDelta> addUser(
+            @Payload User user
+    ) {
+        return userService.saveUser(user);
+    }
+
+    /**
+     * Disconnects a user from the system.
+     * The user's status is updated and a presence change is sent to the public user topic.
+     * @param user the user to disconnect
+     * @return the presence change of the disconnected user
+     */
+    @MessageMapping("/user/disconnect")
+    @SendTo("/topic/public")
+    public Mono<PresenceDelta> disconnectUser(
+            @Payload User user
+    ) {
+        return userService.disconnect(user);
+    }
+
+    /**
+     * Retrieves a list of all connected users.
+     * @return a list of connected users
+     */
+    @GetMapping("/users")
+    public Mono<ResponseEntity<List<User>>> getConnectedUsers() {
+        return userService.findConnectedUsers().map(ResponseEntity::ok);
+    }
+
+}
@@ -0,0 +1,59 @@
+package com.example.springpracticewebsocket1o1chatapp.controllers;
+
+import com.example.springpracticewebsocket1o1chatapp.exceptions.SearchTimeoutException;
+import com.example.springpracticewebsocket1o1chatapp.model.SearchPage;
+import com.example.springpracticewebsocket1o1chatapp.services.SearchService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.util.StringUtils;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+
+/**
+ * Controller for searching chat history.
+ */
+@Controller
+@ConditionalOnProperty(prefix = "chat.persistence", name = "mode", havingValue = "blocking", matchIfMissing = true)
+public class SearchController {
+
+    private final SearchService searchService;
+
+    /**
+     * Constructs a new SearchController with the given search service.
+     *
+     * @param searchService the service to search messages
+     */
+    public SearchController(SearchService searchService) {
+        this.searchService = searchService;
+    }
+
+    /**
+     * Searches the messages of a user's direct chats and groups.
+     * @param userId the user's ID
+     * @param q the terms to search for
+     * @param page the index of the page to return, starting at 0
+     * @param size the maximum number of hits per page
+     * @return one page of hits, most relevant first, 400 if no terms are given or the page is negative,
+     *         or 503 if the search took longer than the configured maximum time
+     */
+    @GetMapping("/search/{userId}")
+    public ResponseEntity<SearchPage> search(
+            @PathVariable String userId,
+            @RequestParam String q,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size
+    ) {
+        if (!StringUtils.hasText(q) || page < 0) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            return ResponseEntity.ok(searchService.search(userId, q, page, size));
+        } catch (SearchTimeoutException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+
+}
@@ -0,0 +1,72 @@
+package com.example.springpracticewebsocket1o1chatapp.controllers;
+
+import com.example.springpracticewebsocket1o1chatapp.model.SyncPage;
+import com.example.springpracticewebsocket1o1chatapp.services.SyncService;
+import org.bson.types.ObjectId;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+
+/**
+ * Controller for catching users up on the messages they missed while offline.
+ */
+@Controller
+@ConditionalOnProperty(prefix = "chat.persistence", name = "mode", havingValue = "blocking", matchIfMissing = true)
+public class SyncController {
+
+    private final SyncService syncService;
+
+    /**
+     * Constructs a new SyncController with the given sync service.
+     *
+     * @param syncService the service to sync missed messages
+     */
+    public SyncController(SyncService syncService) {
+        this.syncService = syncService;
+    }
+
+    /**
+     * Retrieves one page of the messages a user received after a cursor, across all of their chats.
+     * Clients call this after connecting, follow the returned cursor while more pages exist, and
+     * acknowledge the last cursor once the messages are processed.
+     * @param userId the user's ID
+     * @param since the cursor to continue from; without it the user's acknowledged cursor is used, and
+     *              without that the sync starts at the user's newest message
+     * @param limit the maximum number of messages to return
+     * @return one page of missed messages, or 400 if the cursor is not a message ID
+     */
+    @GetMapping("/sync/{userId}")
+    public ResponseEntity<SyncPage> sync(
+            @PathVariable String userId,
+            @RequestParam(required = false) String since,
+            @RequestParam(defaultValue = "100") int limit
+    ) {
+        if (since != null && !ObjectId.isValid(since)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(syncService.sync(userId, since, limit));
+    }
+
+    /**
+     * Records that a user has received all messages up to a cursor.
+     * @param userId the user's ID
+     * @param cursor the cursor returned by a sync or the ID of a received message
+     * @return 204 once the cursor is stored, or 400 if it is not a message ID
+     */
+    @PostMapping("/sync/{userId}/ack")
+    public ResponseEntity<Void> acknowledge(
+            @PathVariable String userId,
+            @RequestParam String cursor
+    ) {
+        if (!ObjectId.isValid(cursor)) {
+            return ResponseEntity.badRequest().build();
+        }
+        syncService.acknowledge(userId, cursor);
+        return ResponseEntity.noContent().build();
+    }
+
+}
@@ -1,7 +1,9 @@
 package com.example.springpracticewebsocket1o1chatapp.controllers;
 
 import com.example.springpracticewebsocket1o1chatapp.documents.User;
+import com.example.springpracticewebsocket1o1chatapp.model.PresenceDelta;
 import com.example.springpracticewebsocket1o1chatapp.services.UserService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.http.ResponseEntity;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.Payload;
@@ -15,6 +17,7 @@ import java.util.List;
  * Controller for handling user-related operations.
  */
 @Controller
+@ConditionalOnProperty(prefix = "chat.persistence", name = "mode", havingValue = "blocking", matchIfMissing = true)
 public class UserController {
 
     private final UserService userService;
@@ -30,36 +33,36 @@ public class UserController {
 
     /**
      * Adds a new user to the system.
-     * The user is saved and a notification is sent to the public user topic.
+     * The user is saved and a presence change is sent to the public user topic.
+     * Clients that send their full name in the CONNECT frame do not need to call this.
      * @param user the user to add
-     * @return the added user
+     * @return the presence change of the added user
      */
     @MessageMapping("/user/add")
     @SendTo("/topic/public")
-    public User addUser(
+    public PresenceDelta addUser(
             @Payload User user
     ) {
-        userService.saveUser(user);
-        return user;
+        return userService.saveUser(user);
     }
 
     /**
      * Disconnects a user from the system.
-     * The user's status is updated and a notification is sent to the public user topic.
+     * The user's status is updated and a presence change is sent to the public user topic.
+     * Closing the connection has the same effect once the user's last session is gone.
      * @param user the user to disconnect
-     * @return the disconnected user
+     * @return the presence change of the disconnected user
      */
     @MessageMapping("/user/disconnect")
     @SendTo("/topic/public")
-    public User disconnectUser(
+    public PresenceDelta disconnectUser(
             @Payload User user
     ) {
-        userService.disconnect(user);
-        return user;
+        return userService.disconnect(user);
     }
 
     /**
-     * Retrieves a list of all connected users.
+     * Retrieves a list of all connected users from the in-memory presence registry.
      * @return a list of connected users
      */
     @GetMapping("/users")
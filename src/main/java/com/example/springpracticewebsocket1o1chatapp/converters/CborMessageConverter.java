@@ -0,0 +1,85 @@
+package com.example.springpracticewebsocket1o1chatapp.converters;
+
+import com.example.springpracticewebsocket1o1chatapp.model.PayloadFormat;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.converter.AbstractMessageConverter;
+import org.springframework.messaging.converter.MessageConversionException;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Message converter for payloads encoded as CBOR.
+ * Readers and writers are resolved once per payload type, and encoding goes through Jackson's
+ * recycled buffers, so a message costs one right-sized byte array and no intermediate copies.
+ */
+public class CborMessageConverter extends AbstractMessageConverter {
+
+    private final ObjectMapper cborMapper;
+    private final Map<Class<?>, ObjectReader> readers = new ConcurrentHashMap<>();
+    private final Map<Class<?>, ObjectWriter> writers = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs a new CborMessageConverter using the given mapper.
+     *
+     * @param cborMapper a mapper built on a CBOR factory
+     */
+    public CborMessageConverter(ObjectMapper cborMapper) {
+        super(PayloadFormat.CBOR.mimeType());
+        this.cborMapper = cborMapper;
+        setSerializedPayloadClass(byte[].class);
+        setStrictContentTypeMatch(true);
+    }
+
+    /**
+     * Accepts any payload type; whether it can actually be mapped is found out when converting.
+     * @param clazz the payload type
+     * @return always true
+     */
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return true;
+    }
+
+    /**
+     * Decodes a CBOR payload.
+     * @param message the message to decode
+     * @param targetClass the type to decode to
+     * @param conversionHint an extra object passed by the caller, unused
+     * @return the decoded payload
+     * @throws MessageConversionException if the payload is not valid CBOR for the target type
+     */
+    @Override
+    protected Object convertFromInternal(Message<?> message, Class<?> targetClass, Object conversionHint) {
+        if (!(message.getPayload() instanceof byte[] bytes)) {
+            return null;
+        }
+        try {
+            return readers.computeIfAbsent(targetClass, cborMapper::readerFor).readValue(bytes);
+        } catch (IOException e) {
+            throw new MessageConversionException(message, "Could not read CBOR: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Encodes a payload as CBOR.
+     * @param payload the payload to encode
+     * @param headers the headers of the message to create, unused
+     * @param conversionHint an extra object passed by the caller, unused
+     * @return the encoded payload
+     * @throws MessageConversionException if the payload cannot be mapped
+     */
+    @Override
+    protected Object convertToInternal(Object payload, MessageHeaders headers, Object conversionHint) {
+        try {
+            return writers.computeIfAbsent(payload.getClass(), cborMapper::writerFor).writeValueAsBytes(payload);
+        } catch (IOException e) {
+            throw new MessageConversionException("Could not write CBOR: " + e.getMessage(), e);
+        }
+    }
+}
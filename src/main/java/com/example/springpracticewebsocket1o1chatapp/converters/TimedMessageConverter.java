@@ -0,0 +1,131 @@
+package com.example.springpracticewebsocket1o1chatapp.converters;
+
+import com.example.springpracticewebsocket1o1chatapp.model.PayloadFormat;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.converter.MessageConverter;
+import org.springframework.messaging.converter.SmartMessageConverter;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Message converter decorator timing every payload it decodes and encodes.
+ * Decoding is published as {@code chat.stomp.decode} and encoding as {@code chat.stomp.encode},
+ * both tagged with the payload type and the format of the delegate. Spring tries its converters in
+ * turn until one returns a result, so only conversions the delegate performed are recorded; an
+ * attempt it declines, such as the JSON converter being asked for a CBOR frame, is not.
+ * Timers are looked up once per direction and payload type and cached, so converting a message
+ * does not build and register a meter.
+ */
+public class TimedMessageConverter implements SmartMessageConverter {
+
+    private final MessageConverter delegate;
+    private final ClassValue<Timer> decodeTimers;
+    private final ClassValue<Timer> encodeTimers;
+
+    /**
+     * Constructs a new TimedMessageConverter around the given converter.
+     *
+     * @param delegate      the converter doing the actual work
+     * @param format        the payload format the delegate handles, published as the "format" tag
+     * @param meterRegistry the registry to publish the timings to
+     */
+    public TimedMessageConverter(MessageConverter delegate, PayloadFormat format, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.decodeTimers = timers("chat.stomp.decode", format, meterRegistry);
+        this.encodeTimers = timers("chat.stomp.encode", format, meterRegistry);
+    }
+
+    /**
+     * Decodes the payload of a message, timing the conversion.
+     * @param message the message to decode
+     * @param targetClass the type to decode to
+     * @return the decoded payload, or null if the delegate cannot decode it
+     */
+    @Override
+    public Object fromMessage(Message<?> message, Class<?> targetClass) {
+        return timed(decodeTimers, targetClass, () -> delegate.fromMessage(message, targetClass));
+    }
+
+    /**
+     * Decodes the payload of a message with a conversion hint, timing the conversion.
+     * @param message the message to decode
+     * @param targetClass the type to decode to
+     * @param conversionHint an extra object passed to the delegate, such as the method parameter
+     * @return the decoded payload, or null if the delegate cannot decode it
+     */
+    @Override
+    public Object fromMessage(Message<?> message, Class<?> targetClass, Object conversionHint) {
+        if (!(delegate instanceof SmartMessageConverter smart)) {
+            return fromMessage(message, targetClass);
+        }
+        return timed(decodeTimers, targetClass, () -> smart.fromMessage(message, targetClass, conversionHint));
+    }
+
+    /**
+     * Encodes a payload into a message, timing the conversion.
+     * @param payload the payload to encode
+     * @param headers the headers for the message, or null
+     * @return the encoded message, or null if the delegate cannot encode the payload
+     */
+    @Override
+    public Message<?> toMessage(Object payload, MessageHeaders headers) {
+        return timed(encodeTimers, payload.getClass(), () -> delegate.toMessage(payload, headers));
+    }
+
+    /**
+     * Encodes a payload into a message with a conversion hint, timing the conversion.
+     * @param payload the payload to encode
+     * @param headers the headers for the message, or null
+     * @param conversionHint an extra object passed to the delegate, such as the method return type
+     * @return the encoded message, or null if the delegate cannot encode the payload
+     */
+    @Override
+    public Message<?> toMessage(Object payload, MessageHeaders headers, Object conversionHint) {
+        if (!(delegate instanceof SmartMessageConverter smart)) {
+            return toMessage(payload, headers);
+        }
+        return timed(encodeTimers, payload.getClass(), () -> smart.toMessage(payload, headers, conversionHint));
+    }
+
+    /**
+     * Runs a conversion and records its duration if the delegate performed it.
+     * @param timers the timers of the direction
+     * @param payloadType the payload type
+     * @param conversion the conversion
+     * @param <T> the type of the result
+     * @return the result, or null if the delegate declined the conversion
+     */
+    private static <T> T timed(ClassValue<Timer> timers, Class<?> payloadType, Supplier<T> conversion) {
+        var start = System.nanoTime();
+        var result = conversion.get();
+        if (result != null) {
+            timers.get(payloadType).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        return result;
+    }
+
+    /**
+     * Builds the cache of the timers of one direction, registering each payload type's timer on first use.
+     * @param name the metric name
+     * @param format the payload format of the delegate
+     * @param meterRegistry the registry to publish the timings to
+     * @return the timers by payload type
+     */
+    private static ClassValue<Timer> timers(String name, PayloadFormat format, MeterRegistry meterRegistry) {
+        var formatTag = format.name().toLowerCase(Locale.ROOT);
+        return new ClassValue<>() {
+            @Override
+            protected Timer computeValue(Class<?> payloadType) {
+                return Timer.builder(name)
+                        .tag("type", payloadType.getSimpleName())
+                        .tag("format", formatTag)
+                        .register(meterRegistry);
+            }
+        };
+    }
+}
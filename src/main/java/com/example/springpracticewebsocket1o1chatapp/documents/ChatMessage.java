@@ -1,6 +1,7 @@
 package com.example.springpracticewebsocket1o1chatapp.documents;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDateTime;
@@ -8,8 +9,21 @@ import java.util.Objects;
 
 /**
  * Represents a chat message document in the database.
+ * History pages are read through the (chatId, timestamp, _id) or (chatId, seq) index, and offline
+ * sync through the (recipientId, _id) index; the ID orders messages sharing a timestamp.
+ * The sequence number is unique per chat; messages stored before sequences were assigned have none
+ * and are left out of that index.
+ * A client message ID, when the client sends one, is unique per sender so that resending is safe.
+ * The content is text indexed per chat for search, by the search index runner on startup; MongoDB
+ * updates the index as part of each insert.
  */
 @Document
+@CompoundIndex(name = "chat_timestamp_id_idx", def = "{'chatId': 1, 'timestamp': 1, '_id': 1}")
+@CompoundIndex(name = "chat_seq_idx", def = "{'chatId': 1, 'seq': 1}", unique = true,
+        partialFilter = "{'seq': {'$exists': true}}")
+@CompoundIndex(name = "sender_client_message_idx", def = "{'senderId': 1, 'clientMessageId': 1}", unique = true,
+        partialFilter = "{'clientMessageId': {'$exists': true}}")
+@CompoundIndex(name = "recipient_id_idx", def = "{'recipientId': 1, '_id': 1}")
 public class ChatMessage {
 
     @Id
@@ -19,6 +33,8 @@ public class ChatMessage {
     private String recipientId;
     private String content;
     private LocalDateTime timestamp;
+    private Long seq;
+    private String clientMessageId;
 
     /**
      * Default constructor.
@@ -141,6 +157,38 @@ public class ChatMessage {
         this.timestamp = timestamp;
     }
 
+    /**
+     * Gets the sequence number of the message within its chat.
+     * @return the sequence number, or null for messages stored before sequences were assigned
+     */
+    public Long getSeq() {
+        return seq;
+    }
+
+    /**
+     * Sets the sequence number of the message within its chat.
+     * @param seq the sequence number
+     */
+    public void setSeq(Long seq) {
+        this.seq = seq;
+    }
+
+    /**
+     * Gets the ID the client generated for the message.
+     * @return the client message ID, or null if the client did not send one
+     */
+    public String getClientMessageId() {
+        return clientMessageId;
+    }
+
+    /**
+     * Sets the ID the client generated for the message.
+     * @param clientMessageId the client message ID
+     */
+    public void setClientMessageId(String clientMessageId) {
+        this.clientMessageId = clientMessageId;
+    }
+
     /**
      * Checks if this chat message is equal to another object.
      * @param o the object to compare with
@@ -150,7 +198,7 @@ public class ChatMessage {
     public final boolean equals(Object o) {
         if (!(o instanceof ChatMessage that)) return false;
 
-        return Objects.equals(id, that.id) && Objects.equals(chatId, that.chatId) && Objects.equals(senderId, that.senderId) && Objects.equals(recipientId, that.recipientId) && Objects.equals(content, that.content) && Objects.equals(timestamp, that.timestamp);
+        return Objects.equals(id, that.id) && Objects.equals(chatId, that.chatId) && Objects.equals(senderId, that.senderId) && Objects.equals(recipientId, that.recipientId) && Objects.equals(content, that.content) && Objects.equals(timestamp, that.timestamp) && Objects.equals(seq, that.seq) && Objects.equals(clientMessageId, that.clientMessageId);
     }
 
     /**
@@ -165,6 +213,8 @@ public class ChatMessage {
         result = 31 * result + Objects.hashCode(recipientId);
         result = 31 * result + Objects.hashCode(content);
         result = 31 * result + Objects.hashCode(timestamp);
+        result = 31 * result + Objects.hashCode(seq);
+        result = 31 * result + Objects.hashCode(clientMessageId);
         return result;
     }
 }
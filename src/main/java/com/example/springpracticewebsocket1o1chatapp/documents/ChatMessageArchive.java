@@ -0,0 +1,227 @@
+package com.example.springpracticewebsocket1o1chatapp.documents;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Represents a batch of archived chat messages of one chat, stored as a single compressed document.
+ * The range of timestamps and sequence numbers the batch covers is kept uncompressed and indexed,
+ * so a history read only decompresses the batches that hold the page it asks for.
+ */
+@Document
+@CompoundIndex(name = "chat_from_timestamp_idx", def = "{'chatId': 1, 'fromTimestamp': 1}")
+@CompoundIndex(name = "chat_to_timestamp_idx", def = "{'chatId': 1, 'toTimestamp': 1}")
+@CompoundIndex(name = "chat_from_seq_idx", def = "{'chatId': 1, 'fromSeq': 1}")
+@CompoundIndex(name = "chat_to_seq_idx", def = "{'chatId': 1, 'toSeq': 1}")
+public class ChatMessageArchive {
+
+    @Id
+    private String id;
+    private String chatId;
+    private LocalDateTime fromTimestamp;
+    private LocalDateTime toTimestamp;
+    private Long fromSeq;
+    private Long toSeq;
+    private int count;
+    private byte[] messages;
+
+    /**
+     * Default constructor.
+     */
+    public ChatMessageArchive() {
+    }
+
+    /**
+     * Constructs a new ChatMessageArchive with the given details.
+     *
+     * @param id            the archive document's ID
+     * @param chatId        the chat ID
+     * @param fromTimestamp the timestamp of the oldest message
+     * @param toTimestamp   the timestamp of the newest message
+     * @param fromSeq       the lowest sequence number, or null if no message has one
+     * @param toSeq         the highest sequence number, or null if no message has one
+     * @param count         the number of messages
+     * @param messages      the compressed messages
+     */
+    public ChatMessageArchive(
+            String id,
+            String chatId,
+            LocalDateTime fromTimestamp,
+            LocalDateTime toTimestamp,
+            Long fromSeq,
+            Long toSeq,
+            int count,
+            byte[] messages
+    ) {
+        this.id = id;
+        this.chatId = chatId;
+        this.fromTimestamp = fromTimestamp;
+        this.toTimestamp = toTimestamp;
+        this.fromSeq = fromSeq;
+        this.toSeq = toSeq;
+        this.count = count;
+        this.messages = messages;
+    }
+
+    /**
+     * Gets the archive document's ID.
+     * @return the ID
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Sets the archive document's ID.
+     * @param id the ID
+     */
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    /**
+     * Gets the chat ID.
+     * @return the chat ID
+     */
+    public String getChatId() {
+        return chatId;
+    }
+
+    /**
+     * Sets the chat ID.
+     * @param chatId the chat ID
+     */
+    public void setChatId(String chatId) {
+        this.chatId = chatId;
+    }
+
+    /**
+     * Gets the timestamp of the oldest message.
+     * @return the oldest timestamp
+     */
+    public LocalDateTime getFromTimestamp() {
+        return fromTimestamp;
+    }
+
+    /**
+     * Sets the timestamp of the oldest message.
+     * @param fromTimestamp the oldest timestamp
+     */
+    public void setFromTimestamp(LocalDateTime fromTimestamp) {
+        this.fromTimestamp = fromTimestamp;
+    }
+
+    /**
+     * Gets the timestamp of the newest message.
+     * @return the newest timestamp
+     */
+    public LocalDateTime getToTimestamp() {
+        return toTimestamp;
+    }
+
+    /**
+     * Sets the timestamp of the newest message.
+     * @param toTimestamp the newest timestamp
+     */
+    public void setToTimestamp(LocalDateTime toTimestamp) {
+        this.toTimestamp = toTimestamp;
+    }
+
+    /**
+     * Gets the lowest sequence number.
+     * @return the lowest sequence number, or null if no message has one
+     */
+    public Long getFromSeq() {
+        return fromSeq;
+    }
+
+    /**
+     * Sets the lowest sequence number.
+     * @param fromSeq the lowest sequence number
+     */
+    public void setFromSeq(Long fromSeq) {
+        this.fromSeq = fromSeq;
+    }
+
+    /**
+     * Gets the highest sequence number.
+     * @return the highest sequence number, or null if no message has one
+     */
+    public Long getToSeq() {
+        return toSeq;
+    }
+
+    /**
+     * Sets the highest sequence number.
+     * @param toSeq the highest sequence number
+     */
+    public void setToSeq(Long toSeq) {
+        this.toSeq = toSeq;
+    }
+
+    /**
+     * Gets the number of messages.
+     * @return the message count
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Sets the number of messages.
+     * @param count the message count
+     */
+    public void setCount(int count) {
+        this.count = count;
+    }
+
+    /**
+     * Gets the compressed messages.
+     * @return the compressed messages
+     */
+    public byte[] getMessages() {
+        return messages;
+    }
+
+    /**
+     * Sets the compressed messages.
+     * @param messages the compressed messages
+     */
+    public void setMessages(byte[] messages) {
+        this.messages = messages;
+    }
+
+    /**
+     * Checks if this archive document is equal to another object.
+     * @param o the object to compare with
+     * @return true if the objects are equal, false otherwise
+     */
+    @Override
+    public final boolean equals(Object o) {
+        if (!(o instanceof ChatMessageArchive archive)) return false;
+
+        return count == archive.count && Objects.equals(id, archive.id) && Objects.equals(chatId, archive.chatId) && Objects.equals(fromTimestamp, archive.fromTimestamp) && Objects.equals(toTimestamp, archive.toTimestamp) && Objects.equals(fromSeq, archive.fromSeq) && Objects.equals(toSeq, archive.toSeq) && Arrays.equals(messages, archive.messages);
+    }
+
+    /**
+     * Generates a hash code for this archive document.
+     * @return the hash code
+     */
+    @Override
+    public int hashCode() {
+        int result = Objects.hashCode(id);
+        result = 31 * result + Objects.hashCode(chatId);
+        result = 31 * result + Objects.hashCode(fromTimestamp);
+        result = 31 * result + Objects.hashCode(toTimestamp);
+        result = 31 * result + Objects.hashCode(fromSeq);
+        result = 31 * result + Objects.hashCode(toSeq);
+        result = 31 * result + count;
+        result = 31 * result + Arrays.hashCode(messages);
+        return result;
+    }
+}
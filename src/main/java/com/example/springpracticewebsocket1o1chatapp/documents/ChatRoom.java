@@ -1,21 +1,41 @@
 package com.example.springpracticewebsocket1o1chatapp.documents;
 
+import com.example.springpracticewebsocket1o1chatapp.model.MessageSummary;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 
+import java.util.List;
 import java.util.Objects;
 
 /**
  * Represents a chat room document in the database.
+ * There is one entry per participant, owned by its sender, which also holds the number of
+ * messages the owner has received in the chat but not read yet, and a summary of the chat's last
+ * message. The (senderId, lastMessage.timestamp) index lists a user's chats by their latest activity.
+ * Read receipts name the last message read by its sequence number, so the entry keeps the highest
+ * sequence number read and those of the newest unread messages: a receipt then clears exactly the
+ * messages it covers, and a message recorded after a receipt covering it is not counted at all.
  */
 @Document
+@CompoundIndex(name = "sender_recipient_idx", def = "{'senderId': 1, 'recipientId': 1}")
+@CompoundIndex(name = "sender_last_message_idx", def = "{'senderId': 1, 'lastMessage.timestamp': -1}")
 public class ChatRoom {
 
+    /**
+     * The number of unread sequence numbers kept per entry; older unread messages are only counted.
+     */
+    public static final int MAX_UNREAD_SEQS = 500;
+
     @Id
     private String id;
     private String chatId;
     private String senderId;
     private String recipientId;
+    private long unreadCount;
+    private MessageSummary lastMessage;
+    private Long readSeq;
+    private List<Long> unreadSeqs;
 
     /**
      * Default constructor.
@@ -47,7 +67,7 @@ public class ChatRoom {
     public final boolean equals(Object o) {
         if (!(o instanceof ChatRoom chatRoom)) return false;
 
-        return Objects.equals(id, chatRoom.id) && Objects.equals(chatId, chatRoom.chatId) && Objects.equals(senderId, chatRoom.senderId) && Objects.equals(recipientId, chatRoom.recipientId);
+        return Objects.equals(id, chatRoom.id) && Objects.equals(chatId, chatRoom.chatId) && Objects.equals(senderId, chatRoom.senderId) && Objects.equals(recipientId, chatRoom.recipientId) && unreadCount == chatRoom.unreadCount && Objects.equals(lastMessage, chatRoom.lastMessage) && Objects.equals(readSeq, chatRoom.readSeq) && Objects.equals(unreadSeqs, chatRoom.unreadSeqs);
     }
 
 
@@ -115,6 +135,70 @@ public class ChatRoom {
         this.recipientId = recipientId;
     }
 
+    /**
+     * Gets the number of messages the owner has not read yet.
+     * @return the unread count
+     */
+    public long getUnreadCount() {
+        return unreadCount;
+    }
+
+    /**
+     * Sets the number of messages the owner has not read yet.
+     * @param unreadCount the unread count
+     */
+    public void setUnreadCount(long unreadCount) {
+        this.unreadCount = unreadCount;
+    }
+
+    /**
+     * Gets the summary of the chat's last message.
+     * @return the last message, or null if none was stored since summaries were introduced
+     */
+    public MessageSummary getLastMessage() {
+        return lastMessage;
+    }
+
+    /**
+     * Sets the summary of the chat's last message.
+     * @param lastMessage the last message
+     */
+    public void setLastMessage(MessageSummary lastMessage) {
+        this.lastMessage = lastMessage;
+    }
+
+    /**
+     * Gets the sequence number of the last message the owner has read.
+     * @return the sequence number, or null if no read receipt carried one yet
+     */
+    public Long getReadSeq() {
+        return readSeq;
+    }
+
+    /**
+     * Sets the sequence number of the last message the owner has read.
+     * @param readSeq the sequence number
+     */
+    public void setReadSeq(Long readSeq) {
+        this.readSeq = readSeq;
+    }
+
+    /**
+     * Gets the sequence numbers of the newest unread messages, up to {@value #MAX_UNREAD_SEQS}.
+     * @return the sequence numbers in ascending order, or null if none were recorded
+     */
+    public List<Long> getUnreadSeqs() {
+        return unreadSeqs;
+    }
+
+    /**
+     * Sets the sequence numbers of the newest unread messages.
+     * @param unreadSeqs the sequence numbers in ascending order
+     */
+    public void setUnreadSeqs(List<Long> unreadSeqs) {
+        this.unreadSeqs = unreadSeqs;
+    }
+
     /**
      * Generates a hash code for this chat room.
      * @return the hash code
@@ -125,6 +209,10 @@ public class ChatRoom {
         result = 31 * result + Objects.hashCode(chatId);
         result = 31 * result + Objects.hashCode(senderId);
         result = 31 * result + Objects.hashCode(recipientId);
+        result = 31 * result + Long.hashCode(unreadCount);
+        result = 31 * result + Objects.hashCode(lastMessage);
+        result = 31 * result + Objects.hashCode(readSeq);
+        result = 31 * result + Objects.hashCode(unreadSeqs);
         return result;
     }
 
@@ -0,0 +1,111 @@
+package com.example.springpracticewebsocket1o1chatapp.documents;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Objects;
+
+/**
+ * Represents the last sequence number assigned to a message in a chat.
+ * There is one document per chat, so chats never contend with each other for numbers.
+ * While the chat ID migration moves a chat's messages to another chat, the document also holds
+ * the offset their sequence numbers are shifted by, so an interrupted migration can be rerun.
+ */
+@Document
+public class ChatSequence {
+
+    @Id
+    private String chatId;
+    private long seq;
+    private Long migrationOffset;
+
+    /**
+     * Default constructor.
+     */
+    public ChatSequence() {
+    }
+
+    /**
+     * Constructs a new ChatSequence with the given details.
+     *
+     * @param chatId the chat ID
+     * @param seq    the last assigned sequence number
+     */
+    public ChatSequence(String chatId, long seq) {
+        this.chatId = chatId;
+        this.seq = seq;
+    }
+
+    /**
+     * Gets the chat ID.
+     * @return the chat ID
+     */
+    public String getChatId() {
+        return chatId;
+    }
+
+    /**
+     * Sets the chat ID.
+     * @param chatId the chat ID
+     */
+    public void setChatId(String chatId) {
+        this.chatId = chatId;
+    }
+
+    /**
+     * Gets the last assigned sequence number.
+     * @return the sequence number
+     */
+    public long getSeq() {
+        return seq;
+    }
+
+    /**
+     * Sets the last assigned sequence number.
+     * @param seq the sequence number
+     */
+    public void setSeq(long seq) {
+        this.seq = seq;
+    }
+
+    /**
+     * Gets the offset the chat's sequence numbers are shifted by while its messages are migrated.
+     * @return the migration offset, or null if the chat is not being migrated
+     */
+    public Long getMigrationOffset() {
+        return migrationOffset;
+    }
+
+    /**
+     * Sets the offset the chat's sequence numbers are shifted by while its messages are migrated.
+     * @param migrationOffset the migration offset
+     */
+    public void setMigrationOffset(Long migrationOffset) {
+        this.migrationOffset = migrationOffset;
+    }
+
+    /**
+     * Checks if this chat sequence is equal to another object.
+     * @param o the object to compare with
+     * @return true if the objects are equal, false otherwise
+     */
+    @Override
+    public final boolean equals(Object o) {
+        if (!(o instanceof ChatSequence that)) return false;
+
+        return Objects.equals(chatId, that.chatId) && seq == that.seq
+                && Objects.equals(migrationOffset, that.migrationOffset);
+    }
+
+    /**
+     * Generates a hash code for this chat sequence.
+     * @return the hash code
+     */
+    @Override
+    public int hashCode() {
+        int result = Objects.hashCode(chatId);
+        result = 31 * result + Long.hashCode(seq);
+        result = 31 * result + Objects.hashCode(migrationOffset);
+        return result;
+    }
+}
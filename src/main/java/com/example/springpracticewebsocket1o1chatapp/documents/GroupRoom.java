@@ -0,0 +1,134 @@
+package com.example.springpracticewebsocket1o1chatapp.documents;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.LinkedHashSet;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Represents a group chat room document in the database.
+ * The group's ID doubles as the chat ID of its messages, so each message is stored once for all members.
+ */
+@Document
+public class GroupRoom {
+
+    @Id
+    private String id;
+    private String name;
+    private String ownerId;
+    @Indexed
+    private Set<String> memberIds = new LinkedHashSet<>();
+
+    /**
+     * Default constructor.
+     */
+    public GroupRoom() {
+    }
+
+    /**
+     * Constructs a new GroupRoom with the given details.
+     *
+     * @param id        the group ID
+     * @param name      the group's display name
+     * @param ownerId   the ID of the user who created the group
+     * @param memberIds the IDs of the members, including the owner
+     */
+    public GroupRoom(String id, String name, String ownerId, Set<String> memberIds) {
+        this.id = id;
+        this.name = name;
+        this.ownerId = ownerId;
+        this.memberIds = memberIds;
+    }
+
+    /**
+     * Gets the group ID.
+     * @return the group ID
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Sets the group ID.
+     * @param id the group ID
+     */
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    /**
+     * Gets the group's display name.
+     * @return the name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Sets the group's display name.
+     * @param name the name
+     */
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Gets the ID of the user who created the group.
+     * @return the owner's ID
+     */
+    public String getOwnerId() {
+        return ownerId;
+    }
+
+    /**
+     * Sets the ID of the user who created the group.
+     * @param ownerId the owner's ID
+     */
+    public void setOwnerId(String ownerId) {
+        this.ownerId = ownerId;
+    }
+
+    /**
+     * Gets the IDs of the members.
+     * @return the member IDs
+     */
+    public Set<String> getMemberIds() {
+        return memberIds;
+    }
+
+    /**
+     * Sets the IDs of the members.
+     * @param memberIds the member IDs
+     */
+    public void setMemberIds(Set<String> memberIds) {
+        this.memberIds = memberIds;
+    }
+
+    /**
+     * Checks if this group room is equal to another object.
+     * @param o the object to compare with
+     * @return true if the objects are equal, false otherwise
+     */
+    @Override
+    public final boolean equals(Object o) {
+        if (!(o instanceof GroupRoom groupRoom)) return false;
+
+        return Objects.equals(id, groupRoom.id) && Objects.equals(name, groupRoom.name) && Objects.equals(ownerId, groupRoom.ownerId) && Objects.equals(memberIds, groupRoom.memberIds);
+    }
+
+    /**
+     * Generates a hash code for this group room.
+     * @return the hash code
+     */
+    @Override
+    public int hashCode() {
+        int result = Objects.hashCode(id);
+        result = 31 * result + Objects.hashCode(name);
+        result = 31 * result + Objects.hashCode(ownerId);
+        result = 31 * result + Objects.hashCode(memberIds);
+        return result;
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.springpracticewebsocket1o1chatapp.documents;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * Represents the position up to which a user has received their messages.
+ * Message IDs are ObjectIds, so their hex strings sort in the order the messages were created.
+ */
+@Document
+public class SyncCursor {
+
+    @Id
+    private String userId;
+    private String messageId;
+    private LocalDateTime updatedAt;
+
+    /**
+     * Default constructor.
+     */
+    public SyncCursor() {
+    }
+
+    /**
+     * Constructs a new SyncCursor with the given details.
+     *
+     * @param userId    the user's ID
+     * @param messageId the ID of the last message the user received
+     * @param updatedAt the time the cursor was last moved
+     */
+    public SyncCursor(String userId, String messageId, LocalDateTime updatedAt) {
+        this.userId = userId;
+        this.messageId = messageId;
+        this.updatedAt = updatedAt;
+    }
+
+    /**
+     * Gets the user's ID.
+     * @return the user's ID
+     */
+    public String getUserId() {
+        return userId;
+    }
+
+    /**
+     * Sets the user's ID.
+     * @param userId the user's ID
+     */
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    /**
+     * Gets the ID of the last message the user received.
+     * @return the message ID
+     */
+    public String getMessageId() {
+        return messageId;
+    }
+
+    /**
+     * Sets the ID of the last message the user received.
+     * @param messageId the message ID
+     */
+    public void setMessageId(String messageId) {
+        this.messageId = messageId;
+    }
+
+    /**
+     * Gets the time the cursor was last moved.
+     * @return the update time
+     */
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    /**
+     * Sets the time the cursor was last moved.
+     * @param updatedAt the update time
+     */
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    /**
+     * Checks if this sync cursor is equal to another object.
+     * @param o the object to compare with
+     * @return true if the objects are equal, false otherwise
+     */
+    @Override
+    public final boolean equals(Object o) {
+        if (!(o instanceof SyncCursor syncCursor)) return false;
+
+        return Objects.equals(userId, syncCursor.userId) && Objects.equals(messageId, syncCursor.messageId) && Objects.equals(updatedAt, syncCursor.updatedAt);
+    }
+
+    /**
+     * Generates a hash code for this sync cursor.
+     * @return the hash code
+     */
+    @Override
+    public int hashCode() {
+        int result = Objects.hashCode(userId);
+        result = 31 * result + Objects.hashCode(messageId);
+        result = 31 * result + Objects.hashCode(updatedAt);
+        return result;
+    }
+}
@@ -2,10 +2,14 @@ package com.example.springpracticewebsocket1o1chatapp.documents;
 
 import com.example.springpracticewebsocket1o1chatapp.model.Status;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
+import java.time.LocalDateTime;
+
 /**
  * Represents a user document in the database.
+ * The status is indexed so listing the users who are online does not scan everyone who ever joined.
  */
 @Document
 public class User {
@@ -13,7 +17,9 @@ public class User {
     @Id
     private String nickName;
     private String fullName;
+    @Indexed
     private Status status;
+    private LocalDateTime lastSeenAt;
 
     /**
      * Gets the user's nickname.
@@ -63,4 +69,20 @@ public class User {
     public void setStatus(Status status) {
         this.status = status;
     }
+
+    /**
+     * Gets the last time a node confirmed the user was connected to it.
+     * @return the last seen time
+     */
+    public LocalDateTime getLastSeenAt() {
+        return lastSeenAt;
+    }
+
+    /**
+     * Sets the last time a node confirmed the user was connected to it.
+     * @param lastSeenAt the last seen time
+     */
+    public void setLastSeenAt(LocalDateTime lastSeenAt) {
+        this.lastSeenAt = lastSeenAt;
+    }
 }
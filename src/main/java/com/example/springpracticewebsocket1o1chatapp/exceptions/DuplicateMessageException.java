@@ -0,0 +1,32 @@
+package com.example.springpracticewebsocket1o1chatapp.exceptions;
+
+import com.example.springpracticewebsocket1o1chatapp.model.MessageAck;
+
+/**
+ * Thrown when a client resends a message that was already stored under the same client message ID.
+ * It carries the acknowledgement of the stored message, so the sender can be answered without
+ * storing or delivering the message again.
+ */
+public class DuplicateMessageException extends RuntimeException {
+
+    private final MessageAck ack;
+
+    /**
+     * Constructs a new DuplicateMessageException for the given stored message.
+     *
+     * @param ack the acknowledgement of the stored message
+     */
+    public DuplicateMessageException(MessageAck ack) {
+        super("Message " + ack.clientMessageId() + " was already stored as " + ack.id(), null, false, false);
+        this.ack = ack.asDuplicate();
+    }
+
+    /**
+     * Gets the acknowledgement to send back to the sender.
+     *
+     * @return the acknowledgement, marked as a duplicate
+     */
+    public MessageAck getAck() {
+        return ack;
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.springpracticewebsocket1o1chatapp.exceptions;
+
+/**
+ * Thrown when a search takes longer than the configured maximum time and is aborted by the database.
+ */
+public class SearchTimeoutException extends RuntimeException {
+
+    /**
+     * Constructs a new SearchTimeoutException with the given cause.
+     *
+     * @param cause the timeout reported by the database
+     */
+    public SearchTimeoutException(Throwable cause) {
+        super("Search exceeded its maximum time", cause);
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.springpracticewebsocket1o1chatapp.interceptors;
+
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+import org.springframework.web.socket.sockjs.transport.SockJsSession;
+
+import java.io.IOException;
+
+/**
+ * Lets plain WebSocket sessions that negotiated a binary payload format receive binary frames.
+ * STOMP frames are only sent as binary WebSocket frames for "application/octet-stream" payloads;
+ * any other payload goes out as a text frame, which would corrupt binary content. Sessions marked
+ * with {@link #BINARY_FRAMES_ATTRIBUTE} set to true get all their frames as binary instead.
+ * SockJS sessions cannot carry binary frames and are left alone.
+ */
+public class BinaryFrameHandlerDecorator extends WebSocketHandlerDecorator {
+
+    /**
+     * The session attribute telling whether a session can carry binary frames, before CONNECT,
+     * and whether it should, after.
+     */
+    public static final String BINARY_FRAMES_ATTRIBUTE = "binaryFrames";
+
+    /**
+     * Constructs a new BinaryFrameHandlerDecorator around the given handler.
+     *
+     * @param delegate the handler to decorate
+     */
+    public BinaryFrameHandlerDecorator(WebSocketHandler delegate) {
+        super(delegate);
+    }
+
+    /**
+     * Wraps plain WebSocket sessions so their frames can be switched to binary once connected.
+     * @param session the new session
+     * @throws Exception if the delegate fails
+     */
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+        if (session instanceof SockJsSession) {
+            super.afterConnectionEstablished(session);
+            return;
+        }
+        session.getAttributes().put(BINARY_FRAMES_ATTRIBUTE, false);
+        super.afterConnectionEstablished(new BinaryFrameSession(session));
+    }
+
+    /**
+     * A session sending text frames as binary frames once binary frames are switched on for it.
+     */
+    private static final class BinaryFrameSession extends WebSocketSessionDecorator {
+
+        BinaryFrameSession(WebSocketSession session) {
+            super(session);
+        }
+
+        @Override
+        public void sendMessage(WebSocketMessage<?> message) throws IOException {
+            if (message instanceof TextMessage text && Boolean.TRUE.equals(getAttributes().get(BINARY_FRAMES_ATTRIBUTE))) {
+                super.sendMessage(new BinaryMessage(text.asBytes(), text.isLast()));
+            } else {
+                super.sendMessage(message);
+            }
+        }
+    }
+}
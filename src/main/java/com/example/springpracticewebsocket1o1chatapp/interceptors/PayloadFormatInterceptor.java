@@ -0,0 +1,63 @@
+package com.example.springpracticewebsocket1o1chatapp.interceptors;
+
+import com.example.springpracticewebsocket1o1chatapp.caches.PayloadFormatRegistry;
+import com.example.springpracticewebsocket1o1chatapp.model.PayloadFormat;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+
+/**
+ * Negotiates the format a STOMP session receives payloads in when it connects.
+ * Clients list the content types they accept, in order of preference, in an "accept" header of the
+ * CONNECT frame. Binary formats are only granted to sessions that can carry binary frames; every
+ * other session, and every client not sending the header, gets JSON.
+ */
+public class PayloadFormatInterceptor implements ChannelInterceptor {
+
+    /**
+     * The CONNECT header listing the content types the client accepts.
+     */
+    public static final String ACCEPT_HEADER = "accept";
+
+    private final PayloadFormatRegistry payloadFormatRegistry;
+
+    /**
+     * Constructs a new PayloadFormatInterceptor recording formats in the given registry.
+     *
+     * @param payloadFormatRegistry the registry of negotiated formats
+     */
+    public PayloadFormatInterceptor(PayloadFormatRegistry payloadFormatRegistry) {
+        this.payloadFormatRegistry = payloadFormatRegistry;
+    }
+
+    /**
+     * Records the negotiated format of a connecting session.
+     *
+     * @param message the inbound message
+     * @param channel the inbound channel
+     * @return the message, unchanged
+     */
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        var accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || !StompCommand.CONNECT.equals(accessor.getCommand())) {
+            return message;
+        }
+
+        var attributes = accessor.getSessionAttributes();
+        if (attributes == null || !attributes.containsKey(BinaryFrameHandlerDecorator.BINARY_FRAMES_ATTRIBUTE)) {
+            return message;
+        }
+
+        var format = PayloadFormat.negotiate(accessor.getFirstNativeHeader(ACCEPT_HEADER));
+        if (format != PayloadFormat.JSON) {
+            attributes.put(BinaryFrameHandlerDecorator.BINARY_FRAMES_ATTRIBUTE, true);
+            payloadFormatRegistry.register(accessor.getSessionId(), format);
+        }
+
+        return message;
+    }
+}
@@ -0,0 +1,184 @@
+package com.example.springpracticewebsocket1o1chatapp.interceptors;
+
+import com.example.springpracticewebsocket1o1chatapp.configs.RateLimitProperties;
+import com.example.springpracticewebsocket1o1chatapp.model.RateLimitNotice;
+import com.example.springpracticewebsocket1o1chatapp.model.RateLimitOverflow;
+import com.example.springpracticewebsocket1o1chatapp.services.NotificationService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits how fast clients may send messages, with a token bucket per session and one per user.
+ * Only SEND frames are limited; a frame is let through when both its session's and its user's
+ * bucket have a token. Both buckets are checked before either token is taken, so a frame rejected
+ * by one limit does not use up a token of the other. What happens to a frame exceeding a limit is decided by the configured
+ * {@link RateLimitOverflow}. Rejections are counted as {@code chat.rate-limit.rejected}, tagged with
+ * the limit that was hit.
+ * The check reads the headers directly, without a header accessor, and takes each token with a
+ * single compare-and-set, so accepted messages pay two map lookups, two reads and two atomic updates.
+ */
+public class RateLimitInterceptor implements ChannelInterceptor {
+
+    /**
+     * The user destination rate limit notices are sent to.
+     */
+    public static final String ERRORS_DESTINATION = "/queue/errors";
+
+    private final RateLimitProperties properties;
+    private final NotificationService notificationService;
+    private final ConcurrentMap<String, TokenBucket> sessionBuckets = new ConcurrentHashMap<>();
+    private final Cache<String, TokenBucket> userBuckets;
+    private final Counter sessionRejections;
+    private final Counter userRejections;
+
+    /**
+     * Constructs a new RateLimitInterceptor with the given limits.
+     *
+     * @param properties          the rate limit configuration
+     * @param notificationService the service to send rate limit notices to sessions
+     * @param meterRegistry       the registry to publish rejections and bucket counts to
+     */
+    public RateLimitInterceptor(
+            RateLimitProperties properties,
+            NotificationService notificationService,
+            MeterRegistry meterRegistry
+    ) {
+        this.properties = properties;
+        this.notificationService = notificationService;
+
+        var refill = new TokenBucket(properties.userRate(), properties.userBurst(), 0).refillNanos();
+        this.userBuckets = Caffeine.newBuilder()
+                .maximumSize(properties.maxUsers())
+                .expireAfterAccess(Duration.ofNanos(refill))
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, userBuckets, "rateLimitUsers");
+        Gauge.builder("chat.rate-limit.sessions", sessionBuckets, ConcurrentMap::size)
+                .description("Number of sessions with a rate limit bucket")
+                .register(meterRegistry);
+        this.sessionRejections = rejections("session", meterRegistry);
+        this.userRejections = rejections("user", meterRegistry);
+    }
+
+    /**
+     * Takes a token for a SEND frame from its session's and its user's bucket, and forgets the
+     * bucket of a session that disconnects.
+     * If another frame of the same user takes the last user token between the check and the
+     * acquisition, the session token is given back.
+     *
+     * @param message the inbound message
+     * @param channel the inbound channel
+     * @return the message, or null to drop it
+     * @throws MessageDeliveryException if the message exceeds a limit and sessions are disconnected
+     */
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        var headers = message.getHeaders();
+        var type = SimpMessageHeaderAccessor.getMessageType(headers);
+        var sessionId = SimpMessageHeaderAccessor.getSessionId(headers);
+
+        if (type == SimpMessageType.DISCONNECT && sessionId != null) {
+            sessionBuckets.remove(sessionId);
+            return message;
+        }
+        if (type != SimpMessageType.MESSAGE || sessionId == null) {
+            return message;
+        }
+
+        var now = System.nanoTime();
+        var sessionBucket = sessionBuckets
+                .computeIfAbsent(sessionId, id -> new TokenBucket(properties.sessionRate(), properties.sessionBurst(), now));
+        var wait = sessionBucket.waitNanos(now);
+        if (wait > 0) {
+            sessionRejections.increment();
+            return reject(message, sessionId, wait);
+        }
+
+        var user = SimpMessageHeaderAccessor.getUser(headers);
+        var userBucket = user == null ? null : userBuckets
+                .get(user.getName(), name -> new TokenBucket(properties.userRate(), properties.userBurst(), now));
+        if (userBucket != null) {
+            wait = userBucket.waitNanos(now);
+            if (wait > 0) {
+                userRejections.increment();
+                return reject(message, sessionId, wait);
+            }
+        }
+
+        wait = sessionBucket.tryAcquire(now);
+        if (wait > 0) {
+            sessionRejections.increment();
+            return reject(message, sessionId, wait);
+        }
+        if (userBucket != null) {
+            wait = userBucket.tryAcquire(now);
+            if (wait > 0) {
+                sessionBucket.release();
+                userRejections.increment();
+                return reject(message, sessionId, wait);
+            }
+        }
+
+        return message;
+    }
+
+    /**
+     * Handles a message that exceeded a limit according to the configured overflow behaviour.
+     *
+     * @param message   the rejected message
+     * @param sessionId the ID of the sending session
+     * @param waitNanos how long until the exceeded bucket has a token again
+     * @return null, so that the message is dropped
+     * @throws MessageDeliveryException if sessions exceeding a limit are disconnected
+     */
+    private Message<?> reject(Message<?> message, String sessionId, long waitNanos) {
+        switch (properties.overflow()) {
+            case DISCONNECT -> {
+                sessionBuckets.remove(sessionId);
+                throw new MessageDeliveryException(message, "Rate limit exceeded");
+            }
+            case ERROR -> {
+                var user = SimpMessageHeaderAccessor.getUser(message.getHeaders());
+                if (user != null) {
+                    notificationService.sendToSession(user.getName(), sessionId, ERRORS_DESTINATION, new RateLimitNotice(
+                            SimpMessageHeaderAccessor.getDestination(message.getHeaders()),
+                            TimeUnit.NANOSECONDS.toMillis(waitNanos) + 1
+                    ));
+                }
+            }
+            case DROP -> {
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Builds the counter of messages rejected by one of the limits.
+     *
+     * @param limit         the limit, "session" or "user"
+     * @param meterRegistry the registry to publish the counter to
+     * @return the counter
+     */
+    private static Counter rejections(String limit, MeterRegistry meterRegistry) {
+        return Counter.builder("chat.rate-limit.rejected")
+                .description("Number of client messages rejected by a rate limit")
+                .tag("limit", limit)
+                .register(meterRegistry);
+    }
+}
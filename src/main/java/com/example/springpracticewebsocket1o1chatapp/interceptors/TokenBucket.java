@@ -0,0 +1,80 @@
+package com.example.springpracticewebsocket1o1chatapp.interceptors;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A lock-free token bucket.
+ * Rather than a token count and a refill timestamp, the bucket keeps a single value: the time at
+ * which it would be full again (the generic cell rate algorithm). Taking a token pushes that time
+ * one refill interval further; a token is available as long as the time stays within one burst of
+ * now. Taking a token is therefore one read and one compare-and-set, retried only when another
+ * thread took a token of the same bucket in between.
+ */
+public final class TokenBucket {
+
+    private final long intervalNanos;
+    private final long toleranceNanos;
+    private final AtomicLong fullAt;
+
+    /**
+     * Constructs a new full TokenBucket.
+     *
+     * @param permitsPerSecond the rate at which tokens are added
+     * @param burst            the number of tokens the bucket holds
+     * @param nowNanos         the current time, from {@link System#nanoTime()}
+     */
+    public TokenBucket(double permitsPerSecond, int burst, long nowNanos) {
+        this.intervalNanos = Math.max(1, Math.round(1_000_000_000 / permitsPerSecond));
+        this.toleranceNanos = intervalNanos * Math.max(0, burst - 1);
+        this.fullAt = new AtomicLong(nowNanos);
+    }
+
+    /**
+     * Checks whether a token is available, without taking it.
+     *
+     * @param nowNanos the current time, from {@link System#nanoTime()}
+     * @return 0 if a token is available, otherwise how many nanoseconds until the next token is added
+     */
+    public long waitNanos(long nowNanos) {
+        var current = fullAt.get();
+        var start = current - nowNanos > 0 ? current : nowNanos;
+        return Math.max(0, start - nowNanos - toleranceNanos);
+    }
+
+    /**
+     * Takes a token if one is available.
+     *
+     * @param nowNanos the current time, from {@link System#nanoTime()}
+     * @return 0 if a token was taken, otherwise how many nanoseconds until the next token is added
+     */
+    public long tryAcquire(long nowNanos) {
+        while (true) {
+            var current = fullAt.get();
+            var start = current - nowNanos > 0 ? current : nowNanos;
+            var wait = start - nowNanos - toleranceNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (fullAt.compareAndSet(current, start + intervalNanos)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Returns a token taken with {@link #tryAcquire(long)}, when the request it was taken for is
+     * rejected after all.
+     */
+    public void release() {
+        fullAt.addAndGet(-intervalNanos);
+    }
+
+    /**
+     * Gets how long an idle bucket takes to fill up completely, after which it behaves like a new one.
+     *
+     * @return the refill time in nanoseconds
+     */
+    public long refillNanos() {
+        return toleranceNanos + intervalNanos;
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.springpracticewebsocket1o1chatapp.interceptors;
+
+import com.example.springpracticewebsocket1o1chatapp.model.ChatPrincipal;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.util.StringUtils;
+
+/**
+ * Attaches the user's identity to a STOMP session when it connects.
+ * Clients send their nickname in a "nickname" header of the CONNECT frame. Having it as the
+ * session principal is what lets user destinations such as "/user/queue/messages" be resolved,
+ * locally and, in relay mode, across nodes.
+ */
+public class UserPrincipalInterceptor implements ChannelInterceptor {
+
+    /**
+     * The CONNECT header carrying the user's nickname.
+     */
+    public static final String NICKNAME_HEADER = "nickname";
+
+    /**
+     * Sets the session principal from the nickname header of a CONNECT frame.
+     *
+     * @param message the inbound message
+     * @param channel the inbound channel
+     * @return the message, carrying the principal if it is a CONNECT frame
+     * @throws MessageDeliveryException if a CONNECT frame has no nickname
+     */
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        var accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+
+        if (accessor != null && StompCommand.CONNECT.equals(accessor.getCommand())) {
+            var nickname = accessor.getFirstNativeHeader(NICKNAME_HEADER);
+            if (!StringUtils.hasText(nickname)) {
+                throw new MessageDeliveryException(message, "CONNECT requires a " + NICKNAME_HEADER + " header");
+            }
+            accessor.setUser(new ChatPrincipal(nickname));
+        }
+
+        return message;
+    }
+}
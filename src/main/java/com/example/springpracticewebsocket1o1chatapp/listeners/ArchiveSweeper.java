@@ -0,0 +1,50 @@
+package com.example.springpracticewebsocket1o1chatapp.listeners;
+
+import com.example.springpracticewebsocket1o1chatapp.configs.RetentionProperties;
+import com.example.springpracticewebsocket1o1chatapp.services.ChatArchiveService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+/**
+ * Periodically moves the messages that have passed the retention age to the archive, when
+ * {@code chat.message.retention.mode} is "archive".
+ */
+@Component
+@ConditionalOnProperty(prefix = "chat.message.retention", name = "mode", havingValue = "archive")
+public class ArchiveSweeper {
+
+    private static final Logger log = LoggerFactory.getLogger(ArchiveSweeper.class);
+
+    private final ChatArchiveService chatArchiveService;
+    private final RetentionProperties retentionProperties;
+
+    /**
+     * Constructs a new ArchiveSweeper with the given archive service and properties.
+     *
+     * @param chatArchiveService  the service moving messages to the archive
+     * @param retentionProperties the retention configuration
+     */
+    public ArchiveSweeper(ChatArchiveService chatArchiveService, RetentionProperties retentionProperties) {
+        this.chatArchiveService = chatArchiveService;
+        this.retentionProperties = retentionProperties;
+    }
+
+    /**
+     * Archives every message older than the retention age.
+     */
+    @Scheduled(
+            initialDelayString = "${chat.message.retention.sweep-interval:1h}",
+            fixedDelayString = "${chat.message.retention.sweep-interval:1h}"
+    )
+    public void sweep() {
+        var archived = chatArchiveService.archiveBefore(LocalDateTime.now().minus(retentionProperties.maxAge()));
+        if (archived > 0) {
+            log.info("Archived {} chat messages older than {}", archived, retentionProperties.maxAge());
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.springpracticewebsocket1o1chatapp.listeners;
+
+import com.example.springpracticewebsocket1o1chatapp.model.PresenceDelta;
+import com.example.springpracticewebsocket1o1chatapp.services.UserService;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.util.Optional;
+
+/**
+ * Keeps user presence in step with the STOMP session lifecycle and announces changes on "/topic/public".
+ * The connected event is used rather than the connect event because only it carries the principal
+ * set while the CONNECT frame was processed.
+ */
+@Component
+public class PresenceEventListener {
+
+    /**
+     * The CONNECT header carrying the user's full name.
+     */
+    public static final String FULL_NAME_HEADER = "fullname";
+
+    private final UserService userService;
+    private final SimpMessagingTemplate simpMessagingTemplate;
+
+    /**
+     * Constructs a new PresenceEventListener with the given user service and messaging template.
+     *
+     * @param userService           the service to manage users
+     * @param simpMessagingTemplate the messaging template to broadcast presence changes
+     */
+    public PresenceEventListener(UserService userService, SimpMessagingTemplate simpMessagingTemplate) {
+        this.userService = userService;
+        this.simpMessagingTemplate = simpMessagingTemplate;
+    }
+
+    /**
+     * Registers the new session of a user and announces them if they just came online.
+     * @param event the event for a session that completed its STOMP handshake
+     */
+    @EventListener
+    public void onSessionConnected(SessionConnectedEvent event) {
+        var user = event.getUser();
+        if (user == null) {
+            return;
+        }
+
+        var accessor = StompHeaderAccessor.wrap(event.getMessage());
+        var connectMessage = (Message<?>) accessor.getHeader(SimpMessageHeaderAccessor.CONNECT_MESSAGE_HEADER);
+        var fullName = connectMessage != null
+                ? StompHeaderAccessor.wrap(connectMessage).getFirstNativeHeader(FULL_NAME_HEADER)
+                : null;
+
+        announce(userService.sessionConnected(user.getName(), fullName, accessor.getSessionId()));
+    }
+
+    /**
+     * Unregisters a closed session and announces the user if they just went offline.
+     * @param event the event for a closed session
+     */
+    @EventListener
+    public void onSessionDisconnect(SessionDisconnectEvent event) {
+        var user = event.getUser();
+        if (user == null) {
+            return;
+        }
+
+        announce(userService.sessionDisconnected(user.getName(), event.getSessionId()));
+    }
+
+    /**
+     * Broadcasts a presence change, if any.
+     * @param delta the presence change
+     */
+    private void announce(Optional<PresenceDelta> delta) {
+        delta.ifPresent(change -> simpMessagingTemplate.convertAndSend("/topic/public", change));
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.springpracticewebsocket1o1chatapp.listeners;
+
+import com.example.springpracticewebsocket1o1chatapp.configs.PresenceProperties;
+import com.example.springpracticewebsocket1o1chatapp.services.UserService;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+/**
+ * Periodically cleans up ONLINE records that no session backs any more, such as those left behind by
+ * a node that crashed before its sessions could be closed, and announces the users as offline on
+ * "/topic/public".
+ * Every node first refreshes the users connected to it, so only records no live node vouches for
+ * become stale.
+ */
+@Component
+public class PresenceSweeper {
+
+    private final UserService userService;
+    private final SimpMessagingTemplate simpMessagingTemplate;
+    private final PresenceProperties presenceProperties;
+
+    /**
+     * Constructs a new PresenceSweeper with the given user service, messaging template and properties.
+     *
+     * @param userService           the service to manage users
+     * @param simpMessagingTemplate the messaging template to broadcast presence changes
+     * @param presenceProperties    the presence sweeping configuration
+     */
+    public PresenceSweeper(
+            UserService userService,
+            SimpMessagingTemplate simpMessagingTemplate,
+            PresenceProperties presenceProperties
+    ) {
+        this.userService = userService;
+        this.simpMessagingTemplate = simpMessagingTemplate;
+        this.presenceProperties = presenceProperties;
+    }
+
+    /**
+     * Refreshes this node's users, then marks the stale ones offline and announces them.
+     */
+    @Scheduled(
+            initialDelayString = "${chat.presence.sweep-interval:1m}",
+            fixedDelayString = "${chat.presence.sweep-interval:1m}"
+    )
+    public void sweep() {
+        userService.touchConnectedUsers();
+
+        var seenBefore = LocalDateTime.now().minus(presenceProperties.staleAfter());
+        userService.expireStaleUsers(seenBefore)
+                .forEach(delta -> simpMessagingTemplate.convertAndSend("/topic/public", delta));
+    }
+}
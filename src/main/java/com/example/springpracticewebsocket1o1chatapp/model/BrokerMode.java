@@ -0,0 +1,17 @@
+package com.example.springpracticewebsocket1o1chatapp.model;
+
+/**
+ * Modes for routing messages between subscribed clients.
+ */
+public enum BrokerMode {
+
+    /**
+     * An in-memory broker inside this node; only clients connected to the same node can reach each other.
+     */
+    SIMPLE,
+
+    /**
+     * An external STOMP broker shared by all nodes, reached through Spring's broker relay.
+     */
+    RELAY
+}
@@ -0,0 +1,69 @@
+package com.example.springpracticewebsocket1o1chatapp.model;
+
+/**
+ * Strategies for deriving the chat ID shared by two participants.
+ */
+public enum ChatIdStrategy {
+
+    /**
+     * The ID is built from whoever sent the first message, followed by the other participant.
+     * Resolving it requires looking up the stored chat room.
+     */
+    SENDER_FIRST {
+        @Override
+        public String chatId(String senderId, String recipientId) {
+            return join(senderId, '_', recipientId);
+        }
+    },
+
+    /**
+     * The ID is built from both participants in lexicographic order, so it can be computed
+     * from either side without a lookup.
+     */
+    CANONICAL {
+        @Override
+        public String chatId(String senderId, String recipientId) {
+            return senderId.compareTo(recipientId) <= 0
+                    ? SENDER_FIRST.chatId(senderId, recipientId)
+                    : SENDER_FIRST.chatId(recipientId, senderId);
+        }
+    };
+
+    /**
+     * Derives the chat ID for a sender and recipient.
+     *
+     * @param senderId    the sender's ID
+     * @param recipientId the recipient's ID
+     * @return the chat ID
+     */
+    public abstract String chatId(String senderId, String recipientId);
+
+    /**
+     * Joins two IDs with a separator so that different pairs never give the same result.
+     * Backslashes and separators within the IDs are escaped with a backslash, so ("a_b", "c") and
+     * ("a", "b_c") stay apart; IDs holding neither are joined as they are.
+     *
+     * @param first     the first ID
+     * @param separator the separator
+     * @param second    the second ID
+     * @return the joined IDs
+     */
+    public static String join(String first, char separator, String second) {
+        return escape(first, separator) + separator + escape(second, separator);
+    }
+
+    private static String escape(String id, char separator) {
+        if (id.indexOf('\\') < 0 && id.indexOf(separator) < 0) {
+            return id;
+        }
+        var escaped = new StringBuilder(id.length() + 4);
+        for (var i = 0; i < id.length(); i++) {
+            var c = id.charAt(i);
+            if (c == '\\' || c == separator) {
+                escaped.append('\\');
+            }
+            escaped.append(c);
+        }
+        return escaped.toString();
+    }
+}
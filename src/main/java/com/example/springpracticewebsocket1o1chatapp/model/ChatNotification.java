@@ -7,12 +7,13 @@ package com.example.springpracticewebsocket1o1chatapp.model;
  * @param senderId    the sender's ID
  * @param recipientId the recipient's ID
  * @param content     the notification content
+ * @param seq         the message's sequence number within its chat, so recipients can detect gaps
  */
 public record ChatNotification(
         String id,
         String senderId,
         String recipientId,
-        String content
-
+        String content,
+        Long seq
 ) {
 }
@@ -0,0 +1,21 @@
+package com.example.springpracticewebsocket1o1chatapp.model;
+
+import java.security.Principal;
+
+/**
+ * Identifies the user behind a STOMP session by their nickname.
+ *
+ * @param name the user's nickname
+ */
+public record ChatPrincipal(String name) implements Principal {
+
+    /**
+     * Gets the user's nickname.
+     *
+     * @return the nickname
+     */
+    @Override
+    public String getName() {
+        return name;
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.springpracticewebsocket1o1chatapp.model;
+
+/**
+ * Represents one of a user's chats in their conversation list.
+ *
+ * @param chatId      the chat ID
+ * @param userId      the other participant's ID
+ * @param lastMessage the chat's last message, or null if the chat predates message summaries
+ * @param unreadCount the number of messages the user has received in the chat but not read yet
+ */
+public record Conversation(
+        String chatId,
+        String userId,
+        MessageSummary lastMessage,
+        long unreadCount
+) {
+}
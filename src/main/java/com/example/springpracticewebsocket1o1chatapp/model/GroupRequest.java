@@ -0,0 +1,17 @@
+package com.example.springpracticewebsocket1o1chatapp.model;
+
+import java.util.List;
+
+/**
+ * Represents a request to create a group chat.
+ *
+ * @param name      the group's display name
+ * @param ownerId   the ID of the user creating the group
+ * @param memberIds the IDs of the other initial members
+ */
+public record GroupRequest(
+        String name,
+        String ownerId,
+        List<String> memberIds
+) {
+}
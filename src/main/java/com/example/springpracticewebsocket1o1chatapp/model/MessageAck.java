@@ -0,0 +1,49 @@
+package com.example.springpracticewebsocket1o1chatapp.model;
+
+import com.example.springpracticewebsocket1o1chatapp.documents.ChatMessage;
+
+import java.time.LocalDateTime;
+
+/**
+ * Represents the acknowledgement sent to the sender once a message carrying a client message ID
+ * is stored.
+ *
+ * @param clientMessageId the ID the client generated for the message
+ * @param id              the message ID assigned by the server
+ * @param seq             the message's sequence number within its chat
+ * @param timestamp       the time the server stored the message
+ * @param duplicate       whether the message had already been stored by an earlier attempt
+ */
+public record MessageAck(
+        String clientMessageId,
+        String id,
+        Long seq,
+        LocalDateTime timestamp,
+        boolean duplicate
+) {
+
+    /**
+     * Creates the acknowledgement of a newly stored message.
+     *
+     * @param chatMessage the stored message
+     * @return the acknowledgement
+     */
+    public static MessageAck of(ChatMessage chatMessage) {
+        return new MessageAck(
+                chatMessage.getClientMessageId(),
+                chatMessage.getId(),
+                chatMessage.getSeq(),
+                chatMessage.getTimestamp(),
+                false
+        );
+    }
+
+    /**
+     * Marks this acknowledgement as answering a resent message.
+     *
+     * @return the acknowledgement of the duplicate
+     */
+    public MessageAck asDuplicate() {
+        return new MessageAck(clientMessageId, id, seq, timestamp, true);
+    }
+}
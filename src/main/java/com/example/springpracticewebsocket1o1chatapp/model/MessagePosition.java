@@ -0,0 +1,115 @@
+package com.example.springpracticewebsocket1o1chatapp.model;
+
+import com.example.springpracticewebsocket1o1chatapp.documents.ChatMessage;
+import org.bson.types.ObjectId;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+
+/**
+ * Represents a position in the timestamp order of a chat's history, used as a history cursor.
+ * Timestamps are stored with millisecond precision, so several messages can share one; they are
+ * ordered by message ID among themselves, which makes the position of every message unique and a
+ * page boundary between two of them neither skips nor repeats a message.
+ *
+ * @param timestamp the timestamp of the position
+ * @param id        the message ID of the position within its timestamp
+ */
+public record MessagePosition(LocalDateTime timestamp, String id) {
+
+    /**
+     * The lowest message ID, placing a position before every message of its timestamp.
+     */
+    public static final String MIN_ID = "000000000000000000000000";
+
+    /**
+     * The highest message ID, placing a position after every message of its timestamp.
+     */
+    public static final String MAX_ID = "ffffffffffffffffffffffff";
+
+    /**
+     * The order of messages in a chat's history: by timestamp, then by message ID.
+     */
+    public static final Comparator<ChatMessage> ORDER = Comparator
+            .comparing(ChatMessage::getTimestamp, Comparator.nullsFirst(Comparator.<LocalDateTime>naturalOrder()))
+            .thenComparing(ChatMessage::getId, Comparator.nullsFirst(Comparator.<String>naturalOrder()));
+
+    /**
+     * Creates the position of a message.
+     *
+     * @param chatMessage the message
+     * @return the message's position
+     */
+    public static MessagePosition of(ChatMessage chatMessage) {
+        return new MessagePosition(chatMessage.getTimestamp(), chatMessage.getId());
+    }
+
+    /**
+     * Creates the upper bound of a cursor walking back into older history.
+     * Without a message ID, every message of the timestamp is above the bound.
+     *
+     * @param timestamp the timestamp of the oldest message the client holds, or null
+     * @param id        the ID of that message, or null
+     * @return the position, or null if no timestamp is given
+     */
+    public static MessagePosition before(LocalDateTime timestamp, String id) {
+        return timestamp == null ? null : new MessagePosition(timestamp, id == null ? MIN_ID : normalize(id));
+    }
+
+    /**
+     * Creates the lower bound of a cursor walking forward to newer messages.
+     * Without a message ID, every message of the timestamp is below the bound.
+     *
+     * @param timestamp the timestamp of the newest message the client holds, or null
+     * @param id        the ID of that message, or null
+     * @return the position, or null if no timestamp is given
+     */
+    public static MessagePosition after(LocalDateTime timestamp, String id) {
+        return timestamp == null ? null : new MessagePosition(timestamp, id == null ? MAX_ID : normalize(id));
+    }
+
+    /**
+     * Checks whether a history cursor given by a client is well formed: a message ID is only
+     * meaningful together with a timestamp, and must be an ObjectId.
+     *
+     * @param timestamp the timestamp of the cursor, or null
+     * @param id        the message ID of the cursor, or null
+     * @return true if the cursor is valid
+     */
+    public static boolean isValid(LocalDateTime timestamp, String id) {
+        return id == null || (timestamp != null && ObjectId.isValid(id));
+    }
+
+    /**
+     * Checks whether a message comes before this position.
+     *
+     * @param chatMessage the message
+     * @return true if the message is older than this position
+     */
+    public boolean isAfter(ChatMessage chatMessage) {
+        return compareTo(chatMessage) > 0;
+    }
+
+    /**
+     * Checks whether a message comes after this position.
+     *
+     * @param chatMessage the message
+     * @return true if the message is newer than this position
+     */
+    public boolean isBefore(ChatMessage chatMessage) {
+        return compareTo(chatMessage) < 0;
+    }
+
+    private int compareTo(ChatMessage chatMessage) {
+        var byTimestamp = timestamp.compareTo(chatMessage.getTimestamp());
+        return byTimestamp != 0 ? byTimestamp : id.compareTo(chatMessage.getId());
+    }
+
+    /**
+     * Brings an ObjectId to the lower case hex form stored IDs are read back in, so that IDs
+     * compare in the same order in memory as in MongoDB.
+     */
+    private static String normalize(String id) {
+        return ObjectId.isValid(id) ? new ObjectId(id).toHexString() : id;
+    }
+}
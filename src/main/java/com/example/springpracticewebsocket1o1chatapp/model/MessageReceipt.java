@@ -0,0 +1,21 @@
+package com.example.springpracticewebsocket1o1chatapp.model;
+
+/**
+ * Represents a receipt a recipient sends for a message, which is forwarded to the message's sender.
+ * A receipt covers the given message and every earlier message from the same sender.
+ *
+ * @param type        whether the message was delivered or read
+ * @param messageId   the ID of the message
+ * @param senderId    the ID of the message's sender, who receives the receipt
+ * @param recipientId the ID of the message's recipient, who sends the receipt
+ * @param seq         the message's sequence number within its chat, bounding what a read receipt
+ *                    covers, or null if the client does not know it
+ */
+public record MessageReceipt(
+        ReceiptType type,
+        String messageId,
+        String senderId,
+        String recipientId,
+        Long seq
+) {
+}
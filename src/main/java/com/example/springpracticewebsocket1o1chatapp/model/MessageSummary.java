@@ -0,0 +1,50 @@
+package com.example.springpracticewebsocket1o1chatapp.model;
+
+import com.example.springpracticewebsocket1o1chatapp.documents.ChatMessage;
+
+import java.time.LocalDateTime;
+
+/**
+ * Represents the last message of a chat as kept on its chat room entries, enough to show the chat
+ * in a conversation list without reading its history.
+ *
+ * @param id        the message ID
+ * @param senderId  the sender's ID
+ * @param preview   the start of the message content
+ * @param timestamp the time the server stored the message
+ * @param seq       the message's sequence number within its chat
+ */
+public record MessageSummary(
+        String id,
+        String senderId,
+        String preview,
+        LocalDateTime timestamp,
+        Long seq
+) {
+
+    /**
+     * The maximum number of characters of content kept as the preview.
+     */
+    public static final int PREVIEW_LENGTH = 100;
+
+    /**
+     * Creates the summary of a stored message.
+     *
+     * @param chatMessage the stored message
+     * @return the summary
+     */
+    public static MessageSummary of(ChatMessage chatMessage) {
+        var content = chatMessage.getContent();
+        var preview = content == null || content.length() <= PREVIEW_LENGTH
+                ? content
+                : content.substring(0, PREVIEW_LENGTH);
+
+        return new MessageSummary(
+                chatMessage.getId(),
+                chatMessage.getSenderId(),
+                preview,
+                chatMessage.getTimestamp(),
+                chatMessage.getSeq()
+        );
+    }
+}
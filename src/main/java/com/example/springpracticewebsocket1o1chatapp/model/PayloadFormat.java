@@ -0,0 +1,56 @@
+package com.example.springpracticewebsocket1o1chatapp.model;
+
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+
+/**
+ * Encodings a STOMP session can receive message payloads in.
+ */
+public enum PayloadFormat {
+
+    /**
+     * JSON text, understood by every client.
+     */
+    JSON(MimeTypeUtils.APPLICATION_JSON),
+
+    /**
+     * CBOR, a binary encoding of the same data model as JSON that is smaller and cheaper to produce.
+     * It can only be delivered over plain WebSocket connections, which carry binary frames.
+     */
+    CBOR(new MimeType("application", "cbor"));
+
+    private final MimeType mimeType;
+
+    PayloadFormat(MimeType mimeType) {
+        this.mimeType = mimeType;
+    }
+
+    /**
+     * Gets the content type of payloads in this format.
+     *
+     * @return the content type
+     */
+    public MimeType mimeType() {
+        return mimeType;
+    }
+
+    /**
+     * Picks the first format the client accepts.
+     *
+     * @param accept a comma-separated list of content types in order of preference, or null
+     * @return the preferred supported format, or JSON if none is supported
+     */
+    public static PayloadFormat negotiate(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return JSON;
+        }
+        for (var mimeType : MimeTypeUtils.parseMimeTypes(accept)) {
+            for (var format : values()) {
+                if (format.mimeType.equalsTypeAndSubtype(mimeType)) {
+                    return format;
+                }
+            }
+        }
+        return JSON;
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.springpracticewebsocket1o1chatapp.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Represents a change in a user's presence that is broadcast to all users.
+ * The full name is only included when the user comes online.
+ *
+ * @param nickName the user's nickname
+ * @param fullName the user's full name, or null when going offline
+ * @param status   the user's new status
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record PresenceDelta(
+        String nickName,
+        String fullName,
+        Status status
+) {
+
+    /**
+     * Creates a delta announcing that a user came online.
+     *
+     * @param nickName the user's nickname
+     * @param fullName the user's full name
+     * @return the delta
+     */
+    public static PresenceDelta online(String nickName, String fullName) {
+        return new PresenceDelta(nickName, fullName, Status.ONLINE);
+    }
+
+    /**
+     * Creates a delta announcing that a user went offline.
+     *
+     * @param nickName the user's nickname
+     * @return the delta
+     */
+    public static PresenceDelta offline(String nickName) {
+        return new PresenceDelta(nickName, null, Status.OFFLINE);
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.springpracticewebsocket1o1chatapp.model;
+
+/**
+ * Represents the notice sent to a session whose message was rejected by a rate limit.
+ *
+ * @param destination      the destination of the rejected message
+ * @param retryAfterMillis how long the client should wait before sending again
+ */
+public record RateLimitNotice(
+        String destination,
+        long retryAfterMillis
+) {
+}
@@ -0,0 +1,23 @@
+package com.example.springpracticewebsocket1o1chatapp.model;
+
+/**
+ * What happens to a client message that exceeds its session's or user's rate limit.
+ */
+public enum RateLimitOverflow {
+
+    /**
+     * The message is discarded without telling the client.
+     */
+    DROP,
+
+    /**
+     * The message is discarded and the session is sent a {@link RateLimitNotice} on "/user/queue/errors".
+     * The connection stays open.
+     */
+    ERROR,
+
+    /**
+     * The session is sent a STOMP ERROR frame, after which the server closes it.
+     */
+    DISCONNECT
+}
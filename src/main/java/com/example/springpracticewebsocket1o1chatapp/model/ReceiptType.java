@@ -0,0 +1,8 @@
+package com.example.springpracticewebsocket1o1chatapp.model;
+
+/**
+ * The kinds of receipts a recipient sends back for a message.
+ */
+public enum ReceiptType {
+    DELIVERED, READ
+}
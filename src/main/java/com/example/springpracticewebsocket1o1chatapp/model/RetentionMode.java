@@ -0,0 +1,23 @@
+package com.example.springpracticewebsocket1o1chatapp.model;
+
+/**
+ * What happens to chat messages once they are older than the configured retention age.
+ */
+public enum RetentionMode {
+
+    /**
+     * Messages are kept in the message collection forever.
+     */
+    NONE,
+
+    /**
+     * Messages are deleted by MongoDB through a TTL index on their timestamp.
+     */
+    TTL,
+
+    /**
+     * Messages are moved to the archive collection in compressed batches per chat, and history
+     * reads continue into the archive where the message collection ends.
+     */
+    ARCHIVE
+}
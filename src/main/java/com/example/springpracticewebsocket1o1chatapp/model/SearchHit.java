@@ -0,0 +1,27 @@
+package com.example.springpracticewebsocket1o1chatapp.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Represents a message matching a search, with the part of its content around the match.
+ *
+ * @param messageId   the message ID
+ * @param chatId      the ID of the chat the message belongs to
+ * @param senderId    the sender's ID
+ * @param recipientId the recipient's ID, or the group ID for group messages
+ * @param timestamp   the time the message was stored
+ * @param seq         the message's sequence number within its chat, or null for older messages
+ * @param snippet     the content around the first matching term, shortened with "..." where cut
+ * @param score       the relevance of the message to the search; hits are ordered by it
+ */
+public record SearchHit(
+        String messageId,
+        String chatId,
+        String senderId,
+        String recipientId,
+        LocalDateTime timestamp,
+        Long seq,
+        String snippet,
+        double score
+) {
+}
@@ -0,0 +1,17 @@
+package com.example.springpracticewebsocket1o1chatapp.model;
+
+import java.util.List;
+
+/**
+ * Represents one page of search hits.
+ *
+ * @param hits    the hits, most relevant first, newer messages first among equally relevant ones
+ * @param page    the index of this page, starting at 0
+ * @param hasMore whether more hits follow this page
+ */
+public record SearchPage(
+        List<SearchHit> hits,
+        int page,
+        boolean hasMore
+) {
+}
@@ -0,0 +1,20 @@
+package com.example.springpracticewebsocket1o1chatapp.model;
+
+import com.example.springpracticewebsocket1o1chatapp.documents.ChatMessage;
+
+import java.util.List;
+
+/**
+ * Represents one page of the messages a user received since a cursor.
+ *
+ * @param messages the messages across all of the user's chats, oldest first
+ * @param cursor   the cursor to request the next page with and to acknowledge once the page is
+ *                 processed, or null if the user has never received a message
+ * @param hasMore  whether more messages follow this page
+ */
+public record SyncPage(
+        List<ChatMessage> messages,
+        String cursor,
+        boolean hasMore
+) {
+}
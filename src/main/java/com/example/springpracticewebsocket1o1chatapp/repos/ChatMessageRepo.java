@@ -1,9 +1,14 @@
 package com.example.springpracticewebsocket1o1chatapp.repos;
 
 import com.example.springpracticewebsocket1o1chatapp.documents.ChatMessage;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Repository for managing chat messages in the database.
@@ -18,4 +23,74 @@ public interface ChatMessageRepo extends MongoRepository<ChatMessage, String> {
      */
     List<ChatMessage> findByChatId(String chatId);
 
+    /**
+     * Finds the newest chat messages for a given chat ID, newest first.
+     * Messages sharing a timestamp are ordered by ID, as in {@link #findByChatIdBefore}.
+     *
+     * @param chatId the chat ID
+     * @param limit  the maximum number of messages to return
+     * @return a list of chat messages ordered by descending timestamp and ID
+     */
+    List<ChatMessage> findByChatIdOrderByTimestampDescIdDesc(String chatId, Limit limit);
+
+    /**
+     * Finds chat messages before a position in a chat's history, newest first.
+     * Messages sharing the timestamp of the position are compared by ID, so a page boundary within
+     * one millisecond neither skips nor repeats messages.
+     *
+     * @param chatId    the chat ID
+     * @param timestamp the timestamp of the exclusive upper bound
+     * @param id        the message ID of the exclusive upper bound within its timestamp
+     * @param limit     the maximum number of messages to return
+     * @return a list of chat messages ordered by descending timestamp and ID
+     */
+    @Query(value = "{ 'chatId' : ?0, 'timestamp' : { '$lte' : ?1 }, "
+            + "'$or' : [ { 'timestamp' : { '$lt' : ?1 } }, { '_id' : { '$lt' : ?2 } } ] }",
+            sort = "{ 'timestamp' : -1, '_id' : -1 }")
+    List<ChatMessage> findByChatIdBefore(String chatId, LocalDateTime timestamp, ObjectId id, Limit limit);
+
+    /**
+     * Finds chat messages after a position in a chat's history, oldest first.
+     *
+     * @param chatId    the chat ID
+     * @param timestamp the timestamp of the exclusive lower bound
+     * @param id        the message ID of the exclusive lower bound within its timestamp
+     * @param limit     the maximum number of messages to return
+     * @return a list of chat messages ordered by ascending timestamp and ID
+     * @see #findByChatIdBefore(String, LocalDateTime, ObjectId, Limit)
+     */
+    @Query(value = "{ 'chatId' : ?0, 'timestamp' : { '$gte' : ?1 }, "
+            + "'$or' : [ { 'timestamp' : { '$gt' : ?1 } }, { '_id' : { '$gt' : ?2 } } ] }",
+            sort = "{ 'timestamp' : 1, '_id' : 1 }")
+    List<ChatMessage> findByChatIdAfter(String chatId, LocalDateTime timestamp, ObjectId id, Limit limit);
+
+    /**
+     * Finds chat messages with a sequence number below a given one, newest first.
+     *
+     * @param chatId the chat ID
+     * @param seq    the exclusive upper bound of the sequence number
+     * @param limit  the maximum number of messages to return
+     * @return a list of chat messages ordered by descending sequence number
+     */
+    List<ChatMessage> findByChatIdAndSeqLessThanOrderBySeqDesc(String chatId, long seq, Limit limit);
+
+    /**
+     * Finds chat messages with a sequence number above a given one, oldest first.
+     *
+     * @param chatId the chat ID
+     * @param seq    the exclusive lower bound of the sequence number
+     * @param limit  the maximum number of messages to return
+     * @return a list of chat messages ordered by ascending sequence number
+     */
+    List<ChatMessage> findByChatIdAndSeqGreaterThanOrderBySeqAsc(String chatId, long seq, Limit limit);
+
+    /**
+     * Finds the message a sender stored under a client message ID.
+     *
+     * @param senderId        the sender's ID
+     * @param clientMessageId the client message ID
+     * @return an optional containing the chat message if found, otherwise empty
+     */
+    Optional<ChatMessage> findBySenderIdAndClientMessageId(String senderId, String clientMessageId);
+
 }
@@ -1,8 +1,13 @@
 package com.example.springpracticewebsocket1o1chatapp.repos;
 
 import com.example.springpracticewebsocket1o1chatapp.documents.ChatRoom;
+import com.example.springpracticewebsocket1o1chatapp.model.MessageSummary;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.Update;
 
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -10,6 +15,25 @@ import java.util.Optional;
  */
 public interface ChatRoomRepo extends MongoRepository<ChatRoom, String> {
 
+    /**
+     * Selects the chat room of an owner and another participant ?0 and ?1 unless it holds a message at
+     * or after sequence number ?2.
+     */
+    String LAST_MESSAGE_BEFORE = "{ 'senderId' : ?0, 'recipientId' : ?1, "
+            + "'$or' : [ { 'lastMessage.seq' : { '$lt' : ?2 } }, { 'lastMessage' : { '$exists' : false } } ] }";
+
+    /**
+     * Selects the chat room of an owner and another participant ?0 and ?1 unless the owner has read up
+     * to sequence number ?2.
+     */
+    String UNREAD_BEFORE = "{ 'senderId' : ?0, 'recipientId' : ?1, 'readSeq' : { '$not' : { '$gte' : ?2 } } }";
+
+    /**
+     * Adds sequence number ?2 to the unread ones of a chat room, keeping the newest.
+     */
+    String PUSH_UNREAD_SEQ = "'$push' : { 'unreadSeqs' : { '$each' : [ ?2 ], '$sort' : 1, '$slice' : -"
+            + ChatRoom.MAX_UNREAD_SEQS + " } }";
+
     /**
      * Finds a chat room by the sender and recipient IDs.
      *
@@ -19,4 +43,105 @@ public interface ChatRoomRepo extends MongoRepository<ChatRoom, String> {
      */
     Optional<ChatRoom> findBySenderIdAndRecipientId(String senderId, String recipientId);
 
+    /**
+     * Finds the chat rooms of an owner that have unread messages.
+     *
+     * @param senderId    the owner's ID
+     * @param unreadCount the exclusive lower bound of the unread count
+     * @return a list of chat rooms
+     */
+    List<ChatRoom> findBySenderIdAndUnreadCountGreaterThan(String senderId, long unreadCount);
+
+    /**
+     * Atomically counts a message as unread in a chat room, unless the owner has already read up to it.
+     *
+     * @param senderId    the owner's ID
+     * @param recipientId the other participant's ID
+     * @param seq         the sequence number of the message
+     * @return the number of updated chat rooms, 0 if the message was already read or the chat room does not exist
+     */
+    @Query(UNREAD_BEFORE)
+    @Update("{ '$inc' : { 'unreadCount' : 1 }, " + PUSH_UNREAD_SEQ + " }")
+    long findAndIncrementUnreadCountBySenderIdAndRecipientId(String senderId, String recipientId, long seq);
+
+    /**
+     * Marks every message of a chat room as read, regardless of sequence numbers.
+     *
+     * @param senderId    the owner's ID
+     * @param recipientId the other participant's ID
+     * @return the number of updated chat rooms
+     */
+    @Update("{ '$set' : { 'unreadCount' : 0, 'unreadSeqs' : [] } }")
+    long findAndResetUnreadCountBySenderIdAndRecipientId(String senderId, String recipientId);
+
+    /**
+     * Atomically marks the messages of a chat room up to a sequence number as read, unless the owner
+     * has already read further.
+     * The unread count becomes the number of kept sequence numbers above the read one. If the read
+     * sequence number is below all kept ones, messages beyond the kept window may still be unread, and
+     * the count is left as it is.
+     *
+     * @param senderId    the owner's ID
+     * @param recipientId the other participant's ID
+     * @param seq         the sequence number of the last message read
+     * @return the number of updated chat rooms, 0 if the owner has already read further
+     */
+    @Query(UNREAD_BEFORE)
+    @Update(pipeline = "{ '$set' : { "
+            + "'readSeq' : ?2, "
+            + "'unreadCount' : { '$cond' : [ "
+            + "{ '$lt' : [ ?2, { '$ifNull' : [ { '$min' : '$unreadSeqs' }, ?2 ] } ] }, "
+            + "'$unreadCount', "
+            + "{ '$size' : { '$filter' : { 'input' : { '$ifNull' : [ '$unreadSeqs', [] ] }, 'cond' : { '$gt' : [ '$$this', ?2 ] } } } } ] }, "
+            + "'unreadSeqs' : { '$filter' : { 'input' : { '$ifNull' : [ '$unreadSeqs', [] ] }, 'cond' : { '$gt' : [ '$$this', ?2 ] } } } "
+            + "} }")
+    long markReadBySenderIdAndRecipientId(String senderId, String recipientId, long seq);
+
+    /**
+     * Finds the chat rooms of an owner, most recently active first.
+     *
+     * @param senderId the owner's ID
+     * @param limit    the maximum number of chat rooms to return
+     * @return a list of chat rooms
+     */
+    List<ChatRoom> findBySenderIdOrderByLastMessageTimestampDesc(String senderId, Limit limit);
+
+    /**
+     * Atomically replaces the last message summary of a chat room, unless it already holds a later message.
+     *
+     * @param senderId    the owner's ID
+     * @param recipientId the other participant's ID
+     * @param seq         the sequence number of the message
+     * @param lastMessage the summary of the message
+     * @return the number of updated chat rooms, 0 if the chat room holds a later message or does not exist
+     */
+    @Query(LAST_MESSAGE_BEFORE)
+    @Update("{ '$set' : { 'lastMessage' : ?3 } }")
+    long updateLastMessageBySenderIdAndRecipientId(
+            String senderId,
+            String recipientId,
+            long seq,
+            MessageSummary lastMessage
+    );
+
+    /**
+     * Atomically replaces the last message summary of a chat room and counts the message as unread,
+     * in one update that only applies if the chat room holds no later message and the owner has not
+     * read up to it.
+     *
+     * @param senderId    the owner's ID
+     * @param recipientId the other participant's ID
+     * @param seq         the sequence number of the message
+     * @param lastMessage the summary of the message
+     * @return the number of updated chat rooms, 0 if either condition does not hold or the chat room does not exist
+     */
+    @Query("{ '$and' : [ " + LAST_MESSAGE_BEFORE + ", " + UNREAD_BEFORE + " ] }")
+    @Update("{ '$set' : { 'lastMessage' : ?3 }, '$inc' : { 'unreadCount' : 1 }, " + PUSH_UNREAD_SEQ + " }")
+    long updateLastMessageAndIncrementUnreadCountBySenderIdAndRecipientId(
+            String senderId,
+            String recipientId,
+            long seq,
+            MessageSummary lastMessage
+    );
+
 }
@@ -0,0 +1,21 @@
+package com.example.springpracticewebsocket1o1chatapp.repos;
+
+import com.example.springpracticewebsocket1o1chatapp.documents.GroupRoom;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import java.util.List;
+
+/**
+ * Repository for managing group chat rooms in the database.
+ */
+public interface GroupRoomRepo extends MongoRepository<GroupRoom, String> {
+
+    /**
+     * Finds all groups a user is a member of.
+     *
+     * @param memberId the user's ID
+     * @return a list of the user's groups
+     */
+    List<GroupRoom> findAllByMemberIds(String memberId);
+
+}
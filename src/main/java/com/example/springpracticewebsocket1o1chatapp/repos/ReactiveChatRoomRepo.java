@@ -0,0 +1,127 @@
+package com.example.springpracticewebsocket1o1chatapp.repos;
+
+import com.example.springpracticewebsocket1o1chatapp.documents.ChatRoom;
+import com.example.springpracticewebsocket1o1chatapp.model.MessageSummary;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.Update;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reactive repository for managing chat rooms in the database.
+ */
+public interface ReactiveChatRoomRepo extends ReactiveMongoRepository<ChatRoom, String> {
+
+    /**
+     * Finds a chat room by the sender and recipient IDs.
+     *
+     * @param senderId    the sender's ID
+     * @param recipientId the recipient's ID
+     * @return the chat room if found, otherwise empty
+     */
+    Mono<ChatRoom> findBySenderIdAndRecipientId(String senderId, String recipientId);
+
+    /**
+     * Finds the chat rooms of an owner that have unread messages.
+     *
+     * @param senderId    the owner's ID
+     * @param unreadCount the exclusive lower bound of the unread count
+     * @return the chat rooms
+     */
+    Flux<ChatRoom> findBySenderIdAndUnreadCountGreaterThan(String senderId, long unreadCount);
+
+    /**
+     * Atomically counts a message as unread in a chat room, unless the owner has already read up to it.
+     *
+     * @param senderId    the owner's ID
+     * @param recipientId the other participant's ID
+     * @param seq         the sequence number of the message
+     * @return the number of updated chat rooms, 0 if the message was already read or the chat room does not exist
+     */
+    @Query(ChatRoomRepo.UNREAD_BEFORE)
+    @Update("{ '$inc' : { 'unreadCount' : 1 }, " + ChatRoomRepo.PUSH_UNREAD_SEQ + " }")
+    Mono<Long> findAndIncrementUnreadCountBySenderIdAndRecipientId(String senderId, String recipientId, long seq);
+
+    /**
+     * Marks every message of a chat room as read, regardless of sequence numbers.
+     *
+     * @param senderId    the owner's ID
+     * @param recipientId the other participant's ID
+     * @return the number of updated chat rooms
+     */
+    @Update("{ '$set' : { 'unreadCount' : 0, 'unreadSeqs' : [] } }")
+    Mono<Long> findAndResetUnreadCountBySenderIdAndRecipientId(String senderId, String recipientId);
+
+    /**
+     * Atomically marks the messages of a chat room up to a sequence number as read, unless the owner
+     * has already read further.
+     * The unread count becomes the number of kept sequence numbers above the read one. If the read
+     * sequence number is below all kept ones, messages beyond the kept window may still be unread, and
+     * the count is left as it is.
+     *
+     * @param senderId    the owner's ID
+     * @param recipientId the other participant's ID
+     * @param seq         the sequence number of the last message read
+     * @return the number of updated chat rooms, 0 if the owner has already read further
+     */
+    @Query(ChatRoomRepo.UNREAD_BEFORE)
+    @Update(pipeline = "{ '$set' : { "
+            + "'readSeq' : ?2, "
+            + "'unreadCount' : { '$cond' : [ "
+            + "{ '$lt' : [ ?2, { '$ifNull' : [ { '$min' : '$unreadSeqs' }, ?2 ] } ] }, "
+            + "'$unreadCount', "
+            + "{ '$size' : { '$filter' : { 'input' : { '$ifNull' : [ '$unreadSeqs', [] ] }, 'cond' : { '$gt' : [ '$$this', ?2 ] } } } } ] }, "
+            + "'unreadSeqs' : { '$filter' : { 'input' : { '$ifNull' : [ '$unreadSeqs', [] ] }, 'cond' : { '$gt' : [ '$$this', ?2 ] } } } "
+            + "} }")
+    Mono<Long> markReadBySenderIdAndRecipientId(String senderId, String recipientId, long seq);
+
+    /**
+     * Finds the chat rooms of an owner, most recently active first.
+     *
+     * @param senderId the owner's ID
+     * @param limit    the maximum number of chat rooms to return
+     * @return the chat rooms
+     */
+    Flux<ChatRoom> findBySenderIdOrderByLastMessageTimestampDesc(String senderId, Limit limit);
+
+    /**
+     * Atomically replaces the last message summary of a chat room, unless it already holds a later message.
+     *
+     * @param senderId    the owner's ID
+     * @param recipientId the other participant's ID
+     * @param seq         the sequence number of the message
+     * @param lastMessage the summary of the message
+     * @return the number of updated chat rooms, 0 if the chat room holds a later message or does not exist
+     */
+    @Query(ChatRoomRepo.LAST_MESSAGE_BEFORE)
+    @Update("{ '$set' : { 'lastMessage' : ?3 } }")
+    Mono<Long> updateLastMessageBySenderIdAndRecipientId(
+            String senderId,
+            String recipientId,
+            long seq,
+            MessageSummary lastMessage
+    );
+
+    /**
+     * Atomically replaces the last message summary of a chat room and counts the message as unread,
+     * in one update that only applies if the chat room holds no later message and the owner has not
+     * read up to it.
+     *
+     * @param senderId    the owner's ID
+     * @param recipientId the other participant's ID
+     * @param seq         the sequence number of the message
+     * @param lastMessage the summary of the message
+     * @return the number of updated chat rooms, 0 if either condition does not hold or the chat room does not exist
+     */
+    @Query("{ '$and' : [ " + ChatRoomRepo.LAST_MESSAGE_BEFORE + ", " + ChatRoomRepo.UNREAD_BEFORE + " ] }")
+    @Update("{ '$set' : { 'lastMessage' : ?3 }, '$inc' : { 'unreadCount' : 1 }, " + ChatRoomRepo.PUSH_UNREAD_SEQ + " }")
+    Mono<Long> updateLastMessageAndIncrementUnreadCountBySenderIdAndRecipientId(
+            String senderId,
+            String recipientId,
+            long seq,
+            MessageSummary lastMessage
+    );
+
+}
@@ -0,0 +1,21 @@
+package com.example.springpracticewebsocket1o1chatapp.repos;
+
+import com.example.springpracticewebsocket1o1chatapp.documents.User;
+import com.example.springpracticewebsocket1o1chatapp.model.Status;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import reactor.core.publisher.Flux;
+
+/**
+ * Reactive repository for managing users in the database.
+ */
+public interface ReactiveUserRepo extends ReactiveMongoRepository<User, String> {
+
+    /**
+     * Finds all users with a given status.
+     *
+     * @param status the status to search for
+     * @return the users with the specified status
+     */
+    Flux<User> findAllByStatus(Status status);
+
+}
@@ -0,0 +1,46 @@
+package com.example.springpracticewebsocket1o1chatapp.services;
+
+import com.example.springpracticewebsocket1o1chatapp.documents.ChatMessage;
+import com.example.springpracticewebsocket1o1chatapp.model.MessagePosition;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Service interface for the archive tier of chat messages, holding the history that has been moved
+ * out of the message collection.
+ */
+public interface ChatArchiveService {
+
+    /**
+     * Moves all messages older than a cutoff from the message collection to the archive.
+     *
+     * @param cutoff the timestamp before which messages are archived
+     * @return the number of messages archived
+     */
+    long archiveBefore(LocalDateTime cutoff);
+
+    /**
+     * Finds one page of archived messages in a chat, addressed by a position cursor as in
+     * {@link ChatMessageService#findMessagesInChat(String, MessagePosition, MessagePosition, int)}.
+     *
+     * @param chatId the chat ID
+     * @param before exclusive upper bound, or null
+     * @param after  exclusive lower bound, or null
+     * @param limit  the maximum number of messages to return
+     * @return a list of archived messages in ascending timestamp order
+     */
+    List<ChatMessage> findMessagesInChat(String chatId, MessagePosition before, MessagePosition after, int limit);
+
+    /**
+     * Finds one page of archived messages in a chat, addressed by a sequence cursor as in
+     * {@link ChatMessageService#findMessagesInChatBySeq(String, Long, Long, int)}.
+     *
+     * @param chatId    the chat ID
+     * @param beforeSeq exclusive upper sequence bound, or null
+     * @param afterSeq  exclusive lower sequence bound, or null
+     * @param limit     the maximum number of messages to return
+     * @return a list of archived messages in ascending sequence order
+     */
+    List<ChatMessage> findMessagesInChatBySeq(String chatId, Long beforeSeq, Long afterSeq, int limit);
+}
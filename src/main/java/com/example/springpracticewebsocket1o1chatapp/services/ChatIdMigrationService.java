@@ -0,0 +1,16 @@
+package com.example.springpracticewebsocket1o1chatapp.services;
+
+/**
+ * Service interface for migrating stored chat IDs to the canonical form.
+ */
+public interface ChatIdMigrationService {
+
+    /**
+     * Rewrites every chat room entry and chat message to use the canonical chat ID.
+     * Running it again after it completed changes nothing.
+     *
+     * @return the number of chat messages whose chat ID was rewritten
+     */
+    long migrateToCanonicalChatIds();
+
+}
@@ -1,6 +1,7 @@
 package com.example.springpracticewebsocket1o1chatapp.services;
 
 import com.example.springpracticewebsocket1o1chatapp.documents.ChatMessage;
+import com.example.springpracticewebsocket1o1chatapp.model.MessagePosition;
 
 import java.util.List;
 
@@ -18,11 +19,75 @@ public interface ChatMessageService {
     ChatMessage save(ChatMessage chatMessage);
 
     /**
-     * Finds all chat messages between a sender and a recipient.
-     * @param senderId the sender's ID
+     * Saves a chat message in a chat whose ID is already known, such as a group.
+     *
+     * @param chatMessage the chat message to save
+     * @param chatId      the chat ID
+     * @return the saved chat message
+     */
+    ChatMessage saveInChat(ChatMessage chatMessage, String chatId);
+
+    /**
+     * Finds one page of chat messages between a sender and a recipient.
+     * Pages are addressed by a position cursor: {@code before} walks back into older history,
+     * {@code after} walks forward to newer messages, and with neither the newest page is returned.
+     *
+     * @param senderId    the sender's ID
+     * @param recipientId the recipient's ID
+     * @param before      exclusive upper bound, or null
+     * @param after       exclusive lower bound, or null
+     * @param limit       the maximum number of messages to return
+     * @return a list of chat messages in ascending timestamp order
+     */
+    List<ChatMessage> findChatMessages(
+            String senderId,
+            String recipientId,
+            MessagePosition before,
+            MessagePosition after,
+            int limit
+    );
+
+    /**
+     * Finds one page of chat messages in a chat whose ID is already known, such as a group.
+     *
+     * @param chatId the chat ID
+     * @param before exclusive upper bound, or null
+     * @param after  exclusive lower bound, or null
+     * @param limit  the maximum number of messages to return
+     * @return a list of chat messages in ascending timestamp order
+     */
+    List<ChatMessage> findMessagesInChat(String chatId, MessagePosition before, MessagePosition after, int limit);
+
+    /**
+     * Finds one page of chat messages between a sender and a recipient by sequence number.
+     * {@code beforeSeq} walks back into older history, {@code afterSeq} walks forward to newer
+     * messages, and with neither the newest page is returned.
+     * Messages stored before sequence numbers were assigned are not returned.
+     *
+     * @param senderId    the sender's ID
      * @param recipientId the recipient's ID
-     * @return a list of chat messages
+     * @param beforeSeq   exclusive upper sequence bound, or null
+     * @param afterSeq    exclusive lower sequence bound, or null
+     * @param limit       the maximum number of messages to return
+     * @return a list of chat messages in ascending sequence order
+     */
+    List<ChatMessage> findChatMessagesBySeq(
+            String senderId,
+            String recipientId,
+            Long beforeSeq,
+            Long afterSeq,
+            int limit
+    );
+
+    /**
+     * Finds one page of chat messages in a chat whose ID is already known by sequence number.
+     *
+     * @param chatId    the chat ID
+     * @param beforeSeq exclusive upper sequence bound, or null
+     * @param afterSeq  exclusive lower sequence bound, or null
+     * @param limit     the maximum number of messages to return
+     * @return a list of chat messages in ascending sequence order
      */
-    List<ChatMessage> findChatMessages(String senderId, String recipientId);
+    List<ChatMessage> findMessagesInChatBySeq(String chatId, Long beforeSeq, Long afterSeq, int limit);
 
 }
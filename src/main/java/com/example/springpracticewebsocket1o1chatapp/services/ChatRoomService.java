@@ -1,5 +1,10 @@
 package com.example.springpracticewebsocket1o1chatapp.services;
 
+import com.example.springpracticewebsocket1o1chatapp.documents.ChatMessage;
+import com.example.springpracticewebsocket1o1chatapp.model.Conversation;
+
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -29,4 +34,34 @@ public interface ChatRoomService {
      */
     String createChatId(String senderId, String recipientId);
 
+    /**
+     * Records a stored direct message on the chat room entries of both participants, as the chat's
+     * last message and as unread for the recipient.
+     * @param chatMessage the stored message, carrying its ID, timestamp and sequence number
+     */
+    void recordMessage(ChatMessage chatMessage);
+
+    /**
+     * Marks the messages a recipient has received from a sender as read, up to a given message.
+     * @param recipientId the recipient's ID, who owns the counter
+     * @param senderId the sender's ID
+     * @param seq the sequence number of the last message read, or null to mark every message as read
+     */
+    void markRead(String recipientId, String senderId, Long seq);
+
+    /**
+     * Finds the unread counts of all chats of a user.
+     * @param recipientId the user's ID
+     * @return the number of unread messages per sender, leaving out chats without unread messages
+     */
+    Map<String, Long> findUnreadCounts(String recipientId);
+
+    /**
+     * Finds the direct chats of a user, most recently active first.
+     * @param userId the user's ID
+     * @param limit the maximum number of chats to return
+     * @return the user's chats with their last message and unread count
+     */
+    List<Conversation> findConversations(String userId, int limit);
+
 }
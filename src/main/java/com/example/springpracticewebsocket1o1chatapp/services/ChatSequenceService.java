@@ -0,0 +1,17 @@
+package com.example.springpracticewebsocket1o1chatapp.services;
+
+/**
+ * Service interface for assigning sequence numbers to the messages of a chat.
+ */
+public interface ChatSequenceService {
+
+    /**
+     * Assigns the next sequence number of a chat.
+     * Numbers start at 1 and increase by one per call, across all nodes.
+     *
+     * @param chatId the chat ID
+     * @return the assigned sequence number
+     */
+    long next(String chatId);
+
+}
@@ -0,0 +1,57 @@
+package com.example.springpracticewebsocket1o1chatapp.services;
+
+import com.example.springpracticewebsocket1o1chatapp.documents.ChatMessage;
+import com.example.springpracticewebsocket1o1chatapp.documents.GroupRoom;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Service interface for managing group chats.
+ */
+public interface GroupService {
+
+    /**
+     * Creates a group.
+     *
+     * @param name      the group's display name
+     * @param ownerId   the ID of the user creating the group, who becomes a member
+     * @param memberIds the IDs of the other initial members
+     * @return the created group
+     */
+    GroupRoom createGroup(String name, String ownerId, Collection<String> memberIds);
+
+    /**
+     * Adds a member to a group.
+     *
+     * @param groupId  the group ID
+     * @param memberId the ID of the user to add
+     */
+    void addMember(String groupId, String memberId);
+
+    /**
+     * Removes a member from a group.
+     *
+     * @param groupId  the group ID
+     * @param memberId the ID of the user to remove
+     */
+    void removeMember(String groupId, String memberId);
+
+    /**
+     * Finds all groups a user is a member of.
+     *
+     * @param memberId the user's ID
+     * @return a list of the user's groups
+     */
+    List<GroupRoom> findGroups(String memberId);
+
+    /**
+     * Stores a message sent to a group once and delivers it to the members who are online.
+     *
+     * @param groupId     the group ID
+     * @param chatMessage the message, with its sender set
+     * @return the saved chat message
+     */
+    ChatMessage sendMessage(String groupId, ChatMessage chatMessage);
+
+}
@@ -0,0 +1,39 @@
+package com.example.springpracticewebsocket1o1chatapp.services;
+
+import java.util.Collection;
+
+/**
+ * Service interface for sending payloads to users' sessions.
+ */
+public interface NotificationService {
+
+    /**
+     * Sends a payload to every session of a user, each in the format it negotiated.
+     *
+     * @param userId      the recipient's ID
+     * @param destination the user destination, such as "/queue/messages"
+     * @param payload     the payload to send
+     */
+    void sendToUser(String userId, String destination, Object payload);
+
+    /**
+     * Sends one payload to every session of several users, encoding it once per format in use
+     * rather than once per recipient.
+     *
+     * @param userIds     the recipients' IDs
+     * @param destination the user destination, such as "/queue/messages"
+     * @param payload     the payload to send
+     */
+    void sendToUsers(Collection<String> userIds, String destination, Object payload);
+
+    /**
+     * Sends a payload to one session of a user, in the format that session negotiated.
+     *
+     * @param userId      the recipient's ID
+     * @param sessionId   the session to deliver to
+     * @param destination the user destination, such as "/queue/errors"
+     * @param payload     the payload to send
+     */
+    void sendToSession(String userId, String sessionId, String destination, Object payload);
+
+}
@@ -0,0 +1,60 @@
+package com.example.springpracticewebsocket1o1chatapp.services;
+
+import com.example.springpracticewebsocket1o1chatapp.documents.ChatMessage;
+import com.example.springpracticewebsocket1o1chatapp.model.MessagePosition;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Non-blocking service interface for managing chat messages.
+ */
+public interface ReactiveChatMessageService {
+
+    /**
+     * Saves a chat message.
+     *
+     * @param chatMessage the chat message to save
+     * @return the saved chat message
+     */
+    Mono<ChatMessage> save(ChatMessage chatMessage);
+
+    /**
+     * Finds one page of chat messages between a sender and a recipient.
+     *
+     * @param senderId    the sender's ID
+     * @param recipientId the recipient's ID
+     * @param before      exclusive upper bound, or null
+     * @param after       exclusive lower bound, or null
+     * @param limit       the maximum number of messages to return
+     * @return a list of chat messages in ascending timestamp order
+     * @see ChatMessageService#findChatMessages(String, String, MessagePosition, MessagePosition, int)
+     */
+    Mono<List<ChatMessage>> findChatMessages(
+            String senderId,
+            String recipientId,
+            MessagePosition before,
+            MessagePosition after,
+            int limit
+    );
+
+    /**
+     * Finds one page of chat messages between a sender and a recipient by sequence number.
+     *
+     * @param senderId    the sender's ID
+     * @param recipientId the recipient's ID
+     * @param beforeSeq   exclusive upper sequence bound, or null
+     * @param afterSeq    exclusive lower sequence bound, or null
+     * @param limit       the maximum number of messages to return
+     * @return a list of chat messages in ascending sequence order
+     * @see ChatMessageService#findChatMessagesBySeq(String, String, Long, Long, int)
+     */
+    Mono<List<ChatMessage>> findChatMessagesBySeq(
+            String senderId,
+            String recipientId,
+            Long beforeSeq,
+            Long afterSeq,
+            int limit
+    );
+
+}
@@ -0,0 +1,65 @@
+package com.example.springpracticewebsocket1o1chatapp.services;
+
+import com.example.springpracticewebsocket1o1chatapp.documents.ChatMessage;
+import com.example.springpracticewebsocket1o1chatapp.model.Conversation;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+/**
+ * Non-blocking service interface for managing chat rooms.
+ */
+public interface ReactiveChatRoomService {
+
+    /**
+     * Gets the chat room ID for a given sender and recipient.
+     *
+     * @param senderId                 the sender's ID
+     * @param recipientId              the recipient's ID
+     * @param createNewRoomIfNotExists whether to create a new chat room if one doesn't exist
+     * @return the chat room ID if found or created, otherwise empty
+     */
+    Mono<String> getChatRoomId(
+            String senderId,
+            String recipientId,
+            boolean createNewRoomIfNotExists
+    );
+
+    /**
+     * Records a stored direct message on the chat room entries of both participants, as the chat's
+     * last message and as unread for the recipient.
+     *
+     * @param chatMessage the stored message, carrying its ID, timestamp and sequence number
+     * @return completes once both entries have been updated
+     */
+    Mono<Void> recordMessage(ChatMessage chatMessage);
+
+    /**
+     * Marks the messages a recipient has received from a sender as read, up to a given message.
+     *
+     * @param recipientId the recipient's ID, who owns the counter
+     * @param senderId    the sender's ID
+     * @param seq         the sequence number of the last message read, or null to mark every message as read
+     * @return completes once the counter has been updated
+     */
+    Mono<Void> markRead(String recipientId, String senderId, Long seq);
+
+    /**
+     * Finds the unread counts of all chats of a user.
+     *
+     * @param recipientId the user's ID
+     * @return the number of unread messages per sender, leaving out chats without unread messages
+     */
+    Mono<Map<String, Long>> findUnreadCounts(String recipientId);
+
+    /**
+     * Finds the direct chats of a user, most recently active first.
+     *
+     * @param userId the user's ID
+     * @param limit  the maximum number of chats to return
+     * @return the user's chats with their last message and unread count
+     */
+    Flux<Conversation> findConversations(String userId, int limit);
+
+}
@@ -0,0 +1,19 @@
+package com.example.springpracticewebsocket1o1chatapp.services;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking service interface for assigning sequence numbers to the messages of a chat.
+ */
+public interface ReactiveChatSequenceService {
+
+    /**
+     * Assigns the next sequence number of a chat.
+     *
+     * @param chatId the chat ID
+     * @return the assigned sequence number
+     * @see ChatSequenceService#next(String)
+     */
+    Mono<Long> next(String chatId);
+
+}
@@ -0,0 +1,35 @@
+package com.example.springpracticewebsocket1o1chatapp.services;
+
+import com.example.springpracticewebsocket1o1chatapp.documents.User;
+import com.example.springpracticewebsocket1o1chatapp.model.PresenceDelta;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Non-blocking service interface for managing users.
+ */
+public interface ReactiveUserService {
+
+    /**
+     * Saves a user.
+     *
+     * @param user the user to save
+     * @return the presence change to announce
+     */
+    Mono<PresenceDelta> saveUser(User user);
+
+    /**
+     * Disconnects a user.
+     * @param user the user to disconnect
+     * @return the presence change to announce
+     */
+    Mono<PresenceDelta> disconnect(User user);
+
+    /**
+     * Finds all connected users.
+     * @return a list of connected users
+     */
+    Mono<List<User>> findConnectedUsers();
+
+}
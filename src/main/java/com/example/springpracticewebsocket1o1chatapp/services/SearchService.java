@@ -0,0 +1,24 @@
+package com.example.springpracticewebsocket1o1chatapp.services;
+
+import com.example.springpracticewebsocket1o1chatapp.model.SearchPage;
+
+/**
+ * Service interface for searching the messages of a user's chats.
+ */
+public interface SearchService {
+
+    /**
+     * Searches the content of the messages in a user's direct chats and groups.
+     *
+     * @param userId the user's ID
+     * @param text   the terms to search for; phrases in double quotes and terms prefixed with "-"
+     *               to exclude are supported
+     * @param page   the index of the page to return, starting at 0
+     * @param size   the maximum number of hits per page
+     * @return one page of hits, most relevant first
+     * @throws com.example.springpracticewebsocket1o1chatapp.exceptions.SearchTimeoutException if the
+     *         search takes longer than the configured maximum time
+     */
+    SearchPage search(String userId, String text, int page, int size);
+
+}
@@ -0,0 +1,30 @@
+package com.example.springpracticewebsocket1o1chatapp.services;
+
+import com.example.springpracticewebsocket1o1chatapp.model.SyncPage;
+
+/**
+ * Service interface for catching users up on the messages they missed while offline.
+ */
+public interface SyncService {
+
+    /**
+     * Finds the messages a user received after a cursor, across all of the user's chats.
+     * Without any cursor, the sync starts at the user's newest message.
+     *
+     * @param userId the user's ID
+     * @param since  the cursor to continue from, or null to continue from the user's acknowledged cursor
+     * @param limit  the maximum number of messages to return
+     * @return one page of messages and the cursor after it
+     */
+    SyncPage sync(String userId, String since, int limit);
+
+    /**
+     * Records that a user has received all messages up to a cursor.
+     * The stored cursor never moves backwards.
+     *
+     * @param userId the user's ID
+     * @param cursor the cursor returned by {@link #sync(String, String, int)} or the ID of a received message
+     */
+    void acknowledge(String userId, String cursor);
+
+}
@@ -1,8 +1,11 @@
 package com.example.springpracticewebsocket1o1chatapp.services;
 
 import com.example.springpracticewebsocket1o1chatapp.documents.User;
+import com.example.springpracticewebsocket1o1chatapp.model.PresenceDelta;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Service interface for managing users.
@@ -13,14 +16,33 @@ public interface UserService {
      * Saves a user.
      *
      * @param user the user to save
+     * @return the presence change to announce
      */
-    void saveUser(User user);
+    PresenceDelta saveUser(User user);
 
     /**
      * Disconnects a user.
      * @param user the user to disconnect
+     * @return the presence change to announce
      */
-    void disconnect(User user);
+    PresenceDelta disconnect(User user);
+
+    /**
+     * Records that a user opened a session.
+     * @param nickName the user's nickname
+     * @param fullName the user's full name, or null if not known
+     * @param sessionId the session ID
+     * @return the presence change to announce, or empty if the user was already online
+     */
+    Optional<PresenceDelta> sessionConnected(String nickName, String fullName, String sessionId);
+
+    /**
+     * Records that a user's session was closed.
+     * @param nickName the user's nickname
+     * @param sessionId the session ID
+     * @return the presence change to announce, or empty if the user still has other sessions
+     */
+    Optional<PresenceDelta> sessionDisconnected(String nickName, String sessionId);
 
     /**
      * Finds all connected users.
@@ -28,4 +50,17 @@ public interface UserService {
      */
     List<User> findConnectedUsers();
 
+    /**
+     * Records that the users connected to this node are still there.
+     */
+    void touchConnectedUsers();
+
+    /**
+     * Marks OFFLINE the users still stored as ONLINE who were last seen before the given time and are
+     * no longer connected anywhere, such as the users of a node that crashed.
+     * @param seenBefore the time before which an ONLINE record is considered stale
+     * @return the presence changes to announce
+     */
+    List<PresenceDelta> expireStaleUsers(LocalDateTime seenBefore);
+
 }
@@ -0,0 +1,342 @@
+package com.example.springpracticewebsocket1o1chatapp.services.impl;
+
+import com.example.springpracticewebsocket1o1chatapp.configs.RetentionProperties;
+import com.example.springpracticewebsocket1o1chatapp.documents.ChatMessage;
+import com.example.springpracticewebsocket1o1chatapp.documents.ChatMessageArchive;
+import com.example.springpracticewebsocket1o1chatapp.model.MessagePosition;
+import com.example.springpracticewebsocket1o1chatapp.services.ChatArchiveService;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.bson.types.ObjectId;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.zip.Deflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Implementation of the ChatArchiveService interface, active when {@code chat.message.retention.mode}
+ * is "archive".
+ * Messages past the retention age are read from the message collection oldest first and grouped by
+ * chat. Each chat's archive is a series of {@link ChatMessageArchive} buckets holding up to the
+ * configured bucket size of messages, encoded as CBOR and deflated: a group is appended to the
+ * chat's newest bucket until it is full, and the rest starts new buckets, so a chat swept a few
+ * messages at a time does not end up in many tiny, poorly compressed documents. The messages are
+ * deleted from the message collection only once their archive documents are stored, so a failed
+ * sweep leaves them where they were. Two nodes sweeping the same messages at once can archive them
+ * twice; reads drop such copies by message ID.
+ */
+@Service
+@ConditionalOnProperty(prefix = "chat.message.retention", name = "mode", havingValue = "archive")
+public class ChatArchiveServiceImpl implements ChatArchiveService {
+
+    private static final Comparator<ChatMessage> BY_SEQ = Comparator.comparing(ChatMessage::getSeq);
+
+    private final MongoTemplate mongoTemplate;
+    private final RetentionProperties properties;
+    private final CBORMapper cborMapper;
+    private final JavaType messageList;
+    private final Timer sweeps;
+    private final Timer reads;
+    private final Counter archived;
+    private final DistributionSummary compressionRatio;
+
+    /**
+     * Constructs a new ChatArchiveServiceImpl with the given template, properties and meter registry.
+     *
+     * @param mongoTemplate the template used to move and read messages
+     * @param properties    the retention configuration
+     * @param meterRegistry the registry to publish sweep and read timings and archive sizes to
+     */
+    public ChatArchiveServiceImpl(
+            MongoTemplate mongoTemplate,
+            RetentionProperties properties,
+            MeterRegistry meterRegistry
+    ) {
+        this.mongoTemplate = mongoTemplate;
+        this.properties = properties;
+        this.cborMapper = CBORMapper.builder()
+                .findAndAddModules()
+                .build();
+        this.messageList = cborMapper.getTypeFactory().constructCollectionType(List.class, ChatMessage.class);
+        this.sweeps = Timer.builder("chat.message.archive.sweep")
+                .description("Time to move all messages past the retention age to the archive")
+                .register(meterRegistry);
+        this.reads = Timer.builder("chat.message.archive.read")
+                .description("Time to read one page of history from the archive")
+                .register(meterRegistry);
+        this.archived = Counter.builder("chat.message.archived")
+                .description("Chat messages moved to the archive")
+                .register(meterRegistry);
+        this.compressionRatio = DistributionSummary.builder("chat.message.archive.compressed.ratio")
+                .description("Compressed size of an archive document relative to its encoded messages")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Moves all messages older than a cutoff to the archive, in batches of the configured size on the
+     * timestamp index.
+     * Messages without a chat ID have no chat to be archived under, so they are left in place.
+     * @param cutoff the timestamp before which messages are archived
+     * @return the number of messages archived
+     */
+    @Override
+    public long archiveBefore(LocalDateTime cutoff) {
+        return sweeps.record(() -> {
+            var total = 0L;
+            List<ChatMessage> batch;
+            do {
+                batch = mongoTemplate.find(
+                        Query.query(Criteria.where("timestamp").lt(cutoff).and("chatId").ne(null))
+                                .with(Sort.by("timestamp"))
+                                .limit(properties.batchSize()),
+                        ChatMessage.class
+                );
+                if (batch.isEmpty()) {
+                    break;
+                }
+
+                batch.stream()
+                        .collect(Collectors.groupingBy(ChatMessage::getChatId, LinkedHashMap::new, Collectors.toList()))
+                        .forEach(this::append);
+
+                var ids = batch.stream().map(ChatMessage::getId).toList();
+                mongoTemplate.remove(Query.query(Criteria.where("_id").in(ids)), ChatMessage.class);
+
+                archived.increment(batch.size());
+                total += batch.size();
+            } while (batch.size() == properties.batchSize());
+            return total;
+        });
+    }
+
+    /**
+     * Finds one page of archived messages in a chat by position.
+     * Archive documents are selected by timestamp including the bound, since a document ending at
+     * the bound's timestamp can still hold messages on the other side of it.
+     * @param chatId the chat ID
+     * @param before exclusive upper bound, or null
+     * @param after exclusive lower bound, or null
+     * @param limit the maximum number of messages to return
+     * @return a list of archived messages in ascending timestamp order
+     */
+    @Override
+    public List<ChatMessage> findMessagesInChat(String chatId, MessagePosition before, MessagePosition after, int limit) {
+        if (after != null) {
+            return read(
+                    Query.query(Criteria.where("chatId").is(chatId).and("toTimestamp").gte(after.timestamp()))
+                            .with(Sort.by("toTimestamp")),
+                    after::isBefore,
+                    MessagePosition.ORDER,
+                    limit
+            );
+        }
+        var archives = Criteria.where("chatId").is(chatId);
+        if (before != null) {
+            archives.and("fromTimestamp").lte(before.timestamp());
+        }
+        return read(
+                Query.query(archives).with(Sort.by(Sort.Direction.DESC, "fromTimestamp")),
+                message -> before == null || before.isAfter(message),
+                MessagePosition.ORDER.reversed(),
+                limit
+        ).reversed();
+    }
+
+    /**
+     * Finds one page of archived messages in a chat by sequence number.
+     * Messages stored before sequence numbers were assigned are left out, as in the message collection.
+     * @param chatId the chat ID
+     * @param beforeSeq exclusive upper sequence bound, or null
+     * @param afterSeq exclusive lower sequence bound, or null
+     * @param limit the maximum number of messages to return
+     * @return a list of archived messages in ascending sequence order
+     */
+    @Override
+    public List<ChatMessage> findMessagesInChatBySeq(String chatId, Long beforeSeq, Long afterSeq, int limit) {
+        if (afterSeq != null) {
+            return read(
+                    Query.query(Criteria.where("chatId").is(chatId).and("toSeq").gt(afterSeq))
+                            .with(Sort.by("toSeq")),
+                    message -> message.getSeq() != null && message.getSeq() > afterSeq,
+                    BY_SEQ,
+                    limit
+            );
+        }
+        var upper = beforeSeq != null ? beforeSeq : Long.MAX_VALUE;
+        return read(
+                Query.query(Criteria.where("chatId").is(chatId).and("fromSeq").lt(upper))
+                        .with(Sort.by(Sort.Direction.DESC, "fromSeq")),
+                message -> message.getSeq() != null && message.getSeq() < upper,
+                BY_SEQ.reversed(),
+                limit
+        ).reversed();
+    }
+
+    /**
+     * Reads archive documents in the order of a query until they hold a full page.
+     * The archive documents of one chat cover consecutive ranges, so the page is complete once a
+     * document has been read that brings it to the limit.
+     * @param query the query selecting and ordering the archive documents
+     * @param filter the cursor condition each message must meet
+     * @param order the order of the page, matching the order of the documents
+     * @param limit the maximum number of messages to return
+     * @return the page in the given order
+     */
+    private List<ChatMessage> read(
+            Query query,
+            Predicate<ChatMessage> filter,
+            Comparator<ChatMessage> order,
+            int limit
+    ) {
+        return reads.record(() -> {
+            var found = new LinkedHashMap<String, ChatMessage>();
+            try (var archives = mongoTemplate.stream(query, ChatMessageArchive.class)) {
+                var iterator = archives.iterator();
+                while (found.size() < limit && iterator.hasNext()) {
+                    decompress(iterator.next().getMessages()).stream()
+                            .filter(filter)
+                            .forEach(message -> found.putIfAbsent(message.getId(), message));
+                }
+            }
+            return found.values().stream()
+                    .sorted(order)
+                    .limit(limit)
+                    .toList();
+        });
+    }
+
+    /**
+     * Appends messages of one chat to its archive.
+     * As many as fit go into the chat's newest bucket, which is replaced only if no other sweep
+     * changed it in the meantime; the rest, or all of them if the bucket is full or was changed, are
+     * stored in new buckets of up to the bucket size.
+     * @param chatId the chat ID
+     * @param messages the messages, oldest first
+     */
+    private void append(String chatId, List<ChatMessage> messages) {
+        var bucketSize = properties.bucketSize();
+        var remaining = messages;
+
+        var newest = mongoTemplate.findOne(
+                Query.query(Criteria.where("chatId").is(chatId)).with(Sort.by(Sort.Direction.DESC, "toTimestamp")),
+                ChatMessageArchive.class
+        );
+        if (newest != null && newest.getCount() < bucketSize) {
+            var fitting = Math.min(bucketSize - newest.getCount(), messages.size());
+            var merged = new LinkedHashMap<String, ChatMessage>();
+            decompress(newest.getMessages()).forEach(message -> merged.put(message.getId(), message));
+            messages.subList(0, fitting).forEach(message -> merged.putIfAbsent(message.getId(), message));
+            var bucket = archiveOf(newest.getId(), merged.values().stream().sorted(MessagePosition.ORDER).toList());
+
+            var replaced = mongoTemplate.updateFirst(
+                    Query.query(Criteria.where("_id").is(newest.getId()).and("count").is(newest.getCount())),
+                    new Update()
+                            .set("fromTimestamp", bucket.getFromTimestamp())
+                            .set("toTimestamp", bucket.getToTimestamp())
+                            .set("fromSeq", bucket.getFromSeq())
+                            .set("toSeq", bucket.getToSeq())
+                            .set("count", bucket.getCount())
+                            .set("messages", bucket.getMessages()),
+                    ChatMessageArchive.class
+            ).getModifiedCount() > 0;
+            if (replaced) {
+                remaining = messages.subList(fitting, messages.size());
+            }
+        }
+
+        var buckets = new ArrayList<ChatMessageArchive>();
+        for (var start = 0; start < remaining.size(); start += bucketSize) {
+            buckets.add(archiveOf(
+                    new ObjectId().toHexString(),
+                    remaining.subList(start, Math.min(start + bucketSize, remaining.size()))
+            ));
+        }
+        if (!buckets.isEmpty()) {
+            mongoTemplate.insertAll(buckets);
+        }
+    }
+
+    /**
+     * Builds the archive document of a group of messages of one chat.
+     * @param id the ID of the archive document
+     * @param messages the messages, oldest first
+     * @return the archive document
+     */
+    private ChatMessageArchive archiveOf(String id, List<ChatMessage> messages) {
+        var seqs = messages.stream().map(ChatMessage::getSeq).filter(Objects::nonNull).toList();
+        return new ChatMessageArchive(
+                id,
+                messages.getFirst().getChatId(),
+                messages.getFirst().getTimestamp(),
+                messages.getLast().getTimestamp(),
+                seqs.isEmpty() ? null : seqs.stream().min(Long::compare).orElseThrow(),
+                seqs.isEmpty() ? null : seqs.stream().max(Long::compare).orElseThrow(),
+                messages.size(),
+                compress(messages)
+        );
+    }
+
+    /**
+     * Encodes messages as CBOR and deflates them.
+     * @param messages the messages
+     * @return the compressed messages
+     */
+    byte[] compress(List<ChatMessage> messages) {
+        byte[] encoded;
+        try {
+            encoded = cborMapper.writeValueAsBytes(messages);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        var deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            deflater.setInput(encoded);
+            deflater.finish();
+            var compressed = new ByteArrayOutputStream(encoded.length / 2);
+            var buffer = new byte[8192];
+            while (!deflater.finished()) {
+                compressed.write(buffer, 0, deflater.deflate(buffer));
+            }
+            compressionRatio.record((double) compressed.size() / encoded.length);
+            return compressed.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Inflates and decodes archived messages.
+     * @param compressed the compressed messages
+     * @return the messages
+     */
+    List<ChatMessage> decompress(byte[] compressed) {
+        try {
+            return cborMapper.readValue(new InflaterInputStream(new ByteArrayInputStream(compressed)), messageList);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.example.springpracticewebsocket1o1chatapp.services.impl;
+
+import com.example.springpracticewebsocket1o1chatapp.caches.ChatRoomIdCache;
+import com.example.springpracticewebsocket1o1chatapp.documents.ChatMessage;
+import com.example.springpracticewebsocket1o1chatapp.documents.ChatRoom;
+import com.example.springpracticewebsocket1o1chatapp.documents.ChatSequence;
+import com.example.springpracticewebsocket1o1chatapp.model.ChatIdStrategy;
+import com.example.springpracticewebsocket1o1chatapp.model.MessageSummary;
+import com.example.springpracticewebsocket1o1chatapp.services.ChatIdMigrationService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+
+/**
+ * Implementation of the ChatIdMigrationService interface.
+ */
+@Service
+public class ChatIdMigrationServiceImpl implements ChatIdMigrationService {
+
+    private static final Logger log = LoggerFactory.getLogger(ChatIdMigrationServiceImpl.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final ChatRoomIdCache chatRoomIdCache;
+
+    /**
+     * Constructs a new ChatIdMigrationServiceImpl with the given template and chat ID cache.
+     *
+     * @param mongoTemplate   the template used for bulk updates
+     * @param chatRoomIdCache the cache of resolved chat IDs, cleared once the migration is done
+     */
+    public ChatIdMigrationServiceImpl(MongoTemplate mongoTemplate, ChatRoomIdCache chatRoomIdCache) {
+        this.mongoTemplate = mongoTemplate;
+        this.chatRoomIdCache = chatRoomIdCache;
+    }
+
+    /**
+     * Rewrites every chat room entry and chat message to use the canonical chat ID.
+     * Each chat room entry is visited once: the messages of its old chat ID are moved to the
+     * canonical one, and the entry is replaced by one with a deterministic document ID.
+     * Duplicate entries left behind by concurrent room creation collapse into that single entry.
+     * The canonical chat may already hold numbered messages, so the moved ones are renumbered into a
+     * range reserved on the canonical sequence, and the sequence numbers the entries hold are shifted
+     * with them.
+     * The offset is stored on the old chat's sequence before any message is moved, and the old
+     * sequences are only removed once every entry is migrated, so a rerun after a crash moves the
+     * remaining messages by the same offset.
+     * @return the number of chat messages whose chat ID was rewritten
+     */
+    @Override
+    public long migrateToCanonicalChatIds() {
+        long rewrittenMessages = 0;
+        long rewrittenRooms = 0;
+        var offsets = new HashMap<String, Long>();
+
+        try (var chatRooms = mongoTemplate.stream(new Query(), ChatRoom.class)) {
+            for (var chatRoom : (Iterable<ChatRoom>) chatRooms::iterator) {
+                var chatId = ChatIdStrategy.CANONICAL.chatId(chatRoom.getSenderId(), chatRoom.getRecipientId());
+                var roomId = ChatRoomServiceImpl.roomDocumentId(chatRoom.getSenderId(), chatRoom.getRecipientId());
+
+                if (chatId.equals(chatRoom.getChatId()) && roomId.equals(chatRoom.getId())) {
+                    continue;
+                }
+
+                if (!chatId.equals(chatRoom.getChatId())) {
+                    var oldChatId = chatRoom.getChatId();
+                    if (!offsets.containsKey(oldChatId)) {
+                        var offset = reserveSeqs(oldChatId, chatId);
+                        offsets.put(oldChatId, offset);
+                        rewrittenMessages += moveMessages(oldChatId, chatId, offset);
+                    }
+                    shiftSeqs(chatRoom, offsets.get(oldChatId));
+                }
+
+                if (roomId.equals(chatRoom.getId())) {
+                    chatRoom.setChatId(chatId);
+                    mongoTemplate.save(chatRoom);
+                } else {
+                    try {
+                        var migratedRoom = new ChatRoom(roomId, chatId, chatRoom.getSenderId(), chatRoom.getRecipientId());
+                        migratedRoom.setUnreadCount(chatRoom.getUnreadCount());
+                        migratedRoom.setLastMessage(chatRoom.getLastMessage());
+                        migratedRoom.setReadSeq(chatRoom.getReadSeq());
+                        migratedRoom.setUnreadSeqs(chatRoom.getUnreadSeqs());
+                        mongoTemplate.insert(migratedRoom);
+                    } catch (DuplicateKeyException ignored) {
+                        // Another entry for the same direction was already migrated.
+                    }
+                    mongoTemplate.remove(chatRoom);
+                }
+                rewrittenRooms++;
+            }
+        }
+
+        mongoTemplate.remove(Query.query(Criteria.where("migrationOffset").exists(true)), ChatSequence.class);
+        chatRoomIdCache.invalidateAll();
+
+        log.info("Migrated {} chat room entries and {} chat messages to canonical chat IDs", rewrittenRooms, rewrittenMessages);
+
+        return rewrittenMessages;
+    }
+
+    /**
+     * Reserves a range of the canonical chat's sequence numbers for the messages of an old chat ID.
+     * The canonical counter is first raised to the highest number stored in the canonical chat, then
+     * advanced by the highest number the old chat has used, so the old numbers shifted by the
+     * returned offset land above every number taken in the canonical chat, now or later.
+     * If the canonical chat holds no numbered messages, the offset is 0 and the numbers stay as they are.
+     * An offset stored by an earlier, interrupted run is reused; a new one is stored before it is returned.
+     * @param oldChatId the chat ID being migrated
+     * @param chatId the canonical chat ID
+     * @return the offset to add to the sequence numbers of the old chat
+     */
+    private long reserveSeqs(String oldChatId, String chatId) {
+        var oldSequence = mongoTemplate.findById(oldChatId, ChatSequence.class);
+        if (oldSequence != null && oldSequence.getMigrationOffset() != null) {
+            return oldSequence.getMigrationOffset();
+        }
+        var used = Math.max(oldSequence != null ? oldSequence.getSeq() : 0, maxStoredSeq(oldChatId));
+        if (used == 0) {
+            return 0;
+        }
+
+        var canonical = Query.query(Criteria.where("_id").is(chatId));
+        mongoTemplate.upsert(canonical, new Update().max("seq", maxStoredSeq(chatId)), ChatSequence.class);
+        var reserved = mongoTemplate.findAndModify(
+                canonical,
+                new Update().inc("seq", used),
+                FindAndModifyOptions.options().returnNew(true),
+                ChatSequence.class
+        );
+        var offset = reserved.getSeq() - used;
+        mongoTemplate.upsert(
+                Query.query(Criteria.where("_id").is(oldChatId)),
+                Update.update("migrationOffset", offset),
+                ChatSequence.class
+        );
+        return offset;
+    }
+
+    /**
+     * Finds the highest sequence number stored in a chat.
+     * @param chatId the chat ID
+     * @return the highest sequence number, or 0 if the chat holds no numbered messages
+     */
+    private long maxStoredSeq(String chatId) {
+        var newest = mongoTemplate.findOne(
+                Query.query(Criteria.where("chatId").is(chatId).and("seq").gt(0L))
+                        .with(Sort.by(Sort.Direction.DESC, "seq")),
+                ChatMessage.class
+        );
+        return newest != null ? newest.getSeq() : 0;
+    }
+
+    /**
+     * Moves the messages of an old chat ID to the canonical one, renumbering them by an offset.
+     * Messages stored before sequence numbers were assigned only get the new chat ID.
+     * @param oldChatId the chat ID being migrated
+     * @param chatId the canonical chat ID
+     * @param offset the offset to add to the sequence numbers
+     * @return the number of moved messages
+     */
+    private long moveMessages(String oldChatId, String chatId, long offset) {
+        var numbered = mongoTemplate.updateMulti(
+                Query.query(Criteria.where("chatId").is(oldChatId).and("seq").exists(true)),
+                Update.update("chatId", chatId).inc("seq", offset),
+                ChatMessage.class
+        ).getModifiedCount();
+        var unnumbered = mongoTemplate.updateMulti(
+                Query.query(Criteria.where("chatId").is(oldChatId)),
+                Update.update("chatId", chatId),
+                ChatMessage.class
+        ).getModifiedCount();
+        return numbered + unnumbered;
+    }
+
+    /**
+     * Shifts the sequence numbers a chat room entry holds by the offset its messages were renumbered by.
+     * @param chatRoom the chat room entry
+     * @param offset the offset added to the sequence numbers of its messages
+     */
+    private static void shiftSeqs(ChatRoom chatRoom, long offset) {
+        if (offset == 0) {
+            return;
+        }
+        var last = chatRoom.getLastMessage();
+        if (last != null && last.seq() != null) {
+            chatRoom.setLastMessage(new MessageSummary(
+                    last.id(), last.senderId(), last.preview(), last.timestamp(), last.seq() + offset));
+        }
+        if (chatRoom.getReadSeq() != null) {
+            chatRoom.setReadSeq(chatRoom.getReadSeq() + offset);
+        }
+        if (chatRoom.getUnreadSeqs() != null) {
+            chatRoom.setUnreadSeqs(chatRoom.getUnreadSeqs().stream().map(seq -> seq + offset).toList());
+        }
+    }
+}
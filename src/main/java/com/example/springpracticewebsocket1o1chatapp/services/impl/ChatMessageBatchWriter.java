@@ -0,0 +1,435 @@
+package com.example.springpracticewebsocket1o1chatapp.services.impl;
+
+import com.example.springpracticewebsocket1o1chatapp.configs.WriteBehindProperties;
+import com.example.springpracticewebsocket1o1chatapp.documents.ChatMessage;
+import com.example.springpracticewebsocket1o1chatapp.documents.ChatRoom;
+import com.example.springpracticewebsocket1o1chatapp.model.MessageSummary;
+import com.mongodb.bulk.BulkWriteError;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.bson.BsonDocument;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Persists chat messages in the background, batching them into unordered bulk inserts.
+ * A batch is written once it reaches the configured size or its oldest message has waited for the
+ * flush interval. When the queue is full, senders wait up to the offer timeout and then write their
+ * message directly, so load is pushed back onto the senders instead of dropping messages.
+ * The chat rooms of the batch's direct messages are updated with one bulk update after the insert:
+ * each message is counted as unread unless its recipient has already read up to it, and each chat
+ * gets the summary of its latest message.
+ * On shutdown the queue is drained before the database connection is closed.
+ */
+@Component
+@ConditionalOnProperty(prefix = "chat.message.write-behind", name = "enabled", havingValue = "true")
+public class ChatMessageBatchWriter implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(ChatMessageBatchWriter.class);
+
+    private static final int DUPLICATE_KEY_ERROR = 11000;
+
+    private final MongoTemplate mongoTemplate;
+    private final WriteBehindProperties properties;
+    private final BlockingQueue<PendingMessage> queue;
+    private final DistributionSummary batchSizes;
+    private final Timer lag;
+    private final Counter overflows;
+    private final Counter failures;
+
+    private volatile boolean running;
+    private Thread flusher;
+
+    /**
+     * Constructs a new ChatMessageBatchWriter with the given template, properties and meter registry.
+     *
+     * @param mongoTemplate the template used for bulk inserts
+     * @param properties    the write-behind configuration
+     * @param meterRegistry the registry to publish batch size, lag and queue depth to
+     */
+    public ChatMessageBatchWriter(
+            MongoTemplate mongoTemplate,
+            WriteBehindProperties properties,
+            MeterRegistry meterRegistry
+    ) {
+        this.mongoTemplate = mongoTemplate;
+        this.properties = properties;
+        this.queue = new ArrayBlockingQueue<>(properties.queueCapacity());
+        this.batchSizes = DistributionSummary.builder("chat.message.write.behind.batch.size")
+                .description("Number of chat messages written per bulk insert")
+                .register(meterRegistry);
+        this.lag = Timer.builder("chat.message.write.behind.lag")
+                .description("Time from enqueueing a chat message until it is persisted")
+                .register(meterRegistry);
+        this.overflows = Counter.builder("chat.message.write.behind.overflows")
+                .description("Chat messages written directly because the queue was full")
+                .register(meterRegistry);
+        this.failures = Counter.builder("chat.message.write.behind.failures")
+                .description("Chat messages that could not be persisted")
+                .register(meterRegistry);
+        meterRegistry.gauge("chat.message.write.behind.queue.size", queue, BlockingQueue::size);
+    }
+
+    /**
+     * Queues a chat message for persistence.
+     * The message must already carry its ID. If the queue stays full for longer than the offer
+     * timeout, or the writer has been stopped, the message is inserted directly.
+     *
+     * @param chatMessage the chat message to persist
+     * @param updateRooms whether the message is a direct message, which updates the unread count and
+     *                    last message of its chat room entries
+     * @throws org.springframework.dao.DuplicateKeyException if the message is inserted directly and
+     *                                                       clashes with a stored one
+     */
+    public void enqueue(ChatMessage chatMessage, boolean updateRooms) {
+        var pending = new PendingMessage(chatMessage, updateRooms, System.nanoTime());
+        try {
+            if (running && queue.offer(
+                    pending,
+                    properties.offerTimeout().toNanos(),
+                    TimeUnit.NANOSECONDS
+            )) {
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        overflows.increment();
+        mongoTemplate.insert(chatMessage);
+        updateRooms(List.of(pending));
+    }
+
+    /**
+     * Starts the background flusher thread.
+     */
+    @Override
+    public void start() {
+        running = true;
+        flusher = Thread.ofPlatform()
+                .name("chat-message-writer")
+                .daemon()
+                .start(this::flushLoop);
+    }
+
+    /**
+     * Stops accepting messages and waits until everything queued has been written.
+     */
+    @Override
+    public void stop() {
+        running = false;
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Checks whether the writer is accepting messages.
+     *
+     * @return true if the writer is running
+     */
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Stops after the message broker, so that no new messages arrive while the queue is drained.
+     *
+     * @return the lifecycle phase
+     */
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 1024;
+    }
+
+    /**
+     * Collects batches until the writer is stopped and the queue is empty.
+     */
+    private void flushLoop() {
+        var batchSize = properties.batchSize();
+        var flushIntervalNanos = properties.flushInterval().toNanos();
+        var batch = new ArrayList<PendingMessage>(batchSize);
+
+        while (running || !queue.isEmpty()) {
+            try {
+                var first = queue.poll(flushIntervalNanos, TimeUnit.NANOSECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+
+                var deadline = first.enqueuedAt() + flushIntervalNanos;
+                queue.drainTo(batch, batchSize - batch.size());
+                while (running && batch.size() < batchSize) {
+                    var next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                    queue.drainTo(batch, batchSize - batch.size());
+                }
+
+                write(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                queue.drainTo(batch);
+                write(batch);
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Writes a batch with an unordered bulk insert.
+     * Messages rejected for a clash on their ID were already written by an earlier attempt, and
+     * messages rejected for a clash on their client message ID are resends that are dropped. A clash
+     * on any other unique index cannot be resolved by retrying, so those messages are given up at
+     * once; any other failed messages are retried on their own after a backoff that doubles with each attempt,
+     * so a database that is failing over gets time to recover instead of a burst of retries. Messages
+     * arriving meanwhile wait in the queue, and overflow to direct inserts once it is full.
+     * Only the messages that end up stored are recorded on their chat rooms.
+     *
+     * @param batch the queued messages to write
+     */
+    private void write(List<PendingMessage> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        var written = new ArrayList<PendingMessage>(batch.size());
+        var failed = new ArrayList<PendingMessage>();
+        var remaining = batch;
+
+        for (var attempt = 0; attempt <= properties.maxRetries() && !remaining.isEmpty(); attempt++) {
+            if (attempt > 0) {
+                backOff(attempt);
+            }
+            var attempted = remaining;
+            try {
+                mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ChatMessage.class)
+                        .insert(attempted.stream().map(PendingMessage::chatMessage).toList())
+                        .execute();
+                written.addAll(attempted);
+                remaining = List.of();
+            } catch (BulkOperationException e) {
+                var rejected = new HashSet<Integer>();
+                var retried = new ArrayList<PendingMessage>();
+                for (var error : e.getErrors()) {
+                    rejected.add(error.getIndex());
+                    var pending = attempted.get(error.getIndex());
+                    if (error.getCode() != DUPLICATE_KEY_ERROR) {
+                        retried.add(pending);
+                        continue;
+                    }
+                    switch (clashOf(error, pending.chatMessage())) {
+                        case ID -> written.add(pending);
+                        case CLIENT_MESSAGE -> {
+                            // A resend that raced the stored message past the sender's duplicate check is dropped.
+                        }
+                        case OTHER -> failed.add(pending);
+                    }
+                }
+                for (var index = 0; index < attempted.size(); index++) {
+                    if (!rejected.contains(index)) {
+                        written.add(attempted.get(index));
+                    }
+                }
+                remaining = retried;
+                log.warn("Writing {} of a batch of {} chat messages failed (attempt {})",
+                        remaining.size(), attempted.size(), attempt + 1, e);
+            } catch (RuntimeException e) {
+                log.warn("Writing a batch of {} chat messages failed (attempt {})", attempted.size(), attempt + 1, e);
+            }
+        }
+
+        updateRooms(written);
+
+        var now = System.nanoTime();
+        batchSizes.record(batch.size());
+        batch.forEach(pending -> lag.record(now - pending.enqueuedAt(), TimeUnit.NANOSECONDS));
+
+        failed.addAll(remaining);
+        if (failed.isEmpty()) {
+            return;
+        }
+
+        failures.increment(failed.size());
+        log.error("Giving up on {} chat messages: {}",
+                failed.size(), failed.stream().map(pending -> pending.chatMessage().getId()).toList());
+    }
+
+    /**
+     * Finds which unique key a duplicate key error is on.
+     * A clash on the document ID means the message was stored by an earlier attempt whose outcome was
+     * not known, and one on the client message ID that the sender resent a message already stored.
+     * A clash on any other key, such as a sequence number taken twice, is a real failure.
+     * The key is read from the key pattern in the error details. The driver only passes the server's
+     * error info on as details, which leaves the key pattern out, so without it the key is found by
+     * looking up the message's ID and client message ID among the stored messages.
+     *
+     * @param error       the duplicate key error
+     * @param chatMessage the rejected chat message
+     * @return the key the message clashed on
+     */
+    private Clash clashOf(BulkWriteError error, ChatMessage chatMessage) {
+        var keyPattern = error.getDetails().getDocument("keyPattern", new BsonDocument());
+        if (!keyPattern.isEmpty()) {
+            if (keyPattern.keySet().equals(Set.of("_id"))) {
+                return Clash.ID;
+            }
+            return keyPattern.keySet().equals(Set.of("senderId", "clientMessageId")) ? Clash.CLIENT_MESSAGE : Clash.OTHER;
+        }
+
+        if (mongoTemplate.exists(Query.query(Criteria.where("_id").is(chatMessage.getId())), ChatMessage.class)) {
+            return Clash.ID;
+        }
+        if (chatMessage.getClientMessageId() != null && mongoTemplate.exists(
+                Query.query(Criteria.where("senderId").is(chatMessage.getSenderId())
+                        .and("clientMessageId").is(chatMessage.getClientMessageId())),
+                ChatMessage.class
+        )) {
+            return Clash.CLIENT_MESSAGE;
+        }
+        return Clash.OTHER;
+    }
+
+    /**
+     * Waits before retrying a failed batch. If the flusher is interrupted, the remaining retries
+     * follow without waiting, so that shutdown is not held up.
+     *
+     * @param attempt the number of the retry, starting at 1
+     */
+    private void backOff(int attempt) {
+        try {
+            Thread.sleep(properties.retryBackoff().multipliedBy(1L << Math.min(attempt - 1, 16)));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Updates the chat rooms of the direct messages of a batch with one bulk update.
+     * Each message is counted as unread on its recipient's chat room unless a read receipt covering
+     * it arrived first, and both entries of each chat get the summary of the chat's latest message in
+     * the batch, unless they already hold a later one.
+     *
+     * @param batch the written messages
+     */
+    private void updateRooms(List<PendingMessage> batch) {
+        var unread = new ArrayList<ChatMessage>();
+        var lastMessages = new HashMap<String, ChatMessage>();
+        for (var pending : batch) {
+            if (pending.updateRooms()) {
+                var message = pending.chatMessage();
+                unread.add(message);
+                lastMessages.merge(message.getChatId(), message,
+                        (stored, next) -> next.getSeq() > stored.getSeq() ? next : stored);
+            }
+        }
+        if (unread.isEmpty()) {
+            return;
+        }
+
+        var updates = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ChatRoom.class);
+        unread.forEach(message -> updates.updateOne(
+                unreadBefore(message.getRecipientId(), message.getSenderId(), message.getSeq()),
+                new Update().inc("unreadCount", 1)
+                        .push("unreadSeqs").sort(Sort.Direction.ASC).slice(-ChatRoom.MAX_UNREAD_SEQS).each(message.getSeq())
+        ));
+        lastMessages.values().forEach(message -> {
+            var summary = new Update().set("lastMessage", MessageSummary.of(message));
+            updates.updateOne(roomBefore(message.getSenderId(), message.getRecipientId(), message.getSeq()), summary);
+            updates.updateOne(roomBefore(message.getRecipientId(), message.getSenderId(), message.getSeq()), summary);
+        });
+        try {
+            updates.execute();
+        } catch (RuntimeException e) {
+            log.warn("Updating {} chat rooms failed", unread.size() + 2 * lastMessages.size(), e);
+        }
+    }
+
+    /**
+     * Builds the query selecting a participant's chat room entry with another participant.
+     *
+     * @param ownerId the ID of the participant owning the chat room entry
+     * @param otherId the other participant's ID
+     * @return the query
+     */
+    private static Query roomOf(String ownerId, String otherId) {
+        return Query.query(Criteria.where("senderId").is(ownerId).and("recipientId").is(otherId));
+    }
+
+    /**
+     * Builds the query selecting a participant's chat room entry unless it holds a message at or
+     * after a sequence number.
+     *
+     * @param ownerId the ID of the participant owning the chat room entry
+     * @param otherId the other participant's ID
+     * @param seq     the sequence number of the message to record
+     * @return the query
+     */
+    private static Query roomBefore(String ownerId, String otherId, long seq) {
+        return roomOf(ownerId, otherId).addCriteria(new Criteria().orOperator(
+                Criteria.where("lastMessage.seq").lt(seq),
+                Criteria.where("lastMessage").exists(false)
+        ));
+    }
+
+    /**
+     * Builds the query selecting a participant's chat room entry unless the participant has read up
+     * to a sequence number.
+     *
+     * @param ownerId the ID of the participant owning the chat room entry
+     * @param otherId the other participant's ID
+     * @param seq     the sequence number of the message to count as unread
+     * @return the query
+     */
+    private static Query unreadBefore(String ownerId, String otherId, long seq) {
+        return roomOf(ownerId, otherId).addCriteria(Criteria.where("readSeq").not().gte(seq));
+    }
+
+    /**
+     * The unique key a rejected chat message clashed on.
+     */
+    private enum Clash {
+        ID,
+        CLIENT_MESSAGE,
+        OTHER
+    }
+
+    /**
+     * A chat message waiting to be written.
+     *
+     * @param chatMessage the chat message
+     * @param updateRooms whether the message is a direct message, updating its chat room entries
+     * @param enqueuedAt  the {@link System#nanoTime()} at which it was queued
+     */
+    private record PendingMessage(ChatMessage chatMessage, boolean updateRooms, long enqueuedAt) {
+    }
+}
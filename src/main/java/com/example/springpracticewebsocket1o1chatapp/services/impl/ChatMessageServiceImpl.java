@@ -1,13 +1,29 @@
 package com.example.springpracticewebsocket1o1chatapp.services.impl;
 
+import com.example.springpracticewebsocket1o1chatapp.caches.RecentMessageCache;
+import com.example.springpracticewebsocket1o1chatapp.caches.RecentMessageIdCache;
 import com.example.springpracticewebsocket1o1chatapp.documents.ChatMessage;
+import com.example.springpracticewebsocket1o1chatapp.exceptions.DuplicateMessageException;
+import com.example.springpracticewebsocket1o1chatapp.model.MessageAck;
+import com.example.springpracticewebsocket1o1chatapp.model.MessagePosition;
 import com.example.springpracticewebsocket1o1chatapp.repos.ChatMessageRepo;
+import com.example.springpracticewebsocket1o1chatapp.services.ChatArchiveService;
 import com.example.springpracticewebsocket1o1chatapp.services.ChatMessageService;
 import com.example.springpracticewebsocket1o1chatapp.services.ChatRoomService;
+import com.example.springpracticewebsocket1o1chatapp.services.ChatSequenceService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.IntFunction;
+import java.util.stream.Stream;
 
 /**
  * Implementation of the ChatMessageService interface.
@@ -15,62 +31,379 @@ import java.util.List;
 @Service
 public class ChatMessageServiceImpl implements ChatMessageService {
 
+    /**
+     * Upper bound on the page size a client may request.
+     */
+    static final int MAX_PAGE_SIZE = 200;
+
     private final ChatMessageRepo chatMessageRepo;
     private final ChatRoomService chatRoomService;
+    private final ChatSequenceService chatSequenceService;
+    private final RecentMessageIdCache recentMessageIdCache;
+    private final RecentMessageCache recentMessageCache;
+    private final ChatMessageBatchWriter batchWriter;
+    private final ChatArchiveService chatArchiveService;
+    private final Timer roomLookup;
+    private final Timer sequence;
+    private final Timer insert;
 
     /**
      * Constructs a new ChatMessageServiceImpl with the given repositories and services.
      *
-     * @param chatMessageRepo the chat message repository
-     * @param chatRoomService the chat room service
+     * @param chatMessageRepo      the chat message repository
+     * @param chatRoomService      the chat room service
+     * @param chatSequenceService  the service assigning sequence numbers
+     * @param recentMessageIdCache the window of recently stored client message IDs
+     * @param recentMessageCache   the window of each chat's most recent messages
+     * @param batchWriter          the write-behind writer, available only when write-behind is enabled
+     * @param chatArchiveService   the archive tier, available only when messages are archived
+     * @param meterRegistry        the registry to publish room lookup, sequence and insert timings to
      */
-    public ChatMessageServiceImpl(ChatMessageRepo chatMessageRepo, ChatRoomService chatRoomService) {
+    public ChatMessageServiceImpl(
+            ChatMessageRepo chatMessageRepo,
+            ChatRoomService chatRoomService,
+            ChatSequenceService chatSequenceService,
+            RecentMessageIdCache recentMessageIdCache,
+            RecentMessageCache recentMessageCache,
+            ObjectProvider<ChatMessageBatchWriter> batchWriter,
+            ObjectProvider<ChatArchiveService> chatArchiveService,
+            MeterRegistry meterRegistry
+    ) {
         this.chatMessageRepo = chatMessageRepo;
         this.chatRoomService = chatRoomService;
+        this.chatSequenceService = chatSequenceService;
+        this.recentMessageIdCache = recentMessageIdCache;
+        this.recentMessageCache = recentMessageCache;
+        this.batchWriter = batchWriter.getIfAvailable();
+        this.chatArchiveService = chatArchiveService.getIfAvailable();
+        this.roomLookup = Timer.builder("chat.room.lookup")
+                .description("Time to resolve the chat room of a message")
+                .register(meterRegistry);
+        this.sequence = Timer.builder("chat.message.sequence")
+                .description("Time to assign the sequence number of a message")
+                .register(meterRegistry);
+        this.insert = Timer.builder("chat.message.insert")
+                .description("Time to store a message, or to queue it in write-behind mode")
+                .tag("mode", this.batchWriter != null ? "write-behind" : "direct")
+                .register(meterRegistry);
     }
 
     /**
      * Saves a chat message.
-     * It finds or creates a chat room, sets the chat ID on the message, and saves it.
+     * It finds or creates a chat room, sets the chat ID on the message, saves it, and records it on
+     * the chat room entries as the chat's last message and as unread for the recipient.
+     * The timestamp and the sequence number within the chat are assigned by the server, replacing
+     * anything the client sent, so that history cursors have trustworthy values to page on.
+     * In write-behind mode the message gets its ID here and is queued for a batched insert,
+     * so it can be delivered before it reaches the database; its chat room entries are updated with the batch.
+     * The stored message is added to the in-memory window of its chat's most recent messages.
      * @param chatMessage the chat message to save
      * @return the saved chat message
+     * @throws DuplicateMessageException if the message was already stored under its client message ID
      * @throws RuntimeException if a chat room cannot be found or created
      */
     @Override
     public ChatMessage save(ChatMessage chatMessage) {
+        rejectRecentDuplicate(chatMessage);
 
-        var chatId = chatRoomService.getChatRoomId(
+        var chatId = roomLookup.record(() -> chatRoomService.getChatRoomId(
                 chatMessage.getSenderId(),
                 chatMessage.getRecipientId(),
                 true
-        ).orElseThrow(
+        )).orElseThrow(
                 () -> new RuntimeException("Chat room not found for senderId: " + chatMessage.getSenderId() +
                         " and recipientId: " + chatMessage.getRecipientId())
         );
 
+        return store(chatMessage, chatId, true);
+    }
+
+    /**
+     * Saves a chat message in a chat whose ID is already known, such as a group.
+     * The timestamp and the sequence number are assigned by the server.
+     * In write-behind mode the message gets its ID here and is queued for a batched insert.
+     * @param chatMessage the chat message to save
+     * @param chatId the chat ID
+     * @return the saved chat message
+     * @throws DuplicateMessageException if the message was already stored under its client message ID
+     */
+    @Override
+    public ChatMessage saveInChat(ChatMessage chatMessage, String chatId) {
+        rejectRecentDuplicate(chatMessage);
+        return store(chatMessage, chatId, false);
+    }
+
+    /**
+     * Rejects a message whose client message ID was stored recently on this node, without a database read.
+     * @param chatMessage the chat message to check
+     * @throws DuplicateMessageException if the message was stored recently
+     */
+    private void rejectRecentDuplicate(ChatMessage chatMessage) {
+        if (chatMessage.getClientMessageId() == null) {
+            return;
+        }
+        recentMessageIdCache.getIfPresent(chatMessage.getSenderId(), chatMessage.getClientMessageId())
+                .ifPresent(ack -> {
+                    throw new DuplicateMessageException(ack);
+                });
+    }
+
+    /**
+     * Stores a chat message directly or through the write-behind writer.
+     * A direct insert rejected by the (senderId, clientMessageId) index is answered with the stored
+     * message. In write-behind mode the message is acknowledged before it is inserted, so a stored
+     * message with the same client message ID is looked up first; a direct insert the writer falls
+     * back to when its queue is full is handled like any other.
+     * @param chatMessage the chat message to save
+     * @param chatId the chat ID
+     * @param updateRooms whether the message is a direct message, recorded on its chat room entries
+     * @return the saved chat message
+     * @throws DuplicateMessageException if the message was already stored under its client message ID
+     */
+    private ChatMessage store(ChatMessage chatMessage, String chatId, boolean updateRooms) {
+        if (batchWriter != null) {
+            rejectStoredDuplicate(chatMessage);
+        }
+
         chatMessage.setChatId(chatId);
+        chatMessage.setSeq(sequence.record(() -> chatSequenceService.next(chatId)));
+        chatMessage.setTimestamp(LocalDateTime.now());
+
+        insert.record(() -> {
+            if (batchWriter != null) {
+                chatMessage.setId(new ObjectId().toHexString());
+                insertOrRejectDuplicate(chatMessage, () -> batchWriter.enqueue(chatMessage, updateRooms));
+            } else {
+                insertOrRejectDuplicate(chatMessage, () -> chatMessageRepo.save(chatMessage));
+            }
+        });
 
-        chatMessageRepo.save(chatMessage);
+        if (updateRooms && batchWriter == null) {
+            chatRoomService.recordMessage(chatMessage);
+        }
+        recentMessageCache.add(chatMessage);
+
+        if (chatMessage.getClientMessageId() != null) {
+            recentMessageIdCache.put(chatMessage.getSenderId(), MessageAck.of(chatMessage));
+        }
 
         return chatMessage;
     }
 
     /**
-     * Finds all chat messages between a sender and a recipient.
-     * It retrieves the chat room ID and then finds all messages for that chat ID.
+     * Rejects a message already stored under its client message ID, read through the
+     * (senderId, clientMessageId) index.
+     * @param chatMessage the chat message to check
+     * @throws DuplicateMessageException if the message was already stored
+     */
+    private void rejectStoredDuplicate(ChatMessage chatMessage) {
+        if (chatMessage.getClientMessageId() == null) {
+            return;
+        }
+        chatMessageRepo.findBySenderIdAndClientMessageId(chatMessage.getSenderId(), chatMessage.getClientMessageId())
+                .map(MessageAck::of)
+                .ifPresent(ack -> {
+                    recentMessageIdCache.put(chatMessage.getSenderId(), ack);
+                    throw new DuplicateMessageException(ack);
+                });
+    }
+
+    /**
+     * Inserts a chat message, turning a clash on its client message ID into a duplicate.
+     * The stored message is only read on this path, which is taken by retries the in-memory
+     * window did not see.
+     * @param chatMessage the chat message to insert
+     * @param insert the insert of the message
+     * @throws DuplicateMessageException if the message was already stored under its client message ID
+     */
+    private void insertOrRejectDuplicate(ChatMessage chatMessage, Runnable insert) {
+        try {
+            insert.run();
+        } catch (DuplicateKeyException e) {
+            if (chatMessage.getClientMessageId() == null) {
+                throw e;
+            }
+            var ack = chatMessageRepo
+                    .findBySenderIdAndClientMessageId(chatMessage.getSenderId(), chatMessage.getClientMessageId())
+                    .map(MessageAck::of)
+                    .orElseThrow(() -> e);
+            recentMessageIdCache.put(chatMessage.getSenderId(), ack);
+            throw new DuplicateMessageException(ack);
+        }
+    }
+
+    /**
+     * Finds one page of chat messages between a sender and a recipient.
+     * It retrieves the chat room ID and then runs a keyset query on the (chatId, timestamp, _id) index,
+     * so the cost of a page does not depend on how long the conversation is.
      * @param senderId the sender's ID
      * @param recipientId the recipient's ID
-     * @return a list of chat messages, or an empty list if no chat room is found
+     * @param before exclusive upper bound, or null
+     * @param after exclusive lower bound, or null
+     * @param limit the maximum number of messages to return, capped at {@value #MAX_PAGE_SIZE}
+     * @return a list of chat messages in ascending timestamp order, or an empty list if no chat room is found
      */
     @Override
-    public List<ChatMessage> findChatMessages(String senderId, String recipientId) {
+    public List<ChatMessage> findChatMessages(
+            String senderId,
+            String recipientId,
+            MessagePosition before,
+            MessagePosition after,
+            int limit
+    ) {
 
         var chatId = chatRoomService.getChatRoomId(senderId, recipientId, false);
 
         return chatId
-                .map(chatMessageRepo::findByChatId)
+                .map(id -> findMessagesInChat(id, before, after, limit))
                 .orElse(
                         new ArrayList<>()
                 );
     }
+
+    /**
+     * Finds one page of chat messages in a chat whose ID is already known, with a keyset query on
+     * the (chatId, timestamp, _id) index.
+     * The latest page, read whenever a chat is opened, is served from the in-memory window of the
+     * chat's most recent messages when it holds the whole page, and fills that window otherwise.
+     * When messages are archived, a page continues into the archive where the message collection
+     * ends: pages after a cursor start with any archived messages, and older pages are completed
+     * with archived messages older than the oldest stored one.
+     * @param chatId the chat ID
+     * @param before exclusive upper bound, or null
+     * @param after exclusive lower bound, or null
+     * @param limit the maximum number of messages to return, capped at {@value #MAX_PAGE_SIZE}
+     * @return a list of chat messages in ascending timestamp order
+     */
+    @Override
+    public List<ChatMessage> findMessagesInChat(String chatId, MessagePosition before, MessagePosition after, int limit) {
+        var pageSize = Math.clamp(limit, 1, MAX_PAGE_SIZE);
+
+        if (after != null) {
+            var archived = chatArchiveService != null
+                    ? chatArchiveService.findMessagesInChat(chatId, null, after, pageSize)
+                    : List.<ChatMessage>of();
+            if (archived.size() == pageSize) {
+                return archived;
+            }
+            var from = archived.isEmpty() ? after : MessagePosition.of(archived.getLast());
+            return concat(archived, chatMessageRepo.findByChatIdAfter(
+                    chatId,
+                    from.timestamp(),
+                    new ObjectId(from.id()),
+                    Limit.of(pageSize - archived.size())
+            ));
+        }
+        if (before != null) {
+            var newest = chatMessageRepo.findByChatIdBefore(
+                    chatId,
+                    before.timestamp(),
+                    new ObjectId(before.id()),
+                    Limit.of(pageSize)
+            ).reversed();
+            return withArchived(newest, pageSize, older -> chatArchiveService.findMessagesInChat(
+                    chatId, newest.isEmpty() ? before : MessagePosition.of(newest.getFirst()), null, older));
+        }
+        var cached = recentMessageCache.latest(chatId, pageSize);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+        var newest = chatMessageRepo.findByChatIdOrderByTimestampDescIdDesc(chatId, Limit.of(pageSize)).reversed();
+        var latest = withArchived(newest, pageSize, older -> chatArchiveService.findMessagesInChat(
+                chatId, newest.isEmpty() ? null : MessagePosition.of(newest.getFirst()), null, older));
+        recentMessageCache.fill(chatId, latest, pageSize);
+        return latest;
+    }
+
+    /**
+     * Finds one page of chat messages between a sender and a recipient by sequence number.
+     * @param senderId the sender's ID
+     * @param recipientId the recipient's ID
+     * @param beforeSeq exclusive upper sequence bound, or null
+     * @param afterSeq exclusive lower sequence bound, or null
+     * @param limit the maximum number of messages to return, capped at {@value #MAX_PAGE_SIZE}
+     * @return a list of chat messages in ascending sequence order, or an empty list if no chat room is found
+     */
+    @Override
+    public List<ChatMessage> findChatMessagesBySeq(
+            String senderId,
+            String recipientId,
+            Long beforeSeq,
+            Long afterSeq,
+            int limit
+    ) {
+        return chatRoomService.getChatRoomId(senderId, recipientId, false)
+                .map(chatId -> findMessagesInChatBySeq(chatId, beforeSeq, afterSeq, limit))
+                .orElse(List.of());
+    }
+
+    /**
+     * Finds one page of chat messages in a chat by sequence number, with a keyset query on the
+     * (chatId, seq) index.
+     * The newest page is read as the page below the largest possible sequence number, so every
+     * query carries a range on the sequence number and can use the index.
+     * When messages are archived, a page continues into the archive as in
+     * {@link #findMessagesInChat(String, MessagePosition, MessagePosition, int)}.
+     * @param chatId the chat ID
+     * @param beforeSeq exclusive upper sequence bound, or null
+     * @param afterSeq exclusive lower sequence bound, or null
+     * @param limit the maximum number of messages to return, capped at {@value #MAX_PAGE_SIZE}
+     * @return a list of chat messages in ascending sequence order
+     */
+    @Override
+    public List<ChatMessage> findMessagesInChatBySeq(String chatId, Long beforeSeq, Long afterSeq, int limit) {
+        var pageSize = Math.clamp(limit, 1, MAX_PAGE_SIZE);
+
+        if (afterSeq != null) {
+            var archived = chatArchiveService != null
+                    ? chatArchiveService.findMessagesInChatBySeq(chatId, null, afterSeq, pageSize)
+                    : List.<ChatMessage>of();
+            if (archived.size() == pageSize) {
+                return archived;
+            }
+            return concat(archived, chatMessageRepo.findByChatIdAndSeqGreaterThanOrderBySeqAsc(
+                    chatId,
+                    archived.isEmpty() ? afterSeq : archived.getLast().getSeq(),
+                    Limit.of(pageSize - archived.size())
+            ));
+        }
+        var newest = chatMessageRepo.findByChatIdAndSeqLessThanOrderBySeqDesc(
+                chatId,
+                beforeSeq != null ? beforeSeq : Long.MAX_VALUE,
+                Limit.of(pageSize)
+        ).reversed();
+        return withArchived(newest, pageSize, older -> chatArchiveService.findMessagesInChatBySeq(
+                chatId, newest.isEmpty() ? beforeSeq : newest.getFirst().getSeq(), null, older));
+    }
+
+    /**
+     * Completes a page read from the message collection with older messages from the archive.
+     * @param newest the page read from the message collection, in ascending order
+     * @param pageSize the page size
+     * @param archived reads the given number of archived messages older than the page
+     * @return the completed page in ascending order
+     */
+    private List<ChatMessage> withArchived(
+            List<ChatMessage> newest,
+            int pageSize,
+            IntFunction<List<ChatMessage>> archived
+    ) {
+        if (chatArchiveService == null || newest.size() >= pageSize) {
+            return newest;
+        }
+        return concat(archived.apply(pageSize - newest.size()), newest);
+    }
+
+    /**
+     * Joins an older and a newer part of a page.
+     * @param older the older messages, in ascending order
+     * @param newer the newer messages, in ascending order
+     * @return the page in ascending order
+     */
+    static List<ChatMessage> concat(List<ChatMessage> older, List<ChatMessage> newer) {
+        if (older.isEmpty()) {
+            return newer;
+        }
+        return Stream.concat(older.stream(), newer.stream()).toList();
+    }
 }
@@ -1,11 +1,21 @@
 package com.example.springpracticewebsocket1o1chatapp.services.impl;
 
+import com.example.springpracticewebsocket1o1chatapp.caches.ChatRoomIdCache;
+import com.example.springpracticewebsocket1o1chatapp.configs.ChatRoomProperties;
+import com.example.springpracticewebsocket1o1chatapp.documents.ChatMessage;
 import com.example.springpracticewebsocket1o1chatapp.documents.ChatRoom;
+import com.example.springpracticewebsocket1o1chatapp.model.ChatIdStrategy;
+import com.example.springpracticewebsocket1o1chatapp.model.Conversation;
+import com.example.springpracticewebsocket1o1chatapp.model.MessageSummary;
 import com.example.springpracticewebsocket1o1chatapp.repos.ChatRoomRepo;
 import com.example.springpracticewebsocket1o1chatapp.services.ChatRoomService;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -15,19 +25,33 @@ import java.util.Optional;
 public class ChatRoomServiceImpl implements ChatRoomService {
 
     private final ChatRoomRepo chatRoomRepo;
+    private final ChatRoomIdCache chatRoomIdCache;
+    private final ChatIdStrategy chatIdStrategy;
 
     /**
-     * Constructs a new ChatRoomServiceImpl with the given chat room repository.
+     * Constructs a new ChatRoomServiceImpl with the given chat room repository, chat ID cache and properties.
      *
-     * @param chatRoomRepo the chat room repository
+     * @param chatRoomRepo       the chat room repository
+     * @param chatRoomIdCache    the cache of resolved chat IDs
+     * @param chatRoomProperties the chat room configuration
      */
-    public ChatRoomServiceImpl(ChatRoomRepo chatRoomRepo) {
+    public ChatRoomServiceImpl(
+            ChatRoomRepo chatRoomRepo,
+            ChatRoomIdCache chatRoomIdCache,
+            ChatRoomProperties chatRoomProperties
+    ) {
         this.chatRoomRepo = chatRoomRepo;
+        this.chatRoomIdCache = chatRoomIdCache;
+        this.chatIdStrategy = chatRoomProperties.chatIdStrategy();
     }
 
     /**
      * Gets the chat room ID for a given sender and recipient.
-     * It first searches for an existing chat room. If not found, it may create a new one.
+     * With the canonical strategy the ID is computed directly, and the chat room entries are only
+     * written the first time this node sees the pair.
+     * Otherwise it first consults the chat ID cache and then searches for an existing chat room.
+     * If not found, it may create a new one. A cached negative result is not trusted when
+     * creating, since another node may have created the room in the meantime.
      * @param senderId the sender's ID
      * @param recipientId the recipient's ID
      * @param createNewRoomIfNotExists whether to create a new chat room if one doesn't exist
@@ -39,21 +63,32 @@ public class ChatRoomServiceImpl implements ChatRoomService {
             String recipientId,
             boolean createNewRoomIfNotExists
     ) {
-        return chatRoomRepo
-                .findBySenderIdAndRecipientId(senderId, recipientId)
-                .map(ChatRoom::getChatId)
-                .or(() -> {
-                    if (createNewRoomIfNotExists) {
-                        var chatId = createChatId(senderId, recipientId);
-                        return Optional.of(chatId);
-                    }
-                    return Optional.empty();
-                });
+        if (chatIdStrategy == ChatIdStrategy.CANONICAL) {
+            if (createNewRoomIfNotExists) {
+                return chatRoomIdCache.getIfPresent(senderId, recipientId)
+                        .or(() -> Optional.of(createChatId(senderId, recipientId)));
+            }
+            return Optional.of(chatIdStrategy.chatId(senderId, recipientId));
+        }
+
+        if (!createNewRoomIfNotExists) {
+            return chatRoomIdCache.get(senderId, recipientId, () -> findChatId(senderId, recipientId));
+        }
+
+        return chatRoomIdCache.getIfPresent(senderId, recipientId)
+                .or(() -> findChatId(senderId, recipientId)
+                        .map(chatId -> {
+                            chatRoomIdCache.put(senderId, recipientId, chatId);
+                            return chatId;
+                        }))
+                .or(() -> Optional.of(createChatId(senderId, recipientId)));
     }
 
     /**
      * Creates a new chat ID and corresponding chat room entries for a sender and recipient.
      * It creates two entries, one for each direction of communication.
+     * With the canonical strategy the entries have deterministic IDs and are inserted idempotently,
+     * so two participants messaging each other at the same time cannot create duplicate rooms.
      * @param senderId the sender's ID
      * @param recipientId the recipient's ID
      * @return the created chat ID
@@ -61,14 +96,139 @@ public class ChatRoomServiceImpl implements ChatRoomService {
     @Override
     public String createChatId(String senderId, String recipientId) {
 
-        var chatId = String.format("%s_%s", senderId, recipientId);
-        var senderRecipient = new ChatRoom(null, chatId, senderId, recipientId);
-        var recipientSender = new ChatRoom(null, chatId, recipientId, senderId);
+        var chatId = chatIdStrategy.chatId(senderId, recipientId);
 
-        chatRoomRepo.saveAll(
-                List.of(senderRecipient, recipientSender)
-        );
+        if (chatIdStrategy == ChatIdStrategy.CANONICAL) {
+            insertIfAbsent(new ChatRoom(roomDocumentId(senderId, recipientId), chatId, senderId, recipientId));
+            insertIfAbsent(new ChatRoom(roomDocumentId(recipientId, senderId), chatId, recipientId, senderId));
+        } else {
+            var senderRecipient = new ChatRoom(null, chatId, senderId, recipientId);
+            var recipientSender = new ChatRoom(null, chatId, recipientId, senderId);
+
+            chatRoomRepo.saveAll(
+                    List.of(senderRecipient, recipientSender)
+            );
+        }
+
+        chatRoomIdCache.put(senderId, recipientId, chatId);
+        chatRoomIdCache.put(recipientId, senderId, chatId);
 
         return chatId;
     }
+
+    /**
+     * Records a stored direct message on both chat room entries with one atomic update each, so
+     * neither the last message nor the unread count ever has to be recomputed from the history.
+     * The recipient's entry gets the summary and the unread increment in the same update. An entry
+     * that already holds a later message, stored concurrently by the other participant, keeps it,
+     * and a message the recipient has already read up to is not counted; the summary and the unread
+     * count are then updated on their own, each under its own condition.
+     * @param chatMessage the stored message, carrying its ID, timestamp and sequence number
+     */
+    @Override
+    public void recordMessage(ChatMessage chatMessage) {
+        var senderId = chatMessage.getSenderId();
+        var recipientId = chatMessage.getRecipientId();
+        var seq = chatMessage.getSeq();
+        var summary = MessageSummary.of(chatMessage);
+
+        chatRoomRepo.updateLastMessageBySenderIdAndRecipientId(senderId, recipientId, seq, summary);
+        if (chatRoomRepo.updateLastMessageAndIncrementUnreadCountBySenderIdAndRecipientId(recipientId, senderId, seq, summary) == 0) {
+            chatRoomRepo.updateLastMessageBySenderIdAndRecipientId(recipientId, senderId, seq, summary);
+            chatRoomRepo.findAndIncrementUnreadCountBySenderIdAndRecipientId(recipientId, senderId, seq);
+        }
+    }
+
+    /**
+     * Marks the messages a recipient has received from a sender as read, up to a given message.
+     * With a sequence number, messages after it stay unread, and a message recorded later that the
+     * receipt already covers is never counted; without one the counter is reset.
+     * @param recipientId the recipient's ID, who owns the counter
+     * @param senderId the sender's ID
+     * @param seq the sequence number of the last message read, or null to mark every message as read
+     */
+    @Override
+    public void markRead(String recipientId, String senderId, Long seq) {
+        if (seq == null) {
+            chatRoomRepo.findAndResetUnreadCountBySenderIdAndRecipientId(recipientId, senderId);
+        } else {
+            chatRoomRepo.markReadBySenderIdAndRecipientId(recipientId, senderId, seq);
+        }
+    }
+
+    /**
+     * Finds the unread counts of all chats of a user with one query on the user's chat room entries.
+     * @param recipientId the user's ID
+     * @return the number of unread messages per sender, leaving out chats without unread messages
+     */
+    @Override
+    public Map<String, Long> findUnreadCounts(String recipientId) {
+        var unreadCounts = new LinkedHashMap<String, Long>();
+        chatRoomRepo.findBySenderIdAndUnreadCountGreaterThan(recipientId, 0)
+                .forEach(chatRoom -> unreadCounts.put(chatRoom.getRecipientId(), chatRoom.getUnreadCount()));
+        return unreadCounts;
+    }
+
+    /**
+     * Finds the direct chats of a user with one query on the (senderId, lastMessage.timestamp) index.
+     * @param userId the user's ID
+     * @param limit the maximum number of chats to return
+     * @return the user's chats with their last message and unread count, most recently active first
+     */
+    @Override
+    public List<Conversation> findConversations(String userId, int limit) {
+        return chatRoomRepo.findBySenderIdOrderByLastMessageTimestampDesc(
+                        userId, Limit.of(Math.clamp(limit, 1, ChatMessageServiceImpl.MAX_PAGE_SIZE))).stream()
+                .map(ChatRoomServiceImpl::conversationOf)
+                .toList();
+    }
+
+    /**
+     * Builds the conversation list item of a chat room entry.
+     * @param chatRoom the chat room entry, seen from its owner
+     * @return the conversation
+     */
+    static Conversation conversationOf(ChatRoom chatRoom) {
+        return new Conversation(
+                chatRoom.getChatId(),
+                chatRoom.getRecipientId(),
+                chatRoom.getLastMessage(),
+                chatRoom.getUnreadCount()
+        );
+    }
+
+    /**
+     * Builds the deterministic document ID of the chat room entry seen from one participant,
+     * escaped as in {@link ChatIdStrategy#join(String, char, String)} so that no two pairs share it.
+     * @param senderId the participant owning the entry
+     * @param recipientId the other participant
+     * @return the chat room document ID
+     */
+    static String roomDocumentId(String senderId, String recipientId) {
+        return ChatIdStrategy.join(senderId, ':', recipientId);
+    }
+
+    /**
+     * Inserts a chat room entry unless one with the same ID already exists.
+     * @param chatRoom the chat room entry to insert
+     */
+    private void insertIfAbsent(ChatRoom chatRoom) {
+        try {
+            chatRoomRepo.insert(chatRoom);
+        } catch (DuplicateKeyException ignored) {
+            // Created concurrently or on an earlier contact; the entry is identical.
+        }
+    }
+
+    /**
+     * Looks up the chat ID of an existing chat room in the database.
+     * @param senderId the sender's ID
+     * @param recipientId the recipient's ID
+     * @return an optional containing the chat ID if a chat room exists, otherwise empty
+     */
+    private Optional<String> findChatId(String senderId, String recipientId) {
+        return chatRoomRepo
+                .findBySenderIdAndRecipientId(senderId, recipientId)
+                .map(ChatRoom::getChatId);
+    }
 }
@@ -0,0 +1,45 @@
+package com.example.springpracticewebsocket1o1chatapp.services.impl;
+
+import com.example.springpracticewebsocket1o1chatapp.documents.ChatSequence;
+import com.example.springpracticewebsocket1o1chatapp.services.ChatSequenceService;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+/**
+ * Implementation of the ChatSequenceService interface.
+ * Each number is taken with an atomic increment on the chat's own sequence document, so the
+ * database orders concurrent senders on any node without a lock shared between chats.
+ */
+@Service
+public class ChatSequenceServiceImpl implements ChatSequenceService {
+
+    private final MongoTemplate mongoTemplate;
+
+    /**
+     * Constructs a new ChatSequenceServiceImpl with the given template.
+     *
+     * @param mongoTemplate the template used for the increments
+     */
+    public ChatSequenceServiceImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    /**
+     * Assigns the next sequence number of a chat, creating its sequence document on first use.
+     * @param chatId the chat ID
+     * @return the assigned sequence number
+     */
+    @Override
+    public long next(String chatId) {
+        return mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(chatId)),
+                new Update().inc("seq", 1),
+                FindAndModifyOptions.options().returnNew(true).upsert(true),
+                ChatSequence.class
+        ).getSeq();
+    }
+}
@@ -0,0 +1,176 @@
+package com.example.springpracticewebsocket1o1chatapp.services.impl;
+
+import com.example.springpracticewebsocket1o1chatapp.caches.GroupMemberCache;
+import com.example.springpracticewebsocket1o1chatapp.caches.PresenceRegistry;
+import com.example.springpracticewebsocket1o1chatapp.configs.GroupProperties;
+import com.example.springpracticewebsocket1o1chatapp.documents.ChatMessage;
+import com.example.springpracticewebsocket1o1chatapp.documents.GroupRoom;
+import com.example.springpracticewebsocket1o1chatapp.model.ChatNotification;
+import com.example.springpracticewebsocket1o1chatapp.repos.GroupRoomRepo;
+import com.example.springpracticewebsocket1o1chatapp.services.ChatMessageService;
+import com.example.springpracticewebsocket1o1chatapp.services.GroupService;
+import com.example.springpracticewebsocket1o1chatapp.services.NotificationService;
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * Implementation of the GroupService interface.
+ * A group message is stored once, with the group ID as its chat ID, and its notification is
+ * encoded once and handed to every online member except the sender. Member lists come from
+ * {@link GroupMemberCache}, so fanning out does not read the database per message or per member.
+ */
+@Service
+public class GroupServiceImpl implements GroupService {
+
+    private final GroupRoomRepo groupRoomRepo;
+    private final MongoTemplate mongoTemplate;
+    private final GroupMemberCache groupMemberCache;
+    private final PresenceRegistry presenceRegistry;
+    private final ChatMessageService chatMessageService;
+    private final NotificationService notificationService;
+    private final int maxMembers;
+
+    /**
+     * Constructs a new GroupServiceImpl with the given repositories, caches, services and properties.
+     *
+     * @param groupRoomRepo       the group repository
+     * @param mongoTemplate       the template used for membership updates
+     * @param groupMemberCache    the cache of group member lists
+     * @param presenceRegistry    the registry of online users
+     * @param chatMessageService  the service storing messages
+     * @param notificationService the service delivering notifications
+     * @param groupProperties     the group configuration
+     */
+    public GroupServiceImpl(
+            GroupRoomRepo groupRoomRepo,
+            MongoTemplate mongoTemplate,
+            GroupMemberCache groupMemberCache,
+            PresenceRegistry presenceRegistry,
+            ChatMessageService chatMessageService,
+            NotificationService notificationService,
+            GroupProperties groupProperties
+    ) {
+        this.groupRoomRepo = groupRoomRepo;
+        this.mongoTemplate = mongoTemplate;
+        this.groupMemberCache = groupMemberCache;
+        this.presenceRegistry = presenceRegistry;
+        this.chatMessageService = chatMessageService;
+        this.notificationService = notificationService;
+        this.maxMembers = groupProperties.maxMembers();
+    }
+
+    /**
+     * Creates a group whose members are the owner and the given users.
+     * @param name the group's display name
+     * @param ownerId the ID of the user creating the group, who becomes a member
+     * @param memberIds the IDs of the other initial members
+     * @return the created group
+     * @throws RuntimeException if the group would exceed the member limit
+     */
+    @Override
+    public GroupRoom createGroup(String name, String ownerId, Collection<String> memberIds) {
+        var members = new LinkedHashSet<String>();
+        members.add(ownerId);
+        members.addAll(memberIds);
+        if (members.size() > maxMembers) {
+            throw new RuntimeException("A group can have at most " + maxMembers + " members");
+        }
+
+        return groupRoomRepo.insert(new GroupRoom(new ObjectId().toHexString(), name, ownerId, members));
+    }
+
+    /**
+     * Adds a member to a group, unless the group is full.
+     * The check and the update are one atomic operation, so concurrent additions cannot overfill a group.
+     * @param groupId the group ID
+     * @param memberId the ID of the user to add
+     * @throws RuntimeException if the group does not exist or is full
+     */
+    @Override
+    public void addMember(String groupId, String memberId) {
+        var result = mongoTemplate.updateFirst(
+                Query.query(Criteria.where("_id").is(groupId)
+                        .and("memberIds." + (maxMembers - 1)).exists(false)),
+                new Update().addToSet("memberIds", memberId),
+                GroupRoom.class
+        );
+        if (result.getMatchedCount() == 0) {
+            throw new RuntimeException("Group not found or full: " + groupId);
+        }
+        groupMemberCache.invalidate(groupId);
+    }
+
+    /**
+     * Removes a member from a group.
+     * @param groupId the group ID
+     * @param memberId the ID of the user to remove
+     */
+    @Override
+    public void removeMember(String groupId, String memberId) {
+        mongoTemplate.updateFirst(
+                Query.query(Criteria.where("_id").is(groupId)),
+                new Update().pull("memberIds", memberId),
+                GroupRoom.class
+        );
+        groupMemberCache.invalidate(groupId);
+    }
+
+    /**
+     * Finds all groups a user is a member of.
+     * @param memberId the user's ID
+     * @return a list of the user's groups
+     */
+    @Override
+    public List<GroupRoom> findGroups(String memberId) {
+        return groupRoomRepo.findAllByMemberIds(memberId);
+    }
+
+    /**
+     * Stores a message sent to a group once and delivers it to the other members who are online.
+     * Offline members find the message in the group's history.
+     * @param groupId the group ID
+     * @param chatMessage the message, with its sender set
+     * @return the saved chat message
+     * @throws RuntimeException if the group does not exist or the sender is not a member
+     */
+    @Override
+    public ChatMessage sendMessage(String groupId, ChatMessage chatMessage) {
+        var members = groupMemberCache.get(groupId, () -> groupRoomRepo.findById(groupId)
+                        .map(group -> List.copyOf(group.getMemberIds())))
+                .orElseThrow(() -> new RuntimeException("Group not found: " + groupId));
+
+        var senderId = chatMessage.getSenderId();
+        if (!members.contains(senderId)) {
+            throw new RuntimeException("User " + senderId + " is not a member of group " + groupId);
+        }
+
+        chatMessage.setRecipientId(groupId);
+        var savedMessage = chatMessageService.saveInChat(chatMessage, groupId);
+
+        var recipients = new ArrayList<String>(members.size());
+        for (var memberId : members) {
+            if (!memberId.equals(senderId) && presenceRegistry.isOnline(memberId)) {
+                recipients.add(memberId);
+            }
+        }
+
+        notificationService.sendToUsers(recipients, "/queue/messages", new ChatNotification(
+                savedMessage.getId(),
+                savedMessage.getSenderId(),
+                savedMessage.getRecipientId(),
+                savedMessage.getContent(),
+                savedMessage.getSeq()
+        ));
+
+        return savedMessage;
+    }
+}
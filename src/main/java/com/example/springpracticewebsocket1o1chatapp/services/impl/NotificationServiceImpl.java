@@ -0,0 +1,163 @@
+package com.example.springpracticewebsocket1o1chatapp.services.impl;
+
+import com.example.springpracticewebsocket1o1chatapp.caches.PayloadFormatRegistry;
+import com.example.springpracticewebsocket1o1chatapp.model.PayloadFormat;
+import com.example.springpracticewebsocket1o1chatapp.services.NotificationService;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.converter.MessageConversionException;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.user.SimpSession;
+import org.springframework.messaging.simp.user.SimpUserRegistry;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Implementation of the NotificationService interface.
+ * A payload is encoded once per format in use and the encoded bytes are shared by every message
+ * sent. While every session of a recipient receives JSON, the payload is sent once to the
+ * recipient's user destination and the broker fans it out. Once a session of the recipient
+ * negotiated another format, the payload is sent to each session of the recipient separately, in
+ * that session's format.
+ */
+@Service
+public class NotificationServiceImpl implements NotificationService {
+
+    private final SimpMessagingTemplate simpMessagingTemplate;
+    private final SimpUserRegistry simpUserRegistry;
+    private final PayloadFormatRegistry payloadFormatRegistry;
+
+    /**
+     * Constructs a new NotificationServiceImpl with the given messaging template and registries.
+     *
+     * @param simpMessagingTemplate the messaging template to send payloads
+     * @param simpUserRegistry      the registry of STOMP users and their sessions
+     * @param payloadFormatRegistry the registry of negotiated payload formats
+     */
+    public NotificationServiceImpl(
+            SimpMessagingTemplate simpMessagingTemplate,
+            SimpUserRegistry simpUserRegistry,
+            PayloadFormatRegistry payloadFormatRegistry
+    ) {
+        this.simpMessagingTemplate = simpMessagingTemplate;
+        this.simpUserRegistry = simpUserRegistry;
+        this.payloadFormatRegistry = payloadFormatRegistry;
+    }
+
+    /**
+     * Sends a payload to every session of a user, each in the format it negotiated.
+     * @param userId the recipient's ID
+     * @param destination the user destination, such as "/queue/messages"
+     * @param payload the payload to send
+     */
+    @Override
+    public void sendToUser(String userId, String destination, Object payload) {
+        sendToUsers(List.of(userId), destination, payload);
+    }
+
+    /**
+     * Sends one payload to every session of several users, encoding it once per format in use.
+     * @param userIds the recipients' IDs
+     * @param destination the user destination, such as "/queue/messages"
+     * @param payload the payload to send
+     * @throws MessageConversionException if the payload cannot be encoded
+     */
+    @Override
+    public void sendToUsers(Collection<String> userIds, String destination, Object payload) {
+        var encoded = new EnumMap<PayloadFormat, byte[]>(PayloadFormat.class);
+
+        for (var userId : userIds) {
+            var user = payloadFormatRegistry.allJson() ? null : simpUserRegistry.getUser(userId);
+
+            if (user == null || user.getSessions().stream().map(SimpSession::getId).allMatch(this::receivesJson)) {
+                send(userId, destination, null, PayloadFormat.JSON, encoded, payload);
+                continue;
+            }
+
+            for (var session : user.getSessions()) {
+                var format = payloadFormatRegistry.formatOf(session.getId());
+                send(userId, destination, session.getId(), format, encoded, payload);
+            }
+        }
+    }
+
+    /**
+     * Sends a payload to one session of a user, in the format that session negotiated.
+     * @param userId the recipient's ID
+     * @param sessionId the session to deliver to
+     * @param destination the user destination, such as "/queue/errors"
+     * @param payload the payload to send
+     * @throws MessageConversionException if the payload cannot be encoded
+     */
+    @Override
+    public void sendToSession(String userId, String sessionId, String destination, Object payload) {
+        var format = payloadFormatRegistry.formatOf(sessionId);
+        send(userId, destination, sessionId, format, new EnumMap<>(PayloadFormat.class), payload);
+    }
+
+    /**
+     * Sends an encoded payload to a user destination, encoding it first if this format was not needed yet.
+     * @param userId the recipient's ID
+     * @param destination the user destination
+     * @param sessionId the only session to deliver to, or null for all the user's sessions
+     * @param format the format to send the payload in
+     * @param encoded the payloads encoded so far, by format
+     * @param payload the payload to send
+     */
+    private void send(
+            String userId,
+            String destination,
+            String sessionId,
+            PayloadFormat format,
+            Map<PayloadFormat, byte[]> encoded,
+            Object payload
+    ) {
+        var headers = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        headers.setContentType(format.mimeType());
+        if (sessionId != null) {
+            headers.setSessionId(sessionId);
+        }
+        headers.setLeaveMutable(true);
+
+        var bytes = encoded.computeIfAbsent(format, key -> encode(payload, key));
+
+        simpMessagingTemplate.send(
+                simpMessagingTemplate.getUserDestinationPrefix() + userId.replace("/", "%2F") + destination,
+                MessageBuilder.createMessage(bytes, headers.getMessageHeaders())
+        );
+    }
+
+    /**
+     * Encodes a payload with the template's converters.
+     * @param payload the payload to encode
+     * @param format the format to encode it in
+     * @return the encoded payload
+     * @throws MessageConversionException if no converter can encode the payload
+     */
+    private byte[] encode(Object payload, PayloadFormat format) {
+        var message = simpMessagingTemplate.getMessageConverter().toMessage(
+                payload,
+                new MessageHeaders(Map.of(MessageHeaders.CONTENT_TYPE, format.mimeType()))
+        );
+        if (message == null || !(message.getPayload() instanceof byte[] bytes)) {
+            throw new MessageConversionException("Unable to encode payload of type " + payload.getClass().getName()
+                    + " as " + format.mimeType());
+        }
+        return bytes;
+    }
+
+    /**
+     * Checks whether a session receives JSON.
+     * @param sessionId the session ID
+     * @return true if the session did not negotiate another format
+     */
+    private boolean receivesJson(String sessionId) {
+        return payloadFormatRegistry.formatOf(sessionId) == PayloadFormat.JSON;
+    }
+}
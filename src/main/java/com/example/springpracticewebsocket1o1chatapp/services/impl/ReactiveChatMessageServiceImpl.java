@@ -0,0 +1,289 @@
+package com.example.springpracticewebsocket1o1chatapp.services.impl;
+
+import com.example.springpracticewebsocket1o1chatapp.caches.RecentMessageCache;
+import com.example.springpracticewebsocket1o1chatapp.caches.RecentMessageIdCache;
+import com.example.springpracticewebsocket1o1chatapp.documents.ChatMessage;
+import com.example.springpracticewebsocket1o1chatapp.exceptions.DuplicateMessageException;
+import com.example.springpracticewebsocket1o1chatapp.model.MessageAck;
+import com.example.springpracticewebsocket1o1chatapp.model.MessagePosition;
+import com.example.springpracticewebsocket1o1chatapp.repos.ReactiveChatMessageRepo;
+import com.example.springpracticewebsocket1o1chatapp.services.ChatArchiveService;
+import com.example.springpracticewebsocket1o1chatapp.services.ReactiveChatMessageService;
+import com.example.springpracticewebsocket1o1chatapp.services.ReactiveChatRoomService;
+import com.example.springpracticewebsocket1o1chatapp.services.ReactiveChatSequenceService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+/**
+ * Implementation of the ReactiveChatMessageService interface.
+ */
+@Service
+@ConditionalOnProperty(prefix = "chat.persistence", name = "mode", havingValue = "reactive")
+public class ReactiveChatMessageServiceImpl implements ReactiveChatMessageService {
+
+    private final ReactiveChatMessageRepo chatMessageRepo;
+    private final ReactiveChatRoomService chatRoomService;
+    private final ReactiveChatSequenceService chatSequenceService;
+    private final RecentMessageIdCache recentMessageIdCache;
+    private final RecentMessageCache recentMessageCache;
+    private final ChatArchiveService chatArchiveService;
+    private final MeterRegistry meterRegistry;
+    private final Timer roomLookup;
+    private final Timer sequence;
+    private final Timer insert;
+
+    /**
+     * Constructs a new ReactiveChatMessageServiceImpl with the given repositories and services.
+     *
+     * @param chatMessageRepo      the reactive chat message repository
+     * @param chatRoomService      the reactive chat room service
+     * @param chatSequenceService  the reactive service assigning sequence numbers
+     * @param recentMessageIdCache the window of recently stored client message IDs
+     * @param recentMessageCache   the window of each chat's most recent messages
+     * @param chatArchiveService   the archive tier, available only when messages are archived
+     * @param meterRegistry        the registry to publish room lookup, sequence and insert timings to
+     */
+    public ReactiveChatMessageServiceImpl(
+            ReactiveChatMessageRepo chatMessageRepo,
+            ReactiveChatRoomService chatRoomService,
+            ReactiveChatSequenceService chatSequenceService,
+            RecentMessageIdCache recentMessageIdCache,
+            RecentMessageCache recentMessageCache,
+            ObjectProvider<ChatArchiveService> chatArchiveService,
+            MeterRegistry meterRegistry
+    ) {
+        this.chatMessageRepo = chatMessageRepo;
+        this.chatRoomService = chatRoomService;
+        this.chatSequenceService = chatSequenceService;
+        this.recentMessageIdCache = recentMessageIdCache;
+        this.recentMessageCache = recentMessageCache;
+        this.chatArchiveService = chatArchiveService.getIfAvailable();
+        this.meterRegistry = meterRegistry;
+        this.roomLookup = Timer.builder("chat.room.lookup")
+                .description("Time to resolve the chat room of a message")
+                .register(meterRegistry);
+        this.sequence = Timer.builder("chat.message.sequence")
+                .description("Time to assign the sequence number of a message")
+                .register(meterRegistry);
+        this.insert = Timer.builder("chat.message.insert")
+                .description("Time to store a message, or to queue it in write-behind mode")
+                .tag("mode", "reactive")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Saves a chat message.
+     * It finds or creates a chat room, sets the chat ID, a server timestamp and the next sequence number
+     * on the message, saves it, and records it on the chat room entries as the chat's last message
+     * and as unread for the recipient.
+     * A resent message is recognised by its client message ID, first in the in-memory window and
+     * then by the unique index, as in {@link ChatMessageServiceImpl#save(ChatMessage)}.
+     * @param chatMessage the chat message to save
+     * @return the saved chat message, or an error if a chat room cannot be found or created, or a
+     * {@link DuplicateMessageException} if the message was already stored
+     */
+    @Override
+    public Mono<ChatMessage> save(ChatMessage chatMessage) {
+        var senderId = chatMessage.getSenderId();
+        var clientMessageId = chatMessage.getClientMessageId();
+        if (clientMessageId != null) {
+            var recent = recentMessageIdCache.getIfPresent(senderId, clientMessageId);
+            if (recent.isPresent()) {
+                return Mono.error(new DuplicateMessageException(recent.get()));
+            }
+        }
+
+        return timed(chatRoomService.getChatRoomId(
+                        chatMessage.getSenderId(),
+                        chatMessage.getRecipientId(),
+                        true
+                ), roomLookup)
+                .switchIfEmpty(Mono.error(
+                        () -> new RuntimeException("Chat room not found for senderId: " + chatMessage.getSenderId() +
+                                " and recipientId: " + chatMessage.getRecipientId())
+                ))
+                .flatMap(chatId -> timed(chatSequenceService.next(chatId), sequence)
+                        .flatMap(seq -> {
+                            chatMessage.setChatId(chatId);
+                            chatMessage.setSeq(seq);
+                            chatMessage.setTimestamp(LocalDateTime.now());
+
+                            return timed(chatMessageRepo.save(chatMessage), insert);
+                        }))
+                .onErrorResume(DuplicateKeyException.class, e -> clientMessageId == null
+                        ? Mono.error(e)
+                        : chatMessageRepo.findBySenderIdAndClientMessageId(senderId, clientMessageId)
+                                .switchIfEmpty(Mono.error(e))
+                                .flatMap(stored -> {
+                                    var ack = MessageAck.of(stored);
+                                    recentMessageIdCache.put(senderId, ack);
+                                    return Mono.error(new DuplicateMessageException(ack));
+                                }))
+                .flatMap(savedMessage -> chatRoomService.recordMessage(savedMessage).thenReturn(savedMessage))
+                .doOnNext(savedMessage -> {
+                    recentMessageCache.add(savedMessage);
+                    if (clientMessageId != null) {
+                        recentMessageIdCache.put(senderId, MessageAck.of(savedMessage));
+                    }
+                });
+    }
+
+    /**
+     * Finds one page of chat messages between a sender and a recipient.
+     * @param senderId the sender's ID
+     * @param recipientId the recipient's ID
+     * @param before exclusive upper bound, or null
+     * @param after exclusive lower bound, or null
+     * @param limit the maximum number of messages to return
+     * @return a list of chat messages in ascending timestamp order, or an empty list if no chat room is found
+     * @see ChatMessageServiceImpl#findMessagesInChat(String, MessagePosition, MessagePosition, int)
+     */
+    @Override
+    public Mono<List<ChatMessage>> findChatMessages(
+            String senderId,
+            String recipientId,
+            MessagePosition before,
+            MessagePosition after,
+            int limit
+    ) {
+        var pageSize = Math.clamp(limit, 1, ChatMessageServiceImpl.MAX_PAGE_SIZE);
+
+        return chatRoomService.getChatRoomId(senderId, recipientId, false)
+                .flatMap(chatId -> {
+                    if (after != null) {
+                        return readArchive(() -> chatArchiveService.findMessagesInChat(chatId, null, after, pageSize))
+                                .flatMap(archived -> {
+                                    if (archived.size() == pageSize) {
+                                        return Mono.just(archived);
+                                    }
+                                    var from = archived.isEmpty() ? after : MessagePosition.of(archived.getLast());
+                                    return chatMessageRepo.findByChatIdAfter(
+                                            chatId,
+                                            from.timestamp(),
+                                            new ObjectId(from.id()),
+                                            Limit.of(pageSize - archived.size())
+                                    ).collectList().map(newer -> ChatMessageServiceImpl.concat(archived, newer));
+                                });
+                    }
+                    if (before != null) {
+                        return chatMessageRepo.findByChatIdBefore(chatId, before.timestamp(), new ObjectId(before.id()), Limit.of(pageSize))
+                                .collectList()
+                                .map(List::reversed)
+                                .flatMap(newest -> withArchived(newest, pageSize, older -> chatArchiveService.findMessagesInChat(
+                                        chatId, newest.isEmpty() ? before : MessagePosition.of(newest.getFirst()), null, older)));
+                    }
+                    var cached = recentMessageCache.latest(chatId, pageSize);
+                    if (cached.isPresent()) {
+                        return Mono.just(cached.get());
+                    }
+                    return chatMessageRepo.findByChatIdOrderByTimestampDescIdDesc(chatId, Limit.of(pageSize))
+                            .collectList()
+                            .map(List::reversed)
+                            .flatMap(newest -> withArchived(newest, pageSize, older -> chatArchiveService.findMessagesInChat(
+                                    chatId, newest.isEmpty() ? null : MessagePosition.of(newest.getFirst()), null, older)))
+                            .doOnNext(latest -> recentMessageCache.fill(chatId, latest, pageSize));
+                })
+                .defaultIfEmpty(List.of());
+    }
+
+    /**
+     * Finds one page of chat messages between a sender and a recipient by sequence number.
+     * @param senderId the sender's ID
+     * @param recipientId the recipient's ID
+     * @param beforeSeq exclusive upper sequence bound, or null
+     * @param afterSeq exclusive lower sequence bound, or null
+     * @param limit the maximum number of messages to return
+     * @return a list of chat messages in ascending sequence order, or an empty list if no chat room is found
+     * @see ChatMessageServiceImpl#findMessagesInChatBySeq(String, Long, Long, int)
+     */
+    @Override
+    public Mono<List<ChatMessage>> findChatMessagesBySeq(
+            String senderId,
+            String recipientId,
+            Long beforeSeq,
+            Long afterSeq,
+            int limit
+    ) {
+        var pageSize = Math.clamp(limit, 1, ChatMessageServiceImpl.MAX_PAGE_SIZE);
+
+        return chatRoomService.getChatRoomId(senderId, recipientId, false)
+                .flatMap(chatId -> {
+                    if (afterSeq != null) {
+                        return readArchive(() -> chatArchiveService.findMessagesInChatBySeq(chatId, null, afterSeq, pageSize))
+                                .flatMap(archived -> archived.size() == pageSize
+                                        ? Mono.just(archived)
+                                        : chatMessageRepo.findByChatIdAndSeqGreaterThanOrderBySeqAsc(
+                                                chatId,
+                                                archived.isEmpty() ? afterSeq : archived.getLast().getSeq(),
+                                                Limit.of(pageSize - archived.size())
+                                        ).collectList().map(newer -> ChatMessageServiceImpl.concat(archived, newer)));
+                    }
+                    return chatMessageRepo.findByChatIdAndSeqLessThanOrderBySeqDesc(
+                            chatId,
+                            beforeSeq != null ? beforeSeq : Long.MAX_VALUE,
+                            Limit.of(pageSize)
+                    ).collectList().map(List::reversed)
+                            .flatMap(newest -> withArchived(newest, pageSize, older -> chatArchiveService.findMessagesInChatBySeq(
+                                    chatId, newest.isEmpty() ? beforeSeq : newest.getFirst().getSeq(), null, older)));
+                })
+                .defaultIfEmpty(List.of());
+    }
+
+    /**
+     * Completes a page read from the message collection with older messages from the archive.
+     * @param newest the page read from the message collection, in ascending order
+     * @param pageSize the page size
+     * @param archived reads the given number of archived messages older than the page
+     * @return the completed page in ascending order
+     */
+    private Mono<List<ChatMessage>> withArchived(
+            List<ChatMessage> newest,
+            int pageSize,
+            IntFunction<List<ChatMessage>> archived
+    ) {
+        if (chatArchiveService == null || newest.size() >= pageSize) {
+            return Mono.just(newest);
+        }
+        return readArchive(() -> archived.apply(pageSize - newest.size()))
+                .map(older -> ChatMessageServiceImpl.concat(older, newest));
+    }
+
+    /**
+     * Reads from the archive, which is only reachable through the blocking driver, on a thread that may block.
+     * @param read the archive read
+     * @return the archived messages, or an empty list when messages are not archived
+     */
+    private Mono<List<ChatMessage>> readArchive(Supplier<List<ChatMessage>> read) {
+        if (chatArchiveService == null) {
+            return Mono.just(List.of());
+        }
+        return Mono.fromSupplier(read).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * Times a publisher from subscription until it terminates or is cancelled.
+     * @param mono the publisher to time
+     * @param timer the timer to record to
+     * @param <T> the type of the emitted value
+     * @return the timed publisher
+     */
+    private <T> Mono<T> timed(Mono<T> mono, Timer timer) {
+        return Mono.defer(() -> {
+            var sample = Timer.start(meterRegistry);
+            return mono.doFinally(signal -> sample.stop(timer));
+        });
+    }
+}
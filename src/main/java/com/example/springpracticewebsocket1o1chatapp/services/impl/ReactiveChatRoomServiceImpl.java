@@ -0,0 +1,199 @@
+package com.example.springpracticewebsocket1o1chatapp.services.impl;
+
+import com.example.springpracticewebsocket1o1chatapp.caches.ChatRoomIdCache;
+import com.example.springpracticewebsocket1o1chatapp.configs.ChatRoomProperties;
+import com.example.springpracticewebsocket1o1chatapp.documents.ChatMessage;
+import com.example.springpracticewebsocket1o1chatapp.documents.ChatRoom;
+import com.example.springpracticewebsocket1o1chatapp.model.ChatIdStrategy;
+import com.example.springpracticewebsocket1o1chatapp.model.Conversation;
+import com.example.springpracticewebsocket1o1chatapp.model.MessageSummary;
+import com.example.springpracticewebsocket1o1chatapp.repos.ReactiveChatRoomRepo;
+import com.example.springpracticewebsocket1o1chatapp.services.ReactiveChatRoomService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Implementation of the ReactiveChatRoomService interface.
+ * It follows the same rules as {@link ChatRoomServiceImpl} and shares its chat ID cache.
+ */
+@Service
+@ConditionalOnProperty(prefix = "chat.persistence", name = "mode", havingValue = "reactive")
+public class ReactiveChatRoomServiceImpl implements ReactiveChatRoomService {
+
+    private final ReactiveChatRoomRepo chatRoomRepo;
+    private final ChatRoomIdCache chatRoomIdCache;
+    private final ChatIdStrategy chatIdStrategy;
+
+    /**
+     * Constructs a new ReactiveChatRoomServiceImpl with the given chat room repository, chat ID cache and properties.
+     *
+     * @param chatRoomRepo       the reactive chat room repository
+     * @param chatRoomIdCache    the cache of resolved chat IDs
+     * @param chatRoomProperties the chat room configuration
+     */
+    public ReactiveChatRoomServiceImpl(
+            ReactiveChatRoomRepo chatRoomRepo,
+            ChatRoomIdCache chatRoomIdCache,
+            ChatRoomProperties chatRoomProperties
+    ) {
+        this.chatRoomRepo = chatRoomRepo;
+        this.chatRoomIdCache = chatRoomIdCache;
+        this.chatIdStrategy = chatRoomProperties.chatIdStrategy();
+    }
+
+    /**
+     * Gets the chat room ID for a given sender and recipient.
+     * Cached IDs are returned without a database call; otherwise the chat room is looked up and,
+     * if allowed, created.
+     * @param senderId the sender's ID
+     * @param recipientId the recipient's ID
+     * @param createNewRoomIfNotExists whether to create a new chat room if one doesn't exist
+     * @return the chat room ID if found or created, otherwise empty
+     */
+    @Override
+    public Mono<String> getChatRoomId(
+            String senderId,
+            String recipientId,
+            boolean createNewRoomIfNotExists
+    ) {
+        if (chatIdStrategy == ChatIdStrategy.CANONICAL && !createNewRoomIfNotExists) {
+            return Mono.just(chatIdStrategy.chatId(senderId, recipientId));
+        }
+
+        var cachedChatId = chatRoomIdCache.getIfPresent(senderId, recipientId);
+        if (cachedChatId.isPresent()) {
+            return Mono.just(cachedChatId.get());
+        }
+
+        if (chatIdStrategy == ChatIdStrategy.CANONICAL) {
+            return createChatId(senderId, recipientId);
+        }
+
+        var storedChatId = chatRoomRepo.findBySenderIdAndRecipientId(senderId, recipientId)
+                .map(ChatRoom::getChatId)
+                .doOnNext(chatId -> chatRoomIdCache.put(senderId, recipientId, chatId));
+
+        if (createNewRoomIfNotExists) {
+            return storedChatId.switchIfEmpty(Mono.defer(() -> createChatId(senderId, recipientId)));
+        }
+        return storedChatId.switchIfEmpty(Mono.<String>fromRunnable(() -> chatRoomIdCache.putMissing(senderId, recipientId)));
+    }
+
+    /**
+     * Records a stored direct message on the chat room entries of both participants.
+     * The two entries are updated concurrently.
+     * @param chatMessage the stored message, carrying its ID, timestamp and sequence number
+     * @return completes once both entries have been updated
+     * @see ChatRoomServiceImpl#recordMessage(ChatMessage)
+     */
+    @Override
+    public Mono<Void> recordMessage(ChatMessage chatMessage) {
+        var senderId = chatMessage.getSenderId();
+        var recipientId = chatMessage.getRecipientId();
+        var seq = chatMessage.getSeq();
+        var summary = MessageSummary.of(chatMessage);
+
+        var senderRoom = chatRoomRepo.updateLastMessageBySenderIdAndRecipientId(senderId, recipientId, seq, summary);
+        var recipientRoom = chatRoomRepo.updateLastMessageAndIncrementUnreadCountBySenderIdAndRecipientId(recipientId, senderId, seq, summary)
+                .flatMap(updated -> updated == 0
+                        ? Mono.when(
+                                chatRoomRepo.updateLastMessageBySenderIdAndRecipientId(recipientId, senderId, seq, summary),
+                                chatRoomRepo.findAndIncrementUnreadCountBySenderIdAndRecipientId(recipientId, senderId, seq)
+                        ).thenReturn(updated)
+                        : Mono.just(updated));
+
+        return Mono.when(senderRoom, recipientRoom);
+    }
+
+    /**
+     * Marks the messages a recipient has received from a sender as read, up to a given message.
+     * @param recipientId the recipient's ID, who owns the counter
+     * @param senderId the sender's ID
+     * @param seq the sequence number of the last message read, or null to mark every message as read
+     * @return completes once the counter has been updated
+     * @see ChatRoomServiceImpl#markRead(String, String, Long)
+     */
+    @Override
+    public Mono<Void> markRead(String recipientId, String senderId, Long seq) {
+        return (seq == null
+                ? chatRoomRepo.findAndResetUnreadCountBySenderIdAndRecipientId(recipientId, senderId)
+                : chatRoomRepo.markReadBySenderIdAndRecipientId(recipientId, senderId, seq)
+        ).then();
+    }
+
+    /**
+     * Finds the unread counts of all chats of a user.
+     * @param recipientId the user's ID
+     * @return the number of unread messages per sender, leaving out chats without unread messages
+     */
+    @Override
+    public Mono<Map<String, Long>> findUnreadCounts(String recipientId) {
+        return chatRoomRepo.findBySenderIdAndUnreadCountGreaterThan(recipientId, 0)
+                .collectMap(ChatRoom::getRecipientId, ChatRoom::getUnreadCount, LinkedHashMap::new);
+    }
+
+    /**
+     * Finds the direct chats of a user, most recently active first.
+     * @param userId the user's ID
+     * @param limit the maximum number of chats to return
+     * @return the user's chats with their last message and unread count
+     * @see ChatRoomServiceImpl#findConversations(String, int)
+     */
+    @Override
+    public Flux<Conversation> findConversations(String userId, int limit) {
+        return chatRoomRepo.findBySenderIdOrderByLastMessageTimestampDesc(
+                        userId, Limit.of(Math.clamp(limit, 1, ChatMessageServiceImpl.MAX_PAGE_SIZE)))
+                .map(ChatRoomServiceImpl::conversationOf);
+    }
+
+    /**
+     * Creates a new chat ID and corresponding chat room entries for a sender and recipient.
+     * @param senderId the sender's ID
+     * @param recipientId the recipient's ID
+     * @return the created chat ID
+     * @see ChatRoomServiceImpl#createChatId(String, String)
+     */
+    private Mono<String> createChatId(String senderId, String recipientId) {
+
+        var chatId = chatIdStrategy.chatId(senderId, recipientId);
+
+        Mono<Void> created;
+        if (chatIdStrategy == ChatIdStrategy.CANONICAL) {
+            created = insertIfAbsent(new ChatRoom(ChatRoomServiceImpl.roomDocumentId(senderId, recipientId), chatId, senderId, recipientId))
+                    .then(insertIfAbsent(new ChatRoom(ChatRoomServiceImpl.roomDocumentId(recipientId, senderId), chatId, recipientId, senderId)));
+        } else {
+            created = chatRoomRepo.saveAll(
+                    List.of(
+                            new ChatRoom(null, chatId, senderId, recipientId),
+                            new ChatRoom(null, chatId, recipientId, senderId)
+                    )
+            ).then();
+        }
+
+        return created
+                .then(Mono.fromRunnable(() -> {
+                    chatRoomIdCache.put(senderId, recipientId, chatId);
+                    chatRoomIdCache.put(recipientId, senderId, chatId);
+                }))
+                .thenReturn(chatId);
+    }
+
+    /**
+     * Inserts a chat room entry unless one with the same ID already exists.
+     * @param chatRoom the chat room entry to insert
+     * @return completes once the entry exists
+     */
+    private Mono<Void> insertIfAbsent(ChatRoom chatRoom) {
+        return chatRoomRepo.insert(chatRoom)
+                .onErrorResume(DuplicateKeyException.class, e -> Mono.empty())
+                .then();
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.springpracticewebsocket1o1chatapp.services.impl;
+
+import com.example.springpracticewebsocket1o1chatapp.documents.ChatSequence;
+import com.example.springpracticewebsocket1o1chatapp.services.ReactiveChatSequenceService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+/**
+ * Implementation of the ReactiveChatSequenceService interface.
+ * It takes numbers from the same sequence documents as {@link ChatSequenceServiceImpl}.
+ */
+@Service
+@ConditionalOnProperty(prefix = "chat.persistence", name = "mode", havingValue = "reactive")
+public class ReactiveChatSequenceServiceImpl implements ReactiveChatSequenceService {
+
+    private final ReactiveMongoTemplate mongoTemplate;
+
+    /**
+     * Constructs a new ReactiveChatSequenceServiceImpl with the given template.
+     *
+     * @param mongoTemplate the reactive template used for the increments
+     */
+    public ReactiveChatSequenceServiceImpl(ReactiveMongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    /**
+     * Assigns the next sequence number of a chat, creating its sequence document on first use.
+     * @param chatId the chat ID
+     * @return the assigned sequence number
+     */
+    @Override
+    public Mono<Long> next(String chatId) {
+        return mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(chatId)),
+                new Update().inc("seq", 1),
+                FindAndModifyOptions.options().returnNew(true).upsert(true),
+                ChatSequence.class
+        ).map(ChatSequence::getSeq);
+    }
+}
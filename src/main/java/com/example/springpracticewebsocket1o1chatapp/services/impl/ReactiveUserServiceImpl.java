@@ -0,0 +1,84 @@
+package com.example.springpracticewebsocket1o1chatapp.services.impl;
+
+import com.example.springpracticewebsocket1o1chatapp.caches.PresenceRegistry;
+import com.example.springpracticewebsocket1o1chatapp.documents.User;
+import com.example.springpracticewebsocket1o1chatapp.model.PresenceDelta;
+import com.example.springpracticewebsocket1o1chatapp.model.Status;
+import com.example.springpracticewebsocket1o1chatapp.repos.ReactiveUserRepo;
+import com.example.springpracticewebsocket1o1chatapp.services.ReactiveUserService;
+import com.example.springpracticewebsocket1o1chatapp.services.UserService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Implementation of the ReactiveUserService interface.
+ * Presence changes go through {@link UserService}, which only touches memory on the caller's
+ * thread and writes statuses in the background, so they never block.
+ */
+@Service
+@ConditionalOnProperty(prefix = "chat.persistence", name = "mode", havingValue = "reactive")
+public class ReactiveUserServiceImpl implements ReactiveUserService {
+
+    private final ReactiveUserRepo userRepo;
+    private final UserService userService;
+    private final PresenceRegistry presenceRegistry;
+
+    /**
+     * Constructs a new ReactiveUserServiceImpl with the given user repository, user service and presence registry.
+     *
+     * @param userRepo         the reactive user repository
+     * @param userService      the service recording presence changes
+     * @param presenceRegistry the registry of online users
+     */
+    public ReactiveUserServiceImpl(
+            ReactiveUserRepo userRepo,
+            UserService userService,
+            PresenceRegistry presenceRegistry
+    ) {
+        this.userRepo = userRepo;
+        this.userService = userService;
+        this.presenceRegistry = presenceRegistry;
+    }
+
+    /**
+     * Saves a user and sets their status to ONLINE.
+     * @param user the user to save
+     * @return the ONLINE presence change
+     */
+    @Override
+    public Mono<PresenceDelta> saveUser(User user) {
+        return Mono.fromSupplier(() -> userService.saveUser(user));
+    }
+
+    /**
+     * Disconnects a user by setting their status to OFFLINE.
+     * @param user the user to disconnect
+     * @return the OFFLINE presence change
+     */
+    @Override
+    public Mono<PresenceDelta> disconnect(User user) {
+        return Mono.fromSupplier(() -> userService.disconnect(user));
+    }
+
+    /**
+     * Finds all users who are currently online.
+     * @return a list of connected (online) users
+     * @see UserServiceImpl#findConnectedUsers()
+     */
+    @Override
+    public Mono<List<User>> findConnectedUsers() {
+        var remoteNickNames = presenceRegistry.remoteNickNames();
+        var remoteUsers = remoteNickNames.isEmpty()
+                ? Flux.<User>empty()
+                : userRepo.findAllById(remoteNickNames).doOnNext(user -> user.setStatus(Status.ONLINE));
+
+        return Flux.fromIterable(presenceRegistry.localUsers())
+                .concatWith(remoteUsers)
+                .collectList();
+    }
+
+}
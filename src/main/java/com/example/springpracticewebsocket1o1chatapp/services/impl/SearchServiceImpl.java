@@ -0,0 +1,286 @@
+package com.example.springpracticewebsocket1o1chatapp.services.impl;
+
+import com.example.springpracticewebsocket1o1chatapp.configs.SearchProperties;
+import com.example.springpracticewebsocket1o1chatapp.documents.ChatMessage;
+import com.example.springpracticewebsocket1o1chatapp.documents.ChatRoom;
+import com.example.springpracticewebsocket1o1chatapp.documents.GroupRoom;
+import com.example.springpracticewebsocket1o1chatapp.exceptions.SearchTimeoutException;
+import com.example.springpracticewebsocket1o1chatapp.model.SearchHit;
+import com.example.springpracticewebsocket1o1chatapp.model.SearchPage;
+import com.example.springpracticewebsocket1o1chatapp.services.SearchService;
+import com.mongodb.MongoExecutionTimeoutException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.TextCriteria;
+import org.springframework.data.mongodb.core.query.TextQuery;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.regex.Pattern;
+
+/**
+ * Implementation of the SearchService interface.
+ * Searches run on MongoDB's (chatId, content) text index, which the database keeps up to date
+ * as part of every insert, including the bulk inserts of write-behind mode, so there is no index to
+ * rebuild and a message is searchable as soon as it is stored, on every node.
+ * The index only serves queries for a single chat, so each of the user's direct chats and groups is
+ * searched on its own, concurrently on virtual threads, and the ranked hits of the chats are merged
+ * by score. The chat queries of all searches share a fixed number of permits, so a user in many
+ * chats cannot flood the database with queries. Each chat query reads only that chat's index entries, so a search costs in proportion to
+ * the user's own history rather than to all messages stored. Only the fields of a hit are read, and
+ * the snippet is cut from the content of the hits of the requested page only.
+ */
+@Service
+public class SearchServiceImpl implements SearchService {
+
+    /**
+     * Upper bound on the page size a client may request.
+     */
+    static final int MAX_PAGE_SIZE = 50;
+
+    private static final Pattern TERM = Pattern.compile("[\\p{L}\\p{N}]+");
+
+    /**
+     * The order of hits: most relevant first, then newest first among equally relevant ones.
+     */
+    static final Comparator<ScoredMessage> BY_RELEVANCE = Comparator
+            .comparing(ScoredMessage::score, Comparator.nullsLast(Comparator.<Double>reverseOrder()))
+            .thenComparing(ScoredMessage::id, Comparator.reverseOrder());
+
+    private final MongoTemplate mongoTemplate;
+    private final SearchProperties properties;
+    private final Semaphore queries;
+    private final Timer searches;
+
+    /**
+     * Constructs a new SearchServiceImpl with the given template and properties.
+     *
+     * @param mongoTemplate the template used for text queries
+     * @param properties    the search configuration
+     * @param meterRegistry the registry to publish search timings to
+     */
+    public SearchServiceImpl(MongoTemplate mongoTemplate, SearchProperties properties, MeterRegistry meterRegistry) {
+        this.mongoTemplate = mongoTemplate;
+        this.properties = properties;
+        this.queries = new Semaphore(properties.maxConcurrentQueries());
+        this.searches = Timer.builder("chat.search")
+                .description("Time to find one page of search hits")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Searches the content of the messages in a user's direct chats and groups.
+     * Pages past the configured maximum number of results are empty.
+     * @param userId the user's ID
+     * @param text the terms to search for
+     * @param page the index of the page to return, starting at 0
+     * @param size the maximum number of hits per page
+     * @return one page of hits, most relevant first
+     * @throws SearchTimeoutException if a chat's search takes longer than the configured maximum time
+     */
+    @Override
+    public SearchPage search(String userId, String text, int page, int size) {
+        var pageSize = Math.clamp(size, 1, MAX_PAGE_SIZE);
+        var skip = (long) page * pageSize;
+        if (page < 0 || skip >= properties.maxResults()) {
+            return new SearchPage(List.of(), page, false);
+        }
+
+        return searches.record(() -> {
+            // Every chat needs its best hits up to the end of the page to rank the page correctly
+            var limit = (int) Math.min(skip + pageSize + 1, properties.maxResults());
+            var found = new ArrayList<ScoredMessage>();
+            try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                var chats = chatIds(userId).stream()
+                        .map(chatId -> executor.submit(() -> searchChatWithPermit(chatId, text, limit)))
+                        .toList();
+                for (var chat : chats) {
+                    found.addAll(join(chat));
+                }
+            }
+
+            var messages = found.stream()
+                    .sorted(BY_RELEVANCE)
+                    .skip(skip)
+                    .limit(Math.min(pageSize + 1, properties.maxResults() - skip))
+                    .toList();
+
+            var hasMore = messages.size() > pageSize;
+            if (hasMore) {
+                messages = messages.subList(0, pageSize);
+            }
+
+            var terms = terms(text);
+            var hits = messages.stream()
+                    .map(message -> new SearchHit(
+                            message.id(),
+                            message.chatId(),
+                            message.senderId(),
+                            message.recipientId(),
+                            message.timestamp(),
+                            message.seq(),
+                            snippet(message.content(), terms, properties.snippetLength()),
+                            message.score() != null ? message.score() : 0
+                    ))
+                    .toList();
+
+            return new SearchPage(hits, page, hasMore);
+        });
+    }
+
+    /**
+     * Finds the IDs of the chats a user takes part in: their direct chats and their groups.
+     * @param userId the user's ID
+     * @return the chat IDs
+     */
+    private Set<String> chatIds(String userId) {
+        var chatIds = new LinkedHashSet<String>();
+        var rooms = Query.query(Criteria.where("senderId").is(userId));
+        rooms.fields().include("chatId");
+        mongoTemplate.find(rooms, ChatRoom.class).forEach(room -> chatIds.add(room.getChatId()));
+        var groups = Query.query(Criteria.where("memberIds").is(userId));
+        groups.fields().include("_id");
+        mongoTemplate.find(groups, GroupRoom.class).forEach(group -> chatIds.add(group.getId()));
+        return chatIds;
+    }
+
+    /**
+     * Finds the most relevant hits in one chat once one of the shared query permits is free.
+     * @param chatId the chat ID
+     * @param text the terms to search for
+     * @param limit the maximum number of hits to return
+     * @return the hits, most relevant first
+     * @throws InterruptedException if interrupted while waiting for a permit
+     */
+    private List<ScoredMessage> searchChatWithPermit(String chatId, String text, int limit) throws InterruptedException {
+        queries.acquire();
+        try {
+            return searchChat(chatId, text, limit);
+        } finally {
+            queries.release();
+        }
+    }
+
+    /**
+     * Finds the most relevant hits in one chat through the chat scoped text index.
+     * @param chatId the chat ID
+     * @param text the terms to search for
+     * @param limit the maximum number of hits to return
+     * @return the hits, most relevant first
+     */
+    private List<ScoredMessage> searchChat(String chatId, String text, int limit) {
+        var query = TextQuery.queryText(TextCriteria.forDefaultLanguage().matching(text)).sortByScore();
+        query.addCriteria(Criteria.where("chatId").is(chatId));
+        query.with(Sort.by(Sort.Direction.DESC, "_id"))
+                .limit(limit)
+                .maxTime(properties.maxTime());
+        query.fields().include("chatId", "senderId", "recipientId", "content", "timestamp", "seq");
+        return mongoTemplate.find(query, ScoredMessage.class, mongoTemplate.getCollectionName(ChatMessage.class));
+    }
+
+    /**
+     * Waits for the hits of one chat, turning a query aborted for exceeding its maximum time into a
+     * {@link SearchTimeoutException}.
+     * @param chat the pending search of the chat
+     * @return the hits of the chat
+     */
+    private static List<ScoredMessage> join(Future<List<ScoredMessage>> chat) {
+        try {
+            return chat.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while searching", e);
+        } catch (ExecutionException e) {
+            for (var cause = e.getCause(); cause != null; cause = cause.getCause()) {
+                if (cause instanceof MongoExecutionTimeoutException) {
+                    throw new SearchTimeoutException(cause);
+                }
+            }
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Extracts the terms a hit may match from a search, leaving out excluded terms.
+     * @param text the search
+     * @return the lowercase terms
+     */
+    static List<String> terms(String text) {
+        var terms = new ArrayList<String>();
+        for (var token : text.split("\\s+")) {
+            if (token.startsWith("-")) {
+                continue;
+            }
+            var matcher = TERM.matcher(token.toLowerCase(Locale.ROOT));
+            while (matcher.find()) {
+                terms.add(matcher.group());
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * Cuts the part of a message's content around the first occurrence of a search term.
+     * The text index matches stemmed terms, so a hit's content may not contain a term verbatim;
+     * the snippet then starts at the beginning of the content.
+     * @param content the message content
+     * @param terms the lowercase search terms
+     * @param length the approximate length of the snippet
+     * @return the snippet, with "..." where the content was cut
+     */
+    static String snippet(String content, List<String> terms, int length) {
+        if (content == null) {
+            return "";
+        }
+        if (content.length() <= length) {
+            return content;
+        }
+
+        var lowerContent = content.toLowerCase(Locale.ROOT);
+        var match = -1;
+        for (var term : terms) {
+            var index = lowerContent.indexOf(term);
+            if (index >= 0 && (match < 0 || index < match)) {
+                match = index;
+            }
+        }
+
+        var end = Math.min(content.length(), Math.max(0, match - length / 3) + length);
+        var start = Math.max(0, end - length);
+
+        return (start > 0 ? "..." : "") + content.substring(start, end).strip() + (end < content.length() ? "..." : "");
+    }
+
+    /**
+     * The fields of a message read for a search hit, with its text score.
+     */
+    record ScoredMessage(
+            @Id String id,
+            String chatId,
+            String senderId,
+            String recipientId,
+            String content,
+            LocalDateTime timestamp,
+            Long seq,
+            Double score
+    ) {
+    }
+}
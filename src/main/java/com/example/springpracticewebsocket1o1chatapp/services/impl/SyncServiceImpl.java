@@ -0,0 +1,142 @@
+package com.example.springpracticewebsocket1o1chatapp.services.impl;
+
+import com.example.springpracticewebsocket1o1chatapp.documents.ChatMessage;
+import com.example.springpracticewebsocket1o1chatapp.documents.GroupRoom;
+import com.example.springpracticewebsocket1o1chatapp.documents.SyncCursor;
+import com.example.springpracticewebsocket1o1chatapp.model.SyncPage;
+import com.example.springpracticewebsocket1o1chatapp.services.SyncService;
+import org.bson.types.ObjectId;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Implementation of the SyncService interface.
+ * Messages are read in ID order through the (recipientId, _id) index, with the user's own ID and
+ * the IDs of their groups as recipients, so a sync costs one query per page no matter how many
+ * chats the user has or how long their histories are.
+ * A user's first sync starts at their newest message rather than at the start of their history;
+ * older messages are reached through the history of each chat.
+ */
+@Service
+public class SyncServiceImpl implements SyncService {
+
+    private final MongoTemplate mongoTemplate;
+
+    /**
+     * Constructs a new SyncServiceImpl with the given template.
+     *
+     * @param mongoTemplate the template used for cursor queries and updates
+     */
+    public SyncServiceImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    /**
+     * Finds the messages a user received after a cursor, across their direct chats and groups.
+     * The user's own group messages are left out.
+     * A message created before the cursor but written after it, such as one still queued in
+     * write-behind mode or created on a node with a lagging clock, is not returned; clients receive
+     * it live if they are connected by then.
+     * A user who has neither a cursor nor an acknowledged one gets an empty page whose cursor is their
+     * newest message, which is stored as their acknowledged cursor, so the first sync does not walk
+     * their whole history.
+     * @param userId the user's ID
+     * @param since the cursor to continue from, or null to continue from the user's acknowledged cursor
+     * @param limit the maximum number of messages to return
+     * @return one page of messages and the cursor after it
+     * @throws IllegalArgumentException if the cursor is not a message ID
+     */
+    @Override
+    public SyncPage sync(String userId, String since, int limit) {
+        var cursor = since != null ? since : acknowledgedCursor(userId);
+
+        var recipientIds = new ArrayList<String>();
+        recipientIds.add(userId);
+        var groups = Query.query(Criteria.where("memberIds").is(userId));
+        groups.fields().include("_id");
+        mongoTemplate.find(groups, GroupRoom.class).forEach(group -> recipientIds.add(group.getId()));
+
+        var criteria = Criteria.where("recipientId").in(recipientIds).and("senderId").ne(userId);
+        if (cursor == null) {
+            return seed(userId, criteria);
+        }
+        criteria = criteria.and("_id").gt(new ObjectId(cursor));
+
+        var pageSize = Math.clamp(limit, 1, ChatMessageServiceImpl.MAX_PAGE_SIZE);
+        var messages = mongoTemplate.find(
+                Query.query(criteria).with(Sort.by("_id")).limit(pageSize + 1),
+                ChatMessage.class
+        );
+
+        var hasMore = messages.size() > pageSize;
+        if (hasMore) {
+            messages = messages.subList(0, pageSize);
+        }
+
+        return new SyncPage(messages, messages.isEmpty() ? cursor : messages.getLast().getId(), hasMore);
+    }
+
+    /**
+     * Records that a user has received all messages up to a cursor.
+     * The cursor is stored as a lowercase hex string and only replaced by a later one; a stale
+     * acknowledgement matches no document, and its upsert then fails on the existing user ID and is ignored.
+     * @param userId the user's ID
+     * @param cursor the cursor returned by a sync or the ID of a received message
+     * @throws IllegalArgumentException if the cursor is not a message ID
+     */
+    @Override
+    public void acknowledge(String userId, String cursor) {
+        var messageId = new ObjectId(cursor).toHexString();
+
+        try {
+            mongoTemplate.upsert(
+                    Query.query(Criteria.where("_id").is(userId).orOperator(
+                            Criteria.where("messageId").lt(messageId),
+                            Criteria.where("messageId").exists(false)
+                    )),
+                    Update.update("messageId", messageId).set("updatedAt", LocalDateTime.now()),
+                    SyncCursor.class
+            );
+        } catch (DuplicateKeyException ignored) {
+            // The stored cursor is already at or past this one.
+        }
+    }
+
+    /**
+     * Starts the cursor of a user who has never synced at their newest message.
+     * @param userId the user's ID
+     * @param criteria the criteria selecting the user's messages
+     * @return an empty page with the newest message as its cursor, or a null cursor if the user has
+     *         never received a message
+     */
+    private SyncPage seed(String userId, Criteria criteria) {
+        var newest = mongoTemplate.findOne(
+                Query.query(criteria).with(Sort.by(Sort.Direction.DESC, "_id")),
+                ChatMessage.class
+        );
+        if (newest == null) {
+            return new SyncPage(List.of(), null, false);
+        }
+        acknowledge(userId, newest.getId());
+        return new SyncPage(List.of(), newest.getId(), false);
+    }
+
+    /**
+     * Looks up the cursor a user last acknowledged.
+     * @param userId the user's ID
+     * @return the cursor, or null if the user has never acknowledged one
+     */
+    private String acknowledgedCursor(String userId) {
+        var syncCursor = mongoTemplate.findById(userId, SyncCursor.class);
+        return syncCursor != null ? syncCursor.getMessageId() : null;
+    }
+}
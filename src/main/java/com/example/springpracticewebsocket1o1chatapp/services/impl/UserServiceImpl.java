@@ -1,64 +1,222 @@
 package com.example.springpracticewebsocket1o1chatapp.services.impl;
 
+import com.example.springpracticewebsocket1o1chatapp.caches.PresenceRegistry;
 import com.example.springpracticewebsocket1o1chatapp.documents.User;
+import com.example.springpracticewebsocket1o1chatapp.model.PresenceDelta;
 import com.example.springpracticewebsocket1o1chatapp.model.Status;
 import com.example.springpracticewebsocket1o1chatapp.repos.UserRepo;
 import com.example.springpracticewebsocket1o1chatapp.services.UserService;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * Implementation of the UserService interface.
+ * Presence is tracked in the {@link PresenceRegistry}; status changes are written to the
+ * database in the background, in the order they happened, and never on the caller's thread.
  */
 @Service
 public class UserServiceImpl implements UserService {
 
+    private static final Logger log = LoggerFactory.getLogger(UserServiceImpl.class);
+
     private final UserRepo userRepo;
+    private final MongoTemplate mongoTemplate;
+    private final PresenceRegistry presenceRegistry;
+    private final ExecutorService statusWriter = Executors.newSingleThreadExecutor(
+            Thread.ofVirtual().name("user-status-writer").factory()
+    );
 
     /**
-     * Constructs a new UserServiceImpl with the given user repository.
+     * Constructs a new UserServiceImpl with the given user repository, template and presence registry.
      *
-     * @param userRepo the user repository
+     * @param userRepo         the user repository
+     * @param mongoTemplate    the template used for status updates
+     * @param presenceRegistry the registry of online users
      */
-    public UserServiceImpl(UserRepo userRepo) {
+    public UserServiceImpl(UserRepo userRepo, MongoTemplate mongoTemplate, PresenceRegistry presenceRegistry) {
         this.userRepo = userRepo;
+        this.mongoTemplate = mongoTemplate;
+        this.presenceRegistry = presenceRegistry;
     }
 
     /**
-     * Saves a user and sets their status to ONLINE.
+     * Saves a user's full name and sets their status to ONLINE.
      * @param user the user to save
+     * @return the ONLINE presence change
      */
     @Override
-    public void saveUser(User user) {
+    public PresenceDelta saveUser(User user) {
         user.setStatus(Status.ONLINE);
-        userRepo.save(user);
+        presenceRegistry.updateFullName(user.getNickName(), user.getFullName());
+        persistStatus(user.getNickName(), user.getFullName(), Status.ONLINE);
+        return PresenceDelta.online(user.getNickName(), user.getFullName());
     }
 
     /**
-     * Disconnects a user by setting their status to OFFLINE.
-     * It finds the user in the repository before updating their status.
+     * Disconnects a user by setting their status to OFFLINE, whatever sessions they still have open.
      * @param user the user to disconnect
+     * @return the OFFLINE presence change
+     */
+    @Override
+    public PresenceDelta disconnect(User user) {
+        presenceRegistry.remove(user.getNickName());
+        persistStatus(user.getNickName(), null, Status.OFFLINE);
+        return PresenceDelta.offline(user.getNickName());
+    }
+
+    /**
+     * Records that a user opened a session, marking them ONLINE if it is their first one.
+     * @param nickName the user's nickname
+     * @param fullName the user's full name, or null if not known
+     * @param sessionId the session ID
+     * @return the ONLINE presence change, or empty if the user was already online
      */
     @Override
-    public void disconnect(User user) {
-        var storedUser = userRepo.findById(
-                user.getNickName()
-        ).orElse(null);
-
-        if (storedUser != null) {
-            storedUser.setStatus(Status.OFFLINE);
-            userRepo.save(storedUser);
+    public Optional<PresenceDelta> sessionConnected(String nickName, String fullName, String sessionId) {
+        if (!presenceRegistry.addSession(nickName, fullName, sessionId)) {
+            return Optional.empty();
         }
+        persistStatus(nickName, fullName, Status.ONLINE);
+        return Optional.of(PresenceDelta.online(nickName, fullName));
+    }
+
+    /**
+     * Records that a user's session was closed, marking them OFFLINE if it was their last one.
+     * In relay mode a user whose last session on this node closes may still be connected to another
+     * node, and stays ONLINE until that node sees their last session close.
+     * @param nickName the user's nickname
+     * @param sessionId the session ID
+     * @return the OFFLINE presence change, or empty if the user still has other sessions
+     */
+    @Override
+    public Optional<PresenceDelta> sessionDisconnected(String nickName, String sessionId) {
+        if (!presenceRegistry.removeSession(nickName, sessionId)
+                || presenceRegistry.isOnlineElsewhere(nickName, sessionId)) {
+            return Optional.empty();
+        }
+        persistStatus(nickName, null, Status.OFFLINE);
+        return Optional.of(PresenceDelta.offline(nickName));
     }
 
     /**
      * Finds all users who are currently online.
+     * Users connected to this node come from memory; users only connected to other nodes are
+     * looked up by their nicknames.
      * @return a list of connected (online) users
      */
     @Override
     public List<User> findConnectedUsers() {
-        return userRepo.findAllByStatus(Status.ONLINE);
+        var users = new ArrayList<>(presenceRegistry.localUsers());
+        var remoteNickNames = presenceRegistry.remoteNickNames();
+
+        if (!remoteNickNames.isEmpty()) {
+            userRepo.findAllById(remoteNickNames).forEach(user -> {
+                user.setStatus(Status.ONLINE);
+                users.add(user);
+            });
+        }
+
+        return users;
+    }
+
+    /**
+     * Refreshes the last seen time of the users connected to this node, so that the sweepers of
+     * other nodes do not take them for stale.
+     */
+    @Override
+    public void touchConnectedUsers() {
+        var nickNames = presenceRegistry.localUsers().stream().map(User::getNickName).toList();
+        if (nickNames.isEmpty()) {
+            return;
+        }
+
+        mongoTemplate.updateMulti(
+                Query.query(Criteria.where("_id").in(nickNames).and("status").is(Status.ONLINE)),
+                Update.update("lastSeenAt", LocalDateTime.now()),
+                User.class
+        );
+    }
+
+    /**
+     * Marks OFFLINE the users stored as ONLINE whose last seen time is older than the given time, or
+     * missing, and who are not connected to any node.
+     * Each user is updated only if the record is still stale, so a user reconnecting meanwhile is left
+     * alone and, when several nodes sweep at once, the change is announced only once.
+     * @param seenBefore the time before which an ONLINE record is considered stale
+     * @return the OFFLINE presence changes
+     */
+    @Override
+    public List<PresenceDelta> expireStaleUsers(LocalDateTime seenBefore) {
+        var stale = new Criteria().andOperator(
+                Criteria.where("status").is(Status.ONLINE),
+                new Criteria().orOperator(
+                        Criteria.where("lastSeenAt").lt(seenBefore),
+                        Criteria.where("lastSeenAt").exists(false)
+                )
+        );
+
+        var deltas = new ArrayList<PresenceDelta>();
+        for (var user : mongoTemplate.find(Query.query(stale), User.class)) {
+            if (presenceRegistry.isOnline(user.getNickName())) {
+                continue;
+            }
+
+            var result = mongoTemplate.updateFirst(
+                    Query.query(Criteria.where("_id").is(user.getNickName()).andOperator(stale)),
+                    Update.update("status", Status.OFFLINE),
+                    User.class
+            );
+            if (result.getModifiedCount() > 0) {
+                deltas.add(PresenceDelta.offline(user.getNickName()));
+            }
+        }
+
+        if (!deltas.isEmpty()) {
+            log.info("Marked {} stale users offline", deltas.size());
+        }
+        return deltas;
+    }
+
+    /**
+     * Stops the status writer after the pending status changes have been written.
+     */
+    @PreDestroy
+    void close() {
+        statusWriter.close();
+    }
+
+    /**
+     * Queues a status change of a user to be written to the database.
+     * @param nickName the user's nickname
+     * @param fullName the user's full name, or null to keep the stored one
+     * @param status the new status
+     */
+    private void persistStatus(String nickName, String fullName, Status status) {
+        var update = Update.update("status", status).set("lastSeenAt", LocalDateTime.now());
+        if (fullName != null) {
+            update.set("fullName", fullName);
+        }
+
+        statusWriter.execute(() -> {
+            try {
+                mongoTemplate.upsert(Query.query(Criteria.where("_id").is(nickName)), update, User.class);
+            } catch (RuntimeException e) {
+                log.warn("Could not persist status {} of user {}", status, nickName, e);
+            }
+        });
     }
 
 }
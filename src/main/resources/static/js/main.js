@@ -26,7 +26,16 @@ const state = {
     nickname: null, // User's nickname
     fullname: null, // User's full name
     selectedUserId: null, // ID of the currently selected user
-    connectedUsers: [] // List of connected users
+    connectedUsers: [], // List of connected users
+    oldestMessageTimestamp: null, // Timestamp of the oldest message loaded for the selected chat
+    oldestMessageId: null, // ID of the oldest message loaded for the selected chat, ordering messages sharing its timestamp
+    oldestMessageSeq: null, // Sequence number of the oldest message loaded for the selected chat
+    hasMoreHistory: false, // Whether older messages may still be loaded for the selected chat
+    loadingHistory: false, // Whether an older page is currently being fetched
+    lastReceivedMessageId: null, // ID of the newest message received and not yet acknowledged
+    syncAckTimer: null, // Pending timer acknowledging the newest received message
+    pendingMessages: new Map(), // Sent messages not yet acknowledged by the server, by client message ID
+    resendTimer: null // Pending timer resending unacknowledged messages after a rate limit notice
 };
 
 /**
@@ -35,16 +44,26 @@ const state = {
  */
 const CONFIG = {
     USER_ICON_PATH: '../img/user_icon.png', // Path to user icon image
+    HISTORY_PAGE_SIZE: 50, // Number of messages fetched per history page
+    HISTORY_SCROLL_THRESHOLD: 50, // Distance in pixels from the top that triggers loading older messages
+    SYNC_PAGE_SIZE: 100, // Number of missed messages fetched per sync page
+    SYNC_ACK_DELAY: 5000, // Delay in milliseconds for batching acknowledgements of live messages
     ENDPOINTS: {
-        WS: '/ws', // WebSocket endpoint
+        WS_NATIVE: '/ws-native', // Plain WebSocket endpoint, preferred
+        WS: '/ws', // SockJS endpoint, used when a plain WebSocket cannot be opened
         USERS: '/users', // Endpoint for fetching users
         MESSAGES: (sender, recipient) => `/messages/${sender}/${recipient}`, // Endpoint for fetching messages
-        USER_ADD: '/app/user/add', // Endpoint for adding a user
-        USER_DISCONNECT: '/app/user/disconnect', // Endpoint for disconnecting a user
-        CHAT: '/app/chat' // Endpoint for sending chat messages
+        UNREAD: (userId) => `/unread/${userId}`, // Endpoint for fetching unread counts per chat
+        SYNC: (userId) => `/sync/${userId}`, // Endpoint for fetching messages missed while offline
+        SYNC_ACK: (userId) => `/sync/${userId}/ack`, // Endpoint for acknowledging received messages
+        CHAT: '/app/chat', // Endpoint for sending chat messages
+        RECEIPT: '/app/receipt' // Endpoint for sending delivery and read receipts
     },
     SUBSCRIPTIONS: {
-        MESSAGES: (nickname) => `/user/${nickname}/queue/messages`, // Subscription for private messages
+        MESSAGES: '/user/queue/messages', // Subscription for private messages, resolved per session by the server
+        RECEIPTS: '/user/queue/receipts', // Subscription for receipts of messages this user sent
+        ACKS: '/user/queue/acks', // Subscription for the server's acknowledgements of sent messages
+        ERRORS: '/user/queue/errors', // Subscription for notices of messages rejected by the rate limit
         PUBLIC: '/topic/public' // Subscription for public updates
     }
 };
@@ -96,6 +115,23 @@ const utils = {
      */
     clearElement: (element) => {
         element.innerHTML = '';
+    },
+
+    /**
+     * Generates a random version 4 UUID.
+     * crypto.randomUUID is only available in secure contexts, such as pages served over HTTPS or
+     * from localhost, so elsewhere the UUID is built from crypto.getRandomValues.
+     * @returns {string} - The UUID
+     */
+    uuid: () => {
+        if (typeof crypto.randomUUID === 'function') {
+            return crypto.randomUUID();
+        }
+        const bytes = crypto.getRandomValues(new Uint8Array(16));
+        bytes[6] = (bytes[6] & 0x0f) | 0x40;
+        bytes[8] = (bytes[8] & 0x3f) | 0x80;
+        const hex = Array.from(bytes, (byte) => byte.toString(16).padStart(2, '0')).join('');
+        return `${hex.slice(0, 8)}-${hex.slice(8, 12)}-${hex.slice(12, 16)}-${hex.slice(16, 20)}-${hex.slice(20)}`;
     }
 };
 
@@ -120,20 +156,118 @@ const api = {
     },
 
     /**
-     * Fetches messages between two users
+     * Fetches one page of messages between two users
      * @param {string} senderId - Sender's ID
      * @param {string} recipientId - Recipient's ID
-     * @returns {Promise<Array>} - List of messages
+     * @param {Object} [cursor] - Only fetch messages older than this cursor, given as
+     *                            {beforeSeq: number} or, for messages without a sequence number,
+     *                            {before: timestamp, beforeId: string}
+     * @returns {Promise<Array>} - List of messages, oldest first
      */
-    fetchMessages: async (senderId, recipientId) => {
+    fetchMessages: async (senderId, recipientId, cursor = {}) => {
         try {
-            const response = await fetch(CONFIG.ENDPOINTS.MESSAGES(senderId, recipientId));
+            const params = new URLSearchParams({limit: CONFIG.HISTORY_PAGE_SIZE, ...cursor});
+            const response = await fetch(`${CONFIG.ENDPOINTS.MESSAGES(senderId, recipientId)}?${params}`);
             if (!response.ok) throw new Error('Failed to fetch messages');
             return await response.json();
         } catch (error) {
             console.error('Error fetching messages:', error);
             return [];
         }
+    },
+
+    /**
+     * Fetches the number of unread messages per sender
+     * @param {string} userId - User's ID
+     * @returns {Promise<Object>} - Unread counts keyed by sender ID
+     */
+    fetchUnreadCounts: async (userId) => {
+        try {
+            const response = await fetch(CONFIG.ENDPOINTS.UNREAD(userId));
+            if (!response.ok) throw new Error('Failed to fetch unread counts');
+            return await response.json();
+        } catch (error) {
+            console.error('Error fetching unread counts:', error);
+            return {};
+        }
+    },
+
+    /**
+     * Fetches one page of the messages received since a cursor
+     * @param {string} userId - User's ID
+     * @param {string} [since] - Cursor to continue from; the acknowledged cursor is used without it
+     * @returns {Promise<Object|null>} - Page with messages, cursor and hasMore, or null on failure
+     */
+    fetchMissedMessages: async (userId, since) => {
+        try {
+            const params = new URLSearchParams({limit: CONFIG.SYNC_PAGE_SIZE});
+            if (since) params.set('since', since);
+            const response = await fetch(`${CONFIG.ENDPOINTS.SYNC(userId)}?${params}`);
+            if (!response.ok) throw new Error('Failed to sync messages');
+            return await response.json();
+        } catch (error) {
+            console.error('Error syncing messages:', error);
+            return null;
+        }
+    },
+
+    /**
+     * Acknowledges that all messages up to a cursor were received
+     * @param {string} userId - User's ID
+     * @param {string} cursor - Sync cursor or message ID
+     */
+    acknowledgeMessages: async (userId, cursor) => {
+        try {
+            const params = new URLSearchParams({cursor});
+            const response = await fetch(`${CONFIG.ENDPOINTS.SYNC_ACK(userId)}?${params}`, {method: 'POST'});
+            if (!response.ok) throw new Error('Failed to acknowledge messages');
+        } catch (error) {
+            console.error('Error acknowledging messages:', error);
+        }
+    }
+};
+
+/**
+ * Functions for catching up on messages missed while offline
+ * @type {Object}
+ */
+const sync = {
+    /**
+     * Fetches every page of missed messages, confirms their delivery to the senders
+     * and acknowledges the last cursor; each sender gets one receipt for their newest message
+     */
+    catchUp: async () => {
+        const newestBySender = new Map();
+        let cursor = null;
+        let page;
+        do {
+            page = await api.fetchMissedMessages(state.nickname, cursor);
+            if (!page) return;
+            // Pages are in ID order, so the last message of a sender is their newest
+            page.messages
+                .filter(message => message.recipientId === state.nickname)
+                .forEach(message => newestBySender.set(message.senderId, message));
+            cursor = page.cursor;
+        } while (page.hasMore);
+        newestBySender.forEach(message =>
+            websocket.sendReceipt('DELIVERED', message.senderId, message.id, message.seq));
+        if (cursor) {
+            await api.acknowledgeMessages(state.nickname, cursor);
+        }
+    },
+
+    /**
+     * Records a message received live and acknowledges it after a short delay,
+     * so a burst of messages costs a single acknowledgement
+     * @param {string} messageId - ID of the received message
+     */
+    messageReceived: (messageId) => {
+        state.lastReceivedMessageId = messageId;
+        if (state.syncAckTimer) return;
+        state.syncAckTimer = setTimeout(() => {
+            state.syncAckTimer = null;
+            api.acknowledgeMessages(state.nickname, state.lastReceivedMessageId);
+        }, CONFIG.SYNC_ACK_DELAY);
     }
 };
 
@@ -143,12 +277,37 @@ const api = {
  */
 const websocket = {
     /**
-     * Establishes a WebSocket connection
+     * Establishes a WebSocket connection, over a plain WebSocket when the browser supports it
+     * and through SockJS otherwise or if the plain WebSocket fails before connecting
+     * @param {boolean} useSockJS - Whether to connect through SockJS
      */
-    connect: () => {
-        const socket = new SockJS(CONFIG.ENDPOINTS.WS);
+    connect: (useSockJS = !('WebSocket' in window)) => {
+        const socket = useSockJS ? new SockJS(CONFIG.ENDPOINTS.WS) : new WebSocket(websocket.nativeUrl());
+        let connected = false;
         state.stompClient = Stomp.over(socket);
-        state.stompClient.connect({}, websocket.onConnected, websocket.onError);
+        // Exchange heartbeats with the server so a dropped connection is noticed on both sides
+        state.stompClient.heartbeat.outgoing = 10000;
+        state.stompClient.heartbeat.incoming = 10000;
+        const headers = {nickname: state.nickname, fullname: state.fullname};
+        state.stompClient.connect(headers, () => {
+            connected = true;
+            websocket.onConnected();
+        }, error => {
+            if (!connected && !useSockJS) {
+                websocket.connect(true);
+            } else {
+                websocket.onError(error);
+            }
+        });
+    },
+
+    /**
+     * Builds the absolute URL of the plain WebSocket endpoint
+     * @returns {string} WebSocket URL
+     */
+    nativeUrl: () => {
+        const protocol = window.location.protocol === 'https:' ? 'wss:' : 'ws:';
+        return `${protocol}//${window.location.host}${CONFIG.ENDPOINTS.WS_NATIVE}`;
     },
 
     /**
@@ -157,16 +316,29 @@ const websocket = {
     onConnected: () => {
         try {
             state.stompClient.subscribe(
-                CONFIG.SUBSCRIPTIONS.MESSAGES(state.nickname),
+                CONFIG.SUBSCRIPTIONS.MESSAGES,
                 messageHandler.onMessageReceived
             );
+            state.stompClient.subscribe(
+                CONFIG.SUBSCRIPTIONS.RECEIPTS,
+                messageHandler.onReceiptReceived
+            );
+            state.stompClient.subscribe(
+                CONFIG.SUBSCRIPTIONS.ACKS,
+                messageHandler.onAckReceived
+            );
+            state.stompClient.subscribe(
+                CONFIG.SUBSCRIPTIONS.ERRORS,
+                messageHandler.onRateLimited
+            );
             state.stompClient.subscribe(
                 CONFIG.SUBSCRIPTIONS.PUBLIC,
                 messageHandler.onUserStatusUpdate
             );
-            websocket.sendUserStatus('ONLINE');
+            websocket.resendPending();
             DOM.connectedUserFullname.textContent = state.fullname;
             ui.findAndDisplayConnectedUsers();
+            sync.catchUp();
         } catch (error) {
             console.error('Connection setup failed:', error);
             websocket.onError();
@@ -184,28 +356,46 @@ const websocket = {
     },
 
     /**
-     * Sends a chat message via WebSocket
-     * @param {Object} chatMessage - Chat message object
+     * Sends a chat message via WebSocket, keeping it until the server acknowledges it
+     * @param {Object} chatMessage - Chat message object carrying a client message ID
      */
     sendMessage: (chatMessage) => {
+        state.pendingMessages.set(chatMessage.clientMessageId, chatMessage);
         if (state.stompClient && state.stompClient.connected) {
             state.stompClient.send(CONFIG.ENDPOINTS.CHAT, {}, JSON.stringify(chatMessage));
         }
     },
 
     /**
-     * Sends user status (e.g., ONLINE/OFFLINE) via WebSocket
-     * @param {string} status - User status
+     * Resends messages that were not acknowledged before the connection was (re)established;
+     * the server recognises any that were already stored by their client message ID
      */
-    sendUserStatus: (status) => {
+    resendPending: () => {
+        if (!state.stompClient || !state.stompClient.connected) return;
+        state.pendingMessages.forEach(chatMessage =>
+            state.stompClient.send(CONFIG.ENDPOINTS.CHAT, {}, JSON.stringify(chatMessage)));
+    },
+
+    /**
+     * Sends a receipt for a message received from another user
+     * @param {string} type - DELIVERED or READ; either covers all earlier messages from the sender too
+     * @param {string} senderId - ID of the user who sent the message
+     * @param {string} [messageId] - ID of the message
+     * @param {number} [seq] - Sequence number of the message; a read receipt clears unread messages up to it
+     */
+    sendReceipt: (type, senderId, messageId, seq) => {
         if (state.stompClient && state.stompClient.connected) {
-            const userStatus = {
-                nickName: state.nickname,
-                fullName: state.fullname,
-                status
-            };
-            const endpoint = status === 'ONLINE' ? CONFIG.ENDPOINTS.USER_ADD : CONFIG.ENDPOINTS.USER_DISCONNECT;
-            state.stompClient.send(endpoint, {}, JSON.stringify(userStatus));
+            const receipt = {type, messageId, senderId, recipientId: state.nickname, seq};
+            state.stompClient.send(CONFIG.ENDPOINTS.RECEIPT, {}, JSON.stringify(receipt));
+        }
+    },
+
+    /**
+     * Closes the WebSocket connection; the server marks the user offline once their last session is gone
+     */
+    disconnect: () => {
+        if (state.stompClient && state.stompClient.connected) {
+            state.stompClient.disconnect();
         }
     }
 };
@@ -236,6 +426,48 @@ const ui = {
                 ui.appendSeparator();
             }
         });
+        const unreadCounts = await api.fetchUnreadCounts(state.nickname);
+        Object.entries(unreadCounts).forEach(([senderId, count]) => ui.setUnreadCount(senderId, count));
+    },
+
+    /**
+     * Shows the number of unread messages from a user next to their name
+     * @param {string} senderId - Sender's ID
+     * @param {number} count - Unread count; zero hides the counter
+     */
+    setUnreadCount: (senderId, count) => {
+        const listItem = document.getElementById(senderId);
+        if (!listItem) return;
+        const nbrMsg = listItem.querySelector('.nbr-msg');
+        utils.toggleClass(nbrMsg, 'hidden', count === 0);
+        nbrMsg.textContent = String(count);
+    },
+
+    /**
+     * Adds a user who came online to the connected users list
+     * @param {Object} user - User object
+     */
+    addConnectedUser: (user) => {
+        if (user.nickName === state.nickname || state.connectedUsers.some(u => u.nickName === user.nickName)) return;
+        state.connectedUsers.push(user);
+        if (DOM.connectedUsersList.children.length > 0) {
+            ui.appendSeparator();
+        }
+        ui.appendUserElement(user);
+    },
+
+    /**
+     * Removes a user who went offline from the connected users list
+     * @param {string} nickName - User's nickname
+     */
+    removeConnectedUser: (nickName) => {
+        state.connectedUsers = state.connectedUsers.filter(user => user.nickName !== nickName);
+        const listItem = document.getElementById(nickName);
+        if (!listItem) return;
+        const separator = [listItem.previousElementSibling, listItem.nextElementSibling]
+            .find(sibling => sibling && sibling.classList.contains('separator'));
+        if (separator) separator.remove();
+        listItem.remove();
     },
 
     /**
@@ -276,36 +508,108 @@ const ui = {
         utils.toggleClass(clickedUser, 'active', true);
         state.selectedUserId = clickedUser.id;
         ui.fetchAndDisplayUserChat();
-        const nbrMsg = clickedUser.querySelector('.nbr-msg');
-        utils.toggleClass(nbrMsg, 'hidden', true);
-        nbrMsg.textContent = '0';
+        ui.setUnreadCount(clickedUser.id, 0);
     },
 
     /**
-     * Displays a chat message in the chat area
+     * Creates the element for a single chat message
      * @param {string} senderId - Sender's ID
      * @param {string} content - Message content
+     * @returns {HTMLElement} - Message element
      */
-    displayMessage: (senderId, content) => {
+    createMessageElement: (senderId, content) => {
         const messageContainer = utils.createElement('div', 'message');
         const messageClass = senderId === state.nickname ? 'sender' : 'receiver';
         messageContainer.classList.add(messageClass);
         const message = utils.createElement('p', '', content);
         messageContainer.appendChild(message);
-        DOM.chatArea.appendChild(messageContainer);
+        return messageContainer;
+    },
+
+    /**
+     * Displays a chat message in the chat area
+     * @param {string} senderId - Sender's ID
+     * @param {string} content - Message content
+     */
+    displayMessage: (senderId, content) => {
+        DOM.chatArea.appendChild(ui.createMessageElement(senderId, content));
+    },
+
+    /**
+     * Records the paging state after a history page was loaded
+     * @param {Array} messages - Loaded page, oldest first
+     * @param {boolean} [pagedBySeq] - Whether the page was loaded with a sequence cursor
+     */
+    updateHistoryState: (messages, pagedBySeq = false) => {
+        if (messages.length > 0) {
+            state.oldestMessageTimestamp = messages[0].timestamp;
+            state.oldestMessageId = messages[0].id;
+            state.oldestMessageSeq = messages[0].seq;
+        }
+        state.hasMoreHistory = messages.length === CONFIG.HISTORY_PAGE_SIZE;
+        if (pagedBySeq && !state.hasMoreHistory) {
+            // Messages stored before sequence numbers were assigned can only be reached by timestamp
+            state.oldestMessageSeq = null;
+            state.hasMoreHistory = true;
+        }
     },
 
     /**
-     * Fetches and displays the chat history with the selected user
+     * Fetches and displays the newest page of the chat history with the selected user
      */
     fetchAndDisplayUserChat: async () => {
         if (!state.selectedUserId) return;
+        state.oldestMessageTimestamp = null;
+        state.oldestMessageId = null;
+        state.oldestMessageSeq = null;
+        state.hasMoreHistory = false;
         const messages = await api.fetchMessages(state.nickname, state.selectedUserId);
         utils.clearElement(DOM.chatArea);
         messages.forEach(chat => {
             ui.displayMessage(chat.senderId, chat.content);
         });
+        ui.updateHistoryState(messages);
         utils.scrollToBottom(DOM.chatArea);
+        const lastReceived = messages.findLast(chat => chat.senderId === state.selectedUserId);
+        websocket.sendReceipt('READ', state.selectedUserId, lastReceived && lastReceived.id, lastReceived && lastReceived.seq);
+    },
+
+    /**
+     * Marks the displayed messages this user sent to a chat partner as read
+     * @param {string} recipientId - ID of the chat partner who read them
+     */
+    markMessagesRead: (recipientId) => {
+        if (state.selectedUserId !== recipientId) return;
+        DOM.chatArea.querySelectorAll('.message.sender').forEach(message => {
+            utils.toggleClass(message, 'read', true);
+        });
+    },
+
+    /**
+     * Loads the page of messages preceding the oldest one displayed and prepends it,
+     * keeping the current scroll position stable
+     */
+    loadOlderMessages: async () => {
+        if (!state.selectedUserId || !state.hasMoreHistory || state.loadingHistory) return;
+        state.loadingHistory = true;
+        try {
+            const chatUserId = state.selectedUserId;
+            const cursor = state.oldestMessageSeq != null
+                ? {beforeSeq: state.oldestMessageSeq}
+                : {before: state.oldestMessageTimestamp, beforeId: state.oldestMessageId};
+            const messages = await api.fetchMessages(state.nickname, chatUserId, cursor);
+            if (chatUserId !== state.selectedUserId) return;
+            const previousHeight = DOM.chatArea.scrollHeight;
+            const fragment = document.createDocumentFragment();
+            messages.forEach(chat => {
+                fragment.appendChild(ui.createMessageElement(chat.senderId, chat.content));
+            });
+            DOM.chatArea.prepend(fragment);
+            DOM.chatArea.scrollTop += DOM.chatArea.scrollHeight - previousHeight;
+            ui.updateHistoryState(messages, cursor.beforeSeq != null);
+        } finally {
+            state.loadingHistory = false;
+        }
     }
 };
 
@@ -320,29 +624,82 @@ const messageHandler = {
      */
     onMessageReceived: async (payload) => {
         try {
-            await ui.findAndDisplayConnectedUsers();
             console.log('Message received', payload);
             const message = JSON.parse(payload.body);
             if (state.selectedUserId === message.senderId) {
                 ui.displayMessage(message.senderId, message.content);
                 utils.scrollToBottom(DOM.chatArea);
+                websocket.sendReceipt('READ', message.senderId, message.id, message.seq);
+            } else {
+                websocket.sendReceipt('DELIVERED', message.senderId, message.id, message.seq);
             }
             messageHandler.updateActiveUser();
             messageHandler.updateNotificationCounter(message.senderId);
+            sync.messageReceived(message.id);
         } catch (error) {
             console.error('Error processing received message:', error);
         }
     },
 
     /**
-     * Handles user status updates (e.g., ONLINE/OFFLINE)
+     * Handles receipts for messages this user sent
+     * @param {Object} payload - WebSocket message payload
+     */
+    onReceiptReceived: (payload) => {
+        try {
+            const receipt = JSON.parse(payload.body);
+            console.log('Receipt received', receipt);
+            if (receipt.type === 'READ') {
+                ui.markMessagesRead(receipt.recipientId);
+            }
+        } catch (error) {
+            console.error('Error processing receipt:', error);
+        }
+    },
+
+    /**
+     * Handles the server's acknowledgements of sent messages
+     * @param {Object} payload - WebSocket message payload
+     */
+    onAckReceived: (payload) => {
+        try {
+            const ack = JSON.parse(payload.body);
+            console.log('Ack received', ack);
+            state.pendingMessages.delete(ack.clientMessageId);
+        } catch (error) {
+            console.error('Error processing ack:', error);
+        }
+    },
+
+    /**
+     * Handles a notice that a message was rejected for being sent too fast; unacknowledged
+     * messages are resent once the server is ready to accept them again
      * @param {Object} payload - WebSocket message payload
      */
-    onUserStatusUpdate: async (payload) => {
+    onRateLimited: (payload) => {
+        try {
+            const notice = JSON.parse(payload.body);
+            console.warn('Rate limited', notice);
+            clearTimeout(state.resendTimer);
+            state.resendTimer = setTimeout(websocket.resendPending, notice.retryAfterMillis);
+        } catch (error) {
+            console.error('Error processing rate limit notice:', error);
+        }
+    },
+
+    /**
+     * Handles user presence changes (e.g., ONLINE/OFFLINE), applying them to the local list
+     * @param {Object} payload - WebSocket message payload
+     */
+    onUserStatusUpdate: (payload) => {
         try {
             const userStatus = JSON.parse(payload.body);
             console.log('User status updated', userStatus);
-            await ui.findAndDisplayConnectedUsers();
+            if (userStatus.status === 'ONLINE') {
+                ui.addConnectedUser(userStatus);
+            } else {
+                ui.removeConnectedUser(userStatus.nickName);
+            }
             if (userStatus.status === 'OFFLINE' && state.selectedUserId === userStatus.nickName) {
                 state.selectedUserId = null;
                 utils.toggleClass(DOM.messageForm, 'hidden', true);
@@ -376,8 +733,8 @@ const messageHandler = {
         const notifiedUser = document.querySelector(`#${senderId}`);
         if (notifiedUser && !notifiedUser.classList.contains('active')) {
             const nbrMsg = notifiedUser.querySelector('.nbr-msg');
-            utils.toggleClass(nbrMsg, 'hidden', false);
-            nbrMsg.textContent = '';
+            const count = nbrMsg.classList.contains('hidden') ? 0 : Number(nbrMsg.textContent) || 0;
+            ui.setUnreadCount(senderId, count + 1);
         }
     }
 };
@@ -412,10 +769,10 @@ const eventHandlers = {
         const messageContent = DOM.messageInput.value.trim();
         if (!messageContent || !state.stompClient || !state.selectedUserId) return;
         const chatMessage = {
+            clientMessageId: utils.uuid(),
             senderId: state.nickname,
             recipientId: state.selectedUserId,
-            content: messageContent,
-            timestamp: new Date()
+            content: messageContent
         };
         websocket.sendMessage(chatMessage);
         ui.displayMessage(state.nickname, messageContent);
@@ -428,10 +785,19 @@ const eventHandlers = {
      * @param {Event} [event] - Click or beforeunload event
      */
     logout: (event) => {
-        websocket.sendUserStatus('OFFLINE');
+        websocket.disconnect();
         if (!event || event.type !== 'beforeunload') {
             window.location.reload();
         }
+    },
+
+    /**
+     * Handles scrolling in the chat area, loading older messages near the top
+     */
+    chatScroll: () => {
+        if (DOM.chatArea.scrollTop <= CONFIG.HISTORY_SCROLL_THRESHOLD) {
+            ui.loadOlderMessages();
+        }
     }
 };
 
@@ -442,6 +808,7 @@ const initializeEventListeners = () => {
     DOM.usernameForm.addEventListener('submit', eventHandlers.connect);
     DOM.messageForm.addEventListener('submit', eventHandlers.sendMessage);
     DOM.logout.addEventListener('click', eventHandlers.logout);
+    DOM.chatArea.addEventListener('scroll', eventHandlers.chatScroll);
     window.addEventListener('beforeunload', eventHandlers.logout);
 };
 
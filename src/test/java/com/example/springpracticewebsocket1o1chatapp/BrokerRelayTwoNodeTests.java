@@ -0,0 +1,148 @@
+package com.example.springpracticewebsocket1o1chatapp;
+
+import com.example.springpracticewebsocket1o1chatapp.model.ChatNotification;
+import org.apache.activemq.artemis.core.config.impl.ConfigurationImpl;
+import org.apache.activemq.artemis.core.server.embedded.EmbeddedActiveMQ;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.stomp.StompBrokerRelayMessageHandler;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.test.util.TestSocketUtils;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+import org.springframework.web.socket.sockjs.client.SockJsClient;
+import org.springframework.web.socket.sockjs.client.WebSocketTransport;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs two application nodes relaying to one embedded STOMP broker and checks that a user
+ * connected to the first node can message a user connected to the second.
+ * Both nodes share one MongoDB container, as the nodes of a cluster share one database.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class BrokerRelayTwoNodeTests {
+
+    @Container
+    static MongoDBContainer mongo = new MongoDBContainer("mongo:7");
+
+    private static EmbeddedActiveMQ broker;
+    private static ConfigurableApplicationContext node1;
+    private static ConfigurableApplicationContext node2;
+
+    @BeforeAll
+    static void startBrokerAndNodes() throws Exception {
+        var stompPort = TestSocketUtils.findAvailableTcpPort();
+
+        var configuration = new ConfigurationImpl()
+                .setPersistenceEnabled(false)
+                .setSecurityEnabled(false)
+                .addAcceptorConfiguration("stomp", "tcp://localhost:" + stompPort
+                        + "?protocols=STOMP;anycastPrefix=/queue/;multicastPrefix=/topic/");
+        broker = new EmbeddedActiveMQ().setConfiguration(configuration).start();
+
+        node1 = startNode(stompPort);
+        node2 = startNode(stompPort);
+    }
+
+    @AfterAll
+    static void stopNodesAndBroker() throws Exception {
+        if (node1 != null) {
+            node1.close();
+        }
+        if (node2 != null) {
+            node2.close();
+        }
+        if (broker != null) {
+            broker.stop();
+        }
+    }
+
+    @Test
+    void messageReachesUserConnectedToOtherNode() throws Exception {
+        var received = new CompletableFuture<ChatNotification>();
+
+        var bob = connect(node2, "bob");
+        var subscribed = new CompletableFuture<Void>();
+        bob.setAutoReceipt(true);
+        bob.subscribe("/user/queue/messages", new StompFrameHandler() {
+            @Override
+            public Type getPayloadType(StompHeaders headers) {
+                return ChatNotification.class;
+            }
+
+            @Override
+            public void handleFrame(StompHeaders headers, Object payload) {
+                received.complete((ChatNotification) payload);
+            }
+        }).addReceiptTask(() -> subscribed.complete(null));
+        subscribed.get(10, TimeUnit.SECONDS);
+
+        var alice = connect(node1, "alice");
+        alice.send("/app/chat", Map.of(
+                "senderId", "alice",
+                "recipientId", "bob",
+                "content", "hello from node 1"
+        ));
+
+        var notification = received.get(10, TimeUnit.SECONDS);
+        assertEquals("alice", notification.senderId());
+        assertEquals("hello from node 1", notification.content());
+    }
+
+    private static ConfigurableApplicationContext startNode(int stompPort) throws InterruptedException {
+        var context = new SpringApplicationBuilder(SpringPracticeWebsocket1o1ChatAppApplication.class)
+                .run(
+                        "--server.port=0",
+                        "--chat.broker.mode=relay",
+                        "--chat.broker.relay-port=" + stompPort,
+                        "--spring.data.mongodb.uri=" + mongo.getReplicaSetUrl()
+                );
+
+        var relay = context.getBean(StompBrokerRelayMessageHandler.class);
+        var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!relay.isBrokerAvailable() && System.nanoTime() < deadline) {
+            Thread.sleep(50);
+        }
+        assertTrue(relay.isBrokerAvailable(), "node did not connect to the broker");
+
+        return context;
+    }
+
+    private static StompSession connect(ConfigurableApplicationContext node, String nickname) throws Exception {
+        var port = node.getEnvironment().getRequiredProperty("local.server.port");
+        var stompClient = new WebSocketStompClient(
+                new SockJsClient(List.of(new WebSocketTransport(new StandardWebSocketClient())))
+        );
+        stompClient.setMessageConverter(new MappingJackson2MessageConverter());
+
+        var connectHeaders = new StompHeaders();
+        connectHeaders.add("nickname", nickname);
+
+        return stompClient.connectAsync(
+                "ws://localhost:" + port + "/ws",
+                new WebSocketHttpHeaders(),
+                connectHeaders,
+                new StompSessionHandlerAdapter() {
+                }
+        ).get(10, TimeUnit.SECONDS);
+    }
+}
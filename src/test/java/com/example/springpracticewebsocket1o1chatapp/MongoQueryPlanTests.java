@@ -0,0 +1,210 @@
+package com.example.springpracticewebsocket1o1chatapp;
+
+import com.example.springpracticewebsocket1o1chatapp.model.MessageSummary;
+import com.example.springpracticewebsocket1o1chatapp.model.Status;
+import com.example.springpracticewebsocket1o1chatapp.repos.ChatMessageRepo;
+import com.example.springpracticewebsocket1o1chatapp.repos.ChatRoomRepo;
+import com.example.springpracticewebsocket1o1chatapp.repos.GroupRoomRepo;
+import com.example.springpracticewebsocket1o1chatapp.repos.UserRepo;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.lang.reflect.Method;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Runs every query method of the repositories against a MongoDB container with the indexes the
+ * application creates on startup, captures the commands the driver sends, and fails if the query
+ * plan MongoDB picks for any of them scans the whole collection.
+ * The reactive repositories declare the same queries and are not run separately.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@DataMongoTest
+class MongoQueryPlanTests {
+
+    private static final Set<String> QUERY_COMMANDS = Set.of("find", "update", "delete", "findAndModify", "count");
+
+    private static final List<BsonDocument> CAPTURED_COMMANDS = new CopyOnWriteArrayList<>();
+
+    @Container
+    @ServiceConnection
+    static MongoDBContainer mongo = new MongoDBContainer("mongo:7");
+
+    @Autowired
+    private ChatMessageRepo chatMessageRepo;
+
+    @Autowired
+    private ChatRoomRepo chatRoomRepo;
+
+    @Autowired
+    private GroupRoomRepo groupRoomRepo;
+
+    @Autowired
+    private UserRepo userRepo;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @TestFactory
+    Stream<DynamicTest> queryMethodsUseAnIndex() {
+        return queries().entrySet().stream().map(query -> DynamicTest.dynamicTest(query.getKey(), () -> {
+            CAPTURED_COMMANDS.clear();
+            query.getValue().run();
+
+            assertFalse(CAPTURED_COMMANDS.isEmpty(), "no query was sent");
+            for (var command : CAPTURED_COMMANDS) {
+                var winningPlan = explain(command).getDocument("queryPlanner").getDocument("winningPlan");
+                assertFalse(hasStage(winningPlan, "COLLSCAN"),
+                        () -> "collection scan for " + command.toJson() + ": " + winningPlan.toJson());
+            }
+        }));
+    }
+
+    @Test
+    void everyQueryMethodIsChecked() {
+        var declared = Stream.of(ChatMessageRepo.class, ChatRoomRepo.class, GroupRoomRepo.class, UserRepo.class)
+                .flatMap(repo -> Arrays.stream(repo.getDeclaredMethods())
+                        .filter(method -> !method.isDefault() && !method.isSynthetic())
+                        .map(method -> name(repo, method)))
+                .collect(Collectors.toSet());
+
+        assertEquals(declared, queries().keySet());
+    }
+
+    /**
+     * Calls each query method of the repositories with representative arguments.
+     *
+     * @return the calls by repository and method name
+     */
+    private Map<String, Runnable> queries() {
+        var now = LocalDateTime.now();
+        var summary = new MessageSummary("message", "alice", "hello", now, 1L);
+
+        var queries = new LinkedHashMap<String, Runnable>();
+        queries.put("ChatMessageRepo.findByChatId",
+                () -> chatMessageRepo.findByChatId("alice_bob"));
+        queries.put("ChatMessageRepo.findByChatIdOrderByTimestampDescIdDesc",
+                () -> chatMessageRepo.findByChatIdOrderByTimestampDescIdDesc("alice_bob", Limit.of(50)));
+        queries.put("ChatMessageRepo.findByChatIdBefore",
+                () -> chatMessageRepo.findByChatIdBefore("alice_bob", now, new ObjectId(), Limit.of(50)));
+        queries.put("ChatMessageRepo.findByChatIdAfter",
+                () -> chatMessageRepo.findByChatIdAfter("alice_bob", now, new ObjectId(), Limit.of(50)));
+        queries.put("ChatMessageRepo.findByChatIdAndSeqLessThanOrderBySeqDesc",
+                () -> chatMessageRepo.findByChatIdAndSeqLessThanOrderBySeqDesc("alice_bob", Long.MAX_VALUE, Limit.of(50)));
+        queries.put("ChatMessageRepo.findByChatIdAndSeqGreaterThanOrderBySeqAsc",
+                () -> chatMessageRepo.findByChatIdAndSeqGreaterThanOrderBySeqAsc("alice_bob", 0, Limit.of(50)));
+        queries.put("ChatMessageRepo.findBySenderIdAndClientMessageId",
+                () -> chatMessageRepo.findBySenderIdAndClientMessageId("alice", "client-message"));
+        queries.put("ChatRoomRepo.findBySenderIdAndRecipientId",
+                () -> chatRoomRepo.findBySenderIdAndRecipientId("alice", "bob"));
+        queries.put("ChatRoomRepo.findBySenderIdAndUnreadCountGreaterThan",
+                () -> chatRoomRepo.findBySenderIdAndUnreadCountGreaterThan("alice", 0));
+        queries.put("ChatRoomRepo.findAndIncrementUnreadCountBySenderIdAndRecipientId",
+                () -> chatRoomRepo.findAndIncrementUnreadCountBySenderIdAndRecipientId("alice", "bob", 1));
+        queries.put("ChatRoomRepo.findAndResetUnreadCountBySenderIdAndRecipientId",
+                () -> chatRoomRepo.findAndResetUnreadCountBySenderIdAndRecipientId("alice", "bob"));
+        queries.put("ChatRoomRepo.findBySenderIdOrderByLastMessageTimestampDesc",
+                () -> chatRoomRepo.findBySenderIdOrderByLastMessageTimestampDesc("alice", Limit.of(50)));
+        queries.put("ChatRoomRepo.updateLastMessageBySenderIdAndRecipientId",
+                () -> chatRoomRepo.updateLastMessageBySenderIdAndRecipientId("alice", "bob", 1, summary));
+        queries.put("ChatRoomRepo.updateLastMessageAndIncrementUnreadCountBySenderIdAndRecipientId",
+                () -> chatRoomRepo.updateLastMessageAndIncrementUnreadCountBySenderIdAndRecipientId("alice", "bob", 1, summary));
+        queries.put("ChatRoomRepo.markReadBySenderIdAndRecipientId",
+                () -> chatRoomRepo.markReadBySenderIdAndRecipientId("alice", "bob", 1));
+        queries.put("GroupRoomRepo.findAllByMemberIds",
+                () -> groupRoomRepo.findAllByMemberIds("alice"));
+        queries.put("UserRepo.findAllByStatus",
+                () -> userRepo.findAllByStatus(Status.ONLINE));
+        return queries;
+    }
+
+    /**
+     * Asks MongoDB for the plan it would pick for a captured command.
+     *
+     * @param command the command as the driver sent it
+     * @return the explain output
+     */
+    private BsonDocument explain(BsonDocument command) {
+        var explained = new BsonDocument();
+        command.forEach((field, value) -> {
+            if (!field.startsWith("$") && !field.equals("lsid") && !field.equals("txnNumber")) {
+                explained.put(field, value);
+            }
+        });
+        return mongoTemplate.getDb().runCommand(
+                new BsonDocument("explain", explained).append("verbosity", new BsonString("queryPlanner")),
+                BsonDocument.class
+        );
+    }
+
+    /**
+     * Checks whether a plan or any of its input stages is of a given kind.
+     *
+     * @param value the plan, or a part of it
+     * @param stage the stage name
+     * @return whether the stage occurs in the plan
+     */
+    private static boolean hasStage(BsonValue value, String stage) {
+        if (value instanceof BsonDocument document) {
+            return new BsonString(stage).equals(document.get("stage"))
+                    || document.values().stream().anyMatch(nested -> hasStage(nested, stage));
+        }
+        if (value instanceof BsonArray array) {
+            return array.stream().anyMatch(nested -> hasStage(nested, stage));
+        }
+        return false;
+    }
+
+    private static String name(Class<?> repo, Method method) {
+        return repo.getSimpleName() + "." + method.getName();
+    }
+
+    /**
+     * Records the query commands the application's MongoDB client sends.
+     */
+    @TestConfiguration
+    static class CommandCapture {
+
+        @Bean
+        MongoClientSettingsBuilderCustomizer commandCapture() {
+            return settings -> settings.addCommandListener(new CommandListener() {
+                @Override
+                public void commandStarted(CommandStartedEvent event) {
+                    if (QUERY_COMMANDS.contains(event.getCommandName())) {
+                        CAPTURED_COMMANDS.add(event.getCommand().clone());
+                    }
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package com.example.springpracticewebsocket1o1chatapp;
+
+import com.example.springpracticewebsocket1o1chatapp.model.ChatNotification;
+import com.example.springpracticewebsocket1o1chatapp.model.PresenceDelta;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+import org.springframework.web.socket.sockjs.client.SockJsClient;
+import org.springframework.web.socket.sockjs.client.WebSocketTransport;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Opens many simulated browser clients against "/ws-native", or "/ws" through SockJS with
+ * {@code -Dload.sockjs=true}, has each of them chat with the next one the way main.js does, and
+ * reports send-to-receive latency percentiles, throughput and errors.
+ * <p>
+ * Latency is measured from the time each message was scheduled to be sent, so a server that falls
+ * behind shows up as latency rather than as a slower send rate. Rate limiting is switched off, as
+ * the simulated clients send faster than a person would. The load is sized with system
+ * properties, and any application property can be overridden the same way to compare modes:
+ * <pre>
+ * ./mvnw -Pload test -Dload.clients=1000 -Dload.messages=100 -Dload.interval-ms=50 \
+ *     -Dchat.persistence.mode=reactive -Dspring.threads.virtual.enabled=true
+ * </pre>
+ */
+@Tag("load")
+@Testcontainers
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "chat.rate-limit.enabled=false")
+class WebSocketLoadTests {
+
+    @Container
+    @ServiceConnection
+    static MongoDBContainer mongo = new MongoDBContainer("mongo:7");
+
+    @LocalServerPort
+    private int port;
+
+    private final int clients = Integer.getInteger("load.clients", 200);
+    private final int messagesPerClient = Integer.getInteger("load.messages", 50);
+    private final long intervalMillis = Long.getLong("load.interval-ms", 20);
+    private final boolean sockJs = Boolean.getBoolean("load.sockjs");
+    private final double maxErrorRate = Double.parseDouble(System.getProperty("load.max-error-rate", "0.01"));
+
+    private final AtomicInteger errors = new AtomicInteger();
+
+    @Test
+    void chatUnderLoad() throws Exception {
+        var expected = clients * messagesPerClient;
+        var latencies = new AtomicLongArray(expected);
+        var received = new AtomicInteger();
+        var lastReceivedAt = new AtomicLong();
+        var allReceived = new CountDownLatch(expected);
+
+        var taskScheduler = new ThreadPoolTaskScheduler();
+        taskScheduler.setPoolSize(4);
+        taskScheduler.initialize();
+
+        var stompClient = sockJs
+                ? new WebSocketStompClient(new SockJsClient(List.of(new WebSocketTransport(new StandardWebSocketClient()))))
+                : new WebSocketStompClient(new StandardWebSocketClient());
+        stompClient.setMessageConverter(new MappingJackson2MessageConverter());
+        stompClient.setTaskScheduler(taskScheduler);
+
+        var sessions = new ArrayList<StompSession>(clients);
+        for (var i = 0; i < clients; i++) {
+            sessions.add(connect(stompClient, "user" + i, (headers, notification) -> {
+                var latency = System.nanoTime() - Long.parseLong(notification.content());
+                var index = received.getAndIncrement();
+                if (index < expected) {
+                    latencies.set(index, latency);
+                }
+                lastReceivedAt.set(System.nanoTime());
+                allReceived.countDown();
+            }));
+        }
+
+        var start = System.nanoTime();
+        try (var senders = Executors.newScheduledThreadPool(Runtime.getRuntime().availableProcessors())) {
+            for (var i = 0; i < clients; i++) {
+                var session = sessions.get(i);
+                var senderId = "user" + i;
+                var recipientId = "user" + ((i + 1) % clients);
+                // Spread the clients over one interval so they do not all send at the same instant
+                var offset = TimeUnit.MILLISECONDS.toNanos(intervalMillis) * i / clients;
+
+                for (var k = 0; k < messagesPerClient; k++) {
+                    var scheduledAt = offset + TimeUnit.MILLISECONDS.toNanos(intervalMillis * k);
+                    senders.schedule(() -> {
+                        try {
+                            session.send("/app/chat", Map.of(
+                                    "senderId", senderId,
+                                    "recipientId", recipientId,
+                                    "content", Long.toString(start + scheduledAt)
+                            ));
+                        } catch (RuntimeException e) {
+                            errors.incrementAndGet();
+                        }
+                    }, start + scheduledAt - System.nanoTime(), TimeUnit.NANOSECONDS);
+                }
+            }
+
+            allReceived.await(intervalMillis * messagesPerClient + 30_000, TimeUnit.MILLISECONDS);
+        }
+
+        sessions.forEach(StompSession::disconnect);
+        taskScheduler.shutdown();
+
+        var count = Math.min(received.get(), expected);
+        var sorted = new long[count];
+        for (var i = 0; i < count; i++) {
+            sorted[i] = latencies.get(i);
+        }
+        Arrays.sort(sorted);
+
+        var elapsedSeconds = (Math.max(lastReceivedAt.get(), start) - start) / 1e9;
+        var lost = expected - count;
+        var errorRate = (double) (errors.get() + lost) / expected;
+
+        System.out.printf("""
+                        Load test: %d clients over %s, %d messages each, one every %d ms
+                          delivered  %d of %d in %.1f s (%.0f msg/s)
+                          latency    p50 %.2f ms, p99 %.2f ms, p99.9 %.2f ms, max %.2f ms
+                          errors     %d, lost %d (%.2f%%)
+                        """,
+                clients, sockJs ? "SockJS" : "WebSocket", messagesPerClient, intervalMillis,
+                count, expected, elapsedSeconds, elapsedSeconds > 0 ? count / elapsedSeconds : 0,
+                percentile(sorted, 0.50), percentile(sorted, 0.99), percentile(sorted, 0.999),
+                percentile(sorted, 1.0),
+                errors.get(), lost, errorRate * 100
+        );
+
+        assertTrue(errorRate <= maxErrorRate, "error rate %.4f above %.4f".formatted(errorRate, maxErrorRate));
+    }
+
+    /**
+     * Connects a client as main.js does: STOMP CONNECT with the user's names, subscriptions to the
+     * private queue and the public topic, then a fetch of the connected users.
+     */
+    private StompSession connect(
+            WebSocketStompClient stompClient,
+            String nickname,
+            NotificationHandler onNotification
+    ) throws Exception {
+        var connectHeaders = new StompHeaders();
+        connectHeaders.add("nickname", nickname);
+        connectHeaders.add("fullname", "Load " + nickname);
+
+        var session = stompClient.connectAsync(
+                "ws://localhost:" + port + (sockJs ? "/ws" : "/ws-native"),
+                new WebSocketHttpHeaders(),
+                connectHeaders,
+                new StompSessionHandlerAdapter() {
+                    @Override
+                    public void handleException(
+                            StompSession session,
+                            StompCommand command,
+                            StompHeaders headers,
+                            byte[] payload,
+                            Throwable exception
+                    ) {
+                        errors.incrementAndGet();
+                    }
+
+                    @Override
+                    public void handleTransportError(StompSession session, Throwable exception) {
+                        errors.incrementAndGet();
+                    }
+                }
+        ).get(30, TimeUnit.SECONDS);
+
+        session.setAutoReceipt(true);
+        var subscribed = new CompletableFuture<Void>();
+        session.subscribe("/user/queue/messages", new StompFrameHandler() {
+            @Override
+            public Type getPayloadType(StompHeaders headers) {
+                return ChatNotification.class;
+            }
+
+            @Override
+            public void handleFrame(StompHeaders headers, Object payload) {
+                onNotification.handle(headers, (ChatNotification) payload);
+            }
+        }).addReceiptTask(() -> subscribed.complete(null));
+        session.subscribe("/topic/public", new StompFrameHandler() {
+            @Override
+            public Type getPayloadType(StompHeaders headers) {
+                return PresenceDelta.class;
+            }
+
+            @Override
+            public void handleFrame(StompHeaders headers, Object payload) {
+            }
+        });
+        subscribed.get(30, TimeUnit.SECONDS);
+
+        RestClient.create("http://localhost:" + port).get().uri("/users").retrieve().toBodilessEntity();
+
+        return session;
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return Double.NaN;
+        }
+        var index = Math.max((int) Math.ceil(quantile * sorted.length) - 1, 0);
+        return sorted[index] / 1e6;
+    }
+
+    /**
+     * Receives the notifications delivered to one client.
+     */
+    @FunctionalInterface
+    private interface NotificationHandler {
+
+        void handle(StompHeaders headers, ChatNotification notification);
+    }
+}
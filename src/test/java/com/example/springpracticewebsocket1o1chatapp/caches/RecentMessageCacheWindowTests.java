@@ -0,0 +1,79 @@
+package com.example.springpracticewebsocket1o1chatapp.caches;
+
+import com.example.springpracticewebsocket1o1chatapp.documents.ChatMessage;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RecentMessageCacheWindowTests {
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 1, 1, 12, 0);
+
+    @Test
+    void mergeSortsByTimestampThenId() {
+        var window = RecentMessageCache.Window.EMPTY.merge(
+                List.of(message("000000000000000000000003", 1), message("000000000000000000000002", 1),
+                        message("000000000000000000000001", 2)),
+                true, false, 10
+        );
+
+        assertEquals(List.of("000000000000000000000002", "000000000000000000000003", "000000000000000000000001"),
+                ids(window));
+    }
+
+    @Test
+    void mergeSkipsMessagesAlreadyHeld() {
+        var window = RecentMessageCache.Window.EMPTY
+                .merge(List.of(message("000000000000000000000001", 1)), false, false, 10)
+                .merge(List.of(message("000000000000000000000001", 1), message("000000000000000000000002", 2)), true, false, 10);
+
+        assertEquals(List.of("000000000000000000000001", "000000000000000000000002"), ids(window));
+    }
+
+    @Test
+    void mergeKeepsNewestUpToCapacity() {
+        var window = RecentMessageCache.Window.EMPTY.merge(
+                List.of(message("000000000000000000000001", 1), message("000000000000000000000002", 2),
+                        message("000000000000000000000003", 3)),
+                true, true, 2
+        );
+
+        assertEquals(List.of("000000000000000000000002", "000000000000000000000003"), ids(window));
+        assertFalse(window.complete());
+    }
+
+    @Test
+    void fillMarksWindowFilledAndWholePageComplete() {
+        var added = RecentMessageCache.Window.EMPTY.merge(List.of(message("000000000000000000000001", 1)), false, false, 10);
+        assertFalse(added.filled());
+
+        var filled = added.merge(List.of(message("000000000000000000000002", 2)), true, true, 10);
+        assertTrue(filled.filled());
+        assertTrue(filled.complete());
+
+        var grown = filled.merge(List.of(message("000000000000000000000003", 3)), false, false, 10);
+        assertTrue(grown.filled());
+        assertTrue(grown.complete());
+    }
+
+    @Test
+    void weightGrowsWithContent() {
+        var small = RecentMessageCache.Window.EMPTY.merge(List.of(message("000000000000000000000001", 1)), false, false, 10);
+        var large = small.merge(List.of(message("000000000000000000000002", 2)), false, false, 10);
+
+        assertTrue(large.weight() > small.weight());
+    }
+
+    private static ChatMessage message(String id, int second) {
+        return new ChatMessage(id, "alice", "alice_bob", "bob", "message " + id, START.plusSeconds(second));
+    }
+
+    private static List<String> ids(RecentMessageCache.Window window) {
+        return window.messages().stream().map(ChatMessage::getId).toList();
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.springpracticewebsocket1o1chatapp.interceptors;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks the token bucket against a hand-driven clock: 10 tokens per second, so one every 100 ms,
+ * with a burst of 3.
+ */
+class TokenBucketTests {
+
+    private static final long INTERVAL = 100_000_000;
+
+    @Test
+    void fullBucketAllowsBurstThenReportsWait() {
+        var bucket = new TokenBucket(10, 3, 0);
+
+        assertEquals(0, bucket.tryAcquire(0));
+        assertEquals(0, bucket.tryAcquire(0));
+        assertEquals(0, bucket.tryAcquire(0));
+        assertEquals(INTERVAL, bucket.tryAcquire(0));
+    }
+
+    @Test
+    void tokenIsAddedAfterInterval() {
+        var bucket = new TokenBucket(10, 3, 0);
+        for (var i = 0; i < 3; i++) {
+            bucket.tryAcquire(0);
+        }
+
+        assertEquals(INTERVAL / 2, bucket.tryAcquire(INTERVAL / 2));
+        assertEquals(0, bucket.tryAcquire(INTERVAL));
+        assertEquals(INTERVAL, bucket.tryAcquire(INTERVAL));
+    }
+
+    @Test
+    void idleBucketRefillsOnlyUpToBurst() {
+        var bucket = new TokenBucket(10, 3, 0);
+        var later = 10 * bucket.refillNanos();
+
+        for (var i = 0; i < 3; i++) {
+            assertEquals(0, bucket.tryAcquire(later));
+        }
+        assertEquals(INTERVAL, bucket.tryAcquire(later));
+    }
+
+    @Test
+    void waitNanosDoesNotTakeToken() {
+        var bucket = new TokenBucket(10, 1, 0);
+
+        assertEquals(0, bucket.waitNanos(0));
+        assertEquals(0, bucket.waitNanos(0));
+        assertEquals(0, bucket.tryAcquire(0));
+        assertEquals(INTERVAL, bucket.waitNanos(0));
+    }
+
+    @Test
+    void releaseGivesTokenBack() {
+        var bucket = new TokenBucket(10, 1, 0);
+        bucket.tryAcquire(0);
+
+        bucket.release();
+
+        assertEquals(0, bucket.tryAcquire(0));
+        assertEquals(INTERVAL, bucket.tryAcquire(0));
+    }
+}
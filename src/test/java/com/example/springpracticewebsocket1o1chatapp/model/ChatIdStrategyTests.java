@@ -0,0 +1,35 @@
+package com.example.springpracticewebsocket1o1chatapp.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class ChatIdStrategyTests {
+
+    @Test
+    void senderFirstKeepsOrder() {
+        assertEquals("alice_bob", ChatIdStrategy.SENDER_FIRST.chatId("alice", "bob"));
+        assertEquals("bob_alice", ChatIdStrategy.SENDER_FIRST.chatId("bob", "alice"));
+    }
+
+    @Test
+    void canonicalIsTheSameFromEitherSide() {
+        assertEquals("alice_bob", ChatIdStrategy.CANONICAL.chatId("alice", "bob"));
+        assertEquals("alice_bob", ChatIdStrategy.CANONICAL.chatId("bob", "alice"));
+    }
+
+    @Test
+    void separatorsWithinIdsAreEscaped() {
+        assertEquals("a\\_b_c", ChatIdStrategy.SENDER_FIRST.chatId("a_b", "c"));
+        assertEquals("a_b\\_c", ChatIdStrategy.SENDER_FIRST.chatId("a", "b_c"));
+        assertNotEquals(ChatIdStrategy.CANONICAL.chatId("a_b", "c"), ChatIdStrategy.CANONICAL.chatId("a", "b_c"));
+    }
+
+    @Test
+    void backslashesWithinIdsAreEscaped() {
+        assertEquals("a\\\\_b", ChatIdStrategy.join("a\\", '_', "b"));
+        assertNotEquals(ChatIdStrategy.join("a\\", '_', "b"), ChatIdStrategy.join("a", '_', "\\b"));
+        assertNotEquals(ChatIdStrategy.join("a\\", ':', "b"), ChatIdStrategy.join("a", ':', "\\:b"));
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.springpracticewebsocket1o1chatapp.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PayloadFormatTests {
+
+    @Test
+    void missingAcceptFallsBackToJson() {
+        assertEquals(PayloadFormat.JSON, PayloadFormat.negotiate(null));
+        assertEquals(PayloadFormat.JSON, PayloadFormat.negotiate(" "));
+    }
+
+    @Test
+    void firstSupportedTypeWins() {
+        assertEquals(PayloadFormat.CBOR, PayloadFormat.negotiate("application/cbor"));
+        assertEquals(PayloadFormat.CBOR, PayloadFormat.negotiate("application/cbor, application/json"));
+        assertEquals(PayloadFormat.JSON, PayloadFormat.negotiate("application/json, application/cbor"));
+        assertEquals(PayloadFormat.CBOR, PayloadFormat.negotiate("text/plain, application/cbor"));
+    }
+
+    @Test
+    void parametersAreIgnored() {
+        assertEquals(PayloadFormat.CBOR, PayloadFormat.negotiate("application/cbor;q=0.9"));
+    }
+
+    @Test
+    void unsupportedTypesFallBackToJson() {
+        assertEquals(PayloadFormat.JSON, PayloadFormat.negotiate("text/plain"));
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.springpracticewebsocket1o1chatapp.services.impl;
+
+import com.example.springpracticewebsocket1o1chatapp.configs.RetentionProperties;
+import com.example.springpracticewebsocket1o1chatapp.documents.ChatMessage;
+import com.example.springpracticewebsocket1o1chatapp.model.RetentionMode;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the archive encoding on its own; moving messages to and reading them from MongoDB is not
+ * exercised here.
+ */
+class ChatArchiveServiceImplTests {
+
+    private final ChatArchiveServiceImpl chatArchiveService = new ChatArchiveServiceImpl(
+            null,
+            new RetentionProperties(RetentionMode.ARCHIVE, Duration.ofDays(90), Duration.ofHours(1), 1000, 500),
+            new SimpleMeterRegistry()
+    );
+
+    @Test
+    void compressedMessagesDecompressUnchanged() {
+        var start = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        var messages = new ArrayList<ChatMessage>();
+        for (var n = 0; n < 100; n++) {
+            var chatMessage = new ChatMessage(
+                    new ObjectId().toHexString(), "alice", "alice_bob", "bob", "message " + n, start.plusSeconds(n));
+            chatMessage.setSeq(n + 1L);
+            if (n % 2 == 0) {
+                chatMessage.setClientMessageId("client-" + n);
+            }
+            messages.add(chatMessage);
+        }
+
+        var compressed = chatArchiveService.compress(messages);
+
+        assertEquals(messages, chatArchiveService.decompress(compressed));
+    }
+
+    @Test
+    void repetitiveHistoryCompresses() {
+        var timestamp = LocalDateTime.now();
+        var messages = new ArrayList<ChatMessage>();
+        for (var n = 0; n < 100; n++) {
+            messages.add(new ChatMessage(
+                    new ObjectId().toHexString(), "alice", "alice_bob", "bob", "on my way", timestamp));
+        }
+
+        var compressed = chatArchiveService.compress(messages);
+
+        // Each message encodes to well over 100 bytes, mostly field names and IDs repeated across messages
+        assertTrue(compressed.length < messages.size() * 50);
+    }
+}
@@ -0,0 +1,180 @@
+package com.example.springpracticewebsocket1o1chatapp.services.impl;
+
+import com.example.springpracticewebsocket1o1chatapp.configs.WriteBehindProperties;
+import com.example.springpracticewebsocket1o1chatapp.documents.ChatMessage;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.Bean;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Writes batches against a MongoDB container and checks how the writer resolves rejected messages:
+ * resends and messages already stored are dropped, clashes on other keys are given up, and other
+ * failures are retried on their own.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@DataMongoTest
+class ChatMessageBatchWriterTests {
+
+    private static final int MAX_RETRIES = 2;
+
+    private static final List<Integer> INSERTED_BATCH_SIZES = new CopyOnWriteArrayList<>();
+
+    @Container
+    @ServiceConnection
+    static MongoDBContainer mongo = new MongoDBContainer("mongo:7");
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    private SimpleMeterRegistry meterRegistry;
+    private ChatMessageBatchWriter batchWriter;
+
+    @BeforeEach
+    void createWriter() {
+        mongoTemplate.remove(new Query(), ChatMessage.class);
+        INSERTED_BATCH_SIZES.clear();
+        meterRegistry = new SimpleMeterRegistry();
+        batchWriter = new ChatMessageBatchWriter(
+                mongoTemplate,
+                new WriteBehindProperties(true, 100, Duration.ofMillis(20), 100, Duration.ofMillis(100),
+                        MAX_RETRIES, Duration.ofMillis(1)),
+                meterRegistry
+        );
+    }
+
+    @AfterEach
+    void removeValidator() {
+        setValidator(new Document());
+    }
+
+    @Test
+    void resendOfStoredMessageIsDropped() {
+        var stored = message("alice_bob", 1L, "client-1");
+        mongoTemplate.insert(stored);
+
+        batchWriter.start();
+        batchWriter.enqueue(message("alice_bob", 2L, "client-1"), false);
+        batchWriter.stop();
+
+        assertEquals(List.of(stored.getId()), storedIds());
+        assertEquals(0, failures());
+    }
+
+    @Test
+    void messageStoredByEarlierAttemptCountsAsWritten() {
+        var stored = message("alice_bob", 1L, null);
+        mongoTemplate.insert(stored);
+
+        batchWriter.start();
+        batchWriter.enqueue(stored, false);
+        batchWriter.stop();
+
+        assertEquals(List.of(stored.getId()), storedIds());
+        assertEquals(0, failures());
+    }
+
+    @Test
+    void seqTakenTwiceIsGivenUp() {
+        var stored = message("alice_bob", 1L, null);
+        mongoTemplate.insert(stored);
+
+        batchWriter.start();
+        batchWriter.enqueue(message("alice_bob", 1L, null), false);
+        batchWriter.stop();
+
+        assertEquals(List.of(stored.getId()), storedIds());
+        assertEquals(1, failures());
+    }
+
+    @Test
+    void failedMessagesAreRetriedOnTheirOwn() {
+        setValidator(new Document("content", new Document("$ne", "rejected")));
+        var accepted = message("alice_bob", 1L, null);
+        var rejected = message("alice_bob", 2L, null);
+        rejected.setContent("rejected");
+
+        batchWriter.start();
+        batchWriter.enqueue(accepted, false);
+        batchWriter.enqueue(rejected, false);
+        batchWriter.stop();
+
+        assertEquals(List.of(accepted.getId()), storedIds());
+        assertEquals(List.of(2, 1, 1), INSERTED_BATCH_SIZES);
+        assertEquals(1, failures());
+    }
+
+    @Test
+    void directInsertOfResendThrowsDuplicateKey() {
+        mongoTemplate.insert(message("alice_bob", 1L, "client-1"));
+
+        // The writer has not been started, so messages are inserted directly as on queue overflow
+        assertThrows(DuplicateKeyException.class,
+                () -> batchWriter.enqueue(message("alice_bob", 2L, "client-1"), false));
+    }
+
+    private static ChatMessage message(String chatId, Long seq, String clientMessageId) {
+        var chatMessage = new ChatMessage(
+                new ObjectId().toHexString(), "alice", chatId, "bob", "hello", LocalDateTime.now());
+        chatMessage.setSeq(seq);
+        chatMessage.setClientMessageId(clientMessageId);
+        return chatMessage;
+    }
+
+    private List<String> storedIds() {
+        return mongoTemplate.find(new Query(), ChatMessage.class).stream().map(ChatMessage::getId).toList();
+    }
+
+    private double failures() {
+        return meterRegistry.get("chat.message.write.behind.failures").counter().count();
+    }
+
+    private void setValidator(Document validator) {
+        mongoTemplate.getDb().runCommand(new Document("collMod", mongoTemplate.getCollectionName(ChatMessage.class))
+                .append("validator", validator));
+    }
+
+    /**
+     * Records the number of chat messages in each insert the application's MongoDB client sends.
+     */
+    @TestConfiguration
+    static class InsertCapture {
+
+        @Bean
+        MongoClientSettingsBuilderCustomizer insertCapture() {
+            return settings -> settings.addCommandListener(new CommandListener() {
+                @Override
+                public void commandStarted(CommandStartedEvent event) {
+                    if (event.getCommandName().equals("insert") && event.getCommand().containsKey("documents")) {
+                        INSERTED_BATCH_SIZES.add(event.getCommand().getArray("documents").size());
+                    }
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.springpracticewebsocket1o1chatapp.services.impl;
+
+import com.example.springpracticewebsocket1o1chatapp.caches.ChatRoomIdCache;
+import com.example.springpracticewebsocket1o1chatapp.caches.RecentMessageCache;
+import com.example.springpracticewebsocket1o1chatapp.caches.RecentMessageIdCache;
+import com.example.springpracticewebsocket1o1chatapp.configs.BrokerProperties;
+import com.example.springpracticewebsocket1o1chatapp.configs.ChatRoomCacheProperties;
+import com.example.springpracticewebsocket1o1chatapp.configs.ChatRoomProperties;
+import com.example.springpracticewebsocket1o1chatapp.configs.MessageDedupProperties;
+import com.example.springpracticewebsocket1o1chatapp.configs.RecentMessageCacheProperties;
+import com.example.springpracticewebsocket1o1chatapp.configs.WriteBehindProperties;
+import com.example.springpracticewebsocket1o1chatapp.documents.ChatMessage;
+import com.example.springpracticewebsocket1o1chatapp.documents.ChatRoom;
+import com.example.springpracticewebsocket1o1chatapp.documents.ChatSequence;
+import com.example.springpracticewebsocket1o1chatapp.exceptions.DuplicateMessageException;
+import com.example.springpracticewebsocket1o1chatapp.model.BrokerMode;
+import com.example.springpracticewebsocket1o1chatapp.model.ChatIdStrategy;
+import com.example.springpracticewebsocket1o1chatapp.repos.ChatMessageRepo;
+import com.example.springpracticewebsocket1o1chatapp.repos.ChatRoomRepo;
+import com.example.springpracticewebsocket1o1chatapp.services.ChatArchiveService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.util.unit.DataSize;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Resends messages against a MongoDB container, from a service whose window of recent client
+ * message IDs has not seen them, as after a restart or on another node.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@DataMongoTest
+class ChatMessageServiceImplTests {
+
+    @Container
+    @ServiceConnection
+    static MongoDBContainer mongo = new MongoDBContainer("mongo:7");
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private ChatMessageRepo chatMessageRepo;
+
+    @Autowired
+    private ChatRoomRepo chatRoomRepo;
+
+    private SimpleMeterRegistry meterRegistry;
+    private ChatMessageBatchWriter batchWriter;
+
+    @BeforeEach
+    void clear() {
+        mongoTemplate.remove(new Query(), ChatMessage.class);
+        mongoTemplate.remove(new Query(), ChatRoom.class);
+        mongoTemplate.remove(new Query(), ChatSequence.class);
+        meterRegistry = new SimpleMeterRegistry();
+        batchWriter = new ChatMessageBatchWriter(
+                mongoTemplate,
+                new WriteBehindProperties(true, 100, Duration.ofMillis(20), 100, Duration.ofMillis(100), 2, Duration.ofMillis(1)),
+                meterRegistry
+        );
+        batchWriter.start();
+    }
+
+    @AfterEach
+    void stopWriter() {
+        batchWriter.stop();
+    }
+
+    @Test
+    void resendIsAnsweredWithStoredMessage() {
+        var stored = service(false).save(message());
+
+        var duplicate = assertThrows(DuplicateMessageException.class, () -> service(false).save(message()));
+
+        assertEquals(stored.getId(), duplicate.getAck().id());
+        assertEquals(stored.getSeq(), duplicate.getAck().seq());
+    }
+
+    @Test
+    void resendInWriteBehindModeIsAnsweredWithStoredMessage() {
+        var stored = service(true).save(message());
+        batchWriter.stop();
+
+        var resending = service(true);
+        batchWriter.start();
+        var duplicate = assertThrows(DuplicateMessageException.class, () -> resending.save(message()));
+
+        assertEquals(stored.getId(), duplicate.getAck().id());
+        assertEquals(stored.getSeq(), duplicate.getAck().seq());
+        // The resend was rejected before it took a sequence number
+        assertEquals(stored.getSeq(), mongoTemplate.findById(stored.getChatId(), ChatSequence.class).getSeq());
+        assertTrue(mongoTemplate.findAll(ChatMessage.class).stream().allMatch(chatMessage -> chatMessage.getId().equals(stored.getId())));
+    }
+
+    /**
+     * Creates a message service with an empty window of recent client message IDs.
+     *
+     * @param writeBehind whether messages are written through the batch writer
+     * @return the service
+     */
+    private ChatMessageServiceImpl service(boolean writeBehind) {
+        var brokerProperties = new BrokerProperties(BrokerMode.SIMPLE, "localhost", 61613, "guest", "guest", "guest", "guest");
+        var beanFactory = new DefaultListableBeanFactory();
+        if (writeBehind) {
+            beanFactory.registerSingleton("chatMessageBatchWriter", batchWriter);
+        }
+        return new ChatMessageServiceImpl(
+                chatMessageRepo,
+                new ChatRoomServiceImpl(
+                        chatRoomRepo,
+                        new ChatRoomIdCache(new ChatRoomCacheProperties(1000, Duration.ofHours(1), Duration.ofSeconds(30)),
+                                meterRegistry),
+                        new ChatRoomProperties(ChatIdStrategy.CANONICAL, false)
+                ),
+                new ChatSequenceServiceImpl(mongoTemplate),
+                new RecentMessageIdCache(new MessageDedupProperties(1000, Duration.ofMinutes(10)), meterRegistry),
+                new RecentMessageCache(
+                        new RecentMessageCacheProperties(true, 50, DataSize.ofMegabytes(1)), brokerProperties, meterRegistry),
+                beanFactory.getBeanProvider(ChatMessageBatchWriter.class),
+                beanFactory.getBeanProvider(ChatArchiveService.class),
+                meterRegistry
+        );
+    }
+
+    private static ChatMessage message() {
+        var chatMessage = new ChatMessage();
+        chatMessage.setSenderId("alice");
+        chatMessage.setRecipientId("bob");
+        chatMessage.setContent("hello");
+        chatMessage.setClientMessageId("client-1");
+        return chatMessage;
+    }
+}
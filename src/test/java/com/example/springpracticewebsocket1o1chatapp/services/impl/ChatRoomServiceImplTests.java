@@ -0,0 +1,117 @@
+package com.example.springpracticewebsocket1o1chatapp.services.impl;
+
+import com.example.springpracticewebsocket1o1chatapp.caches.ChatRoomIdCache;
+import com.example.springpracticewebsocket1o1chatapp.configs.ChatRoomCacheProperties;
+import com.example.springpracticewebsocket1o1chatapp.configs.ChatRoomProperties;
+import com.example.springpracticewebsocket1o1chatapp.documents.ChatMessage;
+import com.example.springpracticewebsocket1o1chatapp.documents.ChatRoom;
+import com.example.springpracticewebsocket1o1chatapp.model.ChatIdStrategy;
+import com.example.springpracticewebsocket1o1chatapp.repos.ChatRoomRepo;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Records messages and read receipts on chat room entries against a MongoDB container and checks
+ * the unread counters they leave.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@DataMongoTest
+class ChatRoomServiceImplTests {
+
+    @Container
+    @ServiceConnection
+    static MongoDBContainer mongo = new MongoDBContainer("mongo:7");
+
+    @Autowired
+    private ChatRoomRepo chatRoomRepo;
+
+    private ChatRoomServiceImpl chatRoomService;
+
+    @BeforeEach
+    void createRooms() {
+        chatRoomRepo.deleteAll();
+        chatRoomService = new ChatRoomServiceImpl(
+                chatRoomRepo,
+                new ChatRoomIdCache(new ChatRoomCacheProperties(1000, Duration.ofHours(1), Duration.ofSeconds(30)),
+                        new SimpleMeterRegistry()),
+                new ChatRoomProperties(ChatIdStrategy.CANONICAL, false)
+        );
+        chatRoomService.createChatId("alice", "bob");
+    }
+
+    @Test
+    void messagesCountAsUnreadForTheRecipientOnly() {
+        record(1);
+        record(2);
+
+        assertEquals(Map.of("alice", 2L), chatRoomService.findUnreadCounts("bob"));
+        assertEquals(Map.of(), chatRoomService.findUnreadCounts("alice"));
+    }
+
+    @Test
+    void readReceiptLeavesLaterMessagesUnread() {
+        record(1);
+        record(2);
+        record(3);
+
+        chatRoomService.markRead("bob", "alice", 2L);
+
+        assertEquals(Map.of("alice", 1L), chatRoomService.findUnreadCounts("bob"));
+        assertEquals(List.of(3L), bobsRoom().getUnreadSeqs());
+    }
+
+    @Test
+    void receiptBeforeMessageIsRecordedCoversIt() {
+        chatRoomService.markRead("bob", "alice", 5L);
+
+        record(4);
+        record(6);
+
+        assertEquals(Map.of("alice", 1L), chatRoomService.findUnreadCounts("bob"));
+    }
+
+    @Test
+    void receiptWithoutSeqResetsCounter() {
+        record(1);
+        record(2);
+
+        chatRoomService.markRead("bob", "alice", null);
+
+        assertEquals(Map.of(), chatRoomService.findUnreadCounts("bob"));
+    }
+
+    @Test
+    void lastMessageKeepsTheLatestRecordedOutOfOrder() {
+        record(2);
+        record(1);
+
+        assertEquals(2L, bobsRoom().getLastMessage().seq());
+        assertEquals(Map.of("alice", 2L), chatRoomService.findUnreadCounts("bob"));
+    }
+
+    private void record(long seq) {
+        var chatMessage = new ChatMessage(
+                new ObjectId().toHexString(), "alice", "alice_bob", "bob", "message " + seq, LocalDateTime.now());
+        chatMessage.setSeq(seq);
+        chatRoomService.recordMessage(chatMessage);
+    }
+
+    private ChatRoom bobsRoom() {
+        return chatRoomRepo.findBySenderIdAndRecipientId("bob", "alice").orElseThrow();
+    }
+}
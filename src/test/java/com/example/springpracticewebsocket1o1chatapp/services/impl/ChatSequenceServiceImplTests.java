@@ -0,0 +1,67 @@
+package com.example.springpracticewebsocket1o1chatapp.services.impl;
+
+import com.example.springpracticewebsocket1o1chatapp.documents.ChatSequence;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Assigns sequence numbers against a MongoDB container.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@DataMongoTest
+class ChatSequenceServiceImplTests {
+
+    @Container
+    @ServiceConnection
+    static MongoDBContainer mongo = new MongoDBContainer("mongo:7");
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    private ChatSequenceServiceImpl chatSequenceService;
+
+    @BeforeEach
+    void createService() {
+        mongoTemplate.remove(new Query(), ChatSequence.class);
+        chatSequenceService = new ChatSequenceServiceImpl(mongoTemplate);
+    }
+
+    @Test
+    void numbersStartAtOneAndCountPerChat() {
+        assertEquals(1, chatSequenceService.next("alice_bob"));
+        assertEquals(2, chatSequenceService.next("alice_bob"));
+        assertEquals(1, chatSequenceService.next("alice_carol"));
+        assertEquals(3, chatSequenceService.next("alice_bob"));
+    }
+
+    @Test
+    void concurrentSendersGetDistinctConsecutiveNumbers() throws Exception {
+        var taken = new ArrayList<Long>();
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            var pending = new ArrayList<Future<Long>>();
+            for (var n = 0; n < 200; n++) {
+                pending.add(executor.submit(() -> chatSequenceService.next("alice_bob")));
+            }
+            for (var next : pending) {
+                taken.add(next.get());
+            }
+        }
+
+        assertEquals(LongStream.rangeClosed(1, 200).boxed().toList(), taken.stream().sorted().toList());
+    }
+}
@@ -0,0 +1,207 @@
+package com.example.springpracticewebsocket1o1chatapp.services.impl;
+
+import com.example.springpracticewebsocket1o1chatapp.caches.ChatRoomIdCache;
+import com.example.springpracticewebsocket1o1chatapp.caches.GroupMemberCache;
+import com.example.springpracticewebsocket1o1chatapp.caches.PresenceRegistry;
+import com.example.springpracticewebsocket1o1chatapp.caches.RecentMessageCache;
+import com.example.springpracticewebsocket1o1chatapp.caches.RecentMessageIdCache;
+import com.example.springpracticewebsocket1o1chatapp.configs.BrokerProperties;
+import com.example.springpracticewebsocket1o1chatapp.configs.ChatRoomCacheProperties;
+import com.example.springpracticewebsocket1o1chatapp.configs.ChatRoomProperties;
+import com.example.springpracticewebsocket1o1chatapp.configs.GroupProperties;
+import com.example.springpracticewebsocket1o1chatapp.configs.MessageDedupProperties;
+import com.example.springpracticewebsocket1o1chatapp.configs.RecentMessageCacheProperties;
+import com.example.springpracticewebsocket1o1chatapp.documents.ChatMessage;
+import com.example.springpracticewebsocket1o1chatapp.documents.ChatSequence;
+import com.example.springpracticewebsocket1o1chatapp.documents.GroupRoom;
+import com.example.springpracticewebsocket1o1chatapp.model.BrokerMode;
+import com.example.springpracticewebsocket1o1chatapp.model.ChatIdStrategy;
+import com.example.springpracticewebsocket1o1chatapp.model.ChatNotification;
+import com.example.springpracticewebsocket1o1chatapp.repos.ChatMessageRepo;
+import com.example.springpracticewebsocket1o1chatapp.repos.ChatRoomRepo;
+import com.example.springpracticewebsocket1o1chatapp.repos.GroupRoomRepo;
+import com.example.springpracticewebsocket1o1chatapp.services.ChatArchiveService;
+import com.example.springpracticewebsocket1o1chatapp.services.NotificationService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.socket.messaging.DefaultSimpUserRegistry;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Sends group messages against a MongoDB container and checks that each is stored once and handed
+ * to the notification service once, for the online members other than the sender.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@DataMongoTest
+class GroupServiceImplTests {
+
+    private static final int MAX_MEMBERS = 5;
+
+    @Container
+    @ServiceConnection
+    static MongoDBContainer mongo = new MongoDBContainer("mongo:7");
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private ChatMessageRepo chatMessageRepo;
+
+    @Autowired
+    private ChatRoomRepo chatRoomRepo;
+
+    @Autowired
+    private GroupRoomRepo groupRoomRepo;
+
+    private final List<Delivery> deliveries = new ArrayList<>();
+
+    private GroupServiceImpl groupService;
+    private String groupId;
+
+    @BeforeEach
+    void createGroup() {
+        mongoTemplate.remove(new Query(), ChatMessage.class);
+        mongoTemplate.remove(new Query(), ChatSequence.class);
+        mongoTemplate.remove(new Query(), GroupRoom.class);
+
+        var meterRegistry = new SimpleMeterRegistry();
+        var brokerProperties = new BrokerProperties(BrokerMode.SIMPLE, "localhost", 61613, "guest", "guest", "guest", "guest");
+        var chatMessageService = new ChatMessageServiceImpl(
+                chatMessageRepo,
+                new ChatRoomServiceImpl(
+                        chatRoomRepo,
+                        new ChatRoomIdCache(new ChatRoomCacheProperties(1000, Duration.ofHours(1), Duration.ofSeconds(30)),
+                                meterRegistry),
+                        new ChatRoomProperties(ChatIdStrategy.CANONICAL, false)
+                ),
+                new ChatSequenceServiceImpl(mongoTemplate),
+                new RecentMessageIdCache(new MessageDedupProperties(1000, Duration.ofMinutes(10)), meterRegistry),
+                new RecentMessageCache(
+                        new RecentMessageCacheProperties(true, 50, DataSize.ofMegabytes(1)), brokerProperties, meterRegistry),
+                new DefaultListableBeanFactory().getBeanProvider(ChatMessageBatchWriter.class),
+                new DefaultListableBeanFactory().getBeanProvider(ChatArchiveService.class),
+                meterRegistry
+        );
+
+        var presenceRegistry = new PresenceRegistry(new DefaultSimpUserRegistry(), brokerProperties, meterRegistry);
+        for (var nickName : List.of("alice", "bob", "carol", "erin")) {
+            presenceRegistry.addSession(nickName, null, nickName + "-session");
+        }
+
+        var groupProperties = new GroupProperties(MAX_MEMBERS, 1000, Duration.ofMinutes(1));
+        groupService = new GroupServiceImpl(
+                groupRoomRepo,
+                mongoTemplate,
+                new GroupMemberCache(groupProperties, meterRegistry),
+                presenceRegistry,
+                chatMessageService,
+                new RecordingNotificationService(deliveries),
+                groupProperties
+        );
+        groupId = groupService.createGroup("Lunch", "alice", List.of("bob", "carol", "dave")).getId();
+    }
+
+    @Test
+    void messageIsStoredOnceAndSentToOnlineMembersExceptSender() {
+        var saved = groupService.sendMessage(groupId, message("alice", "hello"));
+
+        assertEquals(List.of(saved.getId()), chatMessageRepo.findByChatId(groupId).stream().map(ChatMessage::getId).toList());
+        assertEquals(groupId, saved.getRecipientId());
+        assertEquals(1L, saved.getSeq());
+
+        assertEquals(1, deliveries.size());
+        var delivery = deliveries.getFirst();
+        assertEquals(Set.of("bob", "carol"), Set.copyOf(delivery.userIds()));
+        assertEquals("/queue/messages", delivery.destination());
+        assertEquals(new ChatNotification(saved.getId(), "alice", groupId, "hello", 1L), delivery.payload());
+    }
+
+    @Test
+    void nonMemberCannotSend() {
+        assertThrows(RuntimeException.class, () -> groupService.sendMessage(groupId, message("erin", "hello")));
+
+        assertTrue(chatMessageRepo.findByChatId(groupId).isEmpty());
+        assertTrue(deliveries.isEmpty());
+    }
+
+    @Test
+    void addedMemberReceivesLaterMessages() {
+        groupService.sendMessage(groupId, message("alice", "before"));
+        groupService.addMember(groupId, "erin");
+        groupService.sendMessage(groupId, message("alice", "after"));
+
+        assertEquals(Set.of("bob", "carol"), Set.copyOf(deliveries.get(0).userIds()));
+        assertEquals(Set.of("bob", "carol", "erin"), Set.copyOf(deliveries.get(1).userIds()));
+    }
+
+    @Test
+    void removedMemberStopsReceiving() {
+        groupService.sendMessage(groupId, message("alice", "before"));
+        groupService.removeMember(groupId, "bob");
+        groupService.sendMessage(groupId, message("alice", "after"));
+
+        assertEquals(Set.of("carol"), Set.copyOf(deliveries.get(1).userIds()));
+    }
+
+    @Test
+    void fullGroupRejectsNewMember() {
+        groupService.addMember(groupId, "erin");
+
+        assertThrows(RuntimeException.class, () -> groupService.addMember(groupId, "frank"));
+        assertEquals(MAX_MEMBERS, groupRoomRepo.findById(groupId).orElseThrow().getMemberIds().size());
+    }
+
+    private static ChatMessage message(String senderId, String content) {
+        var chatMessage = new ChatMessage();
+        chatMessage.setSenderId(senderId);
+        chatMessage.setContent(content);
+        return chatMessage;
+    }
+
+    /**
+     * One notification handed to a set of users.
+     */
+    private record Delivery(Collection<String> userIds, String destination, Object payload) {
+    }
+
+    /**
+     * Records the notifications sent to groups of users instead of delivering them.
+     */
+    private record RecordingNotificationService(List<Delivery> deliveries) implements NotificationService {
+
+        @Override
+        public void sendToUser(String userId, String destination, Object payload) {
+            deliveries.add(new Delivery(List.of(userId), destination, payload));
+        }
+
+        @Override
+        public void sendToUsers(Collection<String> userIds, String destination, Object payload) {
+            deliveries.add(new Delivery(List.copyOf(userIds), destination, payload));
+        }
+
+        @Override
+        public void sendToSession(String userId, String sessionId, String destination, Object payload) {
+            deliveries.add(new Delivery(List.of(userId), destination, payload));
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.springpracticewebsocket1o1chatapp.services.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SearchServiceImplTests {
+
+    @Test
+    void termsLeaveOutExclusionsAndPunctuation() {
+        assertEquals(List.of("lunch", "tomorrow"), SearchServiceImpl.terms("Lunch, -dinner tomorrow?"));
+    }
+
+    @Test
+    void snippetOfMissingContentIsEmpty() {
+        assertEquals("", SearchServiceImpl.snippet(null, List.of("lunch"), 20));
+    }
+
+    @Test
+    void shortContentIsReturnedWhole() {
+        assertEquals("see you at lunch", SearchServiceImpl.snippet("see you at lunch", List.of("lunch"), 20));
+    }
+
+    @Test
+    void snippetIsCutAroundFirstMatch() {
+        var content = "x".repeat(200) + " needle " + "y".repeat(200);
+
+        var snippet = SearchServiceImpl.snippet(content, List.of("needle"), 20);
+
+        assertEquals("...xxxxx needle yyyyyyy...", snippet);
+    }
+
+    @Test
+    void matchIsCaseInsensitive() {
+        var content = "a".repeat(100) + " Needle " + "b".repeat(100);
+
+        assertTrue(SearchServiceImpl.snippet(content, List.of("needle"), 20).contains("Needle"));
+    }
+
+    @Test
+    void snippetWithoutMatchStartsAtBeginning() {
+        var content = "running late " + "z".repeat(100);
+
+        var snippet = SearchServiceImpl.snippet(content, List.of("run"), 20);
+        assertTrue(snippet.startsWith("running"));
+
+        var unmatched = SearchServiceImpl.snippet(content, List.of("train"), 20);
+        assertEquals("running late zzzzzzz...", unmatched);
+    }
+}
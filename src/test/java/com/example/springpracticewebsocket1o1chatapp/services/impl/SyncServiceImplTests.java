@@ -0,0 +1,136 @@
+package com.example.springpracticewebsocket1o1chatapp.services.impl;
+
+import com.example.springpracticewebsocket1o1chatapp.documents.ChatMessage;
+import com.example.springpracticewebsocket1o1chatapp.documents.GroupRoom;
+import com.example.springpracticewebsocket1o1chatapp.documents.SyncCursor;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Syncs and acknowledges cursors against a MongoDB container.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@DataMongoTest
+class SyncServiceImplTests {
+
+    @Container
+    @ServiceConnection
+    static MongoDBContainer mongo = new MongoDBContainer("mongo:7");
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    private SyncServiceImpl syncService;
+
+    @BeforeEach
+    void createService() {
+        mongoTemplate.remove(new Query(), ChatMessage.class);
+        mongoTemplate.remove(new Query(), GroupRoom.class);
+        mongoTemplate.remove(new Query(), SyncCursor.class);
+        syncService = new SyncServiceImpl(mongoTemplate);
+    }
+
+    @Test
+    void firstSyncStartsAtNewestMessage() {
+        store("alice", "bob");
+        var newest = store("alice", "bob");
+
+        var page = syncService.sync("bob", null, 10);
+
+        assertEquals(List.of(), page.messages());
+        assertEquals(newest, page.cursor());
+        assertEquals(newest, mongoTemplate.findById("bob", SyncCursor.class).getMessageId());
+    }
+
+    @Test
+    void userWithoutMessagesHasNoCursor() {
+        var page = syncService.sync("bob", null, 10);
+
+        assertEquals(List.of(), page.messages());
+        assertNull(page.cursor());
+    }
+
+    @Test
+    void pagesFollowTheCursorInIdOrder() {
+        var start = store("alice", "bob");
+        var first = store("alice", "bob");
+        var second = store("carol", "bob");
+        var third = store("alice", "bob");
+
+        var page = syncService.sync("bob", start, 2);
+        assertEquals(List.of(first, second), ids(page.messages()));
+        assertEquals(second, page.cursor());
+        assertTrue(page.hasMore());
+
+        page = syncService.sync("bob", page.cursor(), 2);
+        assertEquals(List.of(third), ids(page.messages()));
+        assertEquals(third, page.cursor());
+        assertFalse(page.hasMore());
+
+        page = syncService.sync("bob", page.cursor(), 2);
+        assertEquals(List.of(), page.messages());
+        assertEquals(third, page.cursor());
+    }
+
+    @Test
+    void groupMessagesAreIncludedExceptOwn() {
+        mongoTemplate.insert(new GroupRoom("group", "Group", "alice", Set.of("alice", "bob")));
+        var start = store("alice", "bob");
+        var fromAlice = store("alice", "group");
+        store("bob", "group");
+        store("alice", "carol");
+
+        var page = syncService.sync("bob", start, 10);
+
+        assertEquals(List.of(fromAlice), ids(page.messages()));
+    }
+
+    @Test
+    void acknowledgedCursorIsUsedWhenNoneIsGiven() {
+        var start = store("alice", "bob");
+        var next = store("alice", "bob");
+
+        syncService.acknowledge("bob", start);
+
+        assertEquals(List.of(next), ids(syncService.sync("bob", null, 10).messages()));
+    }
+
+    @Test
+    void staleAcknowledgementIsIgnored() {
+        var older = store("alice", "bob");
+        var newer = store("alice", "bob");
+
+        syncService.acknowledge("bob", newer);
+        syncService.acknowledge("bob", older);
+
+        assertEquals(newer, mongoTemplate.findById("bob", SyncCursor.class).getMessageId());
+    }
+
+    private String store(String senderId, String recipientId) {
+        var chatMessage = new ChatMessage(
+                new ObjectId().toHexString(), senderId, senderId + "_" + recipientId, recipientId, "hello", LocalDateTime.now());
+        return mongoTemplate.insert(chatMessage).getId();
+    }
+
+    private static List<String> ids(List<ChatMessage> messages) {
+        return messages.stream().map(ChatMessage::getId).toList();
+    }
+}